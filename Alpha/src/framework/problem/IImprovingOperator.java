@@ -0,0 +1,25 @@
+package framework.problem;
+
+import java.util.Random;
+
+/**
+ * Operator that can also descend to a local optimum of its neighbourhood on
+ * its own, which is much faster than proposing random moves once few moves
+ * improve. Used by the iterated local search.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public interface IImprovingOperator<S> extends IOperator<S> {
+
+	/**
+	 * Applies improving moves of this operator until none is left.
+	 * 
+	 * @param solution
+	 *            the solution to improve
+	 * @param random
+	 *            random source of the calling search
+	 * @return the cost difference of all applied moves, 0 or negative
+	 */
+	double improve(S solution, Random random);
+}
@@ -1,5 +1,64 @@
 package framework.problem;
 
-public interface IOperator {
+import java.util.Random;
 
+/**
+ * Neighbourhood move of a local search. A move is first proposed, which only
+ * evaluates its cost difference, and applied only if the search accepts it.
+ * Operators are not thread-safe, see {@link IProblem#createOperators()}.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public interface IOperator<S> {
+
+	/**
+	 * Selects a random move of this operator and evaluates it without changing
+	 * the solution.
+	 * 
+	 * @param solution
+	 *            the solution to change
+	 * @param random
+	 *            random source of the calling search
+	 * @return the cost difference of the move, {@link Double#NaN} if no move is
+	 *         possible and {@link Double#POSITIVE_INFINITY} if the move would
+	 *         make the solution infeasible
+	 */
+	double propose(S solution, Random random);
+
+	/**
+	 * Applies the move of the last call to {@link #propose(Object, Random)}.
+	 * The solution must not have been changed in between.
+	 * 
+	 * @param solution
+	 *            the solution passed to propose
+	 */
+	void apply(S solution);
+
+	/**
+	 * Returns the hash of the solution attribute the last proposed move
+	 * creates, e.g. an order in a route. Used by the tabu search, which
+	 * forbids moves recreating recently removed attributes.
+	 * 
+	 * @return the hash of the created attribute
+	 */
+	long getMoveHash();
+
+	/**
+	 * Returns the hash of the solution attribute the last proposed move
+	 * removes. A later move with this {@link #getMoveHash()} would undo it.
+	 * 
+	 * @return the hash of the removed attribute
+	 */
+	long getReverseMoveHash();
+
+	/**
+	 * @return a new operator of the same kind and configuration
+	 */
+	IOperator<S> copy();
+
+	/**
+	 * @return the name of this operator for statistics
+	 */
+	String getName();
 }
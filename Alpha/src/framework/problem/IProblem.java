@@ -1,5 +1,47 @@
 package framework.problem;
 
-public interface IProblem {
+import java.util.List;
+import java.util.Random;
 
+/**
+ * An optimization problem as seen by the search algorithms. The problem data
+ * is read-only and shared by all searches, the solutions are owned by one
+ * search each.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public interface IProblem<S> {
+
+	/**
+	 * @param random
+	 *            random source of the calling search
+	 * @return a new solution to start a search from
+	 */
+	S createInitialSolution(Random random);
+
+	/**
+	 * Calculates the costs of the solution. Must be consistent with the cost
+	 * differences returned by the operators.
+	 * 
+	 * @param solution
+	 *            the solution to evaluate
+	 * @return the costs of the solution, lower is better
+	 */
+	double getCost(S solution);
+
+	/**
+	 * @param solution
+	 *            the solution to copy
+	 * @return a copy of the solution that can be changed independently
+	 */
+	S copySolution(S solution);
+
+	/**
+	 * Creates the operators for one search. Operators keep the state of the
+	 * last proposed move, so every search needs its own.
+	 * 
+	 * @return new operator instances
+	 */
+	List<IOperator<S>> createOperators();
 }
@@ -1,7 +1,46 @@
 package framework.problem.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import framework.problem.IOperator;
 import framework.problem.IProblem;
+import service.exceptions.InvalidArgumentException;
+
+/**
+ * Base class of the problems. Keeps the configured operators as prototypes
+ * and hands out copies of them to every search.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public abstract class Problem<S> implements IProblem<S> {
+
+	/** the operator prototypes */
+	private final List<IOperator<S>> operators;
+
+	/**
+	 * @param operators
+	 *            the operators the searches use
+	 * @throws InvalidArgumentException
+	 *             if no operator is given
+	 */
+	protected Problem(List<IOperator<S>> operators) {
+		if (operators == null || operators.isEmpty()) {
+			throw new InvalidArgumentException("No operators given");
+		}
+		this.operators = new ArrayList<IOperator<S>>(operators);
+	}
+
+	@Override
+	public List<IOperator<S>> createOperators() {
+		List<IOperator<S>> result = new ArrayList<IOperator<S>>(
+				operators.size());
 
-public class Problem implements IProblem {
+		for (IOperator<S> operator : operators) {
+			result.add(operator.copy());
+		}
 
+		return result;
+	}
 }
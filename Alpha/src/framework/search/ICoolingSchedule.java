@@ -0,0 +1,20 @@
+package framework.search;
+
+/**
+ * Cooling schedule of the simulated annealing: the temperature as function of
+ * the used share of the search budget.
+ */
+public interface ICoolingSchedule {
+
+	/**
+	 * @param initialTemperature
+	 *            the temperature at the start of the search
+	 * @param finalTemperature
+	 *            the temperature at the end of the search
+	 * @param progress
+	 *            the used share of the budget between 0 and 1
+	 * @return the temperature
+	 */
+	double getTemperature(double initialTemperature, double finalTemperature,
+			double progress);
+}
@@ -0,0 +1,69 @@
+package framework.search;
+
+/**
+ * A local search improving one solution of a problem. A search instance runs
+ * in one thread; parallel searches each need their own instance.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public interface ISearch<S> {
+
+	/**
+	 * Runs the search until one of its limits is reached.
+	 * 
+	 * @param initialSolution
+	 *            the solution to start from, owned by the search from now on
+	 * @return the best solution found
+	 */
+	S search(S initialSolution);
+
+	/**
+	 * Asks a running search to stop after the current iteration. May be called
+	 * from any thread.
+	 */
+	void stop();
+
+	/**
+	 * @return the best solution found so far
+	 */
+	S getBestSolution();
+
+	/**
+	 * @return the costs of the best solution found so far
+	 */
+	double getBestCost();
+
+	/**
+	 * @return the statistics of the last run
+	 */
+	SearchStatistics getStatistics();
+
+	/**
+	 * @return the strategy of this search, one of the
+	 *         OPTIMIZATION_LOCALSEARCHSTRATEGY_* values
+	 */
+	String getStrategy();
+
+	/**
+	 * @param maxIterations
+	 *            the maximum number of iterations, Long.MAX_VALUE for no limit
+	 */
+	void setMaxIterations(long maxIterations);
+
+	/**
+	 * @param timeLimit
+	 *            the maximum run time in ms, Long.MAX_VALUE for no limit
+	 */
+	void setTimeLimit(long timeLimit);
+
+	/**
+	 * Lets the search exchange its best solution with other searches.
+	 * 
+	 * @param sharedBest
+	 *            the best solution of all searches
+	 * @param shareInterval
+	 *            the number of iterations between two exchanges
+	 */
+	void setSharedBest(SharedBest<S> sharedBest, long shareInterval);
+}
@@ -0,0 +1,144 @@
+package framework.search;
+
+/**
+ * Counters of a search run. Not thread-safe, every search keeps its own and
+ * summaries are built with {@link #add(SearchStatistics)}.
+ */
+public class SearchStatistics {
+
+	/** number of iterations */
+	private long iterations;
+
+	/** number of proposed moves */
+	private long proposedMoves;
+
+	/** number of accepted moves */
+	private long acceptedMoves;
+
+	/** number of times a new best solution was found */
+	private long improvements;
+
+	/** number of restarts and adoptions of a shared best solution */
+	private long restarts;
+
+	/** run time in ns */
+	private long elapsedNanos;
+
+	/** start of the current run */
+	private long startNanos;
+
+	/**
+	 * Resets all counters and starts the time measurement.
+	 */
+	public void start() {
+		iterations = 0;
+		proposedMoves = 0;
+		acceptedMoves = 0;
+		improvements = 0;
+		restarts = 0;
+		elapsedNanos = 0;
+		startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Stops the time measurement.
+	 */
+	public void stop() {
+		elapsedNanos = System.nanoTime() - startNanos;
+	}
+
+	public void countIteration() {
+		iterations++;
+	}
+
+	public void countProposedMove() {
+		proposedMoves++;
+	}
+
+	public void countAcceptedMove() {
+		acceptedMoves++;
+	}
+
+	public void countImprovement() {
+		improvements++;
+	}
+
+	public void countRestart() {
+		restarts++;
+	}
+
+	/**
+	 * Adds the counters of the other statistics to these, the run times are
+	 * summed up as well.
+	 * 
+	 * @param other
+	 *            the statistics to add
+	 */
+	public void add(SearchStatistics other) {
+		iterations += other.iterations;
+		proposedMoves += other.proposedMoves;
+		acceptedMoves += other.acceptedMoves;
+		improvements += other.improvements;
+		restarts += other.restarts;
+		elapsedNanos += other.elapsedNanos;
+	}
+
+	public long getIterations() {
+		return iterations;
+	}
+
+	public long getProposedMoves() {
+		return proposedMoves;
+	}
+
+	public long getAcceptedMoves() {
+		return acceptedMoves;
+	}
+
+	public long getImprovements() {
+		return improvements;
+	}
+
+	public long getRestarts() {
+		return restarts;
+	}
+
+	/**
+	 * @return the run time in ms, up to now while running
+	 */
+	public long getElapsedMillis() {
+		return getElapsedNanos() / 1000000;
+	}
+
+	/**
+	 * @return the share of proposed moves that were accepted
+	 */
+	public double getAcceptanceRate() {
+		return proposedMoves > 0 ? (double) acceptedMoves / proposedMoves : 0;
+	}
+
+	/**
+	 * @return the number of proposed moves per second of run time
+	 */
+	public double getMovesPerSecond() {
+		long nanos = getElapsedNanos();
+		return nanos > 0 ? proposedMoves * 1.0E9 / nanos : 0;
+	}
+
+	private long getElapsedNanos() {
+		if (elapsedNanos > 0 || startNanos == 0) {
+			return elapsedNanos;
+		}
+		return System.nanoTime() - startNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "iterations: " + iterations + ", moves: " + proposedMoves
+				+ ", accepted: " + acceptedMoves + " ("
+				+ Math.round(getAcceptanceRate() * 1000) / 10.0
+				+ "%), improvements: " + improvements + ", restarts: "
+				+ restarts + ", time: " + getElapsedMillis() + " ms, "
+				+ Math.round(getMovesPerSecond()) + " moves/s";
+	}
+}
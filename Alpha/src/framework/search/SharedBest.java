@@ -0,0 +1,75 @@
+package framework.search;
+
+import framework.problem.IProblem;
+
+/**
+ * The best solution found by any of several parallel searches. The solution
+ * is stored and handed out as copy, so the searches never share a solution
+ * object they change.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public class SharedBest<S> {
+
+	/** the problem copying the solutions */
+	private final IProblem<S> problem;
+
+	/** the best solution, only accessed while holding the lock */
+	private S solution;
+
+	/** the costs of the best solution */
+	private volatile double cost = Double.POSITIVE_INFINITY;
+
+	/** number of times a better solution was offered */
+	private int updates;
+
+	/**
+	 * @param problem
+	 *            the problem copying the solutions
+	 */
+	public SharedBest(IProblem<S> problem) {
+		this.problem = problem;
+	}
+
+	/**
+	 * Stores a copy of the solution if it is better than the current best.
+	 * 
+	 * @param candidate
+	 *            the solution to offer
+	 * @param candidateCost
+	 *            the costs of the solution
+	 * @return true if the solution is the new best
+	 */
+	public synchronized boolean offer(S candidate, double candidateCost) {
+		if (candidateCost < cost) {
+			solution = problem.copySolution(candidate);
+			cost = candidateCost;
+			updates++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the costs of the best solution, Double.POSITIVE_INFINITY if none
+	 *         was offered yet
+	 */
+	public double getCost() {
+		return cost;
+	}
+
+	/**
+	 * @return a copy of the best solution, null if none was offered yet
+	 */
+	public synchronized S copySolution() {
+		return solution != null ? problem.copySolution(solution) : null;
+	}
+
+	/**
+	 * @return number of times a better solution was offered
+	 */
+	public synchronized int getUpdates() {
+		return updates;
+	}
+}
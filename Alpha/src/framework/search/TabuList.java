@@ -0,0 +1,112 @@
+package framework.search;
+
+import service.util.LongHashSet;
+
+/**
+ * Tabu list of attribute hashes: a ring buffer holding the hashes in the
+ * order they were added, backed by a {@link LongHashSet} for the lookup. The
+ * oldest hash is dropped when the tenure is reached. Adding and checking are
+ * allocation-free and constant time for any tenure.
+ */
+public class TabuList {
+
+	/** the hashes in the order they were added */
+	private final long[] ring;
+
+	/** the hashes for the lookup */
+	private final LongHashSet set;
+
+	/** index of the oldest hash in the ring */
+	private int head;
+
+	/** number of hashes in the list */
+	private int size;
+
+	/** number of iterations a hash stays tabu */
+	private int tenure;
+
+	/**
+	 * @param maxTenure
+	 *            the largest tenure the list will be set to
+	 */
+	public TabuList(int maxTenure) {
+		ring = new long[Math.max(maxTenure, 1)];
+		set = new LongHashSet(ring.length);
+		tenure = ring.length;
+	}
+
+	/**
+	 * Makes the hash tabu, dropping the oldest one if the list is full.
+	 * 
+	 * @param hash
+	 *            the hash to add
+	 */
+	public void add(long hash) {
+		if (tenure == 0) {
+			return;
+		}
+		while (size >= tenure) {
+			removeOldest();
+		}
+
+		int tail = head + size;
+		if (tail >= ring.length) {
+			tail -= ring.length;
+		}
+		ring[tail] = hash;
+		set.add(hash);
+		size++;
+	}
+
+	/**
+	 * @param hash
+	 *            the hash to check
+	 * @return true if the hash is tabu
+	 */
+	public boolean contains(long hash) {
+		return set.contains(hash);
+	}
+
+	/**
+	 * Changes the number of hashes kept, dropping the oldest ones if the list
+	 * is too long.
+	 * 
+	 * @param tenure
+	 *            the new tenure, at most the maximum tenure
+	 */
+	public void setTenure(int tenure) {
+		this.tenure = Math.max(0, Math.min(tenure, ring.length));
+		while (size > this.tenure) {
+			removeOldest();
+		}
+	}
+
+	/**
+	 * @return number of iterations a hash stays tabu
+	 */
+	public int getTenure() {
+		return tenure;
+	}
+
+	/**
+	 * @return number of hashes in the list
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all hashes.
+	 */
+	public void clear() {
+		set.clear();
+		head = 0;
+		size = 0;
+	}
+
+	private void removeOldest() {
+		set.remove(ring[head]);
+		head = head + 1 == ring.length ? 0 : head + 1;
+		size--;
+	}
+}
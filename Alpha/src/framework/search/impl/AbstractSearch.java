@@ -0,0 +1,343 @@
+package framework.search.impl;
+
+import java.util.List;
+import java.util.Random;
+
+import framework.problem.IImprovingOperator;
+import framework.problem.IOperator;
+import framework.problem.IProblem;
+import framework.search.ISearch;
+import framework.search.SearchStatistics;
+import framework.search.SharedBest;
+
+/**
+ * Base class of the searches. Runs the iterations, keeps track of the current
+ * and the best solution and exchanges the best solution with the other
+ * searches. Subclasses implement one iteration in {@link #step()} using
+ * {@link #proposeMove()} and {@link #acceptMove(double)}.
+ * <p>
+ * The current costs are updated by the cost differences of the moves and
+ * recalculated at every exchange, so rounding errors do not add up.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public abstract class AbstractSearch<S> implements ISearch<S> {
+
+	/** cost differences below are treated as equal */
+	protected static final double COST_EPSILON = 1.0E-6;
+
+	/** number of iterations between two checks of the time limit */
+	private static final int TIME_CHECK_INTERVAL = 64;
+
+	/** the problem to solve */
+	protected final IProblem<S> problem;
+
+	/** the random source of this search */
+	protected final Random random;
+
+	/** the operators of this search */
+	protected final List<IOperator<S>> operators;
+
+	/** the counters of the last run */
+	protected final SearchStatistics statistics = new SearchStatistics();
+
+	/** the solution the search is at */
+	protected S current;
+
+	/** the costs of the current solution */
+	protected double currentCost;
+
+	/** the best solution found */
+	private S best;
+
+	/** the costs of the best solution */
+	private double bestCost = Double.POSITIVE_INFINITY;
+
+	/** the operator of the last proposed move */
+	private IOperator<S> proposedOperator;
+
+	/** the strategy name of this search */
+	private final String strategy;
+
+	private long maxIterations = Long.MAX_VALUE;
+
+	private long timeLimit = Long.MAX_VALUE;
+
+	/** the time the run started at */
+	private long startNanos;
+
+	/** the time the run has to stop at */
+	private long deadlineNanos;
+
+	private SharedBest<S> sharedBest;
+
+	private long shareInterval = Long.MAX_VALUE;
+
+	private volatile boolean stopped;
+
+	/**
+	 * @param strategy
+	 *            the strategy name of this search
+	 * @param problem
+	 *            the problem to solve
+	 * @param random
+	 *            the random source of this search
+	 */
+	protected AbstractSearch(String strategy, IProblem<S> problem,
+			Random random) {
+		this.strategy = strategy;
+		this.problem = problem;
+		this.random = random;
+		this.operators = problem.createOperators();
+	}
+
+	@Override
+	public S search(S initialSolution) {
+		stopped = false;
+		statistics.start();
+		startNanos = System.nanoTime();
+		deadlineNanos = timeLimit == Long.MAX_VALUE ? Long.MAX_VALUE
+				: startNanos + timeLimit * 1000000;
+
+		setCurrent(initialSolution);
+		best = problem.copySolution(current);
+		bestCost = currentCost;
+		initialize();
+
+		while (!isFinished()) {
+			statistics.countIteration();
+			step();
+
+			if (currentCost < bestCost - COST_EPSILON) {
+				storeBest();
+			}
+
+			if (sharedBest != null
+					&& statistics.getIterations() % shareInterval == 0) {
+				share();
+			}
+		}
+
+		bestCost = problem.getCost(best);
+		if (sharedBest != null) {
+			sharedBest.offer(best, bestCost);
+		}
+		statistics.stop();
+
+		return best;
+	}
+
+	/**
+	 * Called before the first iteration, after the current solution is set.
+	 */
+	protected void initialize() {
+	}
+
+	/**
+	 * Performs one iteration.
+	 */
+	protected abstract void step();
+
+	/**
+	 * @return true if the search has to stop
+	 */
+	protected boolean isFinished() {
+		long iterations = statistics.getIterations();
+
+		if (stopped || iterations >= maxIterations) {
+			return true;
+		}
+
+		return iterations % TIME_CHECK_INTERVAL == 0 && isDeadlinePassed();
+	}
+
+	/**
+	 * For searches with long iterations, which have to check the time limit
+	 * within an iteration.
+	 * 
+	 * @return true if the time limit is reached or the search was stopped
+	 */
+	protected boolean isDeadlinePassed() {
+		return stopped || deadlineNanos != Long.MAX_VALUE
+				&& System.nanoTime() - deadlineNanos > 0;
+	}
+
+	/**
+	 * Returns how much of the iteration or time budget is used up, whichever
+	 * is larger.
+	 * 
+	 * @return the used share of the budget between 0 and 1, NaN if the search
+	 *         has no limit
+	 */
+	protected double getProgress() {
+		double progress = Double.NaN;
+
+		if (maxIterations != Long.MAX_VALUE) {
+			progress = (double) statistics.getIterations() / maxIterations;
+		}
+
+		if (deadlineNanos != Long.MAX_VALUE) {
+			double timeProgress = (double) (System.nanoTime() - startNanos)
+					/ (deadlineNanos - startNanos);
+			progress = Double.isNaN(progress) ? timeProgress
+					: Math.max(progress, timeProgress);
+		}
+
+		return Math.min(progress, 1);
+	}
+
+	/**
+	 * Proposes a move of a random operator.
+	 * 
+	 * @return the cost difference of the move, {@link Double#NaN} if the
+	 *         operator found no move
+	 */
+	protected double proposeMove() {
+		return proposeMove(operators.get(random.nextInt(operators.size())),
+				random);
+	}
+
+	/**
+	 * Proposes a move of the given operator.
+	 * 
+	 * @param operator
+	 *            the operator to propose a move
+	 * @param moveRandom
+	 *            the random source to select the move with
+	 * @return the cost difference of the move, {@link Double#NaN} if the
+	 *         operator found no move
+	 */
+	protected double proposeMove(IOperator<S> operator, Random moveRandom) {
+		statistics.countProposedMove();
+		proposedOperator = operator;
+		return operator.propose(current, moveRandom);
+	}
+
+	/**
+	 * Applies the last proposed move to the current solution.
+	 * 
+	 * @param delta
+	 *            the cost difference returned by the proposal
+	 */
+	protected void acceptMove(double delta) {
+		proposedOperator.apply(current);
+		currentCost += delta;
+		statistics.countAcceptedMove();
+	}
+
+	/**
+	 * Records changes the search made to the current solution without
+	 * proposing them, e.g. by {@link IImprovingOperator#improve}.
+	 * 
+	 * @param delta
+	 *            the cost difference of the changes
+	 */
+	protected void applyImprovement(double delta) {
+		currentCost += delta;
+		statistics.countAcceptedMove();
+	}
+
+	/**
+	 * Returns to an earlier state of the current solution.
+	 * 
+	 * @param solution
+	 *            the earlier solution, owned by this search
+	 * @param cost
+	 *            the costs of the solution
+	 */
+	protected void revert(S solution, double cost) {
+		current = solution;
+		currentCost = cost;
+	}
+
+	/**
+	 * Continues the search from the given solution.
+	 * 
+	 * @param solution
+	 *            the new current solution, owned by this search
+	 */
+	protected void restart(S solution) {
+		setCurrent(solution);
+		statistics.countRestart();
+	}
+
+	/**
+	 * Offers the best solution of this search to the others and continues
+	 * from the best of all searches if it is better than the own.
+	 */
+	protected void share() {
+		currentCost = problem.getCost(current);
+		sharedBest.offer(best, bestCost);
+
+		if (sharedBest.getCost() < bestCost - COST_EPSILON) {
+			S global = sharedBest.copySolution();
+			restart(global);
+			best = problem.copySolution(global);
+			bestCost = currentCost;
+		}
+	}
+
+	private void setCurrent(S solution) {
+		current = solution;
+		currentCost = problem.getCost(solution);
+	}
+
+	/**
+	 * Stores a copy of the current solution as the best. Its costs are
+	 * calculated anew, the sum of the deltas drifts from them and would keep
+	 * the shared best from accepting an exact offer later.
+	 */
+	private void storeBest() {
+		best = problem.copySolution(current);
+		bestCost = problem.getCost(best);
+		currentCost = bestCost;
+		statistics.countImprovement();
+	}
+
+	@Override
+	public void stop() {
+		stopped = true;
+	}
+
+	@Override
+	public S getBestSolution() {
+		return best;
+	}
+
+	@Override
+	public double getBestCost() {
+		return bestCost;
+	}
+
+	@Override
+	public SearchStatistics getStatistics() {
+		return statistics;
+	}
+
+	@Override
+	public String getStrategy() {
+		return strategy;
+	}
+
+	@Override
+	public void setMaxIterations(long maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	@Override
+	public void setTimeLimit(long timeLimit) {
+		this.timeLimit = timeLimit;
+	}
+
+	@Override
+	public void setSharedBest(SharedBest<S> sharedBest, long shareInterval) {
+		this.sharedBest = sharedBest;
+		this.shareInterval = Math.max(shareInterval, 1);
+	}
+
+	@Override
+	public String toString() {
+		return strategy + " best: " + bestCost + ", " + statistics;
+	}
+}
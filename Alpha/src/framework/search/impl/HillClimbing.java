@@ -0,0 +1,97 @@
+package framework.search.impl;
+
+import java.util.Random;
+
+import framework.problem.IProblem;
+
+/**
+ * Hill climbing: proposes random moves and accepts the improving ones. The
+ * variants of the strategies are configured by the factory:
+ * <ul>
+ * <li>sideways moves: moves without cost difference are accepted as well</li>
+ * <li>random moves: a worsening move is accepted with a small probability
+ * </li>
+ * <li>restarts: the search restarts from a new initial solution if the
+ * current one was not improved for a number of iterations</li>
+ * </ul>
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public class HillClimbing<S> extends AbstractSearch<S> {
+
+	/** true if moves without cost difference are accepted */
+	private boolean sidewaysMoves;
+
+	/** probability of accepting a worsening move */
+	private double randomMoveProbability;
+
+	/** iterations without improvement before a restart, 0 for none */
+	private long restartInterval;
+
+	/** last iteration that improved the current solution */
+	private long lastImprovement;
+
+	/**
+	 * @param strategy
+	 *            the strategy name of this search
+	 * @param problem
+	 *            the problem to solve
+	 * @param random
+	 *            the random source of this search
+	 */
+	public HillClimbing(String strategy, IProblem<S> problem, Random random) {
+		super(strategy, problem, random);
+	}
+
+	@Override
+	protected void initialize() {
+		lastImprovement = 0;
+	}
+
+	@Override
+	protected void step() {
+		double delta = proposeMove();
+
+		if (Double.isNaN(delta) || Double.isInfinite(delta)) {
+			return;
+		}
+
+		if (delta < -COST_EPSILON) {
+			acceptMove(delta);
+			lastImprovement = statistics.getIterations();
+		} else if ((sidewaysMoves && delta <= COST_EPSILON)
+				|| (randomMoveProbability > 0
+						&& random.nextDouble() < randomMoveProbability)) {
+			acceptMove(delta);
+		} else if (restartInterval > 0 && statistics.getIterations()
+				- lastImprovement >= restartInterval) {
+			restart(problem.createInitialSolution(random));
+			lastImprovement = statistics.getIterations();
+		}
+	}
+
+	/**
+	 * @param sidewaysMoves
+	 *            true if moves without cost difference are accepted
+	 */
+	public void setSidewaysMoves(boolean sidewaysMoves) {
+		this.sidewaysMoves = sidewaysMoves;
+	}
+
+	/**
+	 * @param randomMoveProbability
+	 *            probability of accepting a worsening move
+	 */
+	public void setRandomMoveProbability(double randomMoveProbability) {
+		this.randomMoveProbability = randomMoveProbability;
+	}
+
+	/**
+	 * @param restartInterval
+	 *            iterations without improvement before a restart, 0 for none
+	 */
+	public void setRestartInterval(long restartInterval) {
+		this.restartInterval = restartInterval;
+	}
+}
@@ -0,0 +1,18 @@
+package framework.search.impl;
+
+import framework.search.ICoolingSchedule;
+
+/**
+ * The temperature falls with T0 / (1 + a * progress), fast at the start and
+ * slowly towards the end. a is chosen so that the final temperature is
+ * reached at the end of the budget.
+ */
+public class HyperbolicCooling implements ICoolingSchedule {
+
+	@Override
+	public double getTemperature(double initialTemperature,
+			double finalTemperature, double progress) {
+		double a = initialTemperature / finalTemperature - 1;
+		return initialTemperature / (1 + a * progress);
+	}
+}
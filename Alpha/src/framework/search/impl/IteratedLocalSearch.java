@@ -0,0 +1,127 @@
+package framework.search.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import framework.problem.IImprovingOperator;
+import framework.problem.IOperator;
+import framework.problem.IProblem;
+
+/**
+ * Iterated local search: descends to a local optimum with the improving
+ * operators, see {@link IImprovingOperator}, and with random improving moves
+ * of the other operators. Each iteration then kicks the solution out of the
+ * local optimum with a few random moves and descends again. The new local
+ * optimum is kept if it is not worse than the one before the kick.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public class IteratedLocalSearch<S> extends AbstractSearch<S> {
+
+	/** the operators with their own descent */
+	private final List<IImprovingOperator<S>> improvingOperators = new ArrayList<IImprovingOperator<S>>();
+
+	/** the number of random moves of a kick */
+	private int kickSize = 3;
+
+	/** random moves of the other operators tried per descent */
+	private int descentTries = 100;
+
+	/**
+	 * @param strategy
+	 *            the strategy name of this search
+	 * @param problem
+	 *            the problem to solve
+	 * @param random
+	 *            the random source of this search
+	 */
+	public IteratedLocalSearch(String strategy, IProblem<S> problem,
+			Random random) {
+		super(strategy, problem, random);
+
+		for (IOperator<S> operator : operators) {
+			if (operator instanceof IImprovingOperator) {
+				improvingOperators.add((IImprovingOperator<S>) operator);
+			}
+		}
+	}
+
+	@Override
+	protected void initialize() {
+		descend();
+	}
+
+	@Override
+	protected void step() {
+		S before = problem.copySolution(current);
+		double costBefore = currentCost;
+
+		kick();
+		descend();
+
+		if (currentCost > costBefore + COST_EPSILON) {
+			revert(before, costBefore);
+		}
+	}
+
+	/**
+	 * Applies random feasible moves regardless of their costs.
+	 */
+	private void kick() {
+		int moves = 0;
+
+		for (int tries = 0; moves < kickSize && tries < 10 * kickSize; tries++) {
+			double delta = proposeMove();
+			if (!Double.isNaN(delta) && !Double.isInfinite(delta)) {
+				acceptMove(delta);
+				moves++;
+			}
+		}
+	}
+
+	/**
+	 * Runs the improving operators until none of them improves and the random
+	 * moves of the others until they find no improvement either.
+	 */
+	private void descend() {
+		boolean improved = true;
+
+		while (improved && !isDeadlinePassed()) {
+			improved = false;
+
+			for (IImprovingOperator<S> operator : improvingOperators) {
+				double delta = operator.improve(current, random);
+				if (delta < -COST_EPSILON) {
+					applyImprovement(delta);
+					improved = true;
+				}
+			}
+
+			for (int tries = 0; tries < descentTries; tries++) {
+				double delta = proposeMove();
+				if (delta < -COST_EPSILON) {
+					acceptMove(delta);
+					improved = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param kickSize
+	 *            the number of random moves of a kick
+	 */
+	public void setKickSize(int kickSize) {
+		this.kickSize = kickSize;
+	}
+
+	/**
+	 * @param descentTries
+	 *            random moves of the other operators tried per descent
+	 */
+	public void setDescentTries(int descentTries) {
+		this.descentTries = descentTries;
+	}
+}
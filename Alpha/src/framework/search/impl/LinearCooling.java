@@ -0,0 +1,16 @@
+package framework.search.impl;
+
+import framework.search.ICoolingSchedule;
+
+/**
+ * The temperature falls linearly from the initial to the final temperature.
+ */
+public class LinearCooling implements ICoolingSchedule {
+
+	@Override
+	public double getTemperature(double initialTemperature,
+			double finalTemperature, double progress) {
+		return initialTemperature
+				+ (finalTemperature - initialTemperature) * progress;
+	}
+}
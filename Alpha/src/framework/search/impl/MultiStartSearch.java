@@ -0,0 +1,203 @@
+package framework.search.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import framework.problem.IProblem;
+import framework.search.ISearch;
+import framework.search.SearchStatistics;
+import framework.search.SharedBest;
+import service.exceptions.BaseRuntimeException;
+import service.exceptions.InvalidArgumentException;
+
+/**
+ * Runs several independent searches in parallel on a fork join pool. Every
+ * search starts from its own initial solution with its own random seed, the
+ * strategies are assigned round robin. The searches exchange their best
+ * solutions through a {@link SharedBest} every shareInterval iterations.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public class MultiStartSearch<S> {
+
+	/** added to the seed per search, spreads the seeds of the searches */
+	private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+	/** the problem to solve */
+	private final IProblem<S> problem;
+
+	/** the strategies of the searches */
+	private final String[] strategies;
+
+	/** the best solution of all searches */
+	private final SharedBest<S> sharedBest;
+
+	/** the searches of the last run */
+	private final List<ISearch<S>> searches = new ArrayList<ISearch<S>>();
+
+	private int searchCount = Runtime.getRuntime().availableProcessors();
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	private long seed = 1;
+
+	private long maxIterations = Long.MAX_VALUE;
+
+	private long timeLimit = Long.MAX_VALUE;
+
+	private long shareInterval = 10000;
+
+	/**
+	 * @param problem
+	 *            the problem to solve
+	 * @param strategies
+	 *            the strategies of the searches, OPTIMIZATION_LOCALSEARCHSTRATEGY_*
+	 *            values
+	 * @throws InvalidArgumentException
+	 *             if no strategy is given
+	 */
+	public MultiStartSearch(IProblem<S> problem, String... strategies) {
+		if (strategies == null || strategies.length == 0) {
+			throw new InvalidArgumentException("No search strategy given");
+		}
+		this.problem = problem;
+		this.strategies = strategies.clone();
+		this.sharedBest = new SharedBest<S>(problem);
+	}
+
+	/**
+	 * Runs all searches and waits for them to finish.
+	 * 
+	 * @return the best solution of all searches
+	 * @throws BaseRuntimeException
+	 *             if a search failed or the calling thread was interrupted
+	 */
+	public S run() {
+		searches.clear();
+		List<Callable<S>> tasks = new ArrayList<Callable<S>>(searchCount);
+
+		for (int i = 0; i < searchCount; i++) {
+			final Random random = new Random(seed + i * SEED_INCREMENT);
+			final ISearch<S> search = SearchFactory.createSearch(
+					strategies[i % strategies.length], problem, random);
+			search.setMaxIterations(maxIterations);
+			search.setTimeLimit(timeLimit);
+			search.setSharedBest(sharedBest, shareInterval);
+			searches.add(search);
+
+			tasks.add(new Callable<S>() {
+				@Override
+				public S call() {
+					return search.search(problem.createInitialSolution(random));
+				}
+			});
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			for (Future<S> future : pool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			stop();
+			Thread.currentThread().interrupt();
+			throw new BaseRuntimeException("Search interrupted", e);
+		} catch (ExecutionException e) {
+			stop();
+			throw new BaseRuntimeException("Search failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+
+		return sharedBest.copySolution();
+	}
+
+	/**
+	 * Asks all running searches to stop.
+	 */
+	public void stop() {
+		for (ISearch<S> search : searches) {
+			search.stop();
+		}
+	}
+
+	/**
+	 * @return the costs of the best solution of all searches
+	 */
+	public double getBestCost() {
+		return sharedBest.getCost();
+	}
+
+	/**
+	 * @return the searches of the last run
+	 */
+	public List<ISearch<S>> getSearches() {
+		return searches;
+	}
+
+	/**
+	 * @return the sum of the statistics of all searches
+	 */
+	public SearchStatistics getStatistics() {
+		SearchStatistics result = new SearchStatistics();
+		for (ISearch<S> search : searches) {
+			result.add(search.getStatistics());
+		}
+		return result;
+	}
+
+	/**
+	 * @param searchCount
+	 *            the number of searches, default number of processors
+	 */
+	public void setSearchCount(int searchCount) {
+		this.searchCount = Math.max(searchCount, 1);
+	}
+
+	/**
+	 * @param parallelism
+	 *            the number of threads, default number of processors
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(parallelism, 1);
+	}
+
+	/**
+	 * @param seed
+	 *            the seed of the first search
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @param maxIterations
+	 *            the maximum number of iterations per search
+	 */
+	public void setMaxIterations(long maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * @param timeLimit
+	 *            the maximum run time in ms per search
+	 */
+	public void setTimeLimit(long timeLimit) {
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * @param shareInterval
+	 *            the number of iterations between two exchanges of the best
+	 *            solution
+	 */
+	public void setShareInterval(long shareInterval) {
+		this.shareInterval = shareInterval;
+	}
+}
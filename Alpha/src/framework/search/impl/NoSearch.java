@@ -0,0 +1,35 @@
+package framework.search.impl;
+
+import java.util.Random;
+
+import framework.problem.IProblem;
+
+/**
+ * Returns the initial solution unchanged.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public class NoSearch<S> extends AbstractSearch<S> {
+
+	/**
+	 * @param strategy
+	 *            the strategy name of this search
+	 * @param problem
+	 *            the problem to solve
+	 * @param random
+	 *            the random source of this search
+	 */
+	public NoSearch(String strategy, IProblem<S> problem, Random random) {
+		super(strategy, problem, random);
+	}
+
+	@Override
+	protected boolean isFinished() {
+		return true;
+	}
+
+	@Override
+	protected void step() {
+	}
+}
@@ -0,0 +1,36 @@
+package framework.search.impl;
+
+import java.util.Random;
+
+import framework.problem.IProblem;
+
+/**
+ * Random search: accepts every feasible move and only keeps track of the
+ * best solution passed. Mainly a baseline for the other strategies.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public class RandomWalk<S> extends AbstractSearch<S> {
+
+	/**
+	 * @param strategy
+	 *            the strategy name of this search
+	 * @param problem
+	 *            the problem to solve
+	 * @param random
+	 *            the random source of this search
+	 */
+	public RandomWalk(String strategy, IProblem<S> problem, Random random) {
+		super(strategy, problem, random);
+	}
+
+	@Override
+	protected void step() {
+		double delta = proposeMove();
+
+		if (!Double.isNaN(delta) && !Double.isInfinite(delta)) {
+			acceptMove(delta);
+		}
+	}
+}
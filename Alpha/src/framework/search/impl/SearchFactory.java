@@ -0,0 +1,163 @@
+package framework.search.impl;
+
+import java.util.Random;
+
+import framework.problem.IProblem;
+import framework.search.ICoolingSchedule;
+import framework.search.ISearch;
+import service.exceptions.InvalidArgumentException;
+import service.properties.IPropertiesConstants;
+import service.properties.SystemProperties;
+
+/**
+ * Creates the searches for the OPTIMIZATION_LOCALSEARCHSTRATEGY_* values of
+ * {@link IPropertiesConstants}.
+ */
+public class SearchFactory {
+
+	/** probability of a random move of hcRandom */
+	public static final double DEFAULT_RANDOM_MOVE_PROBABILITY = 0.01;
+
+	/** iterations without improvement before hcRandomRestart restarts */
+	public static final long DEFAULT_RESTART_INTERVAL = 50000;
+
+	/** moves evaluated per iteration by the gradient search */
+	public static final int DEFAULT_SAMPLE_SIZE = 100;
+
+	/** iterations without new best solution before the annealing reheats */
+	public static final long DEFAULT_REHEAT_INTERVAL = 50000;
+
+	/** iterations an attribute stays tabu */
+	public static final int DEFAULT_TABU_TENURE = 50;
+
+	private SearchFactory() {
+	}
+
+	/**
+	 * @param coolingSchedule
+	 *            one of the OPTIMIZATION_SIMULATEDANNEALING_COOLINGSCHEDULE_*
+	 *            values
+	 * @return the cooling schedule
+	 * @throws InvalidArgumentException
+	 *             if the cooling schedule is unknown
+	 */
+	public static ICoolingSchedule createCoolingSchedule(
+			String coolingSchedule) {
+		if (IPropertiesConstants.OPTIMIZATION_SIMULATEDANNEALING_COOLINGSCHEDULE_HYPERBOLIC
+				.equals(coolingSchedule)) {
+			return new HyperbolicCooling();
+		}
+
+		if (IPropertiesConstants.OPTIMIZATION_SIMULATEDANNEALING_COOLINGSCHEDULE_SIGMOIDAL
+				.equals(coolingSchedule)) {
+			return new SigmoidalCooling();
+		}
+
+		if (IPropertiesConstants.OPTIMIZATION_SIMULATEDANNEALING_COOLINGSCHEDULE_LINEAR
+				.equals(coolingSchedule)) {
+			return new LinearCooling();
+		}
+
+		throw new InvalidArgumentException(
+				"Cooling schedule not supported: " + coolingSchedule);
+	}
+
+	/**
+	 * @param strategy
+	 *            one of the OPTIMIZATION_LOCALSEARCHSTRATEGY_* values
+	 * @param problem
+	 *            the problem to solve
+	 * @param random
+	 *            the random source of the search
+	 * @return a new search of the strategy
+	 * @throws InvalidArgumentException
+	 *             if the strategy is unknown or not supported
+	 */
+	public static <S> ISearch<S> createSearch(String strategy,
+			IProblem<S> problem, Random random) {
+		if (IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY_NOSEARCH
+				.equals(strategy)) {
+			return new NoSearch<S>(strategy, problem, random);
+		}
+
+		if (IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY_HILLCLIMBING
+				.equals(strategy)) {
+			return new HillClimbing<S>(strategy, problem, random);
+		}
+
+		if (IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY_DEC_HILLCLIMBING
+				.equals(strategy)) {
+			HillClimbing<S> search = new HillClimbing<S>(strategy, problem,
+					random);
+			search.setSidewaysMoves(true);
+			return search;
+		}
+
+		if (IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY_HC_RANDOMSTART
+				.equals(strategy)) {
+			HillClimbing<S> search = new HillClimbing<S>(strategy, problem,
+					random);
+			search.setRestartInterval(DEFAULT_RESTART_INTERVAL);
+			return search;
+		}
+
+		if (IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY_HC_RANDOM
+				.equals(strategy)) {
+			HillClimbing<S> search = new HillClimbing<S>(strategy, problem,
+					random);
+			search.setRandomMoveProbability(DEFAULT_RANDOM_MOVE_PROBABILITY);
+			return search;
+		}
+
+		if (IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY_GRADIENT
+				.equals(strategy)) {
+			SteepestDescent<S> search = new SteepestDescent<S>(strategy,
+					problem, random);
+			search.setSampleSize(DEFAULT_SAMPLE_SIZE);
+			return search;
+		}
+
+		if (IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY_K_OPT
+				.equals(strategy)) {
+			return new IteratedLocalSearch<S>(strategy, problem, random);
+		}
+
+		if (IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY_SIMULATEDANNEALING
+				.equals(strategy)) {
+			SimulatedAnnealing<S> search = new SimulatedAnnealing<S>(strategy,
+					problem, random, createCoolingSchedule(SystemProperties
+							.getProperty(
+									IPropertiesConstants.OPTIMIZATION_SIMULATEDANNEALING_COOLINGSCHEDULE,
+									IPropertiesConstants.OPTIMIZATION_SIMULATEDANNEALING_COOLINGSCHEDULE_HYPERBOLIC)));
+			search.setReheatInterval(SystemProperties.getLongProperty(
+					IPropertiesConstants.OPTIMIZATION_SIMULATEDANNEALING_REHEATINTERVAL,
+					DEFAULT_REHEAT_INTERVAL));
+			return search;
+		}
+
+		if (IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY_TABU
+				.equals(strategy)
+				|| IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY_DEC_TABU
+						.equals(strategy)) {
+			int tenure = (int) SystemProperties.getLongProperty(
+					IPropertiesConstants.OPTIMIZATION_TABU_TENURE,
+					DEFAULT_TABU_TENURE);
+			TabuSearch<S> search = new TabuSearch<S>(strategy, problem,
+					random, tenure);
+			search.setSampleSize(DEFAULT_SAMPLE_SIZE);
+			if (IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY_DEC_TABU
+					.equals(strategy)) {
+				search.setDecreasingTenure(tenure / 10);
+			}
+			return search;
+		}
+
+		if (IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY_RANDOM
+				.equals(strategy)) {
+			return new RandomWalk<S>(strategy, problem, random);
+		}
+
+		throw new InvalidArgumentException(
+				"Local search strategy not supported: " + strategy);
+	}
+}
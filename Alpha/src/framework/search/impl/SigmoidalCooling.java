@@ -0,0 +1,51 @@
+package framework.search.impl;
+
+import framework.search.ICoolingSchedule;
+
+/**
+ * The temperature stays high in the first part of the search, falls steeply
+ * in the middle and stays low in the last part. The logistic curve is scaled
+ * so that it starts exactly at the initial and ends at the final
+ * temperature.
+ */
+public class SigmoidalCooling implements ICoolingSchedule {
+
+	/** steepness of the logistic curve */
+	private final double steepness;
+
+	/** value of the logistic curve at progress 0 */
+	private final double start;
+
+	/** value of the logistic curve at progress 1 */
+	private final double end;
+
+	public SigmoidalCooling() {
+		this(10);
+	}
+
+	/**
+	 * @param steepness
+	 *            steepness of the logistic curve, the higher the shorter is
+	 *            the phase of falling temperature
+	 */
+	public SigmoidalCooling(double steepness) {
+		this.steepness = steepness;
+		this.start = logistic(0);
+		this.end = logistic(1);
+	}
+
+	@Override
+	public double getTemperature(double initialTemperature,
+			double finalTemperature, double progress) {
+		double share = (logistic(progress) - end) / (start - end);
+		return finalTemperature
+				+ (initialTemperature - finalTemperature) * share;
+	}
+
+	/**
+	 * @return falling logistic curve centred at progress 0.5
+	 */
+	private double logistic(double progress) {
+		return 1 / (1 + Math.exp(steepness * (progress - 0.5)));
+	}
+}
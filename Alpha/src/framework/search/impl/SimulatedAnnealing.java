@@ -0,0 +1,321 @@
+package framework.search.impl;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import framework.problem.IProblem;
+import framework.search.ICoolingSchedule;
+
+/**
+ * Simulated annealing: a worsening move with cost difference delta is
+ * accepted with probability exp(-delta / T). The temperature T follows the
+ * cooling schedule over the iteration or time budget of the search, so a run
+ * with a time limit cools down completely within the limit.
+ * <p>
+ * If no limit is set, {@link #DEFAULT_HORIZON} iterations are used as
+ * budget. Temperatures that are not given are estimated from a sample of
+ * worsening moves: the median move is accepted with the initial acceptance
+ * probability at the start, the move at the 10% quantile with the final
+ * acceptance probability at the end. Quantiles are used instead of the mean
+ * because a few penalty costs would dominate the mean.
+ * <p>
+ * Adaptive reheating: if the best solution was not improved for the reheat
+ * interval and the acceptance rate of the last window is below the minimum,
+ * the temperature is multiplied by the reheat boost. The boost decays again
+ * with every window.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public class SimulatedAnnealing<S> extends AbstractSearch<S> {
+
+	/** iterations used as budget if the search has no limit */
+	public static final long DEFAULT_HORIZON = 1000000;
+
+	/** number of moves sampled to estimate the initial temperature */
+	private static final int SAMPLE_SIZE = 200;
+
+	/** iterations between two temperature updates */
+	private static final int UPDATE_INTERVAL = 64;
+
+	/** iterations of a window for the acceptance rate */
+	private static final int WINDOW_SIZE = 1024;
+
+	/** the cooling schedule */
+	private final ICoolingSchedule coolingSchedule;
+
+	/** the temperature at the start, NaN to estimate it */
+	private double initialTemperature = Double.NaN;
+
+	/** the temperature at the end, NaN to estimate it */
+	private double finalTemperature = Double.NaN;
+
+	/** acceptance probability of the median worsening move at the start */
+	private double initialAcceptance = 0.5;
+
+	/** acceptance probability of a small worsening move at the end */
+	private double finalAcceptance = 0.001;
+
+	/** iterations without new best solution before reheating */
+	private long reheatInterval = 50000;
+
+	/** factor the temperature is raised by when reheating */
+	private double reheatBoost = 5;
+
+	/** share the boost loses per window */
+	private double reheatDecay = 0.1;
+
+	/** acceptance rate below which the search reheats */
+	private double minAcceptanceRate = 0.01;
+
+	/** the temperatures of the current run */
+	private double startTemperature;
+
+	private double endTemperature;
+
+	private double temperature;
+
+	/** current factor of reheating */
+	private double boost;
+
+	/** counters of the current window */
+	private long windowProposals;
+
+	private long windowAcceptances;
+
+	/** acceptance rate of the last complete window */
+	private double acceptanceRate;
+
+	/** best costs and the iteration they were reached */
+	private double lastBestCost;
+
+	private long lastBestIteration;
+
+	/** number of reheats */
+	private long reheats;
+
+	/**
+	 * @param strategy
+	 *            the strategy name of this search
+	 * @param problem
+	 *            the problem to solve
+	 * @param random
+	 *            the random source of this search
+	 * @param coolingSchedule
+	 *            the cooling schedule
+	 */
+	public SimulatedAnnealing(String strategy, IProblem<S> problem,
+			Random random, ICoolingSchedule coolingSchedule) {
+		super(strategy, problem, random);
+		this.coolingSchedule = coolingSchedule;
+	}
+
+	@Override
+	protected void initialize() {
+		startTemperature = initialTemperature;
+		endTemperature = finalTemperature;
+		if (Double.isNaN(startTemperature) || Double.isNaN(endTemperature)) {
+			estimateTemperatures();
+		}
+		endTemperature = Math.min(endTemperature, startTemperature);
+		temperature = startTemperature;
+		boost = 1;
+		windowProposals = 0;
+		windowAcceptances = 0;
+		acceptanceRate = 1;
+		lastBestCost = getBestCost();
+		lastBestIteration = 0;
+		reheats = 0;
+	}
+
+	/**
+	 * Sets the temperatures not given from a sample of worsening moves. The
+	 * sample asks the operators directly, so it is not counted as proposed
+	 * moves of the search.
+	 */
+	private void estimateTemperatures() {
+		double[] deltas = new double[SAMPLE_SIZE];
+		int count = 0;
+
+		for (int i = 0; i < SAMPLE_SIZE; i++) {
+			double delta = operators.get(random.nextInt(operators.size()))
+					.propose(current, random);
+			if (delta > COST_EPSILON && !Double.isInfinite(delta)) {
+				deltas[count++] = delta;
+			}
+		}
+
+		double median = 1;
+		double lowQuantile = 1;
+		if (count > 0) {
+			Arrays.sort(deltas, 0, count);
+			median = deltas[count / 2];
+			lowQuantile = deltas[count / 10];
+		}
+
+		if (Double.isNaN(startTemperature)) {
+			startTemperature = -median / Math.log(initialAcceptance);
+		}
+		if (Double.isNaN(endTemperature)) {
+			endTemperature = -lowQuantile / Math.log(finalAcceptance);
+		}
+	}
+
+	@Override
+	protected void step() {
+		long iteration = statistics.getIterations();
+
+		if (iteration % WINDOW_SIZE == 0) {
+			finishWindow(iteration);
+		}
+		if (iteration % UPDATE_INTERVAL == 0) {
+			updateTemperature(iteration);
+		}
+
+		double delta = proposeMove();
+		if (Double.isNaN(delta) || Double.isInfinite(delta)) {
+			return;
+		}
+
+		windowProposals++;
+		if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+			acceptMove(delta);
+			windowAcceptances++;
+		}
+	}
+
+	/**
+	 * Calculates the acceptance rate of the finished window and reheats if
+	 * the search is stuck.
+	 */
+	private void finishWindow(long iteration) {
+		if (windowProposals > 0) {
+			acceptanceRate = (double) windowAcceptances / windowProposals;
+		}
+		windowProposals = 0;
+		windowAcceptances = 0;
+
+		if (getBestCost() < lastBestCost - COST_EPSILON) {
+			lastBestCost = getBestCost();
+			lastBestIteration = iteration;
+		}
+
+		boost = 1 + (boost - 1) * (1 - reheatDecay);
+
+		if (iteration - lastBestIteration >= reheatInterval
+				&& acceptanceRate < minAcceptanceRate) {
+			boost *= reheatBoost;
+			lastBestIteration = iteration;
+			reheats++;
+		}
+	}
+
+	private void updateTemperature(long iteration) {
+		double progress = getProgress();
+		if (Double.isNaN(progress)) {
+			progress = Math.min((double) iteration / DEFAULT_HORIZON, 1);
+		}
+
+		temperature = Math.min(coolingSchedule.getTemperature(
+				startTemperature, endTemperature, progress) * boost,
+				startTemperature);
+	}
+
+	/**
+	 * @return the current temperature
+	 */
+	public double getTemperature() {
+		return temperature;
+	}
+
+	/**
+	 * @return the acceptance rate of the last window of
+	 *         {@value #WINDOW_SIZE} iterations
+	 */
+	public double getAcceptanceRate() {
+		return acceptanceRate;
+	}
+
+	/**
+	 * @return the number of reheats of the last run
+	 */
+	public long getReheats() {
+		return reheats;
+	}
+
+	/**
+	 * @param initialTemperature
+	 *            the temperature at the start, NaN to estimate it
+	 */
+	public void setInitialTemperature(double initialTemperature) {
+		this.initialTemperature = initialTemperature;
+	}
+
+	/**
+	 * @param finalTemperature
+	 *            the temperature at the end, NaN to estimate it
+	 */
+	public void setFinalTemperature(double finalTemperature) {
+		this.finalTemperature = finalTemperature;
+	}
+
+	/**
+	 * @param initialAcceptance
+	 *            acceptance probability of the median worsening move at the
+	 *            start, used to estimate the initial temperature
+	 */
+	public void setInitialAcceptance(double initialAcceptance) {
+		this.initialAcceptance = initialAcceptance;
+	}
+
+	/**
+	 * @param finalAcceptance
+	 *            acceptance probability of a small worsening move at the end,
+	 *            used to estimate the final temperature
+	 */
+	public void setFinalAcceptance(double finalAcceptance) {
+		this.finalAcceptance = finalAcceptance;
+	}
+
+	/**
+	 * @param reheatInterval
+	 *            iterations without new best solution before reheating, 0 to
+	 *            switch reheating off
+	 */
+	public void setReheatInterval(long reheatInterval) {
+		this.reheatInterval = reheatInterval > 0 ? reheatInterval
+				: Long.MAX_VALUE;
+	}
+
+	/**
+	 * @param reheatBoost
+	 *            factor the temperature is raised by when reheating
+	 */
+	public void setReheatBoost(double reheatBoost) {
+		this.reheatBoost = reheatBoost;
+	}
+
+	/**
+	 * @param reheatDecay
+	 *            share the boost loses per window
+	 */
+	public void setReheatDecay(double reheatDecay) {
+		this.reheatDecay = reheatDecay;
+	}
+
+	/**
+	 * @param minAcceptanceRate
+	 *            acceptance rate below which the search reheats
+	 */
+	public void setMinAcceptanceRate(double minAcceptanceRate) {
+		this.minAcceptanceRate = minAcceptanceRate;
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + ", temperature: " + temperature
+				+ ", window acceptance: "
+				+ Math.round(acceptanceRate * 1000) / 10.0 + "%, reheats: "
+				+ reheats;
+	}
+}
@@ -0,0 +1,72 @@
+package framework.search.impl;
+
+import java.util.Random;
+
+import framework.problem.IOperator;
+import framework.problem.IProblem;
+
+/**
+ * Gradient search: evaluates a sample of moves per iteration and applies the
+ * best one if it improves the current solution. Each move is selected with
+ * its own seed, so the best move can be proposed again to apply it without
+ * the operators having to keep several moves.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public class SteepestDescent<S> extends AbstractSearch<S> {
+
+	/** number of moves evaluated per iteration */
+	private int sampleSize = 100;
+
+	/** random source reset to the seed of each move */
+	private final Random moveRandom = new Random();
+
+	/**
+	 * @param strategy
+	 *            the strategy name of this search
+	 * @param problem
+	 *            the problem to solve
+	 * @param random
+	 *            the random source of this search
+	 */
+	public SteepestDescent(String strategy, IProblem<S> problem,
+			Random random) {
+		super(strategy, problem, random);
+	}
+
+	@Override
+	protected void step() {
+		double bestDelta = -COST_EPSILON;
+		IOperator<S> bestOperator = null;
+		long bestSeed = 0;
+
+		for (int i = 0; i < sampleSize; i++) {
+			IOperator<S> operator = operators
+					.get(random.nextInt(operators.size()));
+			long seed = random.nextLong();
+			moveRandom.setSeed(seed);
+
+			double delta = proposeMove(operator, moveRandom);
+			if (delta < bestDelta) {
+				bestDelta = delta;
+				bestOperator = operator;
+				bestSeed = seed;
+			}
+		}
+
+		if (bestOperator != null) {
+			moveRandom.setSeed(bestSeed);
+			double delta = proposeMove(bestOperator, moveRandom);
+			acceptMove(delta);
+		}
+	}
+
+	/**
+	 * @param sampleSize
+	 *            number of moves evaluated per iteration
+	 */
+	public void setSampleSize(int sampleSize) {
+		this.sampleSize = Math.max(sampleSize, 1);
+	}
+}
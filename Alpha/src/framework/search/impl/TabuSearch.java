@@ -0,0 +1,182 @@
+package framework.search.impl;
+
+import java.util.Random;
+
+import framework.problem.IOperator;
+import framework.problem.IProblem;
+import framework.search.TabuList;
+
+/**
+ * Tabu search: evaluates a sample of moves per iteration and applies the best
+ * one that is not tabu, even if it worsens the current solution. Applying a
+ * move makes the attribute it removed tabu for the tenure, so the move cannot
+ * be undone right away. A tabu move is allowed anyway if it leads to a new
+ * best solution (aspiration).
+ * <p>
+ * With decreasing tenure the tenure shrinks linearly over the budget of the
+ * search down to the minimum tenure, which intensifies the search towards the
+ * end.
+ * 
+ * @param <S>
+ *            the solution representation
+ */
+public class TabuSearch<S> extends AbstractSearch<S> {
+
+	/** iterations between two tenure updates */
+	private static final int UPDATE_INTERVAL = 64;
+
+	/** the tabu attribute hashes */
+	private final TabuList tabuList;
+
+	/** the tenure at the start */
+	private final int tenure;
+
+	/** the tenure at the end if decreasing */
+	private int minTenure;
+
+	/** true if the tenure decreases over the budget */
+	private boolean decreasingTenure;
+
+	/** number of moves evaluated per iteration */
+	private int sampleSize = 50;
+
+	/** random source reset to the seed of each move */
+	private final Random moveRandom = new Random();
+
+	/** number of moves rejected as tabu */
+	private long tabuRejections;
+
+	/** number of tabu moves applied because of the aspiration criterion */
+	private long aspirations;
+
+	/**
+	 * @param strategy
+	 *            the strategy name of this search
+	 * @param problem
+	 *            the problem to solve
+	 * @param random
+	 *            the random source of this search
+	 * @param tenure
+	 *            number of iterations an attribute stays tabu
+	 */
+	public TabuSearch(String strategy, IProblem<S> problem, Random random,
+			int tenure) {
+		super(strategy, problem, random);
+		this.tenure = tenure;
+		this.minTenure = tenure;
+		this.tabuList = new TabuList(tenure);
+	}
+
+	@Override
+	protected void initialize() {
+		tabuList.clear();
+		tabuList.setTenure(tenure);
+		tabuRejections = 0;
+		aspirations = 0;
+	}
+
+	@Override
+	protected void step() {
+		if (decreasingTenure
+				&& statistics.getIterations() % UPDATE_INTERVAL == 0) {
+			updateTenure();
+		}
+
+		double bestDelta = Double.POSITIVE_INFINITY;
+		IOperator<S> bestOperator = null;
+		long bestSeed = 0;
+		boolean bestTabu = false;
+
+		for (int i = 0; i < sampleSize; i++) {
+			IOperator<S> operator = operators
+					.get(random.nextInt(operators.size()));
+			long seed = random.nextLong();
+			moveRandom.setSeed(seed);
+
+			double delta = proposeMove(operator, moveRandom);
+			if (Double.isNaN(delta) || delta >= bestDelta) {
+				continue;
+			}
+
+			boolean tabu = tabuList.contains(operator.getMoveHash());
+			if (tabu && currentCost + delta >= getBestCost() - COST_EPSILON) {
+				tabuRejections++;
+				continue;
+			}
+
+			bestDelta = delta;
+			bestOperator = operator;
+			bestSeed = seed;
+			bestTabu = tabu;
+		}
+
+		if (bestOperator != null) {
+			moveRandom.setSeed(bestSeed);
+			double delta = proposeMove(bestOperator, moveRandom);
+			long reverseHash = bestOperator.getReverseMoveHash();
+
+			acceptMove(delta);
+			tabuList.add(reverseHash);
+			if (bestTabu) {
+				aspirations++;
+			}
+		}
+	}
+
+	private void updateTenure() {
+		double progress = getProgress();
+		if (Double.isNaN(progress)) {
+			return;
+		}
+		tabuList.setTenure(
+				(int) Math.round(tenure - (tenure - minTenure) * progress));
+	}
+
+	/**
+	 * Lets the tenure shrink linearly over the budget of the search.
+	 * 
+	 * @param minTenure
+	 *            the tenure at the end of the search
+	 */
+	public void setDecreasingTenure(int minTenure) {
+		this.decreasingTenure = true;
+		this.minTenure = Math.min(minTenure, tenure);
+	}
+
+	/**
+	 * @param sampleSize
+	 *            number of moves evaluated per iteration
+	 */
+	public void setSampleSize(int sampleSize) {
+		this.sampleSize = Math.max(sampleSize, 1);
+	}
+
+	/**
+	 * @return the current tenure
+	 */
+	public int getTenure() {
+		return tabuList.getTenure();
+	}
+
+	/**
+	 * @return number of moves rejected as tabu in the last run
+	 */
+	public long getTabuRejections() {
+		return tabuRejections;
+	}
+
+	/**
+	 * @return number of tabu moves applied because they led to a new best
+	 *         solution
+	 */
+	public long getAspirations() {
+		return aspirations;
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + ", tenure: " + getTenure()
+				+ ", tabu rejections: " + tabuRejections + ", aspirations: "
+				+ aspirations;
+	}
+}
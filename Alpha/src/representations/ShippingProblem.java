@@ -1,14 +1,345 @@
 package representations;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import framework.problem.IOperator;
 import framework.problem.IProblem;
 import framework.problem.impl.Problem;
+import representations.operators.AbstractKOptOperator;
+import representations.operators.MoveNodeOperator;
+import representations.operators.OrOptOperator;
+import representations.operators.RelocateOrderOperator;
+import representations.operators.ThreeOptOperator;
+import representations.operators.TwoOptOperator;
+import service.properties.IPropertiesConstants;
+import service.properties.SystemProperties;
+import shippingCore.allocation.IRouteAllocator;
+import shippingCore.allocation.impl.AllocateAtEndAllocator;
+import shippingCore.allocation.impl.RouteAllocatorFactory;
+import shippingCore.calculations.NearestNeighbours;
+import shippingCore.calculations.RouteCalculator;
+import shippingCore.calculations.RouteEvaluation;
+import shippingCore.constraint.ConstraintPipeline;
+import shippingCore.constraint.ConstraintResultBuffer;
+import shippingCore.constraint.ConstraintViolation;
+import shippingCore.constraint.impl.ConstraintFactory;
+import shippingCore.cost.ICosts;
+import shippingCore.cost.impl.CostsFactory;
+import shippingCore.dao.IDistanceMap;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+import shippingCore.model.Vehicle;
 
-public class ShippingProblem extends Problem implements IProblem {
-	public ShippingProblem(List<IOperator> operators) {
-		// TODO Auto-generated constructor stub
+/**
+ * The pickup and delivery problem: all orders have to be assigned to the
+ * routes of the vehicles. The costs of a solution are the fix costs of the
+ * used vehicles plus the transportation and penalty costs of the routes.
+ */
+public class ShippingProblem extends Problem<ShippingSolution>
+		implements IProblem<ShippingSolution> {
+
+	/** nearest neighbours per location the k-opt operators try */
+	public static final int DEFAULT_NEIGHBOURS = 10;
+
+	/** the orders to transport */
+	private final List<Order> orders;
+
+	/** the available vehicles */
+	private final List<Vehicle> vehicles;
+
+	/** the distances between the locations */
+	private final IDistanceMap distanceMap;
+
+	/** one route calculator per search thread */
+	private final ThreadLocal<RouteCalculator> routeCalculators;
+
+	/** the ALLOCATION_ROUTEALLOCATOR_STRATEGY of the initial solutions */
+	private final String allocationStrategy;
+
+	/** the ALLOCATION_ROUTEALLOCATOR_COSTMODEL of the routes */
+	private final String costModel;
+
+	/**
+	 * the transportation costs by vehicle shared by its routes, created on
+	 * first use
+	 */
+	private ICosts[] transportationCosts;
+
+	/** checks the constraints the costs include, see ConstraintFactory */
+	private final ConstraintPipeline constraintPipeline = ConstraintPipeline
+			.compile(new ConstraintFactory());
+
+	/** the candidate lists of the k-opt operators, created on first use */
+	private NearestNeighbours nearestNeighbours;
+
+	/**
+	 * Creates the problem with the default operators.
+	 * 
+	 * @param orders
+	 *            the orders to transport
+	 * @param vehicles
+	 *            the available vehicles
+	 * @param distanceMap
+	 *            the distances between the locations
+	 */
+	public ShippingProblem(List<Order> orders, List<Vehicle> vehicles,
+			IDistanceMap distanceMap) {
+		this(createDefaultOperators(), orders, vehicles, distanceMap);
+	}
+
+	/**
+	 * @param operators
+	 *            the operators the searches use
+	 * @param orders
+	 *            the orders to transport, get their index in the list, see
+	 *            {@link Order#getIndex()}
+	 * @param vehicles
+	 *            the available vehicles
+	 * @param distanceMap
+	 *            the distances between the locations
+	 */
+	public ShippingProblem(List<IOperator<ShippingSolution>> operators,
+			List<Order> orders, List<Vehicle> vehicles,
+			final IDistanceMap distanceMap) {
+		super(operators);
+		this.orders = new ArrayList<Order>(orders);
+		for (int i = 0; i < this.orders.size(); i++) {
+			this.orders.get(i).setIndex(i);
+		}
+		this.vehicles = new ArrayList<Vehicle>(vehicles);
+		this.distanceMap = distanceMap;
+		this.allocationStrategy = SystemProperties.getProperty(
+				IPropertiesConstants.ALLOCATION_ROUTEALLOCATOR_STRATEGY,
+				IPropertiesConstants.ALLOCATION_ROUTEALLOCATOR_STRATEGY_ALLOCATE_AT_END);
+		this.costModel = SystemProperties.getProperty(
+				IPropertiesConstants.ALLOCATION_ROUTEALLOCATOR_COSTMODEL,
+				IPropertiesConstants.ALLOCATION_ROUTEALLOCATOR_COSTMODEL_FIXVARIABLE);
+		this.routeCalculators = new ThreadLocal<RouteCalculator>() {
+			@Override
+			protected RouteCalculator initialValue() {
+				return new RouteCalculator(distanceMap);
+			}
+		};
+	}
+
+	/**
+	 * @return new instances of the default operators
+	 */
+	public static List<IOperator<ShippingSolution>> createDefaultOperators() {
+		List<IOperator<ShippingSolution>> operators = new ArrayList<IOperator<ShippingSolution>>();
+		operators.add(new RelocateOrderOperator());
+		operators.add(new MoveNodeOperator());
+
+		boolean lifo = SystemProperties.getBooleanProperty(
+				IPropertiesConstants.OPTIMIZATION_KOPT_LIFO, false);
+		AbstractKOptOperator[] kOptOperators = { new TwoOptOperator(),
+				new ThreeOptOperator(), new OrOptOperator() };
+		for (AbstractKOptOperator operator : kOptOperators) {
+			operator.setLifoRequired(lifo);
+			operators.add(operator);
+		}
+
+		return operators;
+	}
+
+	/**
+	 * Creates a solution with the route allocator of the
+	 * ALLOCATION_ROUTEALLOCATOR_STRATEGY property, by default by appending
+	 * every order to the route of a random vehicle. Orders the allocator
+	 * cannot insert are appended as well, so every solution contains all
+	 * orders. The routes get the transportation costs of the
+	 * ALLOCATION_ROUTEALLOCATOR_COSTMODEL property.
+	 */
+	@Override
+	public ShippingSolution createInitialSolution(Random random) {
+		ShippingSolution solution = new ShippingSolution(this);
+		ICosts[] costs = getTransportationCosts();
+
+		for (int i = 0; i < vehicles.size(); i++) {
+			Vehicle vehicle = vehicles.get(i);
+			Route route = new Route(vehicle.getVehicleId(), vehicle,
+					vehicle.getAvailability());
+			route.setTransportationCosts(costs[i]);
+			solution.addRoute(route);
+		}
+
+		IRouteAllocator allocator = RouteAllocatorFactory
+				.createRouteAllocator(allocationStrategy, getRouteCalculator());
+		List<Order> unallocated = allocator.allocate(solution.getRoutes(),
+				orders, random);
+		if (!unallocated.isEmpty()) {
+			new AllocateAtEndAllocator().allocate(solution.getRoutes(),
+					unallocated, random);
+		}
+
+		return solution;
+	}
+
+	@Override
+	public double getCost(ShippingSolution solution) {
+		RouteCalculator calculator = getRouteCalculator();
+		double cost = 0;
+
+		for (Route route : solution.getRoutes()) {
+			if (route.getNodeCount() > 1) {
+				cost += getRouteCost(route, calculator.calculateRoute(route));
+			}
+		}
+
+		return cost;
+	}
+
+	/**
+	 * The costs of one route in the objective: the fix costs of the vehicle,
+	 * the transportation and penalty costs of the evaluation and the costs
+	 * of the weight constraint of {@link ConstraintFactory} for the overload
+	 * of the vehicle.
+	 * 
+	 * @param route
+	 *            the route with nodes besides the start node
+	 * @param evaluation
+	 *            the up to date evaluation of the route
+	 * @return the costs of the route
+	 */
+	public static double getRouteCost(Route route, RouteEvaluation evaluation) {
+		double cost = route.getVehicle().getFixCost()
+				+ evaluation.getTotalCost();
+
+		double overload = ConstraintFactory.WEIGHT.getViolationAmount(
+				route.getNodeCount() - 1, evaluation.getMaxLoad(), route, route);
+		if (overload > 0) {
+			cost += ConstraintFactory.WEIGHT.getCostForViolation(overload,
+					route);
+		}
+		return cost;
+	}
+
+	/**
+	 * Checks the routes of the solution with the constraint pipeline and
+	 * creates the violation objects. Only meant for reporting a final
+	 * solution, the search itself gets the violation costs incrementally from
+	 * the route calculation, priced by the same constraints.
+	 * 
+	 * @param solution
+	 *            the solution to check
+	 * @return the violations of all routes
+	 */
+	public List<ConstraintViolation> getViolations(ShippingSolution solution) {
+		RouteCalculator calculator = getRouteCalculator();
+		ConstraintResultBuffer buffer = new ConstraintResultBuffer();
+		List<ConstraintViolation> violations = new ArrayList<ConstraintViolation>();
+
+		for (Route route : solution.getRoutes()) {
+			if (route.getNodeCount() > 1) {
+				constraintPipeline.evaluate(route,
+						calculator.calculateRoute(route), buffer);
+				constraintPipeline.createViolations(route, buffer, violations);
+			}
+		}
+
+		return violations;
+	}
+
+	/**
+	 * @return the pipeline of the constraints the costs include, the latest
+	 *         pickup and delivery times and the capacity of the vehicles
+	 */
+	public ConstraintPipeline getConstraintPipeline() {
+		return constraintPipeline;
+	}
+
+	@Override
+	public ShippingSolution copySolution(ShippingSolution solution) {
+		return new ShippingSolution(solution);
+	}
+
+	/**
+	 * @return the route calculator of the calling thread
+	 */
+	public RouteCalculator getRouteCalculator() {
+		return routeCalculators.get();
+	}
+
+	/**
+	 * Returns the transportation costs of the routes of the vehicle, like the
+	 * routes of {@link #createInitialSolution(Random)} get them.
+	 * 
+	 * @param vehicleIndex
+	 *            index of the vehicle in {@link #getVehicles()}
+	 * @return the transportation costs of the vehicle, shared by its routes
+	 */
+	public ICosts getTransportationCosts(int vehicleIndex) {
+		return getTransportationCosts()[vehicleIndex];
 	}
 
+	/**
+	 * Creates the transportation costs of every vehicle on the first call, as
+	 * a cost matrix is expensive to build. Vehicles with equal cost rates
+	 * share their costs.
+	 * 
+	 * @return the costs by vehicle index, shared by the routes
+	 */
+	private synchronized ICosts[] getTransportationCosts() {
+		if (transportationCosts == null) {
+			transportationCosts = CostsFactory.createCosts(costModel,
+					distanceMap, vehicles);
+		}
+
+		return transportationCosts;
+	}
+
+	/**
+	 * Returns the nearest locations of every location of the orders and
+	 * vehicles, created on the first call.
+	 * 
+	 * @return the candidate lists of the k-opt operators
+	 */
+	public synchronized NearestNeighbours getNearestNeighbours() {
+		if (nearestNeighbours == null) {
+			int[] locations = new int[2 * orders.size() + vehicles.size()];
+			int count = 0;
+
+			for (Order order : orders) {
+				locations[count++] = order.getPickupNode().getLocation()
+						.getDistanceMapIndex();
+				locations[count++] = order.getDeliveryNode().getLocation()
+						.getDistanceMapIndex();
+			}
+			for (Vehicle vehicle : vehicles) {
+				locations[count++] = vehicle.getHomeLocation()
+						.getDistanceMapIndex();
+			}
+
+			nearestNeighbours = new NearestNeighbours(distanceMap, locations,
+					(int) SystemProperties.getLongProperty(
+							IPropertiesConstants.OPTIMIZATION_KOPT_NEIGHBOURS,
+							DEFAULT_NEIGHBOURS));
+		}
+
+		return nearestNeighbours;
+	}
+
+	/**
+	 * @return the distances between the locations
+	 */
+	public IDistanceMap getDistanceMap() {
+		return distanceMap;
+	}
+
+	/**
+	 * @return unmodifiable view of the orders
+	 */
+	public List<Order> getOrders() {
+		return Collections.unmodifiableList(orders);
+	}
+
+	/**
+	 * @return unmodifiable view of the vehicles
+	 */
+	public List<Vehicle> getVehicles() {
+		return Collections.unmodifiableList(vehicles);
+	}
 }
@@ -0,0 +1,90 @@
+package representations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import shippingCore.model.Route;
+
+/**
+ * A solution of the {@link ShippingProblem}: one route per vehicle. Owned by
+ * one search at a time.
+ */
+public class ShippingSolution {
+
+	/** the problem this is a solution of */
+	private final ShippingProblem problem;
+
+	/** the routes, one per vehicle */
+	private final List<Route> routes;
+
+	/**
+	 * Creates a solution without routes.
+	 * 
+	 * @param problem
+	 *            the problem this is a solution of
+	 */
+	public ShippingSolution(ShippingProblem problem) {
+		this.problem = problem;
+		this.routes = new ArrayList<Route>();
+	}
+
+	/**
+	 * Copy constructor, the routes are copied with {@link Route#Route(Route)}
+	 * and so share their nodes copy-on-write.
+	 * 
+	 * @param other
+	 *            the solution to copy
+	 */
+	public ShippingSolution(ShippingSolution other) {
+		this.problem = other.problem;
+		this.routes = new ArrayList<Route>(other.routes.size());
+
+		for (Route route : other.routes) {
+			routes.add(new Route(route));
+		}
+	}
+
+	/**
+	 * @return the problem this is a solution of
+	 */
+	public ShippingProblem getProblem() {
+		return problem;
+	}
+
+	/**
+	 * @param route
+	 *            the route to add
+	 */
+	public void addRoute(Route route) {
+		routes.add(route);
+	}
+
+	/**
+	 * @return the number of routes
+	 */
+	public int getRouteCount() {
+		return routes.size();
+	}
+
+	/**
+	 * @param index
+	 *            index of the route
+	 * @return the route at the index
+	 */
+	public Route getRoute(int index) {
+		return routes.get(index);
+	}
+
+	/**
+	 * @return unmodifiable view of the routes
+	 */
+	public List<Route> getRoutes() {
+		return Collections.unmodifiableList(routes);
+	}
+
+	@Override
+	public String toString() {
+		return "ShippingSolution " + routes;
+	}
+}
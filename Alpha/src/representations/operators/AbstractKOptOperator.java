@@ -0,0 +1,540 @@
+package representations.operators;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.Set;
+
+import framework.problem.IImprovingOperator;
+import representations.ShippingSolution;
+import service.util.Zobrist;
+import shippingCore.calculations.NearestNeighbours;
+import shippingCore.calculations.RouteCalculator;
+import shippingCore.constraint.IConstraint;
+import shippingCore.model.Node;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+
+/**
+ * Base class of the operators reordering the nodes within one route. A move
+ * replaces the nodes from one index to another by a permutation of them and
+ * is found from an anchor node and a candidate node at one of the nearest
+ * locations of the anchor, see {@link NearestNeighbours}. So only O(k) moves
+ * are tried per node instead of O(n).
+ * <p>
+ * {@link #improve(ShippingSolution, Random)} uses don't-look bits: a node is
+ * only tried again as anchor if a move changed one of its neighbours in the
+ * route. The queue of the nodes to try replaces the bits, so an improvement
+ * pass over a route is near linear in its length. Routes left unchanged since
+ * their last pass are skipped.
+ * <p>
+ * As only the order of the nodes in the replaced part changes, pickup before
+ * delivery ({@link IConstraint#PICKUP_DELIVERY_VIOLATION}) and last in first
+ * out ({@link IConstraint#LIFO_VIOLATION}) are checked in O(length of the
+ * part) before the costs are evaluated.
+ */
+public abstract class AbstractKOptOperator extends AbstractRouteOperator
+		implements IImprovingOperator<ShippingSolution> {
+
+	/** cost differences below this are improvements */
+	private static final double IMPROVEMENT_EPSILON = 1.0E-6;
+
+	/**
+	 * share of the route costs a move has to save at least, as the rounding
+	 * errors of large penalty costs exceed the absolute epsilon and would let
+	 * the descent cycle
+	 */
+	private static final double RELATIVE_IMPROVEMENT_EPSILON = 1.0E-12;
+
+	/** true if moves have to keep the routes last in first out */
+	private boolean lifoRequired;
+
+	/** the index of every route of the solution by route number */
+	private RouteIndex[] indices = new RouteIndex[0];
+
+	/** the routes improve() left in a local optimum and their versions */
+	private Route[] optimalRoutes = new Route[0];
+
+	private int[] optimalVersions = new int[0];
+
+	/** the route moves are generated for */
+	Route route;
+
+	/** the index of the route */
+	RouteIndex index;
+
+	/** the nearest neighbours of the problem */
+	NearestNeighbours neighbours;
+
+	/** the calculator of the calling thread */
+	private RouteCalculator calculator;
+
+	/** scratch array for the subclasses to build the new nodes in */
+	private Node[] region = new Node[16];
+
+	/** the best move considered since the last reset */
+	private Route moveRoute;
+
+	private int moveFrom;
+
+	private int moveTo;
+
+	private Node[] moveNodes = new Node[16];
+
+	private double moveDelta;
+
+	/** the first node of the replaced part before the move */
+	private Node moveReplaced;
+
+	/** true if a move was considered since the last reset */
+	private boolean considered;
+
+	/** stamps of the pickups seen in the new part by old position */
+	private int[] seen = new int[16];
+
+	private int stamp;
+
+	/** scratch arrays of the LIFO check */
+	private Node[] oldNodes = new Node[16];
+
+	private Node[] oldStack = new Node[16];
+
+	private Node[] oldOuter = new Node[16];
+
+	private Node[] newStack = new Node[16];
+
+	private Node[] newOuter = new Node[16];
+
+	private int stackSize;
+
+	private int outerCount;
+
+	/** the nodes to try as anchor and the set of them */
+	private final ArrayDeque<Node> active = new ArrayDeque<Node>();
+
+	private final Set<Node> activeSet = Collections
+			.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+
+	@Override
+	public double propose(ShippingSolution solution, Random random) {
+		moveRoute = null;
+
+		int routeNumber = random.nextInt(solution.getRouteCount());
+		Route candidate = solution.getRoute(routeNumber);
+		int first = candidate.getFirstModifiableIndex();
+		int nodeCount = candidate.getNodeCount();
+		if (nodeCount - first < 2) {
+			return Double.NaN;
+		}
+
+		prepare(solution, routeNumber);
+		resetMove(Double.POSITIVE_INFINITY);
+
+		int anchor = first - 1 + random.nextInt(nodeCount - first + 1);
+		int[] locations = getNeighbours(anchor);
+
+		// the first neighbour location from a random start with nodes in the
+		// route
+		int start = random.nextInt(locations.length);
+		for (int i = 0; i < locations.length; i++) {
+			int location = locations[(start + i) % locations.length];
+			int slot = index.getFirstSlot(location);
+			int count = 0;
+			while (index.getPositionAt(slot + count, location) >= 0) {
+				count++;
+			}
+
+			if (count > 0) {
+				int position = index
+						.getPositionAt(slot + random.nextInt(count), location);
+				if (position != anchor) {
+					generateMoves(anchor, position, random);
+				}
+				break;
+			}
+		}
+
+		if (moveRoute != null) {
+			return moveDelta;
+		}
+		return considered ? Double.POSITIVE_INFINITY : Double.NaN;
+	}
+
+	@Override
+	public void apply(ShippingSolution solution) {
+		replace(moveRoute, moveFrom, moveTo, moveNodes);
+	}
+
+	@Override
+	public double improve(ShippingSolution solution, Random random) {
+		double total = 0;
+
+		for (int i = 0; i < solution.getRouteCount(); i++) {
+			total += improveRoute(solution, i);
+		}
+
+		return total;
+	}
+
+	/**
+	 * Applies the best improving move of every active anchor until no anchor
+	 * is active anymore.
+	 */
+	private double improveRoute(ShippingSolution solution, int routeNumber) {
+		Route candidate = solution.getRoute(routeNumber);
+		int first = candidate.getFirstModifiableIndex();
+		if (candidate.getNodeCount() - first < 2) {
+			return 0;
+		}
+
+		prepare(solution, routeNumber);
+		if (optimalRoutes[routeNumber] == candidate
+				&& optimalVersions[routeNumber] == candidate.getVersion()) {
+			return 0;
+		}
+		active.clear();
+		activeSet.clear();
+		for (int i = first - 1; i < candidate.getNodeCount(); i++) {
+			activate(candidate.getNode(i));
+		}
+
+		double total = 0;
+		while (!active.isEmpty()) {
+			Node node = active.poll();
+			activeSet.remove(node);
+
+			index.update(candidate);
+			int anchor = index.getPosition(node);
+			if (anchor < first - 1) {
+				continue;
+			}
+
+			resetMove(-Math.max(IMPROVEMENT_EPSILON,
+					RELATIVE_IMPROVEMENT_EPSILON * Math.abs(
+							calculator.calculateRoute(candidate).getTotalCost())));
+			int[] locations = getNeighbours(anchor);
+			for (int location : locations) {
+				int slot = index.getFirstSlot(location);
+				int position;
+				while ((position = index.getPositionAt(slot++,
+						location)) >= 0) {
+					if (position != anchor) {
+						generateMoves(anchor, position, null);
+					}
+				}
+			}
+
+			if (moveRoute != null) {
+				replace(moveRoute, moveFrom, moveTo, moveNodes);
+				index.updatePart(candidate, moveFrom, moveTo);
+				total += moveDelta;
+
+				// the nodes next to the changed arcs
+				int nodeCount = candidate.getNodeCount();
+				activate(node);
+				activate(candidate.getNode(moveFrom - 1));
+				activate(candidate.getNode(moveFrom));
+				activate(candidate.getNode(moveTo - 1));
+				if (moveTo < nodeCount) {
+					activate(candidate.getNode(moveTo));
+				}
+			}
+		}
+
+		moveRoute = null;
+		optimalRoutes[routeNumber] = candidate;
+		optimalVersions[routeNumber] = candidate.getVersion();
+		return total;
+	}
+
+	/**
+	 * Generates the moves of the anchor and the candidate and passes them to
+	 * {@link #consider(int, int, int)}.
+	 * 
+	 * @param anchor
+	 *            position of the anchor node, at least the first modifiable
+	 *            index - 1
+	 * @param candidate
+	 *            position of a node at a location near the anchor
+	 * @param random
+	 *            source to select one of the moves of the pair, null to
+	 *            generate all of them
+	 */
+	abstract void generateMoves(int anchor, int candidate, Random random);
+
+	/**
+	 * @return the scratch array for the new nodes with at least the size
+	 */
+	Node[] getRegion(int size) {
+		region = ensureCapacity(region, size);
+		return region;
+	}
+
+	/**
+	 * @return the locations near the node at the position, starting with its
+	 *         own location
+	 */
+	int[] getNeighbours(int position) {
+		return neighbours.getNeighbours(
+				route.getNode(position).getLocation().getDistanceMapIndex());
+	}
+
+	/**
+	 * Checks and evaluates replacing the nodes of the route from the index
+	 * (including) to the index (excluding) by the same nodes in the order of
+	 * {@link #getRegion(int)}. Keeps the move if it is better than the best
+	 * one so far.
+	 * 
+	 * @param from
+	 *            index of the first replaced node, at least the first
+	 *            modifiable index
+	 * @param to
+	 *            index after the last replaced node
+	 * @param count
+	 *            to - from
+	 */
+	void consider(int from, int to, int count) {
+		considered = true;
+
+		if (checkOrder(from, to) != IConstraint.NO_ERROR) {
+			return;
+		}
+
+		double delta = calculator.evaluateReplacement(route, from, to,
+				region, count);
+		if (delta < moveDelta) {
+			moveRoute = route;
+			moveFrom = from;
+			moveTo = to;
+			moveNodes = ensureCapacity(moveNodes, count + 1);
+			System.arraycopy(region, 0, moveNodes, 0, count);
+			moveNodes[count] = null;
+			moveReplaced = route.getNode(from);
+			moveDelta = delta;
+		}
+	}
+
+	/**
+	 * Checks the precedence and, if required, the loading order of the new
+	 * part. The nodes outside of the part keep their positions, so only the
+	 * nodes in it have to be checked.
+	 * 
+	 * @return {@link IConstraint#NO_ERROR},
+	 *         {@link IConstraint#PICKUP_DELIVERY_VIOLATION} or
+	 *         {@link IConstraint#LIFO_VIOLATION}
+	 */
+	private int checkOrder(int from, int to) {
+		int count = to - from;
+		if (seen.length < count) {
+			seen = new int[Math.max(count, seen.length * 2)];
+		}
+		if (++stamp == 0) {
+			Arrays.fill(seen, 0);
+			stamp = 1;
+		}
+
+		for (int k = 0; k < count; k++) {
+			Node node = region[k];
+			Order order = node.getOrder();
+			if (order == null) {
+				continue;
+			}
+
+			if (node.isPickup()) {
+				int partner = index.getPosition(order.getDeliveryNode());
+				if (partner >= 0 && partner < from) {
+					return IConstraint.PICKUP_DELIVERY_VIOLATION;
+				}
+				seen[index.getPosition(node) - from] = stamp;
+			} else if (node.isDelivery()) {
+				int partner = index.getPosition(order.getPickupNode());
+				if (partner >= to || partner >= from
+						&& seen[partner - from] != stamp) {
+					return IConstraint.PICKUP_DELIVERY_VIOLATION;
+				}
+			}
+		}
+
+		if (lifoRequired && !isLifoKept(from, to)) {
+			return IConstraint.LIFO_VIOLATION;
+		}
+
+		return IConstraint.NO_ERROR;
+	}
+
+	/**
+	 * A part keeps the route last in first out if its own pickups and
+	 * deliveries are nested, if it unloads the orders loaded before it in the
+	 * same order and with nothing loaded on top, and if it leaves the same
+	 * orders loaded in the same order as the replaced part.
+	 */
+	private boolean isLifoKept(int from, int to) {
+		int count = to - from;
+		oldNodes = ensureCapacity(oldNodes, count);
+		oldStack = ensureCapacity(oldStack, count);
+		oldOuter = ensureCapacity(oldOuter, count);
+		newStack = ensureCapacity(newStack, count);
+		newOuter = ensureCapacity(newOuter, count);
+
+		simulateLoading(region, count, from, to, newStack, newOuter);
+		if (stackSize < 0) {
+			return false;
+		}
+		int newStackSize = stackSize;
+		int newOuterCount = outerCount;
+
+		for (int k = 0; k < count; k++) {
+			oldNodes[k] = route.getNode(from + k);
+		}
+		simulateLoading(oldNodes, count, from, to, oldStack, oldOuter);
+
+		if (Math.abs(stackSize) != newStackSize
+				|| outerCount != newOuterCount) {
+			return false;
+		}
+		for (int k = 0; k < newStackSize; k++) {
+			if (oldStack[k] != newStack[k]) {
+				return false;
+			}
+		}
+		for (int k = 0; k < newOuterCount; k++) {
+			if (oldOuter[k] != newOuter[k]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Loads and unloads the nodes on a stack. Sets {@link #stackSize} to the
+	 * number of orders left loaded, negative if the nodes are not last in
+	 * first out, and {@link #outerCount} to the number of deliveries of orders
+	 * loaded before the part.
+	 */
+	private void simulateLoading(Node[] nodes, int count, int from, int to,
+			Node[] stack, Node[] outer) {
+		int size = 0;
+		int outerSize = 0;
+		boolean valid = true;
+
+		for (int k = 0; k < count; k++) {
+			Node node = nodes[k];
+			Order order = node.getOrder();
+			if (order == null) {
+				continue;
+			}
+
+			if (node.isPickup()) {
+				stack[size++] = node;
+			} else if (node.isDelivery()) {
+				Node pickup = order.getPickupNode();
+				int position = index.getPosition(pickup);
+
+				if (position < from || position >= to) {
+					valid &= size == 0;
+					outer[outerSize++] = node;
+				} else if (size > 0 && stack[size - 1] == pickup) {
+					size--;
+				} else {
+					valid = false;
+					size = removeFromStack(stack, size, pickup);
+				}
+			}
+		}
+
+		stackSize = valid ? size : -size;
+		outerCount = outerSize;
+	}
+
+	private static int removeFromStack(Node[] stack, int size, Node node) {
+		for (int k = size - 1; k >= 0; k--) {
+			if (stack[k] == node) {
+				System.arraycopy(stack, k + 1, stack, k, size - k - 1);
+				return size - 1;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Sets the route and updates its index and the problem data.
+	 */
+	private void prepare(ShippingSolution solution, int routeNumber) {
+		int routeCount = solution.getRouteCount();
+		if (indices.length < routeCount) {
+			indices = Arrays.copyOf(indices, routeCount);
+			optimalRoutes = Arrays.copyOf(optimalRoutes, routeCount);
+			optimalVersions = Arrays.copyOf(optimalVersions, routeCount);
+		}
+		if (indices[routeNumber] == null) {
+			indices[routeNumber] = new RouteIndex();
+		}
+
+		route = solution.getRoute(routeNumber);
+		index = indices[routeNumber];
+		index.update(route);
+		neighbours = solution.getProblem().getNearestNeighbours();
+		calculator = solution.getProblem().getRouteCalculator();
+	}
+
+	private void resetMove(double threshold) {
+		moveRoute = null;
+		moveDelta = threshold;
+		considered = false;
+	}
+
+	private void activate(Node node) {
+		if (activeSet.add(node)) {
+			active.add(node);
+		}
+	}
+
+	/**
+	 * Replaces the nodes of the route from the index to the index by the
+	 * nodes of the array.
+	 */
+	private static void replace(Route route, int from, int to, Node[] nodes) {
+		for (int i = to - 1; i >= from; i--) {
+			route.removeNode(i);
+		}
+		for (int i = from; i < to; i++) {
+			route.addNode(i, nodes[i - from]);
+		}
+	}
+
+	/**
+	 * The attribute is the new arc into the changed part.
+	 */
+	@Override
+	public long getMoveHash() {
+		return Zobrist.key(moveRoute.getNode(moveFrom - 1).getNodeId(),
+				moveNodes[0].getNodeId());
+	}
+
+	/**
+	 * The attribute is the old arc into the changed part.
+	 */
+	@Override
+	public long getReverseMoveHash() {
+		return Zobrist.key(moveRoute.getNode(moveFrom - 1).getNodeId(),
+				moveReplaced.getNodeId());
+	}
+
+	/**
+	 * @return true if moves have to keep the routes last in first out
+	 */
+	public boolean isLifoRequired() {
+		return lifoRequired;
+	}
+
+	/**
+	 * @param lifoRequired
+	 *            true if moves have to keep the routes last in first out
+	 */
+	public void setLifoRequired(boolean lifoRequired) {
+		this.lifoRequired = lifoRequired;
+	}
+}
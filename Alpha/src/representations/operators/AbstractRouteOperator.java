@@ -0,0 +1,165 @@
+package representations.operators;
+
+import framework.problem.IOperator;
+import representations.ShippingSolution;
+import shippingCore.calculations.RouteCalculator;
+import shippingCore.model.Node;
+import shippingCore.model.Route;
+
+/**
+ * Base class of the operators changing the node sequences of routes. A move
+ * is described by the complete new node sequence of every changed route.
+ * Only the part between the unchanged head and tail is evaluated with
+ * {@link RouteCalculator#evaluateReplacement(Route, int, int, Node[], int)}
+ * and changed when the move is applied.
+ */
+public abstract class AbstractRouteOperator
+		implements IOperator<ShippingSolution> {
+
+	/** scratch array for the changed part of a sequence */
+	private Node[] replacement = new Node[16];
+
+	/**
+	 * Returns the cost difference of changing the nodes of the route to the
+	 * given sequence, including the fix costs of the vehicle if the route
+	 * gets used or unused.
+	 * 
+	 * @param calculator
+	 *            the route calculator of the calling thread
+	 * @param route
+	 *            the route to change
+	 * @param nodes
+	 *            the new node sequence including the zero node
+	 * @param count
+	 *            the number of valid nodes in the sequence
+	 * @return the cost difference or {@link Double#POSITIVE_INFINITY} if the
+	 *         vehicle would be overloaded
+	 */
+	protected double evaluateChange(RouteCalculator calculator, Route route,
+			Node[] nodes, int count) {
+		int nodeCount = route.getNodeCount();
+		int head = getHeadLength(route, nodes, count);
+		int tail = getTailLength(route, nodes, count, head);
+
+		if (head == nodeCount && head == count) {
+			return 0;
+		}
+
+		int replaced = count - head - tail;
+		replacement = ensureCapacity(replacement, replaced);
+		System.arraycopy(nodes, head, replacement, 0, replaced);
+
+		double delta = calculator.evaluateReplacement(route, head,
+				nodeCount - tail, replacement, replaced);
+
+		double fixCost = route.getVehicle().getFixCost();
+		if (nodeCount == 1 && count > 1) {
+			delta += fixCost;
+		} else if (nodeCount > 1 && count == 1) {
+			delta -= fixCost;
+		}
+
+		return delta;
+	}
+
+	/**
+	 * Changes the nodes of the route to the given sequence.
+	 * 
+	 * @param route
+	 *            the route to change
+	 * @param nodes
+	 *            the new node sequence including the zero node
+	 * @param count
+	 *            the number of valid nodes in the sequence
+	 */
+	protected static void applyChange(Route route, Node[] nodes, int count) {
+		int head = getHeadLength(route, nodes, count);
+		int tail = getTailLength(route, nodes, count, head);
+
+		for (int i = route.getNodeCount() - tail - 1; i >= head; i--) {
+			route.removeNode(i);
+		}
+		for (int i = head; i < count - tail; i++) {
+			route.addNode(i, nodes[i]);
+		}
+	}
+
+	/**
+	 * Copies the nodes of the route into the array.
+	 * 
+	 * @param route
+	 *            the route to copy
+	 * @param nodes
+	 *            the array to copy into, may be too small
+	 * @return the passed array or a larger one if it was too small
+	 */
+	protected static Node[] getNodes(Route route, Node[] nodes) {
+		int nodeCount = route.getNodeCount();
+		Node[] result = ensureCapacity(nodes, nodeCount + 2);
+
+		for (int i = 0; i < nodeCount; i++) {
+			result[i] = route.getNode(i);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Inserts the node into the sequence, which must have room for it.
+	 */
+	protected static void insert(Node[] nodes, int count, int index,
+			Node node) {
+		System.arraycopy(nodes, index, nodes, index + 1, count - index);
+		nodes[index] = node;
+	}
+
+	/**
+	 * Removes the node at the index from the sequence.
+	 */
+	protected static void remove(Node[] nodes, int count, int index) {
+		System.arraycopy(nodes, index + 1, nodes, index, count - index - 1);
+		nodes[count - 1] = null;
+	}
+
+	/**
+	 * @return the array or a larger one if it has less than size elements
+	 */
+	protected static Node[] ensureCapacity(Node[] nodes, int size) {
+		if (nodes.length < size) {
+			return new Node[Math.max(size, nodes.length * 2)];
+		}
+		return nodes;
+	}
+
+	/**
+	 * @return the number of leading nodes the route and the sequence share
+	 */
+	private static int getHeadLength(Route route, Node[] nodes, int count) {
+		int max = Math.min(route.getNodeCount(), count);
+		int head = 0;
+
+		while (head < max && route.getNode(head) == nodes[head]) {
+			head++;
+		}
+
+		return head;
+	}
+
+	/**
+	 * @return the number of trailing nodes the route and the sequence share
+	 *         after the head
+	 */
+	private static int getTailLength(Route route, Node[] nodes, int count,
+			int head) {
+		int nodeCount = route.getNodeCount();
+		int max = Math.min(nodeCount, count) - head;
+		int tail = 0;
+
+		while (tail < max && route.getNode(nodeCount - 1 - tail) == nodes[count
+				- 1 - tail]) {
+			tail++;
+		}
+
+		return tail;
+	}
+}
@@ -0,0 +1,109 @@
+package representations.operators;
+
+import java.util.Random;
+
+import framework.problem.IOperator;
+import representations.ShippingSolution;
+import service.util.Zobrist;
+import shippingCore.model.Node;
+import shippingCore.model.Route;
+
+/**
+ * Moves a random node to another position in its route, keeping the pickup
+ * of an order before its delivery.
+ */
+public class MoveNodeOperator extends AbstractRouteOperator {
+
+	/** the changed route */
+	private Route route;
+
+	/** new node sequence of the route */
+	private Node[] nodes = new Node[16];
+
+	/** number of nodes in nodes */
+	private int count;
+
+	/** the moved node */
+	private Node node;
+
+	/** the predecessors of the moved node before and after the move */
+	private Node oldPredecessor;
+
+	private Node newPredecessor;
+
+	@Override
+	public double propose(ShippingSolution solution, Random random) {
+		route = null;
+
+		Route candidate = solution
+				.getRoute(random.nextInt(solution.getRouteCount()));
+		int first = candidate.getFirstModifiableIndex();
+		int nodeCount = candidate.getNodeCount();
+		if (nodeCount - first < 2) {
+			return Double.NaN;
+		}
+
+		int index = first + random.nextInt(nodeCount - first);
+		node = candidate.getNode(index);
+
+		// the range the node may be inserted at after its removal
+		int low = first;
+		int high = nodeCount - 1;
+		if (node.isPickup()) {
+			high = candidate.indexOf(node.getOrder().getDeliveryNode()) - 1;
+		} else if (node.isDelivery()) {
+			low = Math.max(low,
+					candidate.indexOf(node.getOrder().getPickupNode()) + 1);
+		}
+		if (high < low) {
+			return Double.NaN;
+		}
+
+		int newIndex = low + random.nextInt(high - low + 1);
+		if (newIndex == index) {
+			return Double.NaN;
+		}
+
+		nodes = getNodes(candidate, nodes);
+		count = nodeCount;
+		remove(nodes, count, index);
+		insert(nodes, count - 1, newIndex, node);
+		oldPredecessor = candidate.getNode(index - 1);
+		newPredecessor = nodes[newIndex - 1];
+
+		route = candidate;
+		return evaluateChange(solution.getProblem().getRouteCalculator(),
+				candidate, nodes, count);
+	}
+
+	@Override
+	public void apply(ShippingSolution solution) {
+		applyChange(route, nodes, count);
+	}
+
+	/**
+	 * The attribute is the node following its new predecessor.
+	 */
+	@Override
+	public long getMoveHash() {
+		return Zobrist.key(newPredecessor.getNodeId(), node.getNodeId());
+	}
+
+	/**
+	 * The attribute is the node following its old predecessor.
+	 */
+	@Override
+	public long getReverseMoveHash() {
+		return Zobrist.key(oldPredecessor.getNodeId(), node.getNodeId());
+	}
+
+	@Override
+	public IOperator<ShippingSolution> copy() {
+		return new MoveNodeOperator();
+	}
+
+	@Override
+	public String getName() {
+		return "moveNode";
+	}
+}
@@ -0,0 +1,80 @@
+package representations.operators;
+
+import java.util.Random;
+
+import framework.problem.IOperator;
+import representations.ShippingSolution;
+import shippingCore.model.Node;
+
+/**
+ * Or-opt: moves a segment of up to {@link #MAX_SEGMENT_LENGTH} nodes starting
+ * at the anchor behind the candidate, keeping the direction of the segment.
+ */
+public class OrOptOperator extends AbstractKOptOperator {
+
+	/** the maximum number of moved nodes */
+	public static final int MAX_SEGMENT_LENGTH = 3;
+
+	@Override
+	void generateMoves(int anchor, int candidate, Random random) {
+		if (anchor < route.getFirstModifiableIndex()) {
+			return;
+		}
+
+		if (random != null) {
+			generateMove(anchor, candidate,
+					1 + random.nextInt(MAX_SEGMENT_LENGTH));
+		} else {
+			for (int length = 1; length <= MAX_SEGMENT_LENGTH; length++) {
+				generateMove(anchor, candidate, length);
+			}
+		}
+	}
+
+	private void generateMove(int anchor, int candidate, int length) {
+		int end = anchor + length;
+		if (end > route.getNodeCount()) {
+			return;
+		}
+
+		if (candidate < anchor - 1) {
+			// segment before the nodes from the candidate to the anchor
+			if (candidate + 1 < route.getFirstModifiableIndex()) {
+				return;
+			}
+
+			int count = end - candidate - 1;
+			Node[] nodes = getRegion(count);
+			for (int k = 0; k < length; k++) {
+				nodes[k] = route.getNode(anchor + k);
+			}
+			for (int k = length; k < count; k++) {
+				nodes[k] = route.getNode(candidate + 1 + k - length);
+			}
+			consider(candidate + 1, end, count);
+		} else if (candidate >= end) {
+			// segment after the nodes up to the candidate
+			int count = candidate + 1 - anchor;
+			Node[] nodes = getRegion(count);
+			for (int k = 0; k < count - length; k++) {
+				nodes[k] = route.getNode(end + k);
+			}
+			for (int k = 0; k < length; k++) {
+				nodes[count - length + k] = route.getNode(anchor + k);
+			}
+			consider(anchor, candidate + 1, count);
+		}
+	}
+
+	@Override
+	public IOperator<ShippingSolution> copy() {
+		OrOptOperator copy = new OrOptOperator();
+		copy.setLifoRequired(isLifoRequired());
+		return copy;
+	}
+
+	@Override
+	public String getName() {
+		return "orOpt";
+	}
+}
@@ -0,0 +1,145 @@
+package representations.operators;
+
+import java.util.Random;
+
+import framework.problem.IOperator;
+import representations.ShippingSolution;
+import service.util.Zobrist;
+import shippingCore.calculations.RouteCalculator;
+import shippingCore.model.Node;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+
+/**
+ * Moves the pickup and delivery of a random order to random positions in a
+ * random route, which may be the same route.
+ */
+public class RelocateOrderOperator extends AbstractRouteOperator {
+
+	/** the route the order is taken from */
+	private Route sourceRoute;
+
+	/** the route the order is inserted into */
+	private Route targetRoute;
+
+	/** new node sequence of the source route */
+	private Node[] sourceNodes = new Node[16];
+
+	/** number of nodes in sourceNodes */
+	private int sourceCount;
+
+	/** new node sequence of the target route */
+	private Node[] targetNodes = new Node[16];
+
+	/** number of nodes in targetNodes */
+	private int targetCount;
+
+	/** the order of the last proposed move */
+	private Order order;
+
+	@Override
+	public double propose(ShippingSolution solution, Random random) {
+		sourceRoute = null;
+
+		Route source = solution
+				.getRoute(random.nextInt(solution.getRouteCount()));
+		int first = source.getFirstModifiableIndex();
+		if (source.getNodeCount() <= first) {
+			return Double.NaN;
+		}
+
+		order = source
+				.getNode(first + random.nextInt(source.getNodeCount() - first))
+				.getOrder();
+		int pickupIndex = source.indexOf(order.getPickupNode());
+		int deliveryIndex = source.indexOf(order.getDeliveryNode());
+		if (pickupIndex < first) {
+			// already picked up, the order has to stay in this route
+			return Double.NaN;
+		}
+
+		Route target = solution
+				.getRoute(random.nextInt(solution.getRouteCount()));
+		RouteCalculator calculator = solution.getProblem()
+				.getRouteCalculator();
+
+		sourceNodes = getNodes(source, sourceNodes);
+		sourceCount = source.getNodeCount();
+		remove(sourceNodes, sourceCount--, deliveryIndex);
+		remove(sourceNodes, sourceCount--, pickupIndex);
+
+		double delta;
+		if (target == source) {
+			insertOrder(order, sourceNodes, sourceCount, first, random);
+			sourceCount += 2;
+			delta = evaluateChange(calculator, source, sourceNodes,
+					sourceCount);
+		} else {
+			targetNodes = getNodes(target, targetNodes);
+			targetCount = target.getNodeCount();
+			insertOrder(order, targetNodes, targetCount,
+					target.getFirstModifiableIndex(), random);
+			targetCount += 2;
+			delta = evaluateChange(calculator, source, sourceNodes,
+					sourceCount)
+					+ evaluateChange(calculator, target, targetNodes,
+							targetCount);
+		}
+
+		sourceRoute = source;
+		targetRoute = target;
+		return delta;
+	}
+
+	/**
+	 * Inserts pickup and delivery of the order at random positions from first
+	 * on, the pickup before the delivery.
+	 */
+	private static void insertOrder(Order order, Node[] nodes, int count,
+			int first, Random random) {
+		int pickupIndex = first + random.nextInt(count - first + 1);
+		int deliveryIndex = first + random.nextInt(count - first + 1);
+		if (deliveryIndex < pickupIndex) {
+			int swap = pickupIndex;
+			pickupIndex = deliveryIndex;
+			deliveryIndex = swap;
+		}
+
+		insert(nodes, count, pickupIndex, order.getPickupNode());
+		insert(nodes, count + 1, deliveryIndex + 1, order.getDeliveryNode());
+	}
+
+	@Override
+	public void apply(ShippingSolution solution) {
+		applyChange(sourceRoute, sourceNodes, sourceCount);
+		if (targetRoute != sourceRoute) {
+			applyChange(targetRoute, targetNodes, targetCount);
+		}
+	}
+
+	/**
+	 * The attribute is the order being in the target route.
+	 */
+	@Override
+	public long getMoveHash() {
+		return Zobrist.key(order.getOrderId(), targetRoute.getRouteId());
+	}
+
+	/**
+	 * The attribute is the order being in the source route.
+	 */
+	@Override
+	public long getReverseMoveHash() {
+		return Zobrist.key(order.getOrderId(), sourceRoute.getRouteId());
+	}
+
+	@Override
+	public IOperator<ShippingSolution> copy() {
+		return new RelocateOrderOperator();
+	}
+
+	@Override
+	public String getName() {
+		return "relocateOrder";
+	}
+}
@@ -0,0 +1,183 @@
+package representations.operators;
+
+import java.util.Arrays;
+
+import shippingCore.model.Node;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+
+/**
+ * Positions of the nodes of one route, by node and by location. The nodes are
+ * numbered densely by the index of their order, see {@link Order#getIndex()},
+ * so the position of a node is one array access. Built in O(n log n) and
+ * valid until the route changes, see {@link Route#getVersion()}. After the
+ * nodes of a part of the route were permuted,
+ * {@link #updatePart(Route, int, int)} updates the index in O(m log m) for
+ * the m nodes of the part.
+ */
+class RouteIndex {
+
+	/** the indexed route */
+	private Route route;
+
+	/** the version of the route the index was built for */
+	private int version;
+
+	/** the position of every node by node number, -1 if not in the route */
+	private int[] positions = new int[0];
+
+	/** the number of the node at every position */
+	private int[] numbers = new int[16];
+
+	/**
+	 * distance map index in the upper and position in the lower 32 bits,
+	 * sorted by location, the positions of a location in any order
+	 */
+	private long[] byLocation = new long[16];
+
+	/** the slot in byLocation of every position */
+	private int[] slots = new int[16];
+
+	/** number of valid entries in byLocation */
+	private int count;
+
+	/** scratch arrays of updatePart() */
+	private long[] oldEntries = new long[16];
+
+	private long[] newEntries = new long[16];
+
+	/**
+	 * Rebuilds the index if it is not for the current state of the route.
+	 * 
+	 * @param route
+	 *            the route to index, of a problem that numbered its orders
+	 */
+	public void update(Route route) {
+		if (this.route == route && this.version == route.getVersion()) {
+			return;
+		}
+
+		for (int i = 0; i < count; i++) {
+			positions[numbers[i]] = -1;
+		}
+
+		int nodeCount = route.getNodeCount();
+		if (byLocation.length < nodeCount) {
+			int capacity = Math.max(nodeCount, byLocation.length * 2);
+			numbers = new int[capacity];
+			byLocation = new long[capacity];
+			slots = new int[capacity];
+		}
+
+		for (int i = 0; i < nodeCount; i++) {
+			Node node = route.getNode(i);
+			setPosition(node, i);
+			byLocation[i] = ((long) node.getLocation()
+					.getDistanceMapIndex() << 32) | i;
+		}
+		count = nodeCount;
+		Arrays.sort(byLocation, 0, count);
+		for (int slot = 0; slot < count; slot++) {
+			slots[(int) byLocation[slot]] = slot;
+		}
+
+		this.route = route;
+		this.version = route.getVersion();
+	}
+
+	/**
+	 * Updates the index after the nodes from the index from to the index to
+	 * were permuted. The locations of the part stay the same, so its slots
+	 * get the new positions of their locations.
+	 * 
+	 * @param route
+	 *            the indexed route, up to date before the permutation
+	 * @param from
+	 *            index of the first permuted node
+	 * @param to
+	 *            index after the last permuted node
+	 */
+	public void updatePart(Route route, int from, int to) {
+		int partCount = to - from;
+		if (oldEntries.length < partCount) {
+			oldEntries = new long[Math.max(partCount, oldEntries.length * 2)];
+			newEntries = new long[oldEntries.length];
+		}
+
+		for (int k = 0; k < partCount; k++) {
+			int slot = slots[from + k];
+			oldEntries[k] = (byLocation[slot] & 0xFFFFFFFF00000000L) | slot;
+
+			Node node = route.getNode(from + k);
+			setPosition(node, from + k);
+			newEntries[k] = ((long) node.getLocation()
+					.getDistanceMapIndex() << 32) | (from + k);
+		}
+		Arrays.sort(oldEntries, 0, partCount);
+		Arrays.sort(newEntries, 0, partCount);
+
+		// both are ordered by location, with the same locations
+		for (int k = 0; k < partCount; k++) {
+			int slot = (int) oldEntries[k];
+			byLocation[slot] = newEntries[k];
+			slots[(int) newEntries[k]] = slot;
+		}
+
+		this.version = route.getVersion();
+	}
+
+	private void setPosition(Node node, int position) {
+		int number = getNumber(node);
+		if (number >= positions.length) {
+			int length = positions.length;
+			positions = Arrays.copyOf(positions,
+					Math.max(number + 1, 2 * length));
+			Arrays.fill(positions, length, positions.length, -1);
+		}
+		positions[number] = position;
+		numbers[position] = number;
+	}
+
+	/**
+	 * @return 0 for the zero node, 2 * order index + 1 for a pickup and + 2
+	 *         for a delivery
+	 */
+	private static int getNumber(Node node) {
+		Order order = node.getOrder();
+		if (order == null) {
+			return 0;
+		}
+		return 2 * order.getIndex() + (node.isDelivery() ? 2 : 1);
+	}
+
+	/**
+	 * @return the position of the node in the route or -1 if the node is not
+	 *         part of it
+	 */
+	public int getPosition(Node node) {
+		int number = getNumber(node);
+		return number < positions.length ? positions[number] : -1;
+	}
+
+	/**
+	 * @return the first slot of the nodes at the location, see
+	 *         {@link #getPositionAt(int, int)}
+	 */
+	public int getFirstSlot(int location) {
+		int slot = Arrays.binarySearch(byLocation, 0, count,
+				(long) location << 32);
+		// the key has position 0 which only the zero node can have
+		return slot >= 0 ? slot : -slot - 1;
+	}
+
+	/**
+	 * @return the position of the node in the slot if it is at the location,
+	 *         -1 if the slot is past the nodes of the location
+	 */
+	public int getPositionAt(int slot, int location) {
+		if (slot >= count || (int) (byLocation[slot] >>> 32) != location) {
+			return -1;
+		}
+		return (int) byLocation[slot];
+	}
+}
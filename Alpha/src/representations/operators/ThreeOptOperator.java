@@ -0,0 +1,96 @@
+package representations.operators;
+
+import java.util.Random;
+
+import framework.problem.IOperator;
+import representations.ShippingSolution;
+import shippingCore.model.Node;
+
+/**
+ * 3-opt by exchanging two adjacent segments: the nodes after the anchor up to
+ * before the candidate change places with the nodes from the candidate to a
+ * third node, so the candidate follows the anchor. This is the only pure
+ * 3-opt reconnection keeping the direction of all nodes, so it is the one
+ * compatible with pickup before delivery. The third node is taken from the
+ * nodes near the node after the anchor, which follows it after the move, or
+ * is the last node of the route.
+ */
+public class ThreeOptOperator extends AbstractKOptOperator {
+
+	@Override
+	void generateMoves(int anchor, int candidate, Random random) {
+		if (candidate <= anchor + 1
+				|| anchor + 1 < route.getFirstModifiableIndex()) {
+			return;
+		}
+
+		int last = route.getNodeCount() - 1;
+		int[] locations = getNeighbours(anchor + 1);
+
+		if (random != null) {
+			// a random near node or the last one
+			int choice = random.nextInt(locations.length + 1);
+			if (choice == locations.length) {
+				generateMove(anchor, candidate, last);
+				return;
+			}
+
+			int location = locations[choice];
+			int slot = index.getFirstSlot(location);
+			int count = 0;
+			while (index.getPositionAt(slot + count, location) >= 0) {
+				count++;
+			}
+			if (count > 0) {
+				generateMove(anchor, candidate, index.getPositionAt(
+						slot + random.nextInt(count), location));
+			}
+			return;
+		}
+
+		for (int location : locations) {
+			int slot = index.getFirstSlot(location);
+			int position;
+			while ((position = index.getPositionAt(slot++, location)) >= 0) {
+				if (position != last) {
+					generateMove(anchor, candidate, position);
+				}
+			}
+		}
+		generateMove(anchor, candidate, last);
+	}
+
+	/**
+	 * Exchanges the nodes from anchor + 1 to candidate - 1 and from candidate
+	 * to end.
+	 */
+	private void generateMove(int anchor, int candidate, int end) {
+		if (end < candidate) {
+			return;
+		}
+
+		int count = end - anchor;
+		int second = end - candidate + 1;
+		Node[] nodes = getRegion(count);
+		for (int k = 0; k < second; k++) {
+			nodes[k] = route.getNode(candidate + k);
+		}
+		for (int k = second; k < count; k++) {
+			nodes[k] = route.getNode(anchor + 1 + k - second);
+		}
+
+		consider(anchor + 1, end + 1, count);
+	}
+
+	@Override
+	public IOperator<ShippingSolution> copy() {
+		ThreeOptOperator copy = new ThreeOptOperator();
+		copy.setLifoRequired(isLifoRequired());
+		return copy;
+	}
+
+	@Override
+	public String getName() {
+		return "threeOpt";
+	}
+}
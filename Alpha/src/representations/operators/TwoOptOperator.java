@@ -0,0 +1,44 @@
+package representations.operators;
+
+import java.util.Random;
+
+import framework.problem.IOperator;
+import representations.ShippingSolution;
+import shippingCore.model.Node;
+
+/**
+ * 2-opt: reverses the nodes between the anchor and the candidate, so the
+ * candidate follows the anchor. Only reversals of nodes without both pickup
+ * and delivery of an order in between are feasible.
+ */
+public class TwoOptOperator extends AbstractKOptOperator {
+
+	@Override
+	void generateMoves(int anchor, int candidate, Random random) {
+		int low = Math.min(anchor, candidate);
+		int high = Math.max(anchor, candidate);
+		if (high <= low + 1 || low + 1 < route.getFirstModifiableIndex()) {
+			return;
+		}
+
+		int count = high - low;
+		Node[] nodes = getRegion(count);
+		for (int k = 0; k < count; k++) {
+			nodes[k] = route.getNode(high - k);
+		}
+
+		consider(low + 1, high + 1, count);
+	}
+
+	@Override
+	public IOperator<ShippingSolution> copy() {
+		TwoOptOperator copy = new TwoOptOperator();
+		copy.setLifoRequired(isLifoRequired());
+		return copy;
+	}
+
+	@Override
+	public String getName() {
+		return "twoOpt";
+	}
+}
@@ -1,12 +1,29 @@
 package run;
 
-import framework.problem.IProblem;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import framework.search.ISearch;
+import framework.search.impl.MultiStartSearch;
 import representations.ShippingProblem;
+import representations.ShippingSolution;
+import service.exceptions.BaseRuntimeException;
+import service.properties.IConstants;
+import service.properties.IPropertiesConstants;
 import service.properties.SystemProperties;
+import service.util.ZoneDayTable;
+import shippingCore.constraint.ConstraintViolation;
+import shippingCore.dao.IDistanceMap;
+import shippingCore.dao.impl.DistanceMapFactory;
+import shippingCore.dao.impl.XMLProblemReader;
+import shippingCore.dao.impl.XMLSolutionWriter;
+import shippingCore.model.Order;
+import shippingCore.model.Vehicle;
 
 public class Run {
 
-	private static IProblem problem;
+	private static ShippingProblem problem;
 
 	/**
 	 * @param args
@@ -18,6 +35,8 @@ public class Run {
 		 */
 		String userPropertiesFile = args[0];
 		SystemProperties.loadUserProperties(userPropertiesFile);
+		ZoneDayTable.preload(SystemProperties.getProperty(
+				IPropertiesConstants.TIME_ZONES, ""));
 
 		/*
 		 * Initialise Problem,
@@ -28,13 +47,105 @@ public class Run {
 		 * State, Operators, Algorithm & Optimisation techniques - Readand load
 		 * problem data - Run Algorithm
 		 */
-
+		optimize();
 	}
 
+	/**
+	 * Reads the orders and vehicles of the configured source and creates the
+	 * distance map of the configured distance source.
+	 */
 	private static void createShippingProblem() {
-		// TODO Auto-generated method stub
-		problem = new ShippingProblem(null);
+		List<Order> orders = new ArrayList<Order>();
+		List<Vehicle> vehicles = new ArrayList<Vehicle>();
+		IDistanceMap distanceMap = null;
+
+		try {
+			if (IPropertiesConstants.DATA_DAO_XML.equals(SystemProperties
+					.getProperty(IPropertiesConstants.DATA_DAO, ""))) {
+				XMLProblemReader reader = new XMLProblemReader();
+				reader.read(SystemProperties.getProperty(
+						IPropertiesConstants.DATA_DAO_XML_FILE,
+						IConstants.DATA_FILES_PATH + "problem.xml"));
+				orders = reader.getOrders();
+				vehicles = reader.getVehicles();
+			}
+
+			String distanceSource = SystemProperties.getProperty(
+					IPropertiesConstants.DATA_DISTANCESOURCE, "");
+			if (!distanceSource.isEmpty()) {
+				distanceMap = DistanceMapFactory
+						.createDistanceMap(distanceSource);
+			}
+		} catch (IOException e) {
+			throw new BaseRuntimeException("Cannot read the problem data", e);
+		}
+
+		problem = new ShippingProblem(orders, vehicles, distanceMap);
+	}
+
+	/**
+	 * Runs the parallel searches configured in the properties, prints the
+	 * results and writes the best solution if a solution file is configured.
+	 */
+	private static void optimize() {
+		String[] strategies = SystemProperties
+				.getProperty(
+						IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY,
+						IPropertiesConstants.OPTIMIZATION_LOCALSEARCHSTRATEGY_HILLCLIMBING)
+				.split("\\s*,\\s*");
+		int processors = Runtime.getRuntime().availableProcessors();
+
+		MultiStartSearch<ShippingSolution> search = new MultiStartSearch<ShippingSolution>(
+				problem, strategies);
+		search.setSearchCount((int) SystemProperties.getLongProperty(
+				IPropertiesConstants.OPTIMIZATION_SEARCHES, processors));
+		search.setParallelism((int) SystemProperties.getLongProperty(
+				IPropertiesConstants.OPTIMIZATION_PARALLELISM, processors));
+		search.setSeed(SystemProperties
+				.getLongProperty(IPropertiesConstants.OPTIMIZATION_SEED, 1));
+		search.setMaxIterations(SystemProperties.getLongProperty(
+				IPropertiesConstants.OPTIMIZATION_MAXITERATIONS, 1000000));
+		search.setTimeLimit(SystemProperties.getLongProperty(
+				IPropertiesConstants.OPTIMIZATION_MAXTIME, 60) * 1000);
+		search.setShareInterval(SystemProperties.getLongProperty(
+				IPropertiesConstants.OPTIMIZATION_SHAREINTERVAL, 10000));
+
+		ShippingSolution best = search.run();
+
+		for (ISearch<ShippingSolution> single : search.getSearches()) {
+			System.out.println(single);
+		}
+		System.out.println("best costs: " + search.getBestCost() + ", "
+				+ search.getStatistics());
+		if (best != null) {
+			List<ConstraintViolation> violations = problem.getViolations(best);
+			System.out.println("violations: " + violations.size());
+			for (ConstraintViolation violation : violations) {
+				System.out.println("route " + violation.getRouteID() + ": "
+						+ violation.toStringShort());
+			}
+		}
+
+		String solutionFile = SystemProperties.getProperty(
+				IPropertiesConstants.DATA_SOLUTION_XML_FILE, "");
+		if (!solutionFile.isEmpty() && best != null) {
+			writeSolution(best, solutionFile);
+		}
+	}
 
+	private static void writeSolution(ShippingSolution solution,
+			String filename) {
+		try {
+			XMLSolutionWriter writer = new XMLSolutionWriter(filename);
+			try {
+				writer.writeSolution(solution, problem.getRouteCalculator(),
+						problem.getConstraintPipeline());
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			throw new BaseRuntimeException("Cannot write the solution", e);
+		}
 	}
 
 }
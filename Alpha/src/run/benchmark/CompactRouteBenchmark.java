@@ -0,0 +1,139 @@
+package run.benchmark;
+
+import java.util.Random;
+
+import service.properties.IConstants;
+import shippingCore.calculations.RouteCalculator;
+import shippingCore.calculations.time.TimeWindow;
+import shippingCore.dao.impl.ArrayDistanceMap;
+import shippingCore.dao.impl.Location;
+import shippingCore.model.CompactRoute;
+import shippingCore.model.NodeTable;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+import shippingCore.model.Vehicle;
+
+/**
+ * Compares a full route calculation of {@link Route} with the one of
+ * {@link CompactRoute} and the heap used by many routes of each kind.
+ * Arguments: [orders per route] [routes] [rounds]
+ */
+public class CompactRouteBenchmark {
+	private static final int WARMUP_ROUNDS = 3;
+
+	/** keeps the JIT from removing the calculations */
+	private static double blackhole;
+
+	/**
+	 * @param args
+	 *            [orders per route] [routes] [rounds]
+	 */
+	public static void main(String[] args) {
+		int orders = args.length > 0 ? Integer.parseInt(args[0]) : 25;
+		int routeCount = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		int locations = 2 * orders + 1;
+		RouteCalculator calculator = new RouteCalculator(
+				createDistanceMap(locations));
+		NodeTable nodeTable = new NodeTable(routeCount * locations);
+
+		long before = getUsedMemory();
+		Route[] routes = new Route[routeCount];
+		for (int i = 0; i < routeCount; i++) {
+			routes[i] = createRoute(i, orders);
+		}
+		long routeBytes = getUsedMemory() - before;
+
+		before = getUsedMemory();
+		CompactRoute[] compactRoutes = new CompactRoute[routeCount];
+		for (int i = 0; i < routeCount; i++) {
+			compactRoutes[i] = CompactRoute.fromRoute(routes[i], nodeTable);
+		}
+		long compactBytes = getUsedMemory() - before;
+
+		System.out.println(routeCount + " routes with "
+				+ routes[0].getNodeCount() + " nodes: Route with nodes "
+				+ routeBytes / routeCount + " bytes, CompactRoute "
+				+ compactBytes / routeCount
+				+ " bytes per route (plus the shared nodes)");
+
+		for (int round = 0; round < WARMUP_ROUNDS + rounds; round++) {
+			long start = System.nanoTime();
+			for (Route route : routes) {
+				// full calculation, the cached evaluation is dropped first
+				route.setEvaluation(null);
+				blackhole += calculator.calculateRoute(route).getTotalCost();
+			}
+			long routeNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (CompactRoute route : compactRoutes) {
+				blackhole += calculator.calculateTotalCost(route);
+			}
+			long compactNanos = System.nanoTime() - start;
+
+			if (round >= WARMUP_ROUNDS) {
+				System.out.println("round " + (round - WARMUP_ROUNDS)
+						+ ": Route " + routeNanos / routeCount
+						+ " ns | CompactRoute " + compactNanos / routeCount
+						+ " ns per calculation");
+			}
+		}
+		System.out.println("checksum: " + blackhole);
+	}
+
+	private static long getUsedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * @return a random distance map with 50 km/h travel speed
+	 */
+	private static ArrayDistanceMap createDistanceMap(int size) {
+		Random random = new Random(42);
+		double[][] distances = new double[size][size];
+		long[][] travelTimes = new long[size][size];
+
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				distances[i][j] = i == j ? 0 : 1 + random.nextInt(200);
+				travelTimes[i][j] = (long) (distances[i][j] / 50
+						* IConstants.HOUR);
+			}
+		}
+
+		return new ArrayDistanceMap(distances, travelTimes);
+	}
+
+	/**
+	 * @return a route with pickup and delivery of the given number of orders
+	 */
+	private static Route createRoute(long routeId, int orders) {
+		Random random = new Random(4711 + routeId);
+		Location home = new Location(0, 0, "home");
+		TimeWindow day = new TimeWindow(0, IConstants.DAY);
+		Vehicle vehicle = new Vehicle(routeId, home, day, 24000, 1.1, 30,
+				100);
+		Route route = new Route(routeId, vehicle, day);
+
+		for (int i = 0; i < orders; i++) {
+			long start = random.nextInt(IConstants.DAY / 2);
+			Order order = new Order(i, 100 + random.nextInt(1000), 2 * i,
+					new Location(2 * i + 1, 2 * i + 1, "pickup " + i),
+					new TimeWindow(start, start + 2 * IConstants.HOUR),
+					15 * IConstants.MINUTE, 2 * i + 1,
+					new Location(2 * i + 2, 2 * i + 2, "delivery " + i),
+					new TimeWindow(start, start + 8 * IConstants.HOUR),
+					15 * IConstants.MINUTE);
+			route.addNode(order.getPickupNode());
+			route.addNode(order.getDeliveryNode());
+		}
+
+		return route;
+	}
+}
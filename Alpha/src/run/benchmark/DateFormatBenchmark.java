@@ -0,0 +1,138 @@
+package run.benchmark;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import service.dateAndTime.DateTimeFormat;
+import service.properties.IConstants;
+
+/**
+ * Compares the formatting of times with a {@link SimpleDateFormat}, as done by
+ * the shared formatters so far, against {@link DateTimeFormat#format(long)}
+ * and {@link DateTimeFormat#formatTo(long, StringBuilder)} with one reused
+ * builder. Arguments: [times] [rounds] [pattern]
+ * <p>
+ * Run with a fixed heap (e.g. -Xms1g -Xmx1g) and a time zone with daylight
+ * saving time (e.g. -Duser.timezone=Europe/Berlin). The first rounds are warm
+ * up for the JIT and are not reported. Every round also counts the times the
+ * formats disagree on.
+ */
+public class DateFormatBenchmark {
+	private static final int WARMUP_ROUNDS = 5;
+
+	/** start of the times, 2010-01-01 */
+	private static final long FIRST_TIME = 1262304000000L;
+
+	/** range of the times, ten years */
+	private static final long TIME_RANGE = 3652L * IConstants.DAY;
+
+	/** keeps the JIT from removing the formatting */
+	private static long blackhole;
+
+	/**
+	 * @param args
+	 *            [times] [rounds] [pattern]
+	 */
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		String pattern = args.length > 2 ? args[2]
+				: DateTimeFormat.PATTERN_DATE_TIME;
+
+		Random random = new Random(4711);
+		long[] times = new long[count];
+		for (int i = 0; i < count; i++) {
+			times[i] = FIRST_TIME + (long) (random.nextDouble() * TIME_RANGE);
+		}
+
+		SimpleDateFormat simpleFormat = new SimpleDateFormat(pattern);
+		DateTimeFormat format = new DateTimeFormat(pattern);
+		System.out.println("times per round: " + count + ", pattern: "
+				+ pattern + ", time zone: " + TimeZone.getDefault().getID());
+
+		for (int round = 0; round < WARMUP_ROUNDS + rounds; round++) {
+			long simpleNanos = runSimpleDateFormat(simpleFormat, times);
+			long formatNanos = runFormat(format, times);
+			long formatToNanos = runFormatTo(format, times);
+
+			if (round >= WARMUP_ROUNDS) {
+				System.out.println("round " + (round - WARMUP_ROUNDS)
+						+ ": SimpleDateFormat " + format(count, simpleNanos)
+						+ " | format " + format(count, formatNanos)
+						+ " | formatTo " + format(count, formatToNanos)
+						+ " | differences "
+						+ countDifferences(simpleFormat, format, times));
+			}
+		}
+		System.out.println("checksum: " + blackhole);
+	}
+
+	/**
+	 * @return the elapsed time in nanoseconds
+	 */
+	private static long runSimpleDateFormat(SimpleDateFormat simpleFormat,
+			long[] times) {
+		long start = System.nanoTime();
+		long sum = 0;
+		for (int i = 0; i < times.length; i++) {
+			sum += simpleFormat.format(new Date(times[i])).length();
+		}
+		long nanos = System.nanoTime() - start;
+		blackhole += sum;
+		return nanos;
+	}
+
+	/**
+	 * @return the elapsed time in nanoseconds
+	 */
+	private static long runFormat(DateTimeFormat format, long[] times) {
+		long start = System.nanoTime();
+		long sum = 0;
+		for (int i = 0; i < times.length; i++) {
+			sum += format.format(times[i]).length();
+		}
+		long nanos = System.nanoTime() - start;
+		blackhole += sum;
+		return nanos;
+	}
+
+	/**
+	 * @return the elapsed time in nanoseconds
+	 */
+	private static long runFormatTo(DateTimeFormat format, long[] times) {
+		StringBuilder builder = new StringBuilder(64);
+		long start = System.nanoTime();
+		long sum = 0;
+		for (int i = 0; i < times.length; i++) {
+			builder.setLength(0);
+			sum += format.formatTo(times[i], builder).length();
+		}
+		long nanos = System.nanoTime() - start;
+		blackhole += sum;
+		return nanos;
+	}
+
+	private static int countDifferences(SimpleDateFormat simpleFormat,
+			DateTimeFormat format, long[] times) {
+		int differences = 0;
+		for (int i = 0; i < times.length; i++) {
+			if (!simpleFormat.format(new Date(times[i])).equals(
+					format.format(times[i]))) {
+				differences++;
+			}
+		}
+		return differences;
+	}
+
+	/**
+	 * @return the result formatted as times per second and nanoseconds per
+	 *         time
+	 */
+	private static String format(int count, long nanos) {
+		double timesPerSecond = count * (double) IConstants.nanoToSec / nanos;
+		return String.format("%,.0f/s (%.1f ns)", timesPerSecond,
+				(double) nanos / count);
+	}
+}
@@ -0,0 +1,108 @@
+package run.benchmark;
+
+import java.io.File;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import service.properties.IConstants;
+import shippingCore.dao.IDistanceMap;
+import shippingCore.dao.impl.ArrayDistanceMap;
+import shippingCore.dao.impl.MappedDistanceMap;
+
+/**
+ * Compares leg lookups of the memory-mapped distance map against the on-heap
+ * double[][] distance map. Arguments: [locations] [legs] [rounds]
+ * <p>
+ * Run with a fixed heap (e.g. -Xms2g -Xmx2g) so that GC does not distort the
+ * numbers. The first rounds are warm up for the JIT and are not reported.
+ */
+public class DistanceMapBenchmark {
+	private static final int WARMUP_ROUNDS = 5;
+
+	/** keeps the JIT from removing the lookups */
+	private static double blackhole;
+
+	/**
+	 * @param args
+	 *            [locations] [legs] [rounds]
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int legs = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+		Random random = new Random(4711);
+		int[][] meters = new int[size][size];
+		int[][] seconds = new int[size][size];
+		double[][] distances = new double[size][size];
+		long[][] travelTimes = new long[size][size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				meters[i][j] = i == j ? 0 : 1000 + random.nextInt(1000000);
+				seconds[i][j] = meters[i][j] / 25;
+				distances[i][j] = meters[i][j] * 0.001;
+				travelTimes[i][j] = seconds[i][j] * 1000L;
+			}
+		}
+
+		File file = File.createTempFile("distanceMap", ".dat");
+		file.deleteOnExit();
+		MappedDistanceMap.writeDistanceFile(file.getPath(),
+				ByteOrder.BIG_ENDIAN, meters, seconds);
+		meters = null;
+		seconds = null;
+
+		IDistanceMap mapped = MappedDistanceMap
+				.createDimaBigEndian(file.getPath());
+		IDistanceMap onHeap = new ArrayDistanceMap(distances, travelTimes);
+
+		int[] from = new int[legs];
+		int[] to = new int[legs];
+		for (int i = 0; i < legs; i++) {
+			from[i] = random.nextInt(size);
+			to[i] = random.nextInt(size);
+		}
+
+		System.out.println("locations: " + size + ", legs per round: " + legs
+				+ ", file: " + file.length() / (1024 * 1024) + " MB");
+
+		for (int round = 0; round < WARMUP_ROUNDS + rounds; round++) {
+			long mappedNanos = run(mapped, from, to);
+			long onHeapNanos = run(onHeap, from, to);
+
+			if (round >= WARMUP_ROUNDS) {
+				System.out.println("round " + (round - WARMUP_ROUNDS)
+						+ ": mapped " + format(legs, mappedNanos)
+						+ " | double[][] " + format(legs, onHeapNanos));
+			}
+		}
+		System.out.println("checksum: " + blackhole);
+	}
+
+	/**
+	 * Looks up distance and travel time of all legs.
+	 * 
+	 * @return the elapsed time in nanoseconds
+	 */
+	private static long run(IDistanceMap map, int[] from, int[] to) {
+		long start = System.nanoTime();
+		double sum = 0;
+		for (int i = 0; i < from.length; i++) {
+			sum += map.getDistance(from[i], to[i]);
+			sum += map.getTravelTime(from[i], to[i]);
+		}
+		long nanos = System.nanoTime() - start;
+		blackhole += sum;
+		return nanos;
+	}
+
+	/**
+	 * @return the result formatted as legs per second and nanoseconds per leg
+	 */
+	private static String format(int legs, long nanos) {
+		double legsPerSecond = legs * (double) IConstants.nanoToSec / nanos;
+		return String.format("%,.0f legs/s (%.1f ns/leg)", legsPerSecond,
+				(double) nanos / legs);
+	}
+}
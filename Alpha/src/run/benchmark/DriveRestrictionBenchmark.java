@@ -0,0 +1,183 @@
+package run.benchmark;
+
+import java.util.Calendar;
+import java.util.Random;
+
+import service.properties.IConstants;
+import service.util.LongDateCalculator;
+
+/**
+ * Compares the Sunday driving ban calculation of {@link LongDateCalculator},
+ * which looks up the zone offsets in day tables, against the same calculation
+ * with a {@link Calendar} for weekday and time of day. Arguments: [legs]
+ * [rounds]
+ * <p>
+ * Run with a fixed heap (e.g. -Xms1g -Xmx1g) and a time zone with daylight
+ * saving time (e.g. -Duser.timezone=Europe/Berlin). The first rounds are warm
+ * up for the JIT and are not reported. Every round also counts the legs both
+ * calculations disagree on.
+ */
+public class DriveRestrictionBenchmark {
+	private static final int WARMUP_ROUNDS = 5;
+
+	/** start of the departures, 2010-01-01 */
+	private static final long FIRST_DEPARTURE = 1262304000000L;
+
+	/** range of the departures, ten years */
+	private static final long DEPARTURE_RANGE = 3652L * IConstants.DAY;
+
+	/** keeps the JIT from removing the calculations */
+	private static long blackhole;
+
+	/**
+	 * @param args
+	 *            [legs] [rounds]
+	 */
+	public static void main(String[] args) {
+		int legs = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		Random random = new Random(4711);
+		long[] departures = new long[legs];
+		long[] arrivals = new long[legs];
+		for (int i = 0; i < legs; i++) {
+			departures[i] = FIRST_DEPARTURE
+					+ (long) (random.nextDouble() * DEPARTURE_RANGE);
+			// legs of up to three days
+			arrivals[i] = departures[i] + random.nextInt(3 * IConstants.DAY);
+		}
+
+		Calendar calendar = Calendar.getInstance();
+		System.out.println("legs per round: " + legs + ", time zone: "
+				+ calendar.getTimeZone().getID());
+
+		for (int round = 0; round < WARMUP_ROUNDS + rounds; round++) {
+			long tableNanos = runTable(departures, arrivals);
+			long calendarNanos = runCalendar(calendar, departures, arrivals);
+
+			if (round >= WARMUP_ROUNDS) {
+				System.out.println("round " + (round - WARMUP_ROUNDS)
+						+ ": day tables " + format(legs, tableNanos)
+						+ " | Calendar " + format(legs, calendarNanos)
+						+ " | differences "
+						+ countDifferences(calendar, departures, arrivals));
+			}
+		}
+		System.out.println("checksum: " + blackhole);
+	}
+
+	/**
+	 * @return the elapsed time in nanoseconds
+	 */
+	private static long runTable(long[] departures, long[] arrivals) {
+		long start = System.nanoTime();
+		long sum = 0;
+		for (int i = 0; i < departures.length; i++) {
+			sum += LongDateCalculator.getDriveRestrictionTimeMillis(
+					departures[i], arrivals[i]);
+		}
+		long nanos = System.nanoTime() - start;
+		blackhole += sum;
+		return nanos;
+	}
+
+	/**
+	 * @return the elapsed time in nanoseconds
+	 */
+	private static long runCalendar(Calendar calendar, long[] departures,
+			long[] arrivals) {
+		long start = System.nanoTime();
+		long sum = 0;
+		for (int i = 0; i < departures.length; i++) {
+			sum += getDriveRestrictionTimeMillis(calendar, departures[i],
+					arrivals[i]);
+		}
+		long nanos = System.nanoTime() - start;
+		blackhole += sum;
+		return nanos;
+	}
+
+	private static int countDifferences(Calendar calendar, long[] departures,
+			long[] arrivals) {
+		int differences = 0;
+		for (int i = 0; i < departures.length; i++) {
+			if (LongDateCalculator.getDriveRestrictionTimeMillis(
+					departures[i], arrivals[i]) != getDriveRestrictionTimeMillis(
+					calendar, departures[i], arrivals[i])) {
+				differences++;
+			}
+		}
+		return differences;
+	}
+
+	/**
+	 * The calculation of
+	 * {@link LongDateCalculator#getDriveRestrictionTimeMillis(long, long)}
+	 * with the calendar for the local day, weekday and time of day.
+	 */
+	private static long getDriveRestrictionTimeMillis(Calendar calendar,
+			long lastDeparture, long arrivalTime) {
+		if (lastDeparture >= arrivalTime) {
+			return 0;
+		}
+
+		calendar.setTimeInMillis(lastDeparture);
+		int startWeekday = calendar.get(Calendar.DAY_OF_WEEK);
+		long startDay = getLocalDay(calendar);
+		int startMillisInDay = getMillisInDay(calendar);
+
+		calendar.setTimeInMillis(arrivalTime);
+		int endWeekday = calendar.get(Calendar.DAY_OF_WEEK);
+		int involvedDays = (int) (getLocalDay(calendar) - startDay) + 1;
+
+		long millisDriveForbid = 0;
+		if (startWeekday == Calendar.SUNDAY
+				&& startMillisInDay < 22 * IConstants.HOUR) {
+			millisDriveForbid = IConstants.DAY - startMillisInDay
+					- 2 * IConstants.HOUR;
+		}
+
+		int currentWeekday = startWeekday % 7;
+		for (int i = 2; i < involvedDays; i++) {
+			currentWeekday = (currentWeekday + 1) % 7;
+			if (currentWeekday == Calendar.SUNDAY) {
+				millisDriveForbid += 22 * IConstants.HOUR;
+			}
+		}
+
+		if (endWeekday == Calendar.SUNDAY && involvedDays > 1) {
+			millisDriveForbid += 22 * IConstants.HOUR;
+		}
+
+		return millisDriveForbid;
+	}
+
+	/**
+	 * @return the local day as days since 1970-01-01
+	 */
+	private static long getLocalDay(Calendar calendar) {
+		long local = calendar.getTimeInMillis()
+				+ calendar.get(Calendar.ZONE_OFFSET)
+				+ calendar.get(Calendar.DST_OFFSET);
+		return Math.floorDiv(local, IConstants.DAY);
+	}
+
+	/**
+	 * @return the milliseconds since the start of the local day
+	 */
+	private static int getMillisInDay(Calendar calendar) {
+		return calendar.get(Calendar.HOUR_OF_DAY) * IConstants.HOUR
+				+ calendar.get(Calendar.MINUTE) * IConstants.MINUTE
+				+ calendar.get(Calendar.SECOND) * IConstants.SECOND
+				+ calendar.get(Calendar.MILLISECOND);
+	}
+
+	/**
+	 * @return the result formatted as legs per second and nanoseconds per leg
+	 */
+	private static String format(int legs, long nanos) {
+		double legsPerSecond = legs * (double) IConstants.nanoToSec / nanos;
+		return String.format("%,.0f legs/s (%.1f ns/leg)", legsPerSecond,
+				(double) nanos / legs);
+	}
+}
@@ -0,0 +1,87 @@
+package run.benchmark;
+
+import java.util.Random;
+
+import service.properties.IConstants;
+import service.util.Copy;
+import shippingCore.calculations.time.TimeWindow;
+import shippingCore.dao.impl.Location;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+import shippingCore.model.Vehicle;
+
+/**
+ * Reproduces the measurement in the comments of {@link Copy#deepCopy(Object)}
+ * : copying a Route 10.000 times by serialization versus by copy constructor.
+ * Arguments: [orders per route] [copies] [rounds]
+ */
+public class RouteCopyBenchmark {
+	private static final int WARMUP_ROUNDS = 3;
+
+	/** keeps the JIT from removing the copies */
+	private static long blackhole;
+
+	/**
+	 * @param args
+	 *            [orders per route] [copies] [rounds]
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		int orders = args.length > 0 ? Integer.parseInt(args[0]) : 25;
+		int copies = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		Route route = createRoute(orders);
+		System.out.println("route with " + route.getNodeCount()
+				+ " nodes, copies per round: " + copies);
+
+		for (int round = 0; round < WARMUP_ROUNDS + rounds; round++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < copies; i++) {
+				blackhole += Copy.deepCopy(route).getNodeCount();
+			}
+			long serializationNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < copies; i++) {
+				blackhole += new Route(route).getNodeCount();
+			}
+			long copyConstructorNanos = System.nanoTime() - start;
+
+			if (round >= WARMUP_ROUNDS) {
+				System.out.println("round " + (round - WARMUP_ROUNDS)
+						+ ": deepCopy " + serializationNanos / 1000000
+						+ " ms | copy constructor "
+						+ copyConstructorNanos / 1000000 + " ms ("
+						+ copyConstructorNanos / copies + " ns per copy)");
+			}
+		}
+		System.out.println("checksum: " + blackhole);
+	}
+
+	/**
+	 * @return a route with pickup and delivery of the given number of orders
+	 */
+	private static Route createRoute(int orders) {
+		Random random = new Random(4711);
+		Location home = new Location(0, 0, "home");
+		TimeWindow day = new TimeWindow(0, IConstants.DAY);
+		Vehicle vehicle = new Vehicle(1, home, day, 24000, 1.1, 30, 100);
+		Route route = new Route(1, vehicle, day);
+
+		for (int i = 0; i < orders; i++) {
+			long start = random.nextInt(IConstants.DAY / 2);
+			Order order = new Order(i, 100 + random.nextInt(1000), 2 * i,
+					new Location(2 * i + 1, 2 * i + 1, "pickup " + i),
+					new TimeWindow(start, start + 2 * IConstants.HOUR),
+					15 * IConstants.MINUTE, 2 * i + 1,
+					new Location(2 * i + 2, 2 * i + 2, "delivery " + i),
+					new TimeWindow(start, start + 8 * IConstants.HOUR),
+					15 * IConstants.MINUTE);
+			route.addNode(order.getPickupNode());
+			route.addNode(order.getDeliveryNode());
+		}
+
+		return route;
+	}
+}
@@ -0,0 +1,214 @@
+package run.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import representations.ShippingProblem;
+import representations.ShippingSolution;
+import service.properties.IConstants;
+import shippingCore.calculations.time.TimeWindow;
+import shippingCore.dao.impl.ArrayDistanceMap;
+import shippingCore.dao.impl.Location;
+import shippingCore.dao.impl.SnapshotReader;
+import shippingCore.dao.impl.SnapshotWriter;
+import shippingCore.model.Node;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+import shippingCore.model.Vehicle;
+
+/**
+ * Compares checkpoint and restore of a problem with its solution by
+ * {@link SnapshotWriter} and {@link SnapshotReader} against the Java
+ * serialization of {@link service.util.ObjectSerializer}. Arguments:
+ * [orders] [vehicles] [rounds]
+ * <p>
+ * The routes have no transportation costs, which Java serialization cannot
+ * write; the restored snapshot gets them from the problem. Run with a fixed
+ * heap (e.g. -Xms2g -Xmx2g). The first rounds are warm up for the JIT and
+ * are not reported. Every round also counts the routes the restored snapshot
+ * differs in and times reading the nodes of one route from the mapped file.
+ */
+@SuppressWarnings("deprecation")
+public class SnapshotBenchmark {
+	private static final int WARMUP_ROUNDS = 3;
+
+	/** the number of different locations */
+	private static final int LOCATIONS = 1000;
+
+	/** keeps the JIT from removing the reading */
+	private static long blackhole;
+
+	/**
+	 * @param args
+	 *            [orders] [vehicles] [rounds]
+	 * @throws Exception
+	 *             if a file cannot be written or read
+	 */
+	public static void main(String[] args) throws Exception {
+		int orderCount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int vehicleCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		Random random = new Random(4711);
+		Location[] locations = new Location[LOCATIONS];
+		for (int i = 0; i < LOCATIONS; i++) {
+			locations[i] = new Location(1000 + i, i, "location " + i);
+		}
+		List<Vehicle> vehicles = createVehicles(vehicleCount, locations,
+				random);
+		List<Order> orders = createOrders(orderCount, locations, random);
+		ArrayDistanceMap distanceMap = new ArrayDistanceMap(
+				new double[LOCATIONS][LOCATIONS],
+				new long[LOCATIONS][LOCATIONS]);
+		ShippingProblem problem = new ShippingProblem(orders, vehicles,
+				distanceMap);
+
+		ShippingSolution solution = new ShippingSolution(problem);
+		for (Vehicle vehicle : vehicles) {
+			solution.addRoute(new Route(vehicle.getVehicleId(), vehicle,
+					vehicle.getAvailability()));
+		}
+		for (int i = 0; i < orders.size(); i++) {
+			Route route = solution.getRoute(random.nextInt(vehicleCount));
+			route.addNode(orders.get(i).getPickupNode());
+			route.addNode(orders.get(i).getDeliveryNode());
+		}
+
+		File snapshotFile = File.createTempFile("snapshot", ".bin");
+		File javaFile = File.createTempFile("snapshot", ".ser");
+		snapshotFile.deleteOnExit();
+		javaFile.deleteOnExit();
+		Object[] javaSnapshot = { new ArrayList<Order>(orders),
+				new ArrayList<Vehicle>(vehicles),
+				new ArrayList<Route>(solution.getRoutes()) };
+		System.out.println(orderCount + " orders, " + vehicleCount
+				+ " vehicles");
+
+		for (int round = 0; round < WARMUP_ROUNDS + rounds; round++) {
+			long start = System.nanoTime();
+			new SnapshotWriter(snapshotFile.getPath()).write(problem,
+					solution);
+			long snapshotWriteNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			SnapshotReader reader = new SnapshotReader(snapshotFile);
+			ShippingSolution restored;
+			try {
+				restored = reader.readSolution(reader
+						.readProblem(distanceMap));
+			} finally {
+				reader.close();
+			}
+			long snapshotReadNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			reader = new SnapshotReader(snapshotFile);
+			try {
+				blackhole += reader.readRouteNodes(vehicleCount - 1).length;
+			} finally {
+				reader.close();
+			}
+			long routeNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			service.util.ObjectSerializer.serializeToFile(javaSnapshot,
+					javaFile.getPath());
+			long javaWriteNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			Object[] javaRestored = (Object[]) service.util.ObjectSerializer
+					.deserializeFromFile(javaFile.getPath());
+			long javaReadNanos = System.nanoTime() - start;
+			blackhole += ((List<?>) javaRestored[0]).size();
+
+			if (round >= WARMUP_ROUNDS) {
+				System.out.println("round " + (round - WARMUP_ROUNDS)
+						+ ": snapshot write " + toMillis(snapshotWriteNanos)
+						+ ", read " + toMillis(snapshotReadNanos) + ", "
+						+ snapshotFile.length() / 1024 + " KB | one route "
+						+ routeNanos / 1000 + " us | Java write "
+						+ toMillis(javaWriteNanos) + ", read "
+						+ toMillis(javaReadNanos) + ", " + javaFile.length()
+						/ 1024 + " KB | differences "
+						+ countDifferences(solution, restored));
+			}
+		}
+		System.out.println("checksum: " + blackhole);
+	}
+
+	private static List<Vehicle> createVehicles(int count,
+			Location[] locations, Random random) {
+		List<Vehicle> vehicles = new ArrayList<Vehicle>(count);
+		for (int i = 0; i < count; i++) {
+			long start = random.nextInt(IConstants.DAY / 4);
+			vehicles.add(new Vehicle(i + 1,
+					locations[random.nextInt(locations.length)],
+					new TimeWindow(start, start + IConstants.DAY), 24000, 1.1,
+					30, 100));
+		}
+		return vehicles;
+	}
+
+	private static List<Order> createOrders(int count, Location[] locations,
+			Random random) {
+		List<Order> orders = new ArrayList<Order>(count);
+		for (int i = 0; i < count; i++) {
+			long start = random.nextInt(IConstants.DAY / 2);
+			orders.add(new Order(i + 1, 100 + random.nextInt(1000), 2 * i + 1,
+					locations[random.nextInt(locations.length)],
+					new TimeWindow(start, start + 2 * IConstants.HOUR),
+					15 * IConstants.MINUTE, 2 * i + 2,
+					locations[random.nextInt(locations.length)],
+					new TimeWindow(start, start + 8 * IConstants.HOUR),
+					15 * IConstants.MINUTE));
+		}
+		return orders;
+	}
+
+	/**
+	 * @return the number of routes that differ in id, vehicle, time limit or
+	 *         nodes
+	 */
+	private static int countDifferences(ShippingSolution solution,
+			ShippingSolution restored) {
+		if (solution.getRouteCount() != restored.getRouteCount()) {
+			return Math.max(solution.getRouteCount(),
+					restored.getRouteCount());
+		}
+
+		int differences = 0;
+		for (int i = 0; i < solution.getRouteCount(); i++) {
+			Route route = solution.getRoute(i);
+			Route other = restored.getRoute(i);
+			boolean equal = route.getRouteId() == other.getRouteId()
+					&& route.getVehicle().getVehicleId() == other.getVehicle()
+							.getVehicleId()
+					&& route.getTimeLimit().equals(other.getTimeLimit())
+					&& route.getNodeCount() == other.getNodeCount();
+			for (int j = 1; equal && j < route.getNodeCount(); j++) {
+				equal = isEqual(route.getNode(j), other.getNode(j));
+			}
+			if (!equal) {
+				differences++;
+			}
+		}
+		return differences;
+	}
+
+	private static boolean isEqual(Node node, Node other) {
+		return node.getNodeId() == other.getNodeId()
+				&& node.getNodeType() == other.getNodeType()
+				&& node.getOrder().getOrderId() == other.getOrder()
+						.getOrderId()
+				&& node.getLocation().equals(other.getLocation())
+				&& node.getTimeWindow().equals(other.getTimeWindow())
+				&& node.getServiceTime() == other.getServiceTime()
+				&& node.getLoadChange() == other.getLoadChange();
+	}
+
+	private static String toMillis(long nanos) {
+		return String.format("%.1f ms", nanos / 1e6);
+	}
+}
@@ -0,0 +1,324 @@
+package run.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import representations.ShippingProblem;
+import service.properties.IConstants;
+import shippingCore.calculations.RouteCalculator;
+import shippingCore.calculations.RouteEvaluation;
+import shippingCore.calculations.time.TimeWindow;
+import shippingCore.dao.impl.ArrayDistanceMap;
+import shippingCore.dao.impl.Location;
+import shippingCore.dao.impl.XMLSolutionWriter;
+import shippingCore.model.Node;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+import shippingCore.model.Vehicle;
+
+/**
+ * Compares writing the routes of a solution with {@link XMLSolutionWriter},
+ * which streams every route to the file, against building the same document
+ * as DOM tree first and writing it with a transformer. Arguments: [orders per
+ * route] [routes] [rounds]
+ * <p>
+ * Run with a fixed heap (e.g. -Xms1g -Xmx1g). The first rounds are warm up
+ * for the JIT and are not reported. Every round also counts the elements the
+ * files disagree on.
+ */
+public class XMLSolutionWriterBenchmark {
+	private static final int WARMUP_ROUNDS = 3;
+
+	/** the names of the node types by type */
+	private static final String[] NODE_TYPES = { "zero", "pickup",
+			"delivery" };
+
+	/** keeps the JIT from removing the writing */
+	private static long blackhole;
+
+	/**
+	 * @param args
+	 *            [orders per route] [routes] [rounds]
+	 * @throws Exception
+	 *             if a file cannot be written or read
+	 */
+	public static void main(String[] args) throws Exception {
+		int orders = args.length > 0 ? Integer.parseInt(args[0]) : 25;
+		int routeCount = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+		int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		RouteCalculator calculator = new RouteCalculator(
+				createDistanceMap(2 * orders + 1));
+		Route[] routes = new Route[routeCount];
+		RouteEvaluation[] evaluations = new RouteEvaluation[routeCount];
+		for (int i = 0; i < routeCount; i++) {
+			routes[i] = createRoute(i, orders);
+			evaluations[i] = calculator.calculateRoute(routes[i]);
+		}
+
+		File streamFile = File.createTempFile("solution", ".xml");
+		File domFile = File.createTempFile("solution", ".xml");
+		streamFile.deleteOnExit();
+		domFile.deleteOnExit();
+		System.out.println(routeCount + " routes with "
+				+ routes[0].getNodeCount() + " nodes per round");
+
+		for (int round = 0; round < WARMUP_ROUNDS + rounds; round++) {
+			long streamNanos = runStream(streamFile, routes, evaluations);
+			long domNanos = runDom(domFile, routes, evaluations);
+
+			if (round >= WARMUP_ROUNDS) {
+				System.out.println("round " + (round - WARMUP_ROUNDS)
+						+ ": XMLSolutionWriter "
+						+ format(routeCount, streamFile.length(), streamNanos)
+						+ " | DOM " + format(routeCount, domFile.length(),
+								domNanos) + " | differences "
+						+ countDifferences(streamFile, domFile));
+			}
+		}
+		System.out.println("checksum: " + blackhole);
+	}
+
+	/**
+	 * @return the elapsed time in nanoseconds
+	 */
+	private static long runStream(File file, Route[] routes,
+			RouteEvaluation[] evaluations) throws IOException {
+		long start = System.nanoTime();
+		XMLSolutionWriter writer = new XMLSolutionWriter(file,
+				64 * 1024);
+		try {
+			for (int i = 0; i < routes.length; i++) {
+				writer.writeRoute(routes[i], evaluations[i]);
+			}
+		} finally {
+			writer.close();
+		}
+		long nanos = System.nanoTime() - start;
+		blackhole += file.length();
+		return nanos;
+	}
+
+	/**
+	 * Builds the document of {@link XMLSolutionWriter} as tree and writes it.
+	 * 
+	 * @return the elapsed time in nanoseconds
+	 */
+	private static long runDom(File file, Route[] routes,
+			RouteEvaluation[] evaluations)
+			throws ParserConfigurationException, TransformerException {
+		long start = System.nanoTime();
+		Document document = DocumentBuilderFactory.newInstance()
+				.newDocumentBuilder().newDocument();
+		Element solution = document.createElement("solution");
+		document.appendChild(solution);
+
+		long nodeCount = 0;
+		double totalDistance = 0;
+		double totalCost = 0;
+		for (int i = 0; i < routes.length; i++) {
+			Route route = routes[i];
+			RouteEvaluation evaluation = evaluations[i];
+			double fixCost = route.getVehicle().getFixCost();
+			double routeCost = ShippingProblem.getRouteCost(route, evaluation);
+
+			Element element = document.createElement("route");
+			element.setAttribute("id", Long.toString(route.getRouteId()));
+			element.setAttribute("vehicle",
+					Long.toString(route.getVehicle().getVehicleId()));
+			element.setAttribute("nodes",
+					Integer.toString(evaluation.getNodeCount()));
+			element.setAttribute("distance",
+					Double.toString(evaluation.getTotalDistance()));
+			element.setAttribute("fixCost", Double.toString(fixCost));
+			element.setAttribute("transportationCost",
+					Double.toString(evaluation.getTransportationCost()));
+			element.setAttribute("penaltyCost",
+					Double.toString(evaluation.getPenaltyCost()));
+			element.setAttribute("totalCost", Double.toString(routeCost));
+			element.setAttribute("maxLoad",
+					Double.toString(evaluation.getMaxLoad()));
+			element.setAttribute("end",
+					Long.toString(evaluation.getEndTime()));
+			solution.appendChild(element);
+
+			for (int j = 0; j < evaluation.getNodeCount(); j++) {
+				element.appendChild(createNode(document, route.getNode(j), j,
+						evaluation));
+			}
+
+			nodeCount += evaluation.getNodeCount();
+			totalDistance += evaluation.getTotalDistance();
+			totalCost += routeCost;
+		}
+
+		Element summary = document.createElement("summary");
+		summary.setAttribute("routes", Integer.toString(routes.length));
+		summary.setAttribute("nodes", Long.toString(nodeCount));
+		summary.setAttribute("distance", Double.toString(totalDistance));
+		summary.setAttribute("totalCost", Double.toString(totalCost));
+		solution.appendChild(summary);
+
+		TransformerFactory.newInstance().newTransformer()
+				.transform(new DOMSource(document), new StreamResult(file));
+		long nanos = System.nanoTime() - start;
+		blackhole += file.length();
+		return nanos;
+	}
+
+	private static Element createNode(Document document, Node node,
+			int index, RouteEvaluation evaluation) {
+		Element element = document.createElement("node");
+		element.setAttribute("index", Integer.toString(index));
+		element.setAttribute("id", Long.toString(node.getNodeId()));
+		element.setAttribute("type", NODE_TYPES[node.getNodeType()]);
+		if (node.getOrder() != null) {
+			element.setAttribute("order",
+					Long.toString(node.getOrder().getOrderId()));
+		}
+		element.setAttribute("location",
+				Long.toString(node.getLocation().getLocationId()));
+		element.setAttribute("arrival",
+				Long.toString(evaluation.getArrivalTime(index)));
+		element.setAttribute("start",
+				Long.toString(evaluation.getStartTime(index)));
+		element.setAttribute("departure",
+				Long.toString(evaluation.getDepartureTime(index)));
+		element.setAttribute("load",
+				Double.toString(evaluation.getLoad(index)));
+		element.setAttribute("distance",
+				Double.toString(evaluation.getDistance(index)));
+		return element;
+	}
+
+	/**
+	 * Reads both files side by side and compares the names and attributes of
+	 * their elements, the order of the attributes does not matter.
+	 * 
+	 * @return the number of elements that differ, or 1 more if the number of
+	 *         elements differs
+	 */
+	private static int countDifferences(File file1, File file2)
+			throws IOException, XMLStreamException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		InputStream input1 = new FileInputStream(file1);
+		InputStream input2 = new FileInputStream(file2);
+		try {
+			XMLStreamReader reader1 = factory.createXMLStreamReader(input1);
+			XMLStreamReader reader2 = factory.createXMLStreamReader(input2);
+			int differences = 0;
+			while (true) {
+				boolean has1 = nextElement(reader1);
+				boolean has2 = nextElement(reader2);
+				if (!has1 || !has2) {
+					return has1 == has2 ? differences : differences + 1;
+				}
+				if (!isEqual(reader1, reader2)) {
+					differences++;
+				}
+			}
+		} finally {
+			input1.close();
+			input2.close();
+		}
+	}
+
+	private static boolean nextElement(XMLStreamReader reader)
+			throws XMLStreamException {
+		while (reader.hasNext()) {
+			if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isEqual(XMLStreamReader reader1,
+			XMLStreamReader reader2) {
+		if (!reader1.getLocalName().equals(reader2.getLocalName())
+				|| reader1.getAttributeCount() != reader2.getAttributeCount()) {
+			return false;
+		}
+		for (int i = 0; i < reader1.getAttributeCount(); i++) {
+			String value = reader2.getAttributeValue(null,
+					reader1.getAttributeLocalName(i));
+			if (!reader1.getAttributeValue(i).equals(value)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return a random distance map with 50 km/h travel speed
+	 */
+	private static ArrayDistanceMap createDistanceMap(int size) {
+		Random random = new Random(42);
+		double[][] distances = new double[size][size];
+		long[][] travelTimes = new long[size][size];
+
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				distances[i][j] = i == j ? 0 : 1 + random.nextInt(200);
+				travelTimes[i][j] = (long) (distances[i][j] / 50
+						* IConstants.HOUR);
+			}
+		}
+
+		return new ArrayDistanceMap(distances, travelTimes);
+	}
+
+	/**
+	 * @return a route with pickup and delivery of the given number of orders
+	 */
+	private static Route createRoute(long routeId, int orders) {
+		Random random = new Random(4711 + routeId);
+		Location home = new Location(0, 0, "home");
+		TimeWindow day = new TimeWindow(0, IConstants.DAY);
+		Vehicle vehicle = new Vehicle(routeId, home, day, 24000, 1.1, 30,
+				100);
+		Route route = new Route(routeId, vehicle, day);
+
+		for (int i = 0; i < orders; i++) {
+			long start = random.nextInt(IConstants.DAY / 2);
+			Order order = new Order(i, 100 + random.nextInt(1000), 2 * i,
+					new Location(2 * i + 1, 2 * i + 1, "pickup " + i),
+					new TimeWindow(start, start + 2 * IConstants.HOUR),
+					15 * IConstants.MINUTE, 2 * i + 1,
+					new Location(2 * i + 2, 2 * i + 2, "delivery " + i),
+					new TimeWindow(start, start + 8 * IConstants.HOUR),
+					15 * IConstants.MINUTE);
+			route.addNode(order.getPickupNode());
+			route.addNode(order.getDeliveryNode());
+		}
+
+		return route;
+	}
+
+	/**
+	 * @return the result formatted as routes per second and megabytes per
+	 *         second
+	 */
+	private static String format(int routes, long bytes, long nanos) {
+		double seconds = (double) nanos / IConstants.nanoToSec;
+		return String.format("%,.0f routes/s (%.1f MB/s)", routes / seconds,
+				bytes / seconds / (1024 * 1024));
+	}
+}
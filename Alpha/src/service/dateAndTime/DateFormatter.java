@@ -32,6 +32,10 @@ public class DateFormatter {
 	private static final SimpleDateFormat formatter = new SimpleDateFormat(
 			"yyyy.MM.dd HH:mm");
 
+	/** thread-safe variant of formatter */
+	private static final DateTimeFormat dateTimeFormat = new DateTimeFormat(
+			"yyyy.MM.dd HH:mm");
+
 	/** used to format the date */
 	private static final String DELIMITER = "/";
 
@@ -601,6 +605,14 @@ public class DateFormatter {
 		return (SimpleDateFormat) formatter.clone();
 	}
 
+	/**
+	 * @return thread-safe common format for date formatting, same pattern as
+	 *         {@link #getSimpleFormatter()} but shared instead of cloned
+	 */
+	public static DateTimeFormat getDateTimeFormat() {
+		return dateTimeFormat;
+	}
+
 	/**
 	 * to test the functions
 	 * 
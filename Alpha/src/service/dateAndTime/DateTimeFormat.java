@@ -0,0 +1,359 @@
+package service.dateAndTime;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import service.exceptions.InvalidArgumentException;
+import service.properties.IConstants;
+import service.util.ZoneDayTable;
+
+/**
+ * Thread-safe replacement for shared {@link SimpleDateFormat} instances that
+ * gives the same strings. Instances are immutable and can be used by any
+ * number of threads, {@link #formatTo(long, StringBuilder)} appends to a
+ * reused builder without allocating.
+ * <p>
+ * Patterns made of the fields yyyy, MM, dd, HH, mm, ss, SSS, literals and
+ * for UTC zones z are compiled into a fixed layout: the digits of times from
+ * 1970 to 2099 are calculated with the zone offset of a {@link ZoneDayTable}.
+ * Other times and other patterns are formatted by a {@link SimpleDateFormat}
+ * per thread, so the Julian calendar before 1582 and all pattern letters
+ * behave as before. {@link java.time.format.DateTimeFormatter} cannot be used
+ * for that, it has the proleptic Gregorian calendar and other letters.
+ */
+public class DateTimeFormat {
+
+	/** "yyyy-MM-dd HH:mm", the format of time windows and logs */
+	public static final String PATTERN_DATE_TIME = "yyyy-MM-dd HH:mm";
+
+	/** "yyyy-MM-dd'T'HH:mm:ss.SSS", ISO 8601 local time for logs and CSV */
+	public static final String PATTERN_ISO = "yyyy-MM-dd'T'HH:mm:ss.SSS";
+
+	/** first time of the fixed layout, 1970-01-01 00:00 UTC */
+	private static final long FIRST_FAST_TIME = 0;
+
+	/** end of the fixed layout, 2100-01-01 00:00 UTC, leaves a day of zones */
+	private static final long END_FAST_TIME = 4102444800000L
+			- IConstants.DAY;
+
+	/** days from 0000-03-01 to 1970-01-01, proleptic Gregorian calendar */
+	private static final int DAYS_0000_TO_1970 = 719468;
+
+	/** days of 400 Gregorian years */
+	private static final int DAYS_PER_400_YEARS = 146097;
+
+	private static final int FIELD_LITERAL = 0;
+
+	private static final int FIELD_YEAR = 1;
+
+	private static final int FIELD_MONTH = 2;
+
+	private static final int FIELD_DAY = 3;
+
+	private static final int FIELD_HOUR = 4;
+
+	private static final int FIELD_MINUTE = 5;
+
+	private static final int FIELD_SECOND = 6;
+
+	private static final int FIELD_MILLIS = 7;
+
+	private static final int FIELD_ZONE = 8;
+
+	/** the SimpleDateFormat pattern */
+	private final String pattern;
+
+	/** the zone the times are formatted in */
+	private final TimeZone timeZone;
+
+	/** the offsets of the zone */
+	private final ZoneDayTable zoneTable;
+
+	/** the short name of the zone, for UTC zones only */
+	private final String zoneName;
+
+	/** the FIELD_* of the compiled layout, null if not compiled */
+	private final int[] fields;
+
+	/** the literal of every field, null for other fields */
+	private final String[] literals;
+
+	/** formats what the layout does not cover, one per thread */
+	private final ThreadLocal<SimpleDateFormat> fallback;
+
+	/**
+	 * Creates a format for the default time zone.
+	 * 
+	 * @param pattern
+	 *            the {@link SimpleDateFormat} pattern
+	 * @throws InvalidArgumentException
+	 *             if the pattern is invalid
+	 */
+	public DateTimeFormat(String pattern) {
+		this(pattern, TimeZone.getDefault());
+	}
+
+	/**
+	 * @param pattern
+	 *            the {@link SimpleDateFormat} pattern
+	 * @param timeZone
+	 *            the zone to format the times in
+	 * @throws InvalidArgumentException
+	 *             if the pattern is invalid
+	 */
+	public DateTimeFormat(final String pattern, TimeZone timeZone) {
+		this.pattern = pattern;
+		this.timeZone = (TimeZone) timeZone.clone();
+		this.zoneTable = ZoneDayTable.getInstance(this.timeZone);
+		this.zoneName = this.timeZone.getDisplayName(false, TimeZone.SHORT,
+				Locale.getDefault(Locale.Category.FORMAT));
+
+		try {
+			new SimpleDateFormat(pattern);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidArgumentException("Invalid date pattern: "
+					+ pattern, e);
+		}
+
+		int[] compiledFields = new int[pattern.length()];
+		String[] compiledLiterals = new String[pattern.length()];
+		int count = compile(compiledFields, compiledLiterals);
+		if (count < 0) {
+			fields = null;
+			literals = null;
+		} else {
+			fields = new int[count];
+			literals = new String[count];
+			System.arraycopy(compiledFields, 0, fields, 0, count);
+			System.arraycopy(compiledLiterals, 0, literals, 0, count);
+		}
+
+		final TimeZone zone = this.timeZone;
+		fallback = new ThreadLocal<SimpleDateFormat>() {
+			@Override
+			protected SimpleDateFormat initialValue() {
+				SimpleDateFormat format = new SimpleDateFormat(pattern);
+				format.setTimeZone(zone);
+				return format;
+			}
+		};
+	}
+
+	/**
+	 * Compiles the pattern into fields.
+	 * 
+	 * @return the number of fields, -1 if the pattern has fields the layout
+	 *         does not cover
+	 */
+	private int compile(int[] compiledFields, String[] compiledLiterals) {
+		int count = 0;
+		int length = pattern.length();
+		StringBuilder literal = new StringBuilder();
+		int i = 0;
+		while (i < length) {
+			char c = pattern.charAt(i);
+
+			if (c == '\'') {
+				// quoted literal, '' is a quote
+				int end = i + 1;
+				while (end < length) {
+					if (pattern.charAt(end) == '\'') {
+						if (end + 1 < length
+								&& pattern.charAt(end + 1) == '\'') {
+							literal.append('\'');
+							end += 2;
+							continue;
+						}
+						break;
+					}
+					literal.append(pattern.charAt(end++));
+				}
+				if (end == i + 1) {
+					literal.append('\'');
+				}
+				i = end + 1;
+				continue;
+			}
+
+			if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+				literal.append(c);
+				i++;
+				continue;
+			}
+
+			int end = i;
+			while (end < length && pattern.charAt(end) == c) {
+				end++;
+			}
+			int field = getField(c, end - i);
+			if (field < 0) {
+				return -1;
+			}
+
+			if (literal.length() > 0) {
+				compiledLiterals[count] = literal.toString();
+				compiledFields[count++] = FIELD_LITERAL;
+				literal.setLength(0);
+			}
+			compiledFields[count++] = field;
+			i = end;
+		}
+
+		if (literal.length() > 0) {
+			compiledLiterals[count] = literal.toString();
+			compiledFields[count++] = FIELD_LITERAL;
+		}
+		return count;
+	}
+
+	/**
+	 * @return the FIELD_* of the run of the letter, -1 if not covered
+	 */
+	private int getField(char letter, int count) {
+		switch (letter) {
+		case 'y':
+			return count == 4 ? FIELD_YEAR : -1;
+		case 'M':
+			return count == 2 ? FIELD_MONTH : -1;
+		case 'd':
+			return count == 2 ? FIELD_DAY : -1;
+		case 'H':
+			return count == 2 ? FIELD_HOUR : -1;
+		case 'm':
+			return count == 2 ? FIELD_MINUTE : -1;
+		case 's':
+			return count == 2 ? FIELD_SECOND : -1;
+		case 'S':
+			return count == 3 ? FIELD_MILLIS : -1;
+		case 'z':
+			// the short name changes with daylight saving time
+			return count <= 3 && timeZone.hasSameRules(
+					TimeZone.getTimeZone("UTC")) ? FIELD_ZONE : -1;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * @param time
+	 *            number that represents date and time in milliseconds
+	 * @return the formatted time
+	 */
+	public String format(long time) {
+		if (fields == null || time < FIRST_FAST_TIME
+				|| time >= END_FAST_TIME) {
+			return fallback.get().format(new Date(time));
+		}
+		return formatTo(time, new StringBuilder(pattern.length() + 8))
+				.toString();
+	}
+
+	/**
+	 * @param date
+	 *            the date to format
+	 * @return the formatted date
+	 */
+	public String format(Date date) {
+		return format(date.getTime());
+	}
+
+	/**
+	 * Appends the formatted time to the builder.
+	 * 
+	 * @param time
+	 *            number that represents date and time in milliseconds
+	 * @param builder
+	 *            the builder to append to
+	 * @return the builder
+	 */
+	public StringBuilder formatTo(long time, StringBuilder builder) {
+		if (fields == null || time < FIRST_FAST_TIME
+				|| time >= END_FAST_TIME) {
+			return builder.append(fallback.get().format(new Date(time)));
+		}
+
+		long local = time + zoneTable.getOffset(time);
+		int day = (int) Math.floorDiv(local, IConstants.DAY);
+		int millisInDay = (int) (local - (long) day * IConstants.DAY);
+
+		// civil date of the day, years starting in March
+		int days = day + DAYS_0000_TO_1970;
+		int era = days / DAYS_PER_400_YEARS;
+		int dayOfEra = days - era * DAYS_PER_400_YEARS;
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524
+				- dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra
+				- (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int monthIndex = (5 * dayOfYear + 2) / 153;
+		int dayOfMonth = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+		int month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+		int year = era * 400 + yearOfEra + (month <= 2 ? 1 : 0);
+
+		for (int i = 0; i < fields.length; i++) {
+			switch (fields[i]) {
+			case FIELD_LITERAL:
+				builder.append(literals[i]);
+				break;
+			case FIELD_YEAR:
+				builder.append(year);
+				break;
+			case FIELD_MONTH:
+				appendTwoDigits(builder, month);
+				break;
+			case FIELD_DAY:
+				appendTwoDigits(builder, dayOfMonth);
+				break;
+			case FIELD_HOUR:
+				appendTwoDigits(builder, millisInDay / IConstants.HOUR);
+				break;
+			case FIELD_MINUTE:
+				appendTwoDigits(builder,
+						millisInDay / IConstants.MINUTE % 60);
+				break;
+			case FIELD_SECOND:
+				appendTwoDigits(builder,
+						millisInDay / IConstants.SECOND % 60);
+				break;
+			case FIELD_MILLIS:
+				int millis = millisInDay % IConstants.SECOND;
+				builder.append((char) ('0' + millis / 100));
+				appendTwoDigits(builder, millis % 100);
+				break;
+			default:
+				builder.append(zoneName);
+			}
+		}
+		return builder;
+	}
+
+	private static void appendTwoDigits(StringBuilder builder, int value) {
+		builder.append((char) ('0' + value / 10))
+				.append((char) ('0' + value % 10));
+	}
+
+	/**
+	 * @return the {@link SimpleDateFormat} pattern
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * @return the zone the times are formatted in
+	 */
+	public TimeZone getTimeZone() {
+		return (TimeZone) timeZone.clone();
+	}
+
+	/**
+	 * @return a new {@link SimpleDateFormat} with the pattern and zone, for
+	 *         methods that need one
+	 */
+	public SimpleDateFormat toSimpleDateFormat() {
+		SimpleDateFormat format = new SimpleDateFormat(pattern);
+		format.setTimeZone(getTimeZone());
+		return format;
+	}
+}
@@ -25,6 +25,19 @@ public interface IPropertiesConstants {
 	// DAO Connectipn IP Address
 	String DATA_DAO_IPAddress = "localhost";
 
+	// DAO properties
+	// ->source of the orders and vehicles, xml or none, default none
+	String DATA_DAO = "data.dao";
+
+	// ->file the xml source reads, default problem.xml in the data directory
+	String DATA_DAO_XML_FILE = "data.dao.xmlFile";
+
+	// ->one of the distance sources below, default none
+	String DATA_DISTANCESOURCE = "data.distanceSource";
+
+	// ->file the best solution is written to as xml, default none
+	String DATA_SOLUTION_XML_FILE = "data.solution.xmlFile";
+
 	// Distance Properties
 	// -------------------------------------------------------
 	// ----------------------------------------------------------------------
@@ -35,6 +48,12 @@ public interface IPropertiesConstants {
 
 	String DATA_DISTANCESOURCE_DIMABIGENDIAN = "dimaBigEndian";
 
+	// Time Properties ------------------------------------------------------
+	// ----------------------------------------------------------------------
+	// ->time zone ids separated by commas whose offset tables are built at
+	// start up, others are built on first use
+	String TIME_ZONES = "time.zones";
+
 	// Allocation Properties ------------------------------------------------
 	// ----------------------------------------------------------------------
 	// AllocationStrategy
@@ -44,6 +63,20 @@ public interface IPropertiesConstants {
 
 	String ALLOCATION_ROUTEALLOCATOR_STRATEGY_ALLOCATE_AT_END = "allocateAtEnd";
 
+	String ALLOCATION_ROUTEALLOCATOR_STRATEGY_CHEAPESTINSERTION = "cheapestInsertion";
+
+	// Allocation properties
+	// ->one of the strategies above, default allocateAtEnd
+	String ALLOCATION_ROUTEALLOCATOR_STRATEGY = "allocation.routeAllocator.strategy";
+
+	// ->number of routes the cheapest insertion regret is calculated of,
+	// 1 for plain cheapest insertion
+	String ALLOCATION_ROUTEALLOCATOR_REGRET = "allocation.routeAllocator.regret";
+
+	// ->routes with more modifiable nodes keep the sequence of the cheapest
+	// insertion with cheapestPermutation, at most 20
+	String ALLOCATION_ROUTEALLOCATOR_PERMUTATIONNODES = "allocation.routeAllocator.permutationNodes";
+
 	// CostModel
 	// ->fixVariable | CostModelFixVariable (default)
 	// ->matrix | CostModelMatrx
@@ -51,6 +84,10 @@ public interface IPropertiesConstants {
 
 	String ALLOCATION_ROUTEALLOCATOR_COSTMODEL_MATRIX = "matrix";
 
+	// ->one of the cost models above for the transportation costs of the
+	// routes, default fixVariable
+	String ALLOCATION_ROUTEALLOCATOR_COSTMODEL = "allocation.routeAllocator.costModel";
+
 	// RouteAllocation
 	String ALLOCATION_ROUTEALLOCATOR_EXISTINGTRUCK = "existingTruck";
 
@@ -87,6 +124,40 @@ public interface IPropertiesConstants {
 
 	String OPTIMIZATION_LOCALSEARCHSTRATEGY_RANDOM = "random";
 
+	// Search properties
+	// ->comma separated list of strategies, assigned round robin to the
+	// searches
+	String OPTIMIZATION_LOCALSEARCHSTRATEGY = "optimization.localSearchStrategy";
+
+	// ->number of searches, default number of processors
+	String OPTIMIZATION_SEARCHES = "optimization.searches";
+
+	// ->number of threads, default number of processors
+	String OPTIMIZATION_PARALLELISM = "optimization.parallelism";
+
+	// ->seed of the first search
+	String OPTIMIZATION_SEED = "optimization.seed";
+
+	// ->maximum number of iterations per search
+	String OPTIMIZATION_MAXITERATIONS = "optimization.maxIterations";
+
+	// ->maximum run time per search in seconds
+	String OPTIMIZATION_MAXTIME = "optimization.maxTime";
+
+	// ->iterations between two exchanges of the best solution
+	String OPTIMIZATION_SHAREINTERVAL = "optimization.shareInterval";
+
+	// Tabu search properties
+	// ->number of iterations an attribute stays tabu
+	String OPTIMIZATION_TABU_TENURE = "optimization.tabu.tenure";
+
+	// k-opt properties
+	// ->number of nearest neighbours per location the k-opt operators try
+	String OPTIMIZATION_KOPT_NEIGHBOURS = "optimization.kOpt.neighbours";
+
+	// ->true if the k-opt operators keep the routes last in first out
+	String OPTIMIZATION_KOPT_LIFO = "optimization.kOpt.lifo";
+
 	// Cooling schedule
 	String OPTIMIZATION_SIMULATEDANNEALING_COOLINGSCHEDULE_HYPERBOLIC = "hyperbolic";
 
@@ -94,6 +165,13 @@ public interface IPropertiesConstants {
 
 	String OPTIMIZATION_SIMULATEDANNEALING_COOLINGSCHEDULE_LINEAR = "linear";
 
+	// Simulated annealing properties
+	// ->one of the cooling schedules above, default hyperbolic
+	String OPTIMIZATION_SIMULATEDANNEALING_COOLINGSCHEDULE = "optimization.simulatedAnnealing.coolingSchedule";
+
+	// ->iterations without new best solution before reheating, 0 for none
+	String OPTIMIZATION_SIMULATEDANNEALING_REHEATINTERVAL = "optimization.simulatedAnnealing.reheatInterval";
+
 	// optimization criterium
 	String OPTIMIZATION_OPTIMIZE_BY_COST = "cost";
 
@@ -2,6 +2,7 @@ package service.properties;
 
 import java.util.Properties;
 
+import service.exceptions.InvalidArgumentException;
 import service.util.PropertyFileReader;
 
 /**
@@ -19,6 +20,60 @@ public class SystemProperties {
 				userProperties);
 	}
 
+	/**
+	 * @param key
+	 *            the key of the property
+	 * @param defaultValue
+	 *            the value if the property is not set
+	 * @return the value of the property
+	 */
+	public static String getProperty(String key, String defaultValue) {
+		if (userProperties == null) {
+			return defaultValue;
+		}
+		return userProperties.getProperty(key, defaultValue);
+	}
+
+	/**
+	 * @param key
+	 *            the key of the property
+	 * @param defaultValue
+	 *            the value if the property is not set
+	 * @return the value of the property
+	 * @throws InvalidArgumentException
+	 *             if the value is not a number
+	 */
+	public static long getLongProperty(String key, long defaultValue) {
+		String value = getProperty(key, null);
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			throw new InvalidArgumentException(
+					"Property " + key + " is not a number: " + value, e);
+		}
+	}
+
+	/**
+	 * @param key
+	 *            the name of the property
+	 * @param defaultValue
+	 *            the value if the property is not set
+	 * @return true if the property is "true", ignoring case
+	 */
+	public static boolean getBooleanProperty(String key,
+			boolean defaultValue) {
+		String value = getProperty(key, null);
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+
+		return Boolean.parseBoolean(value.trim());
+	}
+
 	private static void loadDefaultProperties() {
 		// TODO Create and load all System level to algorithm level defaults.
 		// Properties file is at the moment empty
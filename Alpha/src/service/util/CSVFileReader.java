@@ -3,8 +3,6 @@
  */
 package service.util;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,39 +32,62 @@ public class CSVFileReader {
 	}
 
 	/**
-	 * reads the text based file
+	 * reads the text based file, keeps all lines in memory
 	 * 
 	 * @param filename
 	 *            name of the file to read
 	 * @param seperator
 	 *            Seperator Enum
-	 * @return list of string arrays each array containing Strings from the file
+	 * @return list of string arrays each array containing Strings from the
+	 *         file, split like {@link String#split(String)}, null if the file
+	 *         cannot be read
+	 * @deprecated use {@link CSVRecordReader} to stream large files and to get
+	 *             the line of errors
 	 */
+	@Deprecated
 	public static List<String[]> readFile(String filename,
 			Seperator seperator) {
-		List<String[]> aList = new ArrayList<String[]>();
+		final List<String[]> aList = new ArrayList<String[]>();
 
 		try {
-			FileReader csvFile = new FileReader(filename);
-			BufferedReader buffReader = new BufferedReader(csvFile);
-
-			String line = null;
+			new CSVRecordReader(seperator).read(filename,
+					new ICSVRecordHandler() {
+						@Override
+						public void handleRecord(CSVRecord record) {
+							// each line of the file is one order
+							String[] splitedStringArray = split(record);
+							if (splitedStringArray.length > 0) {
+								aList.add(splitedStringArray);
+							}
+						}
+					});
+		} catch (CSVParseException e) {
+			return null;
+		}
 
-			while ((line = buffReader.readLine()) != null) {
-				// each line of the file is one order
-				String[] splitedStringArray = line.split(seperator.sepString);
-				if (splitedStringArray.length > 0) {
-					aList.add(splitedStringArray);
-				}
-			}
+		return aList;
+	}
 
-			buffReader.close();
-			csvFile.close();
+	/**
+	 * @return the fields of the record without the trailing empty ones, like
+	 *         {@link String#split(String)} of the line
+	 */
+	private static String[] split(CSVRecord record) {
+		String[] fields = record.toArray();
+		if (fields.length == 1) {
+			return fields;
+		}
 
-		} catch (Exception e) {
-			return null;
+		int length = fields.length;
+		while (length > 0 && fields[length - 1].isEmpty()) {
+			length--;
+		}
+		if (length == fields.length) {
+			return fields;
 		}
 
-		return aList;
+		String[] result = new String[length];
+		System.arraycopy(fields, 0, result, 0, length);
+		return result;
 	}
 }
@@ -11,6 +11,8 @@ import java.util.List;
 public class CSVFileWriter {
 
 	/**
+	 * Writes all rows at once, use {@link CSVRecordWriter} to write large
+	 * results record by record without building the rows as strings.
 	 * 
 	 * @param filename
 	 * @param data
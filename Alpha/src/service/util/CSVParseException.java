@@ -0,0 +1,54 @@
+package service.util;
+
+import service.exceptions.BaseException;
+
+/**
+ * Thrown if a CSV file cannot be read or a record of it cannot be handled,
+ * knows the line of the error.
+ */
+public class CSVParseException extends BaseException {
+
+	private static final long serialVersionUID = -4021883164425395313L;
+
+	/** the line of the error, starting with 1, 0 if not within a line */
+	private final long lineNumber;
+
+	/**
+	 * @param description
+	 *            the reason for the exception
+	 * @param lineNumber
+	 *            the line of the error, starting with 1, 0 if not within a
+	 *            line
+	 */
+	public CSVParseException(String description, long lineNumber) {
+		super(toMessage(description, lineNumber));
+		this.lineNumber = lineNumber;
+	}
+
+	/**
+	 * @param description
+	 *            the reason for the exception
+	 * @param lineNumber
+	 *            the line of the error, starting with 1, 0 if not within a
+	 *            line
+	 * @param throwable
+	 *            the nested Throwable which caused the exception
+	 */
+	public CSVParseException(String description, long lineNumber,
+			Throwable throwable) {
+		super(toMessage(description, lineNumber), throwable);
+		this.lineNumber = lineNumber;
+	}
+
+	private static String toMessage(String description, long lineNumber) {
+		return lineNumber > 0 ? "Line " + lineNumber + ": " + description
+				: description;
+	}
+
+	/**
+	 * @return the line of the error, starting with 1, 0 if not within a line
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+}
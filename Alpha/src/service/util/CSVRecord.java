@@ -0,0 +1,282 @@
+package service.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * The fields of one line read by a {@link CSVRecordReader}. The fields are
+ * kept as byte ranges of the mapped file and are only decoded when asked
+ * for, numbers are parsed from the bytes without creating strings.
+ * <p>
+ * A record is reused for the following lines and belongs to one thread.
+ */
+public final class CSVRecord {
+
+	/** the largest mantissa of a double that is exact */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/** the powers of ten that are exact doubles */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4,
+			1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+			1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/** decodes the fields */
+	private final Charset charset;
+
+	/** the bytes of the current part of the file */
+	private ByteBuffer buffer;
+
+	/** the line of the record, starting with 1 */
+	private long lineNumber;
+
+	/** the number of fields */
+	private int fieldCount;
+
+	/** the first byte of every field in buffer */
+	private int[] starts = new int[16];
+
+	/** the end of every field in buffer, exclusive */
+	private int[] ends = new int[16];
+
+	/** holds the bytes of a field to decode */
+	private byte[] bytes = new byte[64];
+
+	/**
+	 * @param charset
+	 *            decodes the fields
+	 */
+	CSVRecord(Charset charset) {
+		this.charset = charset;
+	}
+
+	/**
+	 * Starts the record of the next line.
+	 */
+	void clear(ByteBuffer buffer, long lineNumber) {
+		this.buffer = buffer;
+		this.lineNumber = lineNumber;
+		fieldCount = 0;
+	}
+
+	/**
+	 * Adds the field between the positions of the buffer.
+	 */
+	void addField(int start, int end) {
+		if (fieldCount == starts.length) {
+			int[] newStarts = new int[fieldCount * 2];
+			int[] newEnds = new int[fieldCount * 2];
+			System.arraycopy(starts, 0, newStarts, 0, fieldCount);
+			System.arraycopy(ends, 0, newEnds, 0, fieldCount);
+			starts = newStarts;
+			ends = newEnds;
+		}
+		starts[fieldCount] = start;
+		ends[fieldCount++] = end;
+	}
+
+	/**
+	 * @return the line of the record, starting with 1
+	 */
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * @return the number of fields, an empty line has one empty field
+	 */
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+	/**
+	 * @param index
+	 *            the index of the field
+	 * @return the length of the field in bytes
+	 * @throws CSVParseException
+	 *             if the line has no such field
+	 */
+	public int getLength(int index) throws CSVParseException {
+		checkIndex(index);
+		return ends[index] - starts[index];
+	}
+
+	/**
+	 * @param index
+	 *            the index of the field
+	 * @return true if the field is empty
+	 * @throws CSVParseException
+	 *             if the line has no such field
+	 */
+	public boolean isEmpty(int index) throws CSVParseException {
+		return getLength(index) == 0;
+	}
+
+	/**
+	 * @param index
+	 *            the index of the field
+	 * @return the decoded field
+	 * @throws CSVParseException
+	 *             if the line has no such field
+	 */
+	public String getString(int index) throws CSVParseException {
+		int length = getLength(index);
+		if (length > bytes.length) {
+			bytes = new byte[Math.max(length, bytes.length * 2)];
+		}
+		int start = starts[index];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = buffer.get(start + i);
+		}
+		return new String(bytes, 0, length, charset);
+	}
+
+	/**
+	 * @return all fields decoded
+	 */
+	public String[] toArray() {
+		String[] fields = new String[fieldCount];
+		try {
+			for (int i = 0; i < fieldCount; i++) {
+				fields[i] = getString(i);
+			}
+		} catch (CSVParseException e) {
+			// cannot happen, all indexes exist
+			throw new IllegalStateException(e);
+		}
+		return fields;
+	}
+
+	/**
+	 * Same as {@link Integer#parseInt(String)} of the field.
+	 * 
+	 * @param index
+	 *            the index of the field
+	 * @return the field as int
+	 * @throws CSVParseException
+	 *             if the line has no such field or it is no int
+	 */
+	public int getInt(int index) throws CSVParseException {
+		long value = getLong(index);
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw invalidField(index, "int");
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Same as {@link Long#parseLong(String)} of the field.
+	 * 
+	 * @param index
+	 *            the index of the field
+	 * @return the field as long
+	 * @throws CSVParseException
+	 *             if the line has no such field or it is no long
+	 */
+	public long getLong(int index) throws CSVParseException {
+		checkIndex(index);
+		int position = starts[index];
+		int end = ends[index];
+		if (position == end) {
+			throw invalidField(index, "long");
+		}
+
+		boolean negative = false;
+		byte first = buffer.get(position);
+		if (first == '-' || first == '+') {
+			negative = first == '-';
+			if (++position == end) {
+				throw invalidField(index, "long");
+			}
+		}
+
+		// accumulates negative like Long.parseLong to reach Long.MIN_VALUE
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long multiplyLimit = limit / 10;
+		long result = 0;
+		while (position < end) {
+			int digit = buffer.get(position++) - '0';
+			if (digit < 0 || digit > 9 || result < multiplyLimit) {
+				throw invalidField(index, "long");
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				throw invalidField(index, "long");
+			}
+			result -= digit;
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Same as {@link Double#parseDouble(String)} of the field. Plain decimals
+	 * with up to 15 digits are parsed from the bytes, all other numbers by
+	 * {@link Double#parseDouble(String)}.
+	 * 
+	 * @param index
+	 *            the index of the field
+	 * @return the field as double
+	 * @throws CSVParseException
+	 *             if the line has no such field or it is no double
+	 */
+	public double getDouble(int index) throws CSVParseException {
+		checkIndex(index);
+		int position = starts[index];
+		int end = ends[index];
+
+		boolean negative = false;
+		if (position < end) {
+			byte first = buffer.get(position);
+			if (first == '-' || first == '+') {
+				negative = first == '-';
+				position++;
+			}
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean point = false;
+		boolean exact = position < end;
+		while (position < end && exact) {
+			byte b = buffer.get(position++);
+			if (b >= '0' && b <= '9') {
+				mantissa = mantissa * 10 + (b - '0');
+				digits++;
+				if (point) {
+					scale++;
+				}
+			} else if (b == '.' && !point) {
+				point = true;
+			} else {
+				exact = false;
+			}
+		}
+
+		// both values are exact, so the division is rounded correctly
+		if (exact && digits > 0 && digits <= 15
+				&& mantissa < MAX_EXACT_MANTISSA
+				&& scale < POWERS_OF_TEN.length) {
+			double value = mantissa / POWERS_OF_TEN[scale];
+			return negative ? -value : value;
+		}
+
+		try {
+			return Double.parseDouble(getString(index));
+		} catch (NumberFormatException e) {
+			throw invalidField(index, "double");
+		}
+	}
+
+	private void checkIndex(int index) throws CSVParseException {
+		if (index < 0 || index >= fieldCount) {
+			throw new CSVParseException("No field " + (index + 1) + ", only "
+					+ fieldCount + " fields", lineNumber);
+		}
+	}
+
+	private CSVParseException invalidField(int index, String type)
+			throws CSVParseException {
+		return new CSVParseException("Field " + (index + 1) + " is no "
+				+ type + ": '" + getString(index) + "'", lineNumber);
+	}
+}
@@ -0,0 +1,449 @@
+package service.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import service.exceptions.BaseRuntimeException;
+import service.exceptions.InvalidArgumentException;
+import service.util.CSVFileReader.Seperator;
+
+/**
+ * Streams the lines of a text file separated by a separator to an
+ * {@link ICSVRecordHandler}, without loading the file or creating strings for
+ * the fields. The file is mapped in chunks, small files are read, and split
+ * into fields on the bytes, the handler reads the fields of the reused
+ * {@link CSVRecord}.
+ * <p>
+ * Lines end with "\n", "\r\n" or "\r" like for
+ * {@link java.io.BufferedReader#readLine()}, fields are not quoted. With a
+ * parallelism above 1 large files are split at line starts into ranges that
+ * are read by several threads, the handler then has to be thread-safe and
+ * gets the records of different ranges in any order.
+ * <p>
+ * Errors stop the reading with a {@link CSVParseException} that knows the
+ * line of the error.
+ */
+public class CSVRecordReader {
+
+	/** the default size of the mapped chunks, 64 MB */
+	public static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+	/** the smallest range read by a thread of its own, 1 MB */
+	private static final long MIN_PARALLEL_RANGE = 1024 * 1024;
+
+	/** the smallest chunk that is mapped instead of read, 1 MB */
+	private static final int MIN_MAPPED_SIZE = 1024 * 1024;
+
+	/** the separator between the fields */
+	private final byte seperator;
+
+	/** decodes the fields */
+	private Charset charset = Charset.defaultCharset();
+
+	/** the number of threads */
+	private int parallelism = 1;
+
+	/** the size of the mapped chunks */
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	/**
+	 * Creates a reader for files in the default charset.
+	 * 
+	 * @param seperator
+	 *            the separator between the fields
+	 * @throws InvalidArgumentException
+	 *             if the default charset does not encode the separator and
+	 *             line ends in one byte like ASCII
+	 */
+	public CSVRecordReader(Seperator seperator) {
+		this.seperator = (byte) seperator.getSeperatorString().charAt(0);
+		setCharset(charset);
+	}
+
+	/**
+	 * @param charset
+	 *            decodes the fields, default charset of the platform
+	 * @throws InvalidArgumentException
+	 *             if the charset does not encode the separator and line ends
+	 *             in one byte like ASCII, e.g. UTF-16
+	 */
+	public void setCharset(Charset charset) {
+		checkCharset(charset, seperator);
+		this.charset = charset;
+	}
+
+	/**
+	 * @throws InvalidArgumentException
+	 *             if the charset does not encode the separator and line ends
+	 *             in one byte like ASCII
+	 */
+	static void checkCharset(Charset charset, byte seperator) {
+		String ascii = "\r\n" + (char) seperator;
+		if (!Arrays.equals(ascii.getBytes(charset),
+				ascii.getBytes(Charset.forName("US-ASCII")))) {
+			throw new InvalidArgumentException("Charset " + charset
+					+ " is not compatible with ASCII");
+		}
+	}
+
+	/**
+	 * @param parallelism
+	 *            the number of threads, default 1
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(parallelism, 1);
+	}
+
+	/**
+	 * @param chunkSize
+	 *            the size of the mapped chunks in bytes, longer lines map
+	 *            larger chunks, default {@link #DEFAULT_CHUNK_SIZE}
+	 */
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = Math.max(chunkSize, 1);
+	}
+
+	/**
+	 * Reads the file and passes the record of every line to the handler.
+	 * 
+	 * @param filename
+	 *            name of the file to read
+	 * @param handler
+	 *            receives the records
+	 * @return the number of records
+	 * @throws CSVParseException
+	 *             if the file cannot be read or the handler fails
+	 */
+	public long read(String filename, ICSVRecordHandler handler)
+			throws CSVParseException {
+		return read(new File(filename), handler);
+	}
+
+	/**
+	 * Reads the file and passes the record of every line to the handler.
+	 * 
+	 * @param file
+	 *            the file to read
+	 * @param handler
+	 *            receives the records
+	 * @return the number of records
+	 * @throws CSVParseException
+	 *             if the file cannot be read or the handler fails
+	 */
+	public long read(File file, ICSVRecordHandler handler)
+			throws CSVParseException {
+		RandomAccessFile input = null;
+		try {
+			input = new RandomAccessFile(file, "r");
+			FileChannel channel = input.getChannel();
+			long[] bounds = split(channel);
+			if (bounds.length == 2) {
+				return readRange(channel, 0, bounds[1], 1, handler,
+						new AtomicBoolean());
+			}
+			return readParallel(channel, bounds, handler);
+		} catch (IOException e) {
+			throw new CSVParseException("Cannot read " + file, 0, e);
+		} finally {
+			if (input != null) {
+				try {
+					input.close();
+				} catch (IOException e) {
+					// nothing read after the error
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the start offsets of the ranges for the threads and the file
+	 *         size
+	 */
+	private long[] split(FileChannel channel) throws IOException {
+		long size = channel.size();
+		int ranges = (int) Math.max(1,
+				Math.min(parallelism, size / MIN_PARALLEL_RANGE));
+
+		long[] bounds = new long[ranges + 1];
+		bounds[ranges] = size;
+		for (int i = 1; i < ranges; i++) {
+			bounds[i] = getLineStart(channel,
+					Math.max(size / ranges * i, bounds[i - 1]), size);
+		}
+		return bounds;
+	}
+
+	/**
+	 * Reads the ranges in parallel, after counting their lines for the line
+	 * numbers.
+	 */
+	private long readParallel(final FileChannel channel, final long[] bounds,
+			final ICSVRecordHandler handler) throws CSVParseException {
+		final int ranges = bounds.length - 1;
+		final AtomicBoolean stop = new AtomicBoolean();
+		ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, ranges));
+		try {
+			List<Callable<Long>> counts = new ArrayList<Callable<Long>>();
+			for (int i = 0; i < ranges - 1; i++) {
+				final int range = i;
+				counts.add(new Callable<Long>() {
+					@Override
+					public Long call() throws IOException {
+						return countLines(channel, bounds[range],
+								bounds[range + 1]);
+					}
+				});
+			}
+
+			long[] firstLines = new long[ranges];
+			firstLines[0] = 1;
+			int range = 1;
+			for (Long count : getAll(pool.invokeAll(counts))) {
+				firstLines[range] = firstLines[range - 1] + count;
+				range++;
+			}
+
+			List<Callable<Long>> reads = new ArrayList<Callable<Long>>();
+			for (int i = 0; i < ranges; i++) {
+				final int index = i;
+				final long firstLine = firstLines[i];
+				reads.add(new Callable<Long>() {
+					@Override
+					public Long call() throws CSVParseException, IOException {
+						try {
+							return readRange(channel, bounds[index],
+									bounds[index + 1], firstLine, handler,
+									stop);
+						} catch (CSVParseException e) {
+							stop.set(true);
+							throw e;
+						} catch (IOException e) {
+							stop.set(true);
+							throw e;
+						}
+					}
+				});
+			}
+
+			long records = 0;
+			for (Long count : getAll(pool.invokeAll(reads))) {
+				records += count;
+			}
+			return records;
+		} catch (InterruptedException e) {
+			stop.set(true);
+			Thread.currentThread().interrupt();
+			throw new BaseRuntimeException("Reading interrupted", e);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * @return the results of the futures, rethrows the error of the first
+	 *         failed range
+	 */
+	private static List<Long> getAll(List<Future<Long>> futures)
+			throws CSVParseException, InterruptedException {
+		List<Long> results = new ArrayList<Long>(futures.size());
+		for (Future<Long> future : futures) {
+			try {
+				results.add(future.get());
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof CSVParseException) {
+					throw (CSVParseException) cause;
+				}
+				if (cause instanceof IOException) {
+					throw new CSVParseException("Cannot read file", 0, cause);
+				}
+				throw new BaseRuntimeException("Reading failed", cause);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Reads the lines of the range chunk by chunk.
+	 * 
+	 * @return the number of records
+	 */
+	private long readRange(FileChannel channel, long start, long end,
+			long firstLine, ICSVRecordHandler handler, AtomicBoolean stop)
+			throws CSVParseException, IOException {
+		CSVRecord record = new CSVRecord(charset);
+		long lineNumber = firstLine;
+		long offset = start;
+		int size = chunkSize;
+		while (offset < end && !stop.get()) {
+			int length = (int) Math.min(size, end - offset);
+			boolean last = offset + length == end;
+			ByteBuffer buffer = getChunk(channel, offset, length);
+
+			int position = 0;
+			while (position < length) {
+				int next = readLine(buffer, position, length, last, record,
+						lineNumber);
+				if (next < 0) {
+					break;
+				}
+
+				try {
+					handler.handleRecord(record);
+				} catch (RuntimeException e) {
+					throw new CSVParseException("Cannot handle record",
+							lineNumber, e);
+				}
+				lineNumber++;
+				position = next;
+			}
+
+			if (position == 0 && !last) {
+				// the line does not fit into the chunk
+				if (size > Integer.MAX_VALUE / 2) {
+					throw new CSVParseException("Line too long", lineNumber);
+				}
+				size *= 2;
+			} else {
+				size = chunkSize;
+			}
+			offset += position;
+		}
+		return lineNumber - firstLine;
+	}
+
+	/**
+	 * Splits the line at the position into the fields of the record.
+	 * 
+	 * @return the position of the next line, -1 if the line does not end
+	 *         within the buffer
+	 */
+	private int readLine(ByteBuffer buffer, int position, int length,
+			boolean last, CSVRecord record, long lineNumber) {
+		record.clear(buffer, lineNumber);
+		int fieldStart = position;
+		for (int i = position; i < length; i++) {
+			byte b = buffer.get(i);
+			if (b == seperator) {
+				record.addField(fieldStart, i);
+				fieldStart = i + 1;
+			} else if (b == '\n') {
+				record.addField(fieldStart, i);
+				return i + 1;
+			} else if (b == '\r') {
+				if (i + 1 < length) {
+					record.addField(fieldStart, i);
+					return buffer.get(i + 1) == '\n' ? i + 2 : i + 1;
+				}
+				if (!last) {
+					// "\r\n" might be split between the chunks
+					return -1;
+				}
+				record.addField(fieldStart, i);
+				return i + 1;
+			}
+		}
+
+		if (!last) {
+			return -1;
+		}
+		record.addField(fieldStart, length);
+		return length;
+	}
+
+	/**
+	 * @return the number of line ends in the range
+	 */
+	private long countLines(FileChannel channel, long start, long end)
+			throws IOException {
+		long lines = 0;
+		long offset = start;
+		while (offset < end) {
+			int length = (int) Math.min(chunkSize, end - offset);
+			ByteBuffer buffer = getChunk(channel, offset, length);
+			for (int i = 0; i < length; i++) {
+				byte b = buffer.get(i);
+				// "\r\n" is counted at the "\n"
+				if (b == '\n' || (b == '\r'
+						&& (i + 1 == length ? offset + length == end
+								|| getByte(channel, offset + length) != '\n'
+								: buffer.get(i + 1) != '\n'))) {
+					lines++;
+				}
+			}
+			offset += length;
+		}
+		return lines;
+	}
+
+	/**
+	 * @return the offset of the first line start at or after the offset
+	 */
+	private long getLineStart(FileChannel channel, long offset, long size)
+			throws IOException {
+		if (offset == 0) {
+			return 0;
+		}
+
+		long position = offset - 1;
+		while (position < size) {
+			int length = (int) Math.min(chunkSize, size - position);
+			ByteBuffer buffer = getChunk(channel, position, length);
+			for (int i = 0; i < length; i++) {
+				byte b = buffer.get(i);
+				if (b == '\n') {
+					return position + i + 1;
+				}
+				if (b == '\r') {
+					long next = position + i + 1;
+					return next < size && getByte(channel, next) == '\n'
+							? next + 1 : next;
+				}
+			}
+			position += length;
+		}
+		return size;
+	}
+
+	/**
+	 * @return the bytes of the file from the offset, mapped if there are
+	 *         enough of them
+	 */
+	private static ByteBuffer getChunk(FileChannel channel, long offset,
+			int length) throws IOException {
+		if (length >= MIN_MAPPED_SIZE) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+		}
+
+		// mappings are released by the garbage collector only
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file at "
+						+ (offset + buffer.position()));
+			}
+		}
+		return buffer;
+	}
+
+	private static byte getByte(FileChannel channel, long offset)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(1);
+		if (channel.read(buffer, offset) != 1) {
+			throw new IOException("Cannot read byte at " + offset);
+		}
+		return buffer.get(0);
+	}
+}
@@ -0,0 +1,442 @@
+package service.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import service.dateAndTime.DateTimeFormat;
+import service.exceptions.InvalidArgumentException;
+import service.util.CSVFileReader.Seperator;
+
+/**
+ * Writes a text file separated by a separator record by record, the
+ * counterpart of {@link CSVRecordReader}. Numbers, times and strings are
+ * appended as bytes to a buffer without creating strings. Full buffers are
+ * written by a background thread through a {@link FileChannel}, so the
+ * calling thread only waits if the disk cannot keep up with a few buffers.
+ * <p>
+ * Fields are separated by the separator, records end with "\n", fields are
+ * not quoted. Write errors of the background thread are thrown by the next
+ * call. Instances are not thread-safe and have to be closed.
+ */
+public class CSVRecordWriter implements Closeable {
+
+	/** the default size of the buffers, 1 MB */
+	public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+	/** the number of buffers, one filled while the others are written */
+	private static final int BUFFER_COUNT = 3;
+
+	/** the smallest buffer, holds every number */
+	private static final int MIN_BUFFER_SIZE = 64;
+
+	/** the most decimals of {@link #add(double, int)} */
+	private static final int MAX_DECIMALS = 9;
+
+	/** the largest scaled value of {@link #add(double, int)} */
+	private static final double MAX_SCALED = 1e18;
+
+	/** tells the background thread to stop */
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+	/** Long.MIN_VALUE, which has no positive counterpart */
+	private static final String MIN_LONG = Long.toString(Long.MIN_VALUE);
+
+	/** the file written */
+	private final File file;
+
+	/** the separator between the fields */
+	private final byte seperator;
+
+	/** encodes non ASCII strings */
+	private final Charset charset;
+
+	/** the channel of the file */
+	private final FileChannel channel;
+
+	/** buffers to be written by the background thread */
+	private final BlockingQueue<ByteBuffer> fullBuffers;
+
+	/** buffers written and ready to be filled */
+	private final BlockingQueue<ByteBuffer> freeBuffers;
+
+	/** writes the full buffers */
+	private final Thread flusher;
+
+	/** the first error of the background thread */
+	private volatile IOException error;
+
+	/** the buffer filled */
+	private ByteBuffer buffer;
+
+	/** formats doubles and times */
+	private final StringBuilder text = new StringBuilder(32);
+
+	/** if the next field is the first of the record */
+	private boolean isFirstField = true;
+
+	/** the number of ended records */
+	private long recordCount;
+
+	/** if the writer is closed */
+	private boolean isClosed;
+
+	/**
+	 * Creates a writer for the default charset.
+	 * 
+	 * @param filename
+	 *            name of the file to write
+	 * @param seperator
+	 *            the separator between the fields
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	public CSVRecordWriter(String filename, Seperator seperator)
+			throws IOException {
+		this(new File(filename), seperator, Charset.defaultCharset(),
+				DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param file
+	 *            the file to write
+	 * @param seperator
+	 *            the separator between the fields
+	 * @param charset
+	 *            encodes the strings
+	 * @param bufferSize
+	 *            the size of each buffer in bytes
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 * @throws InvalidArgumentException
+	 *             if the charset does not encode the separator and line ends
+	 *             in one byte like ASCII
+	 */
+	public CSVRecordWriter(File file, Seperator seperator, Charset charset,
+			int bufferSize) throws IOException {
+		this.file = file;
+		this.seperator = (byte) seperator.getSeperatorString().charAt(0);
+		CSVRecordReader.checkCharset(charset, this.seperator);
+		this.charset = charset;
+
+		int size = Math.max(bufferSize, MIN_BUFFER_SIZE);
+		buffer = ByteBuffer.allocate(size);
+		fullBuffers = new ArrayBlockingQueue<ByteBuffer>(BUFFER_COUNT);
+		freeBuffers = new ArrayBlockingQueue<ByteBuffer>(BUFFER_COUNT);
+		for (int i = 1; i < BUFFER_COUNT; i++) {
+			freeBuffers.add(ByteBuffer.allocate(size));
+		}
+
+		channel = new FileOutputStream(file).getChannel();
+		flusher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, "CSVRecordWriter " + file.getName());
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/**
+	 * Writes the full buffers until {@link #END}, run by the background
+	 * thread. After an error the buffers are only given back.
+	 */
+	private void flush() {
+		while (true) {
+			ByteBuffer full;
+			try {
+				full = fullBuffers.take();
+			} catch (InterruptedException e) {
+				error = new InterruptedIOException("Writing interrupted");
+				continue;
+			}
+			if (full == END) {
+				return;
+			}
+
+			if (error == null) {
+				try {
+					full.flip();
+					while (full.hasRemaining()) {
+						channel.write(full);
+					}
+				} catch (IOException e) {
+					error = e;
+				}
+			}
+			full.clear();
+			freeBuffers.add(full);
+		}
+	}
+
+	/**
+	 * Appends the field.
+	 * 
+	 * @param value
+	 *            the value of the field
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public CSVRecordWriter add(long value) throws IOException {
+		startField();
+		if (value == Long.MIN_VALUE) {
+			return appendText(MIN_LONG);
+		}
+
+		ensure(20);
+		if (value < 0) {
+			buffer.put((byte) '-');
+			value = -value;
+		}
+		int digits = 1;
+		for (long rest = value; rest >= 10; rest /= 10) {
+			digits++;
+		}
+		int start = buffer.position();
+		for (int i = start + digits - 1; i >= start; i--) {
+			buffer.put(i, (byte) ('0' + value % 10));
+			value /= 10;
+		}
+		buffer.position(start + digits);
+		return this;
+	}
+
+	/**
+	 * Appends the field like {@link Double#toString(double)}.
+	 * 
+	 * @param value
+	 *            the value of the field
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public CSVRecordWriter add(double value) throws IOException {
+		startField();
+		text.setLength(0);
+		text.append(value);
+		return appendText(text);
+	}
+
+	/**
+	 * Appends the field with a fixed number of decimals, rounded half up
+	 * like {@link Math#round(double)}. Values too large for that are
+	 * appended like {@link #add(double)}.
+	 * 
+	 * @param value
+	 *            the value of the field
+	 * @param decimals
+	 *            the number of decimals, 0 to 9
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 * @throws InvalidArgumentException
+	 *             if the number of decimals is out of range
+	 */
+	public CSVRecordWriter add(double value, int decimals) throws IOException {
+		if (decimals < 0 || decimals > MAX_DECIMALS) {
+			throw new InvalidArgumentException("Decimals out of range: "
+					+ decimals);
+		}
+
+		long power = 1;
+		for (int i = 0; i < decimals; i++) {
+			power *= 10;
+		}
+		double scaled = value * power;
+		if (!(Math.abs(scaled) < MAX_SCALED)) {
+			return add(value);
+		}
+
+		long rounded = Math.round(scaled);
+		startField();
+		ensure(22);
+		if (rounded < 0) {
+			buffer.put((byte) '-');
+			rounded = -rounded;
+		}
+		long integer = rounded / power;
+		long fraction = rounded % power;
+		text.setLength(0);
+		text.append(integer);
+		appendText(text);
+		if (decimals > 0) {
+			ensure(decimals + 1);
+			buffer.put((byte) '.');
+			int start = buffer.position();
+			for (int i = start + decimals - 1; i >= start; i--) {
+				buffer.put(i, (byte) ('0' + fraction % 10));
+				fraction /= 10;
+			}
+			buffer.position(start + decimals);
+		}
+		return this;
+	}
+
+	/**
+	 * Appends the time formatted by the format.
+	 * 
+	 * @param time
+	 *            number that represents date and time in milliseconds
+	 * @param format
+	 *            formats the time
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public CSVRecordWriter addTime(long time, DateTimeFormat format)
+			throws IOException {
+		startField();
+		text.setLength(0);
+		format.formatTo(time, text);
+		return appendText(text);
+	}
+
+	/**
+	 * Appends the field.
+	 * 
+	 * @param value
+	 *            the value of the field, null for an empty field
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public CSVRecordWriter add(String value) throws IOException {
+		startField();
+		return value != null ? appendText(value) : this;
+	}
+
+	/**
+	 * Ends the record, the next field starts a new line.
+	 * 
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public CSVRecordWriter endRecord() throws IOException {
+		ensure(1);
+		buffer.put((byte) '\n');
+		isFirstField = true;
+		recordCount++;
+		return this;
+	}
+
+	/**
+	 * @return the number of ended records
+	 */
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Writes the rest of the buffer, waits for the background thread and
+	 * closes the file.
+	 * 
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (isClosed) {
+			return;
+		}
+		isClosed = true;
+
+		try {
+			if (buffer.position() > 0) {
+				fullBuffers.put(buffer);
+			}
+			fullBuffers.put(END);
+			flusher.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Closing interrupted");
+		} finally {
+			buffer = null;
+			channel.close();
+		}
+		checkError();
+	}
+
+	private void startField() throws IOException {
+		if (isClosed) {
+			throw new IOException("Writer of " + file + " is closed");
+		}
+		if (isFirstField) {
+			isFirstField = false;
+		} else {
+			ensure(1);
+			buffer.put(seperator);
+		}
+	}
+
+	/**
+	 * Appends ASCII text as is and other text encoded by the charset.
+	 */
+	private CSVRecordWriter appendText(CharSequence value) throws IOException {
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			if (value.charAt(i) >= 0x80) {
+				return appendBytes(value.toString().getBytes(charset));
+			}
+		}
+
+		for (int i = 0; i < length; i++) {
+			if (!buffer.hasRemaining()) {
+				swap();
+			}
+			buffer.put((byte) value.charAt(i));
+		}
+		return this;
+	}
+
+	private CSVRecordWriter appendBytes(byte[] bytes) throws IOException {
+		int offset = 0;
+		while (offset < bytes.length) {
+			if (!buffer.hasRemaining()) {
+				swap();
+			}
+			int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.put(bytes, offset, length);
+			offset += length;
+		}
+		return this;
+	}
+
+	/**
+	 * Makes sure the buffer has room for the bytes, at most its capacity.
+	 */
+	private void ensure(int length) throws IOException {
+		if (buffer.remaining() < length) {
+			swap();
+		}
+	}
+
+	/**
+	 * Passes the buffer to the background thread and takes a written one.
+	 */
+	private void swap() throws IOException {
+		checkError();
+		try {
+			fullBuffers.put(buffer);
+			buffer = freeBuffers.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Writing interrupted");
+		}
+	}
+
+	private void checkError() throws IOException {
+		if (error != null) {
+			throw new IOException("Cannot write " + file, error);
+		}
+	}
+}
@@ -3,6 +3,8 @@
  */
 package service.util;
 
+import service.exceptions.InvalidArgumentException;
+
 /**
  * Class for Combinatorial Number System or Combinadic. Implements methods that
  * count combinations and performs decimal-combinadic conversions.
@@ -54,4 +56,72 @@ public class Combinadic {
 		}
 		return combinadic;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Long based implementation that multiplies and divides alternately, so
+	 * every intermediate result is a binomial coefficient itself and does not
+	 * overflow before the result does.
+	 * 
+	 * @param k
+	 * @param n
+	 * @return long - number of possible 'k' combinations of 'n' elements, 1
+	 *         for k = 0 and 0 for k > n
+	 * @throws InvalidArgumentException
+	 *             if the number does not fit into a long
+	 */
+	public static long longNumberOfCombinations(int k, int n) {
+		if (k < 0 || k > n) {
+			return 0;
+		}
+		k = Math.min(k, n - k);
+
+		long pdt = 1;
+		for (int i = 0; i < k; i++) {
+			long factor = n - i;
+			long gcd = gcd(pdt, i + 1);
+			long divisor = (i + 1) / gcd;
+			if (pdt / gcd > Long.MAX_VALUE / (factor / divisor)) {
+				throw new InvalidArgumentException(
+						"Number of combinations out of long range: " + k
+								+ " of " + n);
+			}
+			// (i + 1) divides pdt * factor, divisor is coprime to pdt / gcd
+			pdt = pdt / gcd * (factor / divisor);
+		}
+		return pdt;
+	}
+
+	/**
+	 * Converts the index into the given array without allocating.
+	 * 
+	 * @param decimal
+	 *            - index of the combination in lexicographic order
+	 * @param k
+	 *            - number of combining elements
+	 * @param n
+	 *            - total number of elements
+	 * @param combinadic
+	 *            receives the combinadic, at least k long
+	 * @see #getCombinadicFromDecimal(int, int, int)
+	 */
+	public static void getCombinadicFromDecimal(long decimal, int k, int n,
+			int[] combinadic) {
+		for (int i = n - 1; i >= 0 && k > 0; i--) {
+			long number = longNumberOfCombinations(k, i);
+			if (number <= decimal) {
+				decimal -= number;
+				k--;
+				combinadic[k] = i;
+			}
+		}
+	}
+
+	private static long gcd(long a, long b) {
+		while (b != 0) {
+			long rest = a % b;
+			a = b;
+			b = rest;
+		}
+		return a;
+	}
+}
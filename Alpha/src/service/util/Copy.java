@@ -20,6 +20,18 @@ import java.util.Queue;
  */
 public class Copy {
 
+	/**
+	 * Creates a deep copy by serialization. This is the fallback for objects
+	 * without copy constructor; the model classes (Route, Node, Vehicle,
+	 * TimeWindow) have copy constructors which are about two orders of
+	 * magnitude faster (see run.benchmark.RouteCopyBenchmark).
+	 * 
+	 * @param obj
+	 *            object to be copied
+	 * @return copy of obj
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
 	public static <T> T deepCopy(T obj)
 			throws IOException, ClassNotFoundException {
 		/** Results are for copying a Route 10.000 times. Time is in ms */
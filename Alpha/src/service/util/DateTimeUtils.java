@@ -12,7 +12,12 @@ import shippingCore.calculations.time.TimeWindow;
 /**
  * Provides static methods for handling of time, date, datetimes
  * <code>Date</code> objects.
- * 
+ * <p>
+ * The UTC calculations are plain arithmetic on the milliseconds and keep no
+ * shared state, so they can be called from parallel searches without locks.
+ * UTC has no daylight saving time and the time of day does not depend on the
+ * calendar system, only dates before the Gregorian cutover in 1582 need a
+ * {@link Calendar} for the Julian calendar.
  */
 public class DateTimeUtils {
 	private static final long TIME_PER_DAY = 86400000;
@@ -23,8 +28,17 @@ public class DateTimeUtils {
 
 	private static final TimeZone CET = TimeZone.getTimeZone("CET");
 
-	private static final Calendar CALENDAR = Calendar
-			.getInstance(TimeZone.getTimeZone("UTC"));
+	/** the first day of the Gregorian calendar, 1582-10-15 00:00 UTC */
+	private static final long GREGORIAN_CUTOVER = -12219292800000L;
+
+	/** the year of {@link #GREGORIAN_CUTOVER} */
+	private static final int GREGORIAN_CUTOVER_YEAR = 1582;
+
+	/** days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar */
+	private static final long DAYS_0000_TO_1970 = 719468;
+
+	/** days of 400 Gregorian years */
+	private static final long DAYS_PER_400_YEARS = 146097;
 
 	/**
 	 * Merges a date (in UTC) and a time (in UTC) a returns a new date object.
@@ -39,33 +53,21 @@ public class DateTimeUtils {
 		if (dateOnly == null) {
 			return null;
 		}
-		Calendar cal = createUTCCalendar(dateOnly);
-		if ((cal.get(Calendar.HOUR_OF_DAY) != 0)
-				|| (cal.get(Calendar.MINUTE) != 0)
-				|| (cal.get(Calendar.SECOND) != 0)
-				|| (cal.get(Calendar.MILLISECOND) != 0)) {
+		if (!isPlainUtcDate(dateOnly)) {
 			throw new IllegalArgumentException(
 					"The supplied date Date is either not constructed in UTC or contains non 0 time values");
 		}
 
 		if (timeOnly == null) {
-			setHms(cal, 0, 0, 0);
-		} else {
-			Calendar tc = createUTCCalendar(timeOnly);
-			Calendar epoch = createUTCCalendar(0);
-			if ((tc.get(Calendar.YEAR) != epoch.get(Calendar.YEAR))
-					|| (tc.get(Calendar.MONTH) != epoch.get(Calendar.MONTH))
-					|| (tc.get(Calendar.DAY_OF_MONTH) != epoch
-							.get(Calendar.DAY_OF_MONTH))) {
-				throw new IllegalArgumentException(
-						"The supplied time Date is either not constructed in UTC or contains non 0 date values");
-			}
-
-			setHms(cal, tc.get(Calendar.HOUR_OF_DAY), tc.get(Calendar.MINUTE),
-					tc.get(Calendar.SECOND));
+			return new Date(dateOnly.getTime());
+		}
+		if (!isPlainUtcTime(timeOnly)) {
+			throw new IllegalArgumentException(
+					"The supplied time Date is either not constructed in UTC or contains non 0 date values");
 		}
 
-		return cal.getTime();
+		return new Date(dateOnly.getTime()
+				+ getUtcTimeOfDay(timeOnly.getTime()));
 	}
 
 	/**
@@ -106,12 +108,9 @@ public class DateTimeUtils {
 	 *         time only
 	 */
 	public static Date[] splitDateTime(Date dateAndTime) {
-		Calendar date = createUTCCalendar(dateAndTime);
-		Calendar time = createUTCCalendar(0);
-		setHms(time, date.get(Calendar.HOUR_OF_DAY), date.get(Calendar.MINUTE),
-				date.get(Calendar.SECOND));
-		setHms(date, 0, 0, 0);
-		return new Date[] { date.getTime(), time.getTime() };
+		long time = dateAndTime.getTime();
+		return new Date[] { new Date(getUtcDayStart(time)),
+				new Date(getUtcTimeOfDay(time)) };
 	}
 
 	/**
@@ -123,9 +122,7 @@ public class DateTimeUtils {
 	 * @return The normalized date.
 	 */
 	public static long normalizeDate(long date) {
-		Calendar calendar = Calendar.getInstance();
-		calendar.setTimeInMillis(date);
-		return splitDateTime(calendar.getTime())[0].getTime();
+		return getUtcDayStart(date);
 	}
 
 	/**
@@ -244,11 +241,61 @@ public class DateTimeUtils {
 			throw new InvalidArgumentException(
 					"Day cannot be zero, use values 1-31");
 		}
-		synchronized (CALENDAR) {
-			CALENDAR.set(year, month - 1, day, hour, minute, 0);
-			CALENDAR.set(Calendar.MILLISECOND, 0);
-			return CALENDAR.getTime();
+		return new Date(getUtcTime(year, month, day, hour, minute));
+	}
+
+	/**
+	 * Calculates the time like a lenient {@link Calendar} in UTC: months out
+	 * of range move the year and days, hours and minutes out of range are
+	 * added to the first day of the month.
+	 * 
+	 * @param year
+	 * @param month
+	 *            1-12
+	 * @param day
+	 *            1-31
+	 * @param hour
+	 * @param minute
+	 * @return the time in milliseconds for the given parameters in UTC
+	 */
+	public static long getUtcTime(int year, int month, int day, int hour,
+			int minute) {
+		long monthIndex = month - 1L;
+		long normalizedYear = year + Math.floorDiv(monthIndex, 12);
+		// month % 12 + 11 is congruent to monthIndex and cannot overflow
+		int normalizedMonth = Math.floorMod(month % 12 + 11, 12) + 1;
+
+		long time = (getEpochDay(normalizedYear, normalizedMonth) + day - 1)
+				* TIME_PER_DAY + hour * TIME_PER_HOUR
+				+ minute * (long) IConstants.MINUTE;
+		if (year > GREGORIAN_CUTOVER_YEAR
+				&& normalizedYear > GREGORIAN_CUTOVER_YEAR
+				&& time >= GREGORIAN_CUTOVER) {
+			return time;
 		}
+
+		// the calendar counts from the Julian month of the year, a new
+		// calendar is cheaper than a lock
+		Calendar cal = Calendar.getInstance(UTC);
+		cal.clear();
+		cal.set(year, month - 1, day, hour, minute, 0);
+		return cal.getTimeInMillis();
+	}
+
+	/**
+	 * @return the days from 1970-01-01 to the first day of the month in the
+	 *         proleptic Gregorian calendar
+	 */
+	private static long getEpochDay(long year, int month) {
+		// years starting in March, so the leap day is the last day
+		long marchYear = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(marchYear, 400);
+		long yearOfEra = marchYear - era * 400;
+		int marchMonth = (month + 9) % 12;
+		long dayOfYear = (153 * marchMonth + 2) / 5;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+				+ dayOfYear;
+		return era * DAYS_PER_400_YEARS + dayOfEra - DAYS_0000_TO_1970;
 	}
 
 	/**
@@ -289,11 +336,7 @@ public class DateTimeUtils {
 	 *         data given
 	 */
 	public static boolean isPlainUtcDate(Date date) {
-		Calendar cal = createUTCCalendar(date);
-		return ((cal.get(Calendar.HOUR_OF_DAY) == 0)
-				&& (cal.get(Calendar.MINUTE) == 0)
-				&& (cal.get(Calendar.SECOND) == 0)
-				&& (cal.get(Calendar.MILLISECOND) == 0));
+		return Math.floorMod(date.getTime(), TIME_PER_DAY) == 0;
 	}
 
 	/**
@@ -305,12 +348,19 @@ public class DateTimeUtils {
 	 *         data given
 	 */
 	public static boolean isPlainUtcTime(Date date) {
+		long time = date.getTime();
+		if (time >= 0 && time < TIME_PER_DAY) {
+			return true;
+		}
+		if (time >= GREGORIAN_CUTOVER) {
+			return false;
+		}
+
+		// the era is not compared, 1.1.1970 BC counts as well
 		Calendar tc = createUTCCalendar(date);
-		Calendar epoch = createUTCCalendar(0);
-		return ((tc.get(Calendar.YEAR) == epoch.get(Calendar.YEAR))
-				&& (tc.get(Calendar.MONTH) == epoch.get(Calendar.MONTH))
-				&& (tc.get(Calendar.DAY_OF_MONTH) == epoch
-						.get(Calendar.DAY_OF_MONTH)));
+		return tc.get(Calendar.YEAR) == 1970
+				&& tc.get(Calendar.MONTH) == Calendar.JANUARY
+				&& tc.get(Calendar.DAY_OF_MONTH) == 1;
 	}
 
 	/**
@@ -327,9 +377,8 @@ public class DateTimeUtils {
 			return null;
 		}
 
-		Calendar cal = createUTCCalendar(date);
-		cal.add(Calendar.DAY_OF_MONTH, days);
-		return cal.getTime();
+		// UTC days always have 24 hours
+		return new Date(date.getTime() + days * TIME_PER_DAY);
 	}
 
 	/**
@@ -345,11 +394,20 @@ public class DateTimeUtils {
 		return time + hours * TIME_PER_HOUR;
 	}
 
-	private static void setHms(Calendar cal, int hr, int min, int sec) {
-		cal.set(Calendar.HOUR_OF_DAY, hr);
-		cal.set(Calendar.MINUTE, min);
-		cal.set(Calendar.SECOND, sec);
-		cal.set(Calendar.MILLISECOND, 0);
+	/**
+	 * @return the start of the UTC day of the time
+	 */
+	private static long getUtcDayStart(long time) {
+		return time - Math.floorMod(time, TIME_PER_DAY);
+	}
+
+	/**
+	 * @return the hours, minutes and seconds of the UTC day of the time in
+	 *         milliseconds, without the milliseconds
+	 */
+	private static long getUtcTimeOfDay(long time) {
+		long timeOfDay = Math.floorMod(time, TIME_PER_DAY);
+		return timeOfDay - timeOfDay % IConstants.SECOND;
 	}
 
 	/**
@@ -422,22 +480,12 @@ public class DateTimeUtils {
 	 *         utcTime
 	 */
 	public static TimeWindow fromMondayToSunday(long utcTime) {
-		synchronized (CALENDAR) {
-			Calendar cal = CALENDAR; // Calendar.getInstance(UTC);
-			cal.setTimeInMillis(utcTime);
-			int dayOfTheWeek = cal.get(Calendar.DAY_OF_WEEK);
-			int toNextMonday = (7 + Calendar.MONDAY - dayOfTheWeek) % 7;
-			cal.add(Calendar.DAY_OF_YEAR, toNextMonday == 0 ? 7 : toNextMonday);
-			setHms(cal, 0, 0, 0); // set midnight
-			long weekEnd = cal.getTimeInMillis();
-			cal.add(Calendar.DAY_OF_WEEK, -7);
-			long weekStart = cal.getTimeInMillis();
-			TimeWindow time = new TimeWindow(weekStart, true, weekEnd, false);
-			// assert time.isTimeWithin(utcTime) :
-			// "TimeWindow not correctly calculated: " + time + " utcTime:" +
-			// utcTime;
-			return time;
-		}
+		long day = Math.floorDiv(utcTime, TIME_PER_DAY);
+		// 1.1.1970 was a Thursday, the weekdays did not change in 1582
+		long daysSinceMonday = Math.floorMod(day + 3, 7);
+		long weekStart = (day - daysSinceMonday) * TIME_PER_DAY;
+		long weekEnd = weekStart + 7 * TIME_PER_DAY;
+		return new TimeWindow(weekStart, true, weekEnd, false);
 	}
 
 	/**
@@ -1,10 +1,28 @@
 package service.util;
 
+import service.exceptions.InvalidArgumentException;
+
 /**
  * A conversion from decimal number system to factorial number system. <br>
- * Maximum is base 9 in Factoradic(Factorial Number System)
+ * Maximum is base 9 in Factoradic(Factorial Number System) for the int
+ * methods and base {@link #MAX_LONG_BASE} for the long methods, which also
+ * write into arrays of the caller instead of allocating new ones.
  */
 public class Factoradic {
+
+	/** the largest base whose factorial fits into a long */
+	public static final int MAX_LONG_BASE = 20;
+
+	/** n! for n = 0..MAX_LONG_BASE */
+	private static final long[] FACTORIALS = new long[MAX_LONG_BASE + 1];
+
+	static {
+		FACTORIALS[0] = 1;
+		for (int i = 1; i <= MAX_LONG_BASE; i++) {
+			FACTORIALS[i] = FACTORIALS[i - 1] * i;
+		}
+	}
+
 	/**
 	 * Does not work for base > 9. We run out of decimal digits for a factorial
 	 * number with base > 9
@@ -57,4 +75,83 @@ public class Factoradic {
 		}
 		return n * factorial(n - 1);
 	}
+
+	/**
+	 * Long based implementation by table lookup.
+	 * 
+	 * @param n
+	 *            0..{@link #MAX_LONG_BASE}
+	 * @return n!
+	 * @throws InvalidArgumentException
+	 *             if n! does not fit into a long
+	 */
+	public static long longFactorial(int n) {
+		if (n < 0 || n > MAX_LONG_BASE) {
+			throw new InvalidArgumentException("Factorial out of long range: "
+					+ n);
+		}
+		return FACTORIALS[n];
+	}
+
+	/**
+	 * Converts the number into the given array without allocating.
+	 * 
+	 * @param decimalNumber
+	 *            the number that has to be converted to factoradic, 0 <=
+	 *            <tt>decimalNumber < factoradicBase!</tt>
+	 * @param factoradicBase
+	 *            the base of the factoradic number, at most
+	 *            {@link #MAX_LONG_BASE}
+	 * @param factoradic
+	 *            receives the digits from the highest to the lowest position,
+	 *            at least factoradicBase long
+	 * @throws InvalidArgumentException
+	 *             if the number is out of range
+	 */
+	public static void getFactoradic(long decimalNumber, int factoradicBase,
+			int[] factoradic) {
+		if (decimalNumber < 0
+				|| decimalNumber >= longFactorial(factoradicBase)) {
+			throw new InvalidArgumentException(
+					"Improper values: (decimalNumber > factoradicBase!-1) ("
+							+ decimalNumber + ">"
+							+ (FACTORIALS[factoradicBase] - 1) + ")");
+		}
+
+		for (int i = factoradicBase - 1; i >= 0; i--) {
+			long factorial = FACTORIALS[i];
+			int positionValue = (int) (decimalNumber / factorial);
+			factoradic[factoradicBase - i - 1] = positionValue;
+			decimalNumber -= positionValue * factorial;
+		}
+	}
+
+	/**
+	 * Unranks the permutation with the index in lexicographic order of all
+	 * permutations of 0..n-1 without allocating. The factoradic digits are the
+	 * Lehmer code of the permutation: digit i counts the later elements that
+	 * are less than element i. Going from the back, every element is raised
+	 * past the ones fixed before it.
+	 * 
+	 * @param index
+	 *            the index of the permutation, 0 <= <tt>index < n!</tt>
+	 * @param n
+	 *            the number of elements, at most {@link #MAX_LONG_BASE}
+	 * @param permutation
+	 *            receives the permutation, at least n long
+	 * @throws InvalidArgumentException
+	 *             if the index is out of range
+	 */
+	public static void getPermutation(long index, int n, int[] permutation) {
+		getFactoradic(index, n, permutation);
+
+		for (int i = n - 2; i >= 0; i--) {
+			int value = permutation[i];
+			for (int j = i + 1; j < n; j++) {
+				if (permutation[j] >= value) {
+					permutation[j]++;
+				}
+			}
+		}
+	}
 }
@@ -6,6 +6,8 @@ import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
 import java.util.Locale;
 
+import service.dateAndTime.DateTimeFormat;
+
 public final class Format {
 	/** for proper cost formatting */
 	public static final DecimalFormat costFormatter;
@@ -13,9 +15,18 @@ public final class Format {
 	/** for proper double formatting */
 	public static final DecimalFormat doubleFormatter;
 
-	/** for date/time formatting */
+	/**
+	 * for date/time formatting, not thread-safe, use {@link #dateTimeFormat}
+	 * from several threads
+	 */
 	public static final SimpleDateFormat dateFormatter;
 
+	/** thread-safe date/time formatting, same strings as dateFormatter */
+	public static final DateTimeFormat dateTimeFormat;
+
+	/** thread-safe ISO 8601 date/time formatting for log and CSV output */
+	public static final DateTimeFormat isoFormat;
+
 	static {
 		costFormatter = (DecimalFormat) NumberFormat
 				.getNumberInstance(Locale.US);
@@ -23,6 +34,8 @@ public final class Format {
 		doubleFormatter = (DecimalFormat) NumberFormat
 				.getNumberInstance(Locale.US);
 		doubleFormatter.applyPattern("0.00");
-		dateFormatter = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+		dateFormatter = new SimpleDateFormat(DateTimeFormat.PATTERN_DATE_TIME);
+		dateTimeFormat = new DateTimeFormat(DateTimeFormat.PATTERN_DATE_TIME);
+		isoFormat = new DateTimeFormat(DateTimeFormat.PATTERN_ISO);
 	}
 }
@@ -0,0 +1,19 @@
+package service.util;
+
+/**
+ * Receives the records of a {@link CSVRecordReader}.
+ */
+public interface ICSVRecordHandler {
+
+	/**
+	 * Handles the record of one line. The record is reused for the next line,
+	 * so its fields have to be read before returning. If the reader runs in
+	 * parallel, the method is called by several threads at once.
+	 * 
+	 * @param record
+	 *            the fields of the line
+	 * @throws CSVParseException
+	 *             if the record cannot be handled, stops the reading
+	 */
+	void handleRecord(CSVRecord record) throws CSVParseException;
+}
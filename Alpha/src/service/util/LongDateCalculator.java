@@ -27,19 +27,9 @@ public class LongDateCalculator {
 	private static final TimeWindow LUNCH_BREAK = new TimeWindow(TIME_1230,
 			TIME_1300);
 
-	/** time window of the summer time in 21st century */
-	private final static TimeWindow[] DST_TIME_PERIODS = new TimeWindow[130];
-
-	// used for calculating the time difference from the used locale to the
-	// default loacale
-	static {
-		TimeZone timeZone = DEFAULT_TIME_ZONE;
-
-		for (int i = 0; i < DST_TIME_PERIODS.length; i++) {
-			DST_TIME_PERIODS[i] = DateTimeUtils
-					.getDaylightSavingPeriod(1970 + i, timeZone);
-		}
-	}
+	/** the offsets of the default time zone by day */
+	private static final ZoneDayTable DEFAULT_ZONE_TABLE = ZoneDayTable
+			.getInstance(DEFAULT_TIME_ZONE);
 
 	/**
 	 * Checks if the given time is within lunch break. Lunch break starts at
@@ -249,7 +239,20 @@ public class LongDateCalculator {
 	}
 
 	/**
-	 * Returns the timeOffset in milliseconds (e.g. summertime)
+	 * Returns the timeOffset of the default time zone in milliseconds (e.g.
+	 * summertime).
+	 * 
+	 * @param time
+	 *            for which the offset is needed
+	 * @return the timeOffset in milliseconds (e.g. summertime)
+	 */
+	public static long getTimeOffset(final long time) {
+		return DEFAULT_ZONE_TABLE.getOffset(time);
+	}
+
+	/**
+	 * Returns the timeOffset in milliseconds (e.g. summertime). The offsets
+	 * are looked up in the {@link ZoneDayTable} of the zone.
 	 * 
 	 * @param time
 	 *            for which the offset is needed
@@ -258,26 +261,13 @@ public class LongDateCalculator {
 	 * @return the timeOffset in milliseconds (e.g. summertime)
 	 */
 	public static long getTimeOffset(final long time, final TimeZone tz) {
-		long offset = (tz != null) ? tz.getRawOffset() : 0;
-
-		int year = (int) (time / (365L * IConstants.DAY));
-		if (time < 0) {
-			year--;
-		}
-		TimeWindow dstPeriod;
-		if (year >= 0 && year < DST_TIME_PERIODS.length) {
-			dstPeriod = DST_TIME_PERIODS[year];
-		} else {
-			dstPeriod = DateTimeUtils.getDaylightSavingPeriod(1970 + year,
-					DEFAULT_TIME_ZONE);
+		if (tz == null) {
+			return 0;
 		}
-
-		if ((dstPeriod != null) && (dstPeriod.isTimeWithin(time))) {
-			// its summertime
-			offset += IConstants.HOUR;
+		if (tz == DEFAULT_TIME_ZONE) {
+			return DEFAULT_ZONE_TABLE.getOffset(time);
 		}
-
-		return offset;
+		return ZoneDayTable.getInstance(tz).getOffset(time);
 	}
 
 	/**
@@ -0,0 +1,200 @@
+package service.util;
+
+import java.util.Arrays;
+
+/**
+ * Multiset of long values with open addressing and linear probing. Adding a
+ * value twice needs removing it twice. No objects are created except when the
+ * table grows, so lookups in hot loops are allocation-free and constant time.
+ * Not thread-safe.
+ */
+public class LongHashSet {
+	/** maximum share of used slots before the table grows */
+	private static final double MAX_LOAD = 0.5;
+
+	/** the values, 0 marks a free slot */
+	private long[] values;
+
+	/** the number of times the value of the slot was added */
+	private int[] counts;
+
+	/** the number of times 0 was added, kept outside the table */
+	private int zeroCount;
+
+	/** number of used slots */
+	private int used;
+
+	/** values.length - 1 */
+	private int mask;
+
+	/**
+	 * @param expectedSize
+	 *            the number of distinct values the set can hold without
+	 *            growing
+	 */
+	public LongHashSet(int expectedSize) {
+		int capacity = 2;
+		while (capacity * MAX_LOAD < expectedSize) {
+			capacity <<= 1;
+		}
+		values = new long[capacity];
+		counts = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Adds the value once more.
+	 * 
+	 * @param value
+	 *            the value to add
+	 */
+	public void add(long value) {
+		if (value == 0) {
+			zeroCount++;
+			return;
+		}
+
+		int slot = find(value);
+		if (values[slot] == value) {
+			counts[slot]++;
+			return;
+		}
+
+		values[slot] = value;
+		counts[slot] = 1;
+		used++;
+
+		if (used > values.length * MAX_LOAD) {
+			rehash(values.length << 1);
+		}
+	}
+
+	/**
+	 * Removes the value once.
+	 * 
+	 * @param value
+	 *            the value to remove
+	 * @return false if the value was not contained
+	 */
+	public boolean remove(long value) {
+		if (value == 0) {
+			if (zeroCount == 0) {
+				return false;
+			}
+			zeroCount--;
+			return true;
+		}
+
+		int slot = find(value);
+		if (values[slot] != value) {
+			return false;
+		}
+
+		if (--counts[slot] == 0) {
+			delete(slot);
+		}
+		return true;
+	}
+
+	/**
+	 * @param value
+	 *            the value to look for
+	 * @return true if the value is contained at least once
+	 */
+	public boolean contains(long value) {
+		if (value == 0) {
+			return zeroCount > 0;
+		}
+		return values[find(value)] == value;
+	}
+
+	/**
+	 * @param value
+	 *            the value to look for
+	 * @return the number of times the value is contained
+	 */
+	public int count(long value) {
+		if (value == 0) {
+			return zeroCount;
+		}
+		int slot = find(value);
+		return values[slot] == value ? counts[slot] : 0;
+	}
+
+	/**
+	 * @return the number of distinct values
+	 */
+	public int size() {
+		return used + (zeroCount > 0 ? 1 : 0);
+	}
+
+	/**
+	 * Removes all values.
+	 */
+	public void clear() {
+		Arrays.fill(values, 0);
+		Arrays.fill(counts, 0);
+		zeroCount = 0;
+		used = 0;
+	}
+
+	/**
+	 * @return the slot of the value or the free slot where it belongs
+	 */
+	private int find(long value) {
+		int slot = hash(value) & mask;
+		while (values[slot] != 0 && values[slot] != value) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Frees the slot and moves following values of the probe sequence back,
+	 * so that no tombstones are needed.
+	 */
+	private void delete(int slot) {
+		int free = slot;
+		int next = (free + 1) & mask;
+
+		while (values[next] != 0) {
+			int home = hash(values[next]) & mask;
+			// move back if the home slot is not within (free, next]
+			if (((next - home) & mask) >= ((next - free) & mask)) {
+				values[free] = values[next];
+				counts[free] = counts[next];
+				free = next;
+			}
+			next = (next + 1) & mask;
+		}
+
+		values[free] = 0;
+		counts[free] = 0;
+		used--;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldValues = values;
+		int[] oldCounts = counts;
+
+		values = new long[capacity];
+		counts = new int[capacity];
+		mask = capacity - 1;
+
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != 0) {
+				int slot = find(oldValues[i]);
+				values[slot] = oldValues[i];
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+
+	/**
+	 * Spreads the bits, the values may be ids as well as random hashes.
+	 */
+	private static int hash(long value) {
+		long h = value * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
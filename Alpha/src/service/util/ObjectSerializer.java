@@ -9,7 +9,11 @@ import java.io.ObjectOutputStream;
 /**
  * Class to serialize/de-serialize objects to file.
  * 
+ * @deprecated problems and solutions are written much faster and smaller by
+ *             {@link shippingCore.dao.impl.SnapshotWriter} and restored by
+ *             {@link shippingCore.dao.impl.SnapshotReader}
  */
+@Deprecated
 public class ObjectSerializer {
 	/**
 	 * @param object
@@ -1,55 +1,334 @@
 package service.util;
 
-//import java.io.File;
-//import java.io.FileWriter;
-//
-//import com.thoughtworks.xstream.XStream;
-//import com.thoughtworks.xstream.converters.Converter;
-//import com.thoughtworks.xstream.io.xml.DomDriver;
-
-public class XMLFileWriter {
-	// XStream xstream;
-	//
-	// public XMLFileWriter()
-	// {
-	// xstream = new XStream(new DomDriver());
-	// }
-	//
-	// /**
-	// * @param fileDestination - destination where to write the file
-	// * @param parentTag - the name of the parentTag
-	// * @param objectToWrite - the object that has to be serialized
-	// */
-	// public boolean writeToXMLFile(String fileDestination, String parentTag,
-	// Object objectToWrite)
-	// {
-	// xstream.alias(parentTag, objectToWrite.getClass());
-	//
-	// String xmlString = xstream.toXML(objectToWrite);
-	//
-	// File outputFile = null;
-	// FileWriter outputFileWriter = null;
-	//
-	// try {
-	// outputFile = new File(fileDestination);
-	// outputFileWriter = new FileWriter(outputFile);
-	// outputFileWriter.write(xmlString);
-	// outputFileWriter.close();
-	// } catch (Exception e) {
-	// e.printStackTrace();
-	// return false;
-	// }
-	//
-	// return true;
-	// }
-	//
-	// public void registerConverter(Converter converter)
-	// {
-	// xstream.registerConverter(converter);
-	// }
-	//
-	// public void registerAlias(String name, Class<? extends Object> type)
-	// {
-	// xstream.alias(name, type);
-	// }
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import service.dateAndTime.DateTimeFormat;
+
+/**
+ * Writes an XML file element by element with a {@link XMLStreamWriter}. The
+ * elements are written to a buffer of fixed size that is passed to the file
+ * whenever it is full, so large documents are written while they are created
+ * and never held in memory as a whole.
+ * <p>
+ * The file is encoded in UTF-8 and its root element is started by the
+ * constructor. Elements still open are ended by {@link #close()}. Instances
+ * are not thread-safe and have to be closed.
+ */
+public class XMLFileWriter implements Closeable {
+
+	/** the default size of the buffer, 64 K chars */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	/** the encoding of the file */
+	private static final String ENCODING = "UTF-8";
+
+	/** the file written */
+	private final File file;
+
+	/** the buffered stream of the file */
+	private final Writer output;
+
+	/** writes the elements to the output */
+	private final XMLStreamWriter writer;
+
+	/** the number of open elements, including the root */
+	private int depth;
+
+	/** if the writer is closed */
+	private boolean isClosed;
+
+	/**
+	 * Creates a writer with the default buffer size.
+	 * 
+	 * @param filename
+	 *            name of the file to write
+	 * @param rootElement
+	 *            the name of the root element
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	public XMLFileWriter(String filename, String rootElement)
+			throws IOException {
+		this(new File(filename), rootElement, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param file
+	 *            the file to write
+	 * @param rootElement
+	 *            the name of the root element
+	 * @param bufferSize
+	 *            the size of the buffer in chars
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	public XMLFileWriter(File file, String rootElement, int bufferSize)
+			throws IOException {
+		this.file = file;
+		output = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(file), StandardCharsets.UTF_8), Math.max(
+				bufferSize, 1));
+		try {
+			writer = XMLOutputFactory.newInstance().createXMLStreamWriter(
+					output);
+			writer.writeStartDocument(ENCODING, "1.0");
+			writer.writeCharacters("\n");
+		} catch (XMLStreamException e) {
+			output.close();
+			throw new IOException("Cannot write " + file, e);
+		}
+		startElement(rootElement);
+	}
+
+	/**
+	 * Starts an element within the current one, its attributes have to be
+	 * added before anything else.
+	 * 
+	 * @param name
+	 *            the name of the element
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public XMLFileWriter startElement(String name) throws IOException {
+		checkClosed();
+		try {
+			writer.writeStartElement(name);
+		} catch (XMLStreamException e) {
+			throw failed(e);
+		}
+		depth++;
+		return this;
+	}
+
+	/**
+	 * Writes an element without content within the current one, its
+	 * attributes have to be added before anything else.
+	 * 
+	 * @param name
+	 *            the name of the element
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public XMLFileWriter emptyElement(String name) throws IOException {
+		checkClosed();
+		try {
+			writer.writeEmptyElement(name);
+		} catch (XMLStreamException e) {
+			throw failed(e);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds an attribute to the element just started.
+	 * 
+	 * @param name
+	 *            the name of the attribute
+	 * @param value
+	 *            the value, escaped as needed
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public XMLFileWriter attribute(String name, String value)
+			throws IOException {
+		checkClosed();
+		try {
+			writer.writeAttribute(name, value);
+		} catch (XMLStreamException e) {
+			throw failed(e);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds an attribute to the element just started.
+	 * 
+	 * @param name
+	 *            the name of the attribute
+	 * @param value
+	 *            the value
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public XMLFileWriter attribute(String name, long value)
+			throws IOException {
+		return attribute(name, Long.toString(value));
+	}
+
+	/**
+	 * Adds an attribute to the element just started, formatted like
+	 * {@link Double#toString(double)}.
+	 * 
+	 * @param name
+	 *            the name of the attribute
+	 * @param value
+	 *            the value
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public XMLFileWriter attribute(String name, double value)
+			throws IOException {
+		return attribute(name, Double.toString(value));
+	}
+
+	/**
+	 * Adds an attribute to the element just started.
+	 * 
+	 * @param name
+	 *            the name of the attribute
+	 * @param value
+	 *            the value
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public XMLFileWriter attribute(String name, boolean value)
+			throws IOException {
+		return attribute(name, value ? "true" : "false");
+	}
+
+	/**
+	 * Adds an attribute with the time formatted by the format to the element
+	 * just started.
+	 * 
+	 * @param name
+	 *            the name of the attribute
+	 * @param time
+	 *            number that represents date and time in milliseconds
+	 * @param format
+	 *            formats the time
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public XMLFileWriter attributeTime(String name, long time,
+			DateTimeFormat format) throws IOException {
+		return attribute(name, format.format(time));
+	}
+
+	/**
+	 * Writes text within the current element.
+	 * 
+	 * @param text
+	 *            the text, escaped as needed
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public XMLFileWriter text(String text) throws IOException {
+		checkClosed();
+		try {
+			writer.writeCharacters(text);
+		} catch (XMLStreamException e) {
+			throw failed(e);
+		}
+		return this;
+	}
+
+	/**
+	 * Ends the element started last.
+	 * 
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public XMLFileWriter endElement() throws IOException {
+		checkClosed();
+		if (depth == 0) {
+			throw new IOException("No element open in " + file);
+		}
+		try {
+			writer.writeEndElement();
+		} catch (XMLStreamException e) {
+			throw failed(e);
+		}
+		depth--;
+		return this;
+	}
+
+	/**
+	 * Ends the line, keeps the file readable without a pretty printer.
+	 * 
+	 * @return this writer
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public XMLFileWriter newLine() throws IOException {
+		return text("\n");
+	}
+
+	/**
+	 * @return the number of open elements, including the root
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Passes everything written so far to the file.
+	 * 
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public void flush() throws IOException {
+		checkClosed();
+		try {
+			writer.flush();
+		} catch (XMLStreamException e) {
+			throw failed(e);
+		}
+		output.flush();
+	}
+
+	/**
+	 * Ends the open elements and the document and closes the file.
+	 * 
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (isClosed) {
+			return;
+		}
+
+		try {
+			while (depth > 0) {
+				endElement();
+			}
+			writer.writeEndDocument();
+			writer.close();
+		} catch (XMLStreamException e) {
+			throw failed(e);
+		} finally {
+			isClosed = true;
+			output.close();
+		}
+	}
+
+	private void checkClosed() throws IOException {
+		if (isClosed) {
+			throw new IOException("Writer of " + file + " is closed");
+		}
+	}
+
+	private IOException failed(XMLStreamException e) {
+		return new IOException("Cannot write " + file, e);
+	}
 }
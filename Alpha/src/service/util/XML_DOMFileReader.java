@@ -8,7 +8,8 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import org.w3c.dom.Document;
 
 /**
- * Util class to read xml files.
+ * Util class to read xml files. The whole document is kept in memory, problem
+ * files are read by {@link shippingCore.dao.impl.XMLProblemReader} instead.
  * 
  */
 public class XML_DOMFileReader {
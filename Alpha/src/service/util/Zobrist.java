@@ -0,0 +1,38 @@
+package service.util;
+
+/**
+ * Zobrist-style hashing of solution attributes: every element gets a
+ * pseudo-random 64 bit key and an attribute made of several elements is
+ * hashed by combining their keys. The keys are computed from the element ids
+ * with a mixing function instead of being stored in a table, so any long id
+ * can be used.
+ */
+public class Zobrist {
+
+	private Zobrist() {
+	}
+
+	/**
+	 * @param id
+	 *            id of the element
+	 * @return the pseudo-random key of the element, never 0
+	 */
+	public static long key(long id) {
+		long z = id + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z ^= z >>> 31;
+		return z != 0 ? z : 1;
+	}
+
+	/**
+	 * @param first
+	 *            id of the first element
+	 * @param second
+	 *            id of the second element
+	 * @return the key of the ordered pair of elements, never 0
+	 */
+	public static long key(long first, long second) {
+		return key(key(first) ^ Long.rotateLeft(second, 32));
+	}
+}
@@ -0,0 +1,149 @@
+package service.util;
+
+import java.time.LocalDate;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import service.properties.IConstants;
+
+/**
+ * The UTC offsets of a time zone by UTC day, so the offset of a time is two
+ * array lookups instead of a {@link TimeZone} calculation. For every day the
+ * table keeps the offset at its start and the millisecond within the day the
+ * offset changes at, {@link IConstants#DAY} if it does not. The offset after
+ * a change is the one at the start of the next day, so a day may have one
+ * change at most, which holds for all zones in use.
+ * <p>
+ * The table covers {@link #YEARS} years from 1970 on, other times are passed
+ * to the time zone. The tables are immutable and shared by all threads, one
+ * per zone id.
+ */
+public class ZoneDayTable {
+
+	/** the years from 1970 on the tables cover */
+	public static final int YEARS = 130;
+
+	/** number of days of the tables */
+	private static final int DAYS = (int) LocalDate.of(1970 + YEARS, 1, 1)
+			.toEpochDay();
+
+	/** the tables by time zone id */
+	private static final ConcurrentMap<String, ZoneDayTable> TABLES = new ConcurrentHashMap<String, ZoneDayTable>();
+
+	/** the zone the offsets are of */
+	private final TimeZone timeZone;
+
+	/** the offset at the start of every UTC day, one more for the end */
+	private final int[] offsets;
+
+	/** the millisecond within every UTC day the offset changes at */
+	private final int[] changes;
+
+	/**
+	 * @param timeZone
+	 *            the zone to build the table of
+	 */
+	private ZoneDayTable(TimeZone timeZone) {
+		this.timeZone = (TimeZone) timeZone.clone();
+		this.offsets = new int[DAYS + 1];
+		this.changes = new int[DAYS];
+
+		offsets[0] = this.timeZone.getOffset(0);
+		for (int day = 0; day < DAYS; day++) {
+			long dayStart = (long) day * IConstants.DAY;
+			offsets[day + 1] = this.timeZone.getOffset(dayStart
+					+ IConstants.DAY);
+			changes[day] = offsets[day] == offsets[day + 1] ? IConstants.DAY
+					: findChange(dayStart, offsets[day]);
+		}
+	}
+
+	/**
+	 * Searches the first millisecond of the day with another offset than
+	 * the one at its start.
+	 */
+	private int findChange(long dayStart, int startOffset) {
+		int low = 0;
+		int high = IConstants.DAY;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (timeZone.getOffset(dayStart + middle) == startOffset) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the table of the zone, built on the first call for the zone id.
+	 * 
+	 * @param timeZone
+	 *            the zone
+	 * @return the shared table of the zone
+	 */
+	public static ZoneDayTable getInstance(TimeZone timeZone) {
+		ZoneDayTable table = TABLES.get(timeZone.getID());
+		if (table == null) {
+			table = new ZoneDayTable(timeZone);
+			ZoneDayTable existing = TABLES.putIfAbsent(timeZone.getID(),
+					table);
+			if (existing != null) {
+				table = existing;
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Builds the tables of the zones in advance, so the first calculations
+	 * do not have to.
+	 * 
+	 * @param timeZoneIds
+	 *            time zone ids separated by commas, may be empty
+	 */
+	public static void preload(String timeZoneIds) {
+		for (String id : timeZoneIds.split("\\s*,\\s*")) {
+			if (id.length() > 0) {
+				getInstance(TimeZone.getTimeZone(id));
+			}
+		}
+	}
+
+	/**
+	 * @param time
+	 *            number that represents date and time in milliseconds
+	 * @return the offset of the zone to UTC at the time in milliseconds,
+	 *         including daylight saving time
+	 */
+	public int getOffset(long time) {
+		long day = Math.floorDiv(time, IConstants.DAY);
+		if (day < 0 || day >= DAYS) {
+			return timeZone.getOffset(time);
+		}
+
+		int index = (int) day;
+		int millisInDay = (int) (time - day * IConstants.DAY);
+		return millisInDay < changes[index] ? offsets[index]
+				: offsets[index + 1];
+	}
+
+	/**
+	 * @param time
+	 *            number that represents date and time in milliseconds
+	 * @return true if daylight saving time applies at the time, that is the
+	 *         offset differs from the raw offset of the zone
+	 */
+	public boolean isDaylightTime(long time) {
+		return getOffset(time) != timeZone.getRawOffset();
+	}
+
+	/**
+	 * @return the id of the zone
+	 */
+	public String getTimeZoneId() {
+		return timeZone.getID();
+	}
+}
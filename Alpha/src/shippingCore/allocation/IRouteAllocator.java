@@ -0,0 +1,32 @@
+package shippingCore.allocation;
+
+import java.util.List;
+import java.util.Random;
+
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+
+/**
+ * Interface of the construction heuristics that build routes by assigning
+ * orders to them. Implementations are configured by the
+ * ALLOCATION_ROUTEALLOCATOR_STRATEGY_* values of
+ * {@link service.properties.IPropertiesConstants}.
+ * 
+ */
+public interface IRouteAllocator {
+
+	/**
+	 * Inserts the pickup and delivery nodes of the orders into the routes.
+	 * 
+	 * @param routes
+	 *            the routes to insert into, may already contain nodes
+	 * @param orders
+	 *            the orders to insert, not yet part of any route
+	 * @param random
+	 *            random source of the caller
+	 * @return the orders that could not be inserted without overloading a
+	 *         vehicle
+	 */
+	public List<Order> allocate(List<Route> routes, List<Order> orders,
+			Random random);
+}
@@ -0,0 +1,49 @@
+package shippingCore.allocation.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import shippingCore.allocation.IRouteAllocator;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+
+/**
+ * Appends every order to the end of the route of a random vehicle that can
+ * carry it, in random order. As pickup and delivery follow each other, no
+ * vehicle is overloaded. Cheap and diverse, so suited for random restarts.
+ * Orders no vehicle can carry are appended to a random route anyway.
+ */
+public class AllocateAtEndAllocator implements IRouteAllocator {
+
+	@Override
+	public List<Order> allocate(List<Route> routes, List<Order> orders,
+			Random random) {
+		if (routes.isEmpty()) {
+			return new ArrayList<Order>(orders);
+		}
+
+		List<Order> shuffled = new ArrayList<Order>(orders);
+		Collections.shuffle(shuffled, random);
+		List<Route> candidates = new ArrayList<Route>(routes.size());
+
+		for (Order order : shuffled) {
+			candidates.clear();
+			for (Route route : routes) {
+				if (route.getVehicle().getCapacityWeight() >= order
+						.getWeight()) {
+					candidates.add(route);
+				}
+			}
+
+			Route route = candidates.isEmpty()
+					? routes.get(random.nextInt(routes.size()))
+					: candidates.get(random.nextInt(candidates.size()));
+			route.addNode(order.getPickupNode());
+			route.addNode(order.getDeliveryNode());
+		}
+
+		return new ArrayList<Order>();
+	}
+}
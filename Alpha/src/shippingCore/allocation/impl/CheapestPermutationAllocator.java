@@ -0,0 +1,360 @@
+package shippingCore.allocation.impl;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import service.exceptions.InvalidArgumentException;
+import service.util.Factoradic;
+import shippingCore.allocation.IRouteAllocator;
+import shippingCore.calculations.RouteCalculator;
+import shippingCore.calculations.RouteEvaluation;
+import shippingCore.model.Node;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+
+/**
+ * Distributes the orders with another allocator and then searches the
+ * cheapest sequence of the modifiable nodes of every route with at most
+ * {@link #getMaxNodes()} of them among all their permutations.
+ * <p>
+ * The n! permutations are numbered in lexicographic order and the index
+ * space is split into ranges that are searched in parallel on a fork-join
+ * pool. Every range is walked by unranking the indices with
+ * {@link Factoradic#getPermutation(long, int, int[])} into reused arrays.
+ * Consecutive permutations share a prefix, so the states after every prefix
+ * node are kept and only the changed suffix is evaluated. As costs only grow
+ * along the sequence, a prefix that is already as expensive as the best
+ * sequence found by any worker, that delivers before picking up or that
+ * overloads the vehicle cuts off all permutations starting with it: they
+ * form one aligned block of (n - depth - 1)! indices, which is skipped.
+ */
+public class CheapestPermutationAllocator implements IRouteAllocator {
+
+	/** default of the maximum number of nodes to permute, 10! = 3628800 */
+	public static final int DEFAULT_MAX_NODES = 10;
+
+	/** minimum number of permutations searched by one task */
+	private static final long MIN_RANGE_SIZE = 5040;
+
+	/** number of tasks per thread, so threads that prune much get more */
+	private static final int TASKS_PER_THREAD = 8;
+
+	/** minimum improvement of a sequence, ignores rounding noise */
+	private static final double IMPROVEMENT_EPSILON = 1.0E-6;
+
+	/** relative minimum improvement for routes with huge penalty costs */
+	private static final double RELATIVE_IMPROVEMENT_EPSILON = 1.0E-12;
+
+	/** the calculator for the leg costs and times */
+	private final RouteCalculator calculator;
+
+	/** distributes the orders among the routes */
+	private final IRouteAllocator distribution;
+
+	/** routes with more modifiable nodes keep their sequence */
+	private int maxNodes = DEFAULT_MAX_NODES;
+
+	/** the pool the permutation ranges are searched on */
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/**
+	 * @param calculator
+	 *            the calculator for the route costs, only its stateless leg
+	 *            methods are called from the pool threads
+	 * @param distribution
+	 *            distributes the orders among the routes before their
+	 *            sequences are optimized
+	 */
+	public CheapestPermutationAllocator(RouteCalculator calculator,
+			IRouteAllocator distribution) {
+		this.calculator = calculator;
+		this.distribution = distribution;
+	}
+
+	@Override
+	public List<Order> allocate(List<Route> routes, List<Order> orders,
+			Random random) {
+		List<Order> unallocated = distribution.allocate(routes, orders,
+				random);
+		for (Route route : routes) {
+			optimize(route);
+		}
+		return unallocated;
+	}
+
+	/**
+	 * Replaces the modifiable nodes of the route by their cheapest
+	 * permutation if there are at most {@link #getMaxNodes()} of them.
+	 *
+	 * @param route
+	 *            the route to optimize
+	 * @return the cost difference, 0 if the route did not change
+	 */
+	public double optimize(Route route) {
+		int first = route.getFirstModifiableIndex();
+		int n = route.getNodeCount() - first;
+		if (n < 2 || n > maxNodes) {
+			return 0;
+		}
+
+		Search search = new Search(route);
+		long count = Factoradic.longFactorial(n);
+		long rangeSize = Math.max(MIN_RANGE_SIZE,
+				count / ((long) pool.getParallelism() * TASKS_PER_THREAD));
+		pool.invoke(search.new RangeTask(0, count, rangeSize));
+
+		if (search.bestPermutation == null) {
+			return 0;
+		}
+
+		for (int i = route.getNodeCount() - 1; i >= first; i--) {
+			route.removeNode(i);
+		}
+		for (int i = 0; i < n; i++) {
+			route.addNode(search.nodes[search.bestPermutation[i]]);
+		}
+		return search.bestCost - search.initialCost;
+	}
+
+	/**
+	 * @return the maximum number of modifiable nodes of a route to permute
+	 */
+	public int getMaxNodes() {
+		return maxNodes;
+	}
+
+	/**
+	 * @param maxNodes
+	 *            the maximum number of modifiable nodes of a route to permute,
+	 *            1..{@link Factoradic#MAX_LONG_BASE}
+	 * @throws InvalidArgumentException
+	 *             if the number is out of range
+	 */
+	public void setMaxNodes(int maxNodes) {
+		if (maxNodes < 1 || maxNodes > Factoradic.MAX_LONG_BASE) {
+			throw new InvalidArgumentException(
+					"Maximum number of nodes to permute out of range: "
+							+ maxNodes);
+		}
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * @param pool
+	 *            the pool to search the permutation ranges on
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * The permutation search of one route, shared by all its range tasks.
+	 */
+	private class Search {
+
+		/** the modifiable nodes in their original sequence */
+		final Node[] nodes;
+
+		/** the node before the first modifiable one */
+		final Node start;
+
+		/** the time the vehicle leaves the start node */
+		final long startDeparture;
+
+		/** the load after the start node */
+		final double startLoad;
+
+		/** the route searched, prices the legs */
+		final Route route;
+
+		final double capacity;
+
+		/**
+		 * the index of the pickup of every delivery among the nodes, -1 for
+		 * pickups and deliveries picked up before the modifiable nodes
+		 */
+		final int[] pickupOf;
+
+		/** the costs of the original sequence */
+		final double initialCost;
+
+		/** the costs of the best sequence or the bound before one is found */
+		volatile double bestCost;
+
+		/** the best permutation, null if none beats the original sequence */
+		int[] bestPermutation;
+
+		Search(Route route) {
+			int first = route.getFirstModifiableIndex();
+			int n = route.getNodeCount() - first;
+			RouteEvaluation e = calculator.calculateRoute(route);
+
+			nodes = new Node[n];
+			pickupOf = new int[n];
+			for (int i = 0; i < n; i++) {
+				nodes[i] = route.getNode(first + i);
+			}
+			for (int i = 0; i < n; i++) {
+				pickupOf[i] = -1;
+				if (nodes[i].isDelivery()) {
+					Node pickup = nodes[i].getOrder().getPickupNode();
+					for (int j = 0; j < n; j++) {
+						if (nodes[j] == pickup) {
+							pickupOf[i] = j;
+						}
+					}
+				}
+			}
+
+			start = route.getNode(first - 1);
+			startDeparture = e.getDepartureTime(first - 1);
+			startLoad = e.getLoad(first - 1);
+			this.route = route;
+			capacity = route.getVehicle().getCapacityWeight()
+					+ RouteCalculator.LOAD_EPSILON;
+
+			initialCost = evaluate();
+			bestCost = initialCost - Math.max(IMPROVEMENT_EPSILON,
+					RELATIVE_IMPROVEMENT_EPSILON * Math.abs(initialCost));
+		}
+
+		/**
+		 * @return the costs of the original sequence from the start node on
+		 */
+		private double evaluate() {
+			Node previous = start;
+			long departure = startDeparture;
+			double cost = 0;
+			for (Node node : nodes) {
+				long startTime = calculator.getServiceStartTime(departure,
+						previous, node);
+				cost += calculator.getLegCost(previous, node, route)
+						+ RouteCalculator.getLatenessPenalty(node, startTime);
+				departure = startTime + node.getServiceTime();
+				previous = node;
+			}
+			return cost;
+		}
+
+		/**
+		 * Takes the permutation as the best one if it is still cheaper than
+		 * the best one found by the other workers in the meantime.
+		 */
+		synchronized void offer(double cost, int[] permutation) {
+			if (cost < bestCost) {
+				bestCost = cost;
+				bestPermutation = permutation.clone();
+			}
+		}
+
+		/**
+		 * Searches the permutations from index from inclusive to index to
+		 * exclusive.
+		 */
+		void search(long from, long to) {
+			int n = nodes.length;
+			int[] permutation = new int[n];
+			int[] previousPermutation = new int[n];
+			int[] positionOf = new int[n];
+			long[] departure = new long[n + 1];
+			double[] load = new double[n + 1];
+			double[] cost = new double[n + 1];
+			departure[0] = startDeparture;
+			load[0] = startLoad;
+
+			// states 0..valid are the ones after the prefixes of the last
+			// permutation
+			int valid = 0;
+			long index = from;
+			while (index < to) {
+				Factoradic.getPermutation(index, n, permutation);
+
+				int depth = 0;
+				while (depth < valid
+						&& permutation[depth] == previousPermutation[depth]) {
+					depth++;
+				}
+				for (int k = 0; k < n; k++) {
+					positionOf[permutation[k]] = k;
+				}
+
+				double bound = bestCost;
+				for (; depth < n; depth++) {
+					int i = permutation[depth];
+					Node node = nodes[i];
+					if (pickupOf[i] >= 0 && positionOf[pickupOf[i]] > depth) {
+						break;
+					}
+
+					double nodeLoad = load[depth] + node.getLoadChange();
+					if (nodeLoad > capacity) {
+						break;
+					}
+
+					Node previous = depth == 0 ? start
+							: nodes[permutation[depth - 1]];
+					long startTime = calculator.getServiceStartTime(
+							departure[depth], previous, node);
+					double nodeCost = cost[depth]
+							+ calculator.getLegCost(previous, node, route)
+							+ RouteCalculator.getLatenessPenalty(node,
+									startTime);
+					if (nodeCost >= bound) {
+						break;
+					}
+
+					load[depth + 1] = nodeLoad;
+					departure[depth + 1] = startTime + node.getServiceTime();
+					cost[depth + 1] = nodeCost;
+				}
+
+				System.arraycopy(permutation, 0, previousPermutation, 0, n);
+				valid = depth;
+
+				if (depth == n) {
+					offer(cost[n], permutation);
+					index++;
+				} else {
+					// skip all permutations with the same prefix up to depth
+					long block = Factoradic.longFactorial(n - depth - 1);
+					index = (index / block + 1) * block;
+				}
+			}
+		}
+
+		/**
+		 * Splits its range of permutation indices in halves until they are
+		 * small enough to be searched by one thread.
+		 */
+		class RangeTask extends RecursiveAction {
+
+			private static final long serialVersionUID = 1L;
+
+			private final long from;
+
+			private final long to;
+
+			private final long rangeSize;
+
+			RangeTask(long from, long to, long rangeSize) {
+				this.from = from;
+				this.to = to;
+				this.rangeSize = rangeSize;
+			}
+
+			@Override
+			protected void compute() {
+				if (to - from <= rangeSize) {
+					search(from, to);
+					return;
+				}
+
+				long middle = from + (to - from) / 2;
+				invokeAll(new RangeTask(from, middle, rangeSize),
+						new RangeTask(middle, to, rangeSize));
+			}
+		}
+	}
+}
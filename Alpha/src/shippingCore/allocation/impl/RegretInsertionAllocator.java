@@ -0,0 +1,351 @@
+package shippingCore.allocation.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import service.exceptions.InvalidArgumentException;
+import shippingCore.allocation.IRouteAllocator;
+import shippingCore.calculations.RouteCalculator;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+
+/**
+ * Cheapest insertion with regret-k priorities. The order inserted next is the
+ * one that loses most if it is not inserted now: the sum of the differences
+ * between its k - 1 next best routes and its best route. With k = 1 this is
+ * plain cheapest insertion.
+ * <p>
+ * The best insertion of every open order into every route is cached, as well
+ * as the k best routes of every order. Inserting an order only changes one
+ * route, so only the insertions into this route are evaluated again, O(open
+ * orders) instead of O(open orders * routes). Where the route is not one of
+ * the k best of an order, a lower bound in O(n) is tried first and the O(n^2)
+ * evaluation is left out if the bound shows the route stays out. Such bounds
+ * are cached instead of the costs and only evaluated if needed when the k best
+ * routes are searched again, which happens only if one of them got worse.
+ * The orders are kept in a
+ * priority queue with version stamps: a changed order is queued again with
+ * a new version and the outdated entries are skipped when they come up.
+ */
+public class RegretInsertionAllocator implements IRouteAllocator {
+
+	/** the calculator for the insertion costs */
+	private final RouteCalculator calculator;
+
+	/** number of routes considered for the regret */
+	private final int regret;
+
+	/** relative random change of the insertion costs, 0 for none */
+	private double noise;
+
+	/** the open orders */
+	private Order[] orders;
+
+	/** the routes to insert into */
+	private Route[] routes;
+
+	/** the costs of inserting an order into a route by order and route */
+	private double[][] costs;
+
+	/** false if the cached costs are only a lower bound */
+	private boolean[][] exact;
+
+	/** the pickup and delivery positions of the cached insertions */
+	private int[][] positions;
+
+	/** the k best routes of every order by costs, -1 for none */
+	private int[][] bestRoutes;
+
+	/** the version of the priority of every order */
+	private int[] versions;
+
+	/** true for the inserted orders */
+	private boolean[] allocated;
+
+	/** the orders by priority, including outdated entries */
+	private PriorityQueue<Entry> queue;
+
+	/** scratch array for the positions of an insertion */
+	private final int[] insertion = new int[2];
+
+	private Random random;
+
+	/**
+	 * @param calculator
+	 *            the calculator for the insertion costs
+	 * @param regret
+	 *            number of routes considered for the regret, 1 for cheapest
+	 *            insertion
+	 * @throws InvalidArgumentException
+	 *             if regret is less than 1
+	 */
+	public RegretInsertionAllocator(RouteCalculator calculator, int regret) {
+		if (regret < 1) {
+			throw new InvalidArgumentException("Regret less than 1: "
+					+ regret);
+		}
+		this.calculator = calculator;
+		this.regret = regret;
+	}
+
+	@Override
+	public List<Order> allocate(List<Route> routeList, List<Order> orderList,
+			Random random) {
+		this.random = random;
+		orders = orderList.toArray(new Order[orderList.size()]);
+		routes = routeList.toArray(new Route[routeList.size()]);
+		costs = new double[orders.length][routes.length];
+		exact = new boolean[orders.length][routes.length];
+		positions = new int[orders.length][2 * routes.length];
+		bestRoutes = new int[orders.length][Math.min(regret, routes.length)];
+		versions = new int[orders.length];
+		allocated = new boolean[orders.length];
+		queue = new PriorityQueue<Entry>(Math.max(orders.length, 1));
+
+		for (int o = 0; o < orders.length; o++) {
+			for (int r = 0; r < routes.length; r++) {
+				evaluate(o, r);
+			}
+			findBestRoutes(o);
+			queue.add(new Entry(o));
+		}
+
+		List<Order> unallocated = new ArrayList<Order>();
+		while (!queue.isEmpty()) {
+			Entry entry = queue.poll();
+			int o = entry.order;
+			if (allocated[o] || entry.version != versions[o]) {
+				continue;
+			}
+
+			allocated[o] = true;
+			if (bestRoutes[o].length == 0 || bestRoutes[o][0] < 0) {
+				unallocated.add(orders[o]);
+				continue;
+			}
+
+			int r = bestRoutes[o][0];
+			Route route = routes[r];
+			Order order = orders[o];
+			route.addNode(positions[o][2 * r + 1], order.getDeliveryNode());
+			route.addNode(positions[o][2 * r], order.getPickupNode());
+
+			for (int other = 0; other < orders.length; other++) {
+				if (!allocated[other]) {
+					update(other, r);
+				}
+			}
+		}
+
+		// release the problem data
+		orders = null;
+		routes = null;
+		costs = null;
+		exact = null;
+		positions = null;
+		bestRoutes = null;
+		queue = null;
+		this.random = null;
+
+		return unallocated;
+	}
+
+	/**
+	 * Evaluates the best insertion of the order into the route, including the
+	 * fix costs if the route is not used yet.
+	 */
+	private void evaluate(int o, int r) {
+		Route route = routes[r];
+		double cost = calculator.evaluateOrderInsertion(route, orders[o],
+				insertion);
+
+		if (route.getNodeCount() == 1) {
+			cost += route.getVehicle().getFixCost();
+		}
+		if (noise > 0 && cost != Double.POSITIVE_INFINITY) {
+			cost += Math.abs(cost) * noise * (2 * random.nextDouble() - 1);
+		}
+
+		costs[o][r] = cost;
+		exact[o][r] = true;
+		positions[o][2 * r] = insertion[0];
+		positions[o][2 * r + 1] = insertion[1];
+	}
+
+	/**
+	 * Evaluates the changed route for the order again and queues the order
+	 * with a new priority if its best routes changed.
+	 */
+	private void update(int o, int r) {
+		int[] best = bestRoutes[o];
+		int last = best.length - 1;
+		int rank = indexOf(best, r);
+
+		if (rank < 0 && best[last] >= 0) {
+			double bound = getLowerBound(o, r);
+			if (bound >= costs[o][best[last]]) {
+				costs[o][r] = bound;
+				exact[o][r] = false;
+				return;
+			}
+		}
+
+		double oldCost = costs[o][r];
+		evaluate(o, r);
+		double cost = costs[o][r];
+		if (cost == oldCost) {
+			return;
+		}
+
+		if (rank >= 0 && cost > oldCost) {
+			// a worse best route, the next one may be any other
+			findBestRoutes(o);
+		} else if (rank >= 0) {
+			// a better best route moves up
+			while (rank > 0 && costs[o][best[rank - 1]] > cost) {
+				best[rank] = best[rank - 1];
+				rank--;
+			}
+			best[rank] = r;
+		} else if (!offer(best, costs[o], r)) {
+			return;
+		}
+
+		versions[o]++;
+		queue.add(new Entry(o));
+	}
+
+	/**
+	 * Searches the k best routes of the order among all routes. Routes with
+	 * a lower bound only are evaluated if the bound is less than the costs of
+	 * the k-th best route.
+	 */
+	private void findBestRoutes(int o) {
+		int[] best = bestRoutes[o];
+		double[] orderCosts = costs[o];
+		boolean[] orderExact = exact[o];
+		Arrays.fill(best, -1);
+
+		for (int r = 0; r < orderCosts.length; r++) {
+			if (orderExact[r]) {
+				offer(best, orderCosts, r);
+			}
+		}
+
+		int last = best.length - 1;
+		for (int r = 0; r < orderCosts.length; r++) {
+			if (!orderExact[r] && (best[last] < 0
+					|| orderCosts[r] < orderCosts[best[last]])) {
+				evaluate(o, r);
+				offer(best, orderCosts, r);
+			}
+		}
+	}
+
+	/**
+	 * Inserts the route into the sorted k best routes if it is better than
+	 * the k-th one.
+	 * 
+	 * @return true if the route was inserted
+	 */
+	private static boolean offer(int[] best, double[] orderCosts, int r) {
+		double cost = orderCosts[r];
+		int last = best.length - 1;
+		if (cost == Double.POSITIVE_INFINITY
+				|| best[last] >= 0 && cost >= orderCosts[best[last]]) {
+			return false;
+		}
+
+		int position = last;
+		while (position > 0 && (best[position - 1] < 0
+				|| orderCosts[best[position - 1]] > cost)) {
+			best[position] = best[position - 1];
+			position--;
+		}
+		best[position] = r;
+		return true;
+	}
+
+	/**
+	 * @return a lower bound of the costs {@link #evaluate(int, int)} would
+	 *         calculate
+	 */
+	private double getLowerBound(int o, int r) {
+		Route route = routes[r];
+		double bound = calculator.getInsertionLowerBound(route, orders[o]);
+
+		if (route.getNodeCount() == 1) {
+			bound += route.getVehicle().getFixCost();
+		}
+		return bound * (1 - noise);
+	}
+
+	private static int indexOf(int[] array, int value) {
+		for (int i = 0; i < array.length; i++) {
+			if (array[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param noise
+	 *            relative random change of the insertion costs, e.g. 0.1 for
+	 *            up to 10 percent, to build different solutions from the same
+	 *            orders
+	 */
+	public void setNoise(double noise) {
+		this.noise = noise;
+	}
+
+	/**
+	 * The priority of an order at the time it was queued. Orders without any
+	 * feasible route come first, so they are reported and do not block the
+	 * routes of the others.
+	 */
+	private class Entry implements Comparable<Entry> {
+
+		final int order;
+
+		final int version;
+
+		/**
+		 * the regret, positive infinity if less than k routes are left of the
+		 * routes there are
+		 */
+		final double regretValue;
+
+		/** the costs of the best insertion */
+		final double cost;
+
+		Entry(int order) {
+			this.order = order;
+			this.version = versions[order];
+
+			int[] best = bestRoutes[order];
+			double[] orderCosts = costs[order];
+			if (best.length == 0 || best[0] < 0) {
+				cost = Double.NEGATIVE_INFINITY;
+				regretValue = Double.POSITIVE_INFINITY;
+			} else {
+				cost = orderCosts[best[0]];
+				double sum = 0;
+				for (int k = 1; k < best.length; k++) {
+					sum += best[k] >= 0 ? orderCosts[best[k]] - cost
+							: Double.POSITIVE_INFINITY;
+				}
+				regretValue = sum;
+			}
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			int result = Double.compare(other.regretValue, regretValue);
+			return result != 0 ? result : Double.compare(cost, other.cost);
+		}
+	}
+}
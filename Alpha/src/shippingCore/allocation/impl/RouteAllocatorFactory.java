@@ -0,0 +1,72 @@
+package shippingCore.allocation.impl;
+
+import service.exceptions.InvalidArgumentException;
+import service.properties.IPropertiesConstants;
+import service.properties.SystemProperties;
+import shippingCore.allocation.IRouteAllocator;
+import shippingCore.calculations.RouteCalculator;
+
+/**
+ * Creates the route allocators for the ALLOCATION_ROUTEALLOCATOR_STRATEGY_*
+ * values of {@link IPropertiesConstants}.
+ */
+public class RouteAllocatorFactory {
+
+	/** number of routes the regret is calculated of */
+	public static final int DEFAULT_REGRET = 2;
+
+	/**
+	 * relative random change of the insertion costs, so every search starts
+	 * from a different solution
+	 */
+	public static final double DEFAULT_NOISE = 0.05;
+
+	private RouteAllocatorFactory() {
+	}
+
+	/**
+	 * @param strategy
+	 *            one of the ALLOCATION_ROUTEALLOCATOR_STRATEGY_* values
+	 * @param calculator
+	 *            the route calculator of the calling thread
+	 * @return a new allocator of the strategy
+	 * @throws InvalidArgumentException
+	 *             if the strategy is unknown or not supported
+	 */
+	public static IRouteAllocator createRouteAllocator(String strategy,
+			RouteCalculator calculator) {
+		if (IPropertiesConstants.ALLOCATION_ROUTEALLOCATOR_STRATEGY_ALLOCATE_AT_END
+				.equals(strategy)) {
+			return new AllocateAtEndAllocator();
+		}
+
+		if (IPropertiesConstants.ALLOCATION_ROUTEALLOCATOR_STRATEGY_CHEAPESTINSERTION
+				.equals(strategy)) {
+			return createInsertionAllocator(calculator);
+		}
+
+		if (IPropertiesConstants.ALLOCATION_ROUTEALLOCATOR_STRATEGY_CHEAPESTPERMUTATION
+				.equals(strategy)) {
+			CheapestPermutationAllocator allocator = new CheapestPermutationAllocator(
+					calculator, createInsertionAllocator(calculator));
+			allocator.setMaxNodes((int) SystemProperties.getLongProperty(
+					IPropertiesConstants.ALLOCATION_ROUTEALLOCATOR_PERMUTATIONNODES,
+					CheapestPermutationAllocator.DEFAULT_MAX_NODES));
+			return allocator;
+		}
+
+		throw new InvalidArgumentException(
+				"Route allocation strategy not supported: " + strategy);
+	}
+
+	private static RegretInsertionAllocator createInsertionAllocator(
+			RouteCalculator calculator) {
+		RegretInsertionAllocator allocator = new RegretInsertionAllocator(
+				calculator,
+				(int) SystemProperties.getLongProperty(
+						IPropertiesConstants.ALLOCATION_ROUTEALLOCATOR_REGRET,
+						DEFAULT_REGRET));
+		allocator.setNoise(DEFAULT_NOISE);
+		return allocator;
+	}
+}
@@ -0,0 +1,111 @@
+package shippingCore.calculations;
+
+import java.util.Arrays;
+
+import service.exceptions.InvalidArgumentException;
+import shippingCore.dao.IDistanceMap;
+
+/**
+ * Candidate lists for the neighbourhood operators: the k nearest locations of
+ * every location of a problem, sorted by distance. Only the locations of the
+ * problem are considered, so building the lists takes O(m^2 log k) for m
+ * locations instead of the size of the whole distance map. The list of a
+ * location starts with the location itself, because several nodes can share
+ * a location. Immutable and thread-safe.
+ */
+public class NearestNeighbours {
+
+	/** the neighbours by distance map index, null for unused locations */
+	private final int[][] neighbours;
+
+	/** the number of neighbours per location without the location itself */
+	private final int k;
+
+	/**
+	 * @param distanceMap
+	 *            the distances between the locations
+	 * @param locations
+	 *            distance map indices of the locations of the problem,
+	 *            duplicates are ignored
+	 * @param k
+	 *            the number of neighbours per location
+	 * @throws InvalidArgumentException
+	 *             if k is negative
+	 */
+	public NearestNeighbours(IDistanceMap distanceMap, int[] locations,
+			int k) {
+		if (k < 0) {
+			throw new InvalidArgumentException("Negative k: " + k);
+		}
+
+		int[] unique = locations.clone();
+		Arrays.sort(unique);
+		int count = 0;
+		for (int i = 0; i < unique.length; i++) {
+			if (i == 0 || unique[i] != unique[i - 1]) {
+				unique[count++] = unique[i];
+			}
+		}
+
+		this.k = Math.min(k, Math.max(count - 1, 0));
+		this.neighbours = new int[distanceMap.getSize()][];
+
+		double[] distances = new double[this.k + 1];
+		for (int i = 0; i < count; i++) {
+			neighbours[unique[i]] = findNearest(distanceMap, unique, count,
+					unique[i], distances);
+		}
+	}
+
+	/**
+	 * Keeps the k nearest locations in a sorted array by insertion.
+	 */
+	private int[] findNearest(IDistanceMap distanceMap, int[] locations,
+			int count, int from, double[] distances) {
+		int[] result = new int[k + 1];
+		result[0] = from;
+		int size = 0;
+
+		for (int i = 0; i < count; i++) {
+			int to = locations[i];
+			if (to == from || k == 0) {
+				continue;
+			}
+
+			double distance = distanceMap.getDistance(from, to);
+			if (size == k && distance >= distances[k]) {
+				continue;
+			}
+
+			int position = size < k ? ++size : k;
+			while (position > 1 && distances[position - 1] > distance) {
+				distances[position] = distances[position - 1];
+				result[position] = result[position - 1];
+				position--;
+			}
+			distances[position] = distance;
+			result[position] = to;
+		}
+
+		return size == k ? result : Arrays.copyOf(result, size + 1);
+	}
+
+	/**
+	 * @param location
+	 *            distance map index of the location
+	 * @return the location itself followed by its nearest locations, an empty
+	 *         array if the location is not part of the problem
+	 */
+	public int[] getNeighbours(int location) {
+		int[] result = location < neighbours.length ? neighbours[location]
+				: null;
+		return result != null ? result : new int[0];
+	}
+
+	/**
+	 * @return the number of neighbours per location
+	 */
+	public int getK() {
+		return k;
+	}
+}
@@ -1,5 +1,810 @@
 package shippingCore.calculations;
 
+import service.exceptions.InvalidArgumentException;
+import service.properties.IConstants;
+import shippingCore.constraint.impl.ConstraintFactory;
+import shippingCore.cost.ICosts;
+import shippingCore.dao.IDistanceMap;
+import shippingCore.model.CompactRoute;
+import shippingCore.model.Node;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+import shippingCore.model.Vehicle;
+
+/**
+ * Calculates times, loads and costs along a route and evaluates local search
+ * moves incrementally.
+ * <p>
+ * The per node state is cached in a {@link RouteEvaluation} attached to the
+ * route. If the route changed, it is only recalculated from the first changed
+ * index onwards. Moves are evaluated against the cached state: the changed
+ * part is simulated and the simulation stops at the first unchanged node
+ * whose penalty segment covers the shift of its service start. The segments
+ * are concatenated backwards along the route (Savelsbergh): every node keeps
+ * the range of shifts within which the penalties from it to the end change
+ * linearly and the slope, the variable costs of the late nodes the shift
+ * reaches. So most moves cost O(k) for the k changed nodes, insertions and
+ * removals of a single node O(1), instead of a recalculation of the whole
+ * route.
+ * <p>
+ * Cost model: the leg costs of the transportation costs of the route (see
+ * {@link ICosts}), by default distance times the vehicles costs per kilometer
+ * plus driving time times costs per hour, plus the costs of the latest
+ * pickup/delivery time constraints of {@link ConstraintFactory} for every
+ * late node, the constraints the pipeline of the problem checks. Arriving
+ * early means waiting. Exceeding the vehicle capacity is not allowed.
+ * <p>
+ * Instances are not thread-safe, every search thread needs its own. Only
+ * {@link #getServiceStartTime(long, Node, Node)} and
+ * {@link #getLegCost(Node, Node, Route)} keep no state and may be called
+ * concurrently, so overrides of the arrival time must not keep any either.
+ */
 public class RouteCalculator {
+	/** tolerance for rounding errors of summed up loads */
+	public static final double LOAD_EPSILON = 1e-6;
+
+	/** the distance source */
+	private final IDistanceMap distanceMap;
+
+	/** reused buffer for the nodes of a move */
+	private Node[] moveNodes = new Node[16];
+
+	/**
+	 * @param distanceMap
+	 *            the distance source used for all legs
+	 */
+	public RouteCalculator(IDistanceMap distanceMap) {
+		this.distanceMap = distanceMap;
+	}
+
+	/**
+	 * @return the distance source used for all legs
+	 */
+	public IDistanceMap getDistanceMap() {
+		return distanceMap;
+	}
+
+	/**
+	 * Returns the up to date evaluation of the route. The route is only
+	 * recalculated if it changed since the last calculation, beginning at the
+	 * first changed node.
+	 * 
+	 * @param route
+	 *            the route to calculate
+	 * @return the evaluation of the route
+	 */
+	public RouteEvaluation calculateRoute(Route route) {
+		RouteEvaluation evaluation = route.getEvaluation();
+
+		if (evaluation != null && !route.isRouteChanged()) {
+			return evaluation;
+		}
+
+		int fromIndex = 0;
+		if (evaluation == null) {
+			evaluation = new RouteEvaluation(route.getNodeCount());
+		} else {
+			if (route.isEvaluationShared()) {
+				evaluation = evaluation.copy();
+			}
+			fromIndex = Math.min(route.getFirstChangedIndex(),
+					evaluation.nodeCount);
+		}
+
+		calculateForward(route, evaluation, fromIndex);
+		calculateBackward(evaluation, route);
+		route.setEvaluation(evaluation);
+
+		return evaluation;
+	}
+
+	/**
+	 * Calculates the forward values from the given index to the end.
+	 */
+	private void calculateForward(Route route, RouteEvaluation e,
+			int fromIndex) {
+		int nodeCount = route.getNodeCount();
+		e.ensureCapacity(nodeCount);
+		e.nodeCount = nodeCount;
+
+		Vehicle vehicle = route.getVehicle();
+		ICosts costs = route.getTransportationCosts();
+		int start = fromIndex;
+
+		if (start == 0) {
+			Node zeroNode = route.getNode(0);
+			e.arrivalTime[0] = zeroNode.getTimeWindow().getStartTime();
+			e.startTime[0] = e.arrivalTime[0];
+			e.departureTime[0] = e.startTime[0] + zeroNode.getServiceTime();
+			e.load[0] = 0;
+			e.distance[0] = 0;
+			e.transportCost[0] = 0;
+			e.penaltyCost[0] = 0;
+			start = 1;
+		}
+
+		for (int i = start; i < nodeCount; i++) {
+			Node from = route.getNode(i - 1);
+			Node to = route.getNode(i);
+
+			long arrival = getArrivalTime(e.departureTime[i - 1], from, to);
+			long startTime = getStartTime(arrival, to);
+
+			e.arrivalTime[i] = arrival;
+			e.startTime[i] = startTime;
+			e.departureTime[i] = startTime + to.getServiceTime();
+			e.load[i] = e.load[i - 1] + to.getLoadChange();
+			e.distance[i] = e.distance[i - 1] + distanceMap
+					.getDistance(from.getLocation(), to.getLocation());
+			e.transportCost[i] = e.transportCost[i - 1]
+					+ getLegCost(from, to, costs, vehicle);
+			e.penaltyCost[i] = e.penaltyCost[i - 1]
+					+ getLatenessPenalty(to, startTime);
+		}
+	}
+
+	/**
+	 * Calculates the backward values (slack, penalty segments and maximum
+	 * load) of all nodes. The penalty segment of a node is concatenated from
+	 * its own lateness and the segment of the next node: a move of the
+	 * service start reaches the next node unless the vehicle waits there, and
+	 * the waiting absorbs delays.
+	 */
+	private void calculateBackward(RouteEvaluation e, Route route) {
+		int last = e.nodeCount - 1;
+
+		Node lastNode = route.getNode(last);
+		e.forwardTimeSlack[last] = getTimeUntilLate(lastNode,
+				e.startTime[last]);
+		e.penaltySlope[last] = getLatenessSlope(lastNode, e.startTime[last]);
+		e.penaltyDelayLimit[last] = getDelayLimit(lastNode, e.startTime[last]);
+		e.penaltyAdvanceLimit[last] = getAdvanceLimit(lastNode,
+				e.startTime[last]);
+		e.suffixMaxLoad[last] = e.load[last];
+
+		for (int i = last - 1; i >= 0; i--) {
+			Node node = route.getNode(i);
+			long startTime = e.startTime[i];
+			long waitingNext = e.startTime[i + 1] - e.arrivalTime[i + 1];
+			e.forwardTimeSlack[i] = Math.min(getTimeUntilLate(node, startTime),
+					addSaturated(waitingNext, e.forwardTimeSlack[i + 1]));
+
+			double slope = getLatenessSlope(node, startTime);
+			long delayLimit = getDelayLimit(node, startTime);
+			long advanceLimit = getAdvanceLimit(node, startTime);
+			if (waitingNext == 0) {
+				slope += e.penaltySlope[i + 1];
+				delayLimit = Math.min(delayLimit, e.penaltyDelayLimit[i + 1]);
+				if (e.penaltySlope[i + 1] != 0) {
+					// an advance beyond the window start makes the vehicle wait
+					advanceLimit = Math.min(advanceLimit, Math.min(
+							e.arrivalTime[i + 1]
+									- route.getNode(i + 1).getTimeWindow()
+											.getStartTime(),
+							e.penaltyAdvanceLimit[i + 1]));
+				}
+			} else if (e.penaltySlope[i + 1] == 0) {
+				delayLimit = Math.min(delayLimit,
+						addSaturated(waitingNext, e.penaltyDelayLimit[i + 1]));
+			} else {
+				delayLimit = Math.min(delayLimit, waitingNext);
+			}
+			e.penaltySlope[i] = slope;
+			e.penaltyDelayLimit[i] = delayLimit;
+			e.penaltyAdvanceLimit[i] = advanceLimit;
+
+			e.suffixMaxLoad[i] = Math.max(e.load[i], e.suffixMaxLoad[i + 1]);
+		}
+	}
+
+	/**
+	 * Calculates the total costs (transportation and penalty costs) of the
+	 * compact route in one pass over its arrays. With a cost model the
+	 * transportation costs of all legs are summed up in one bulk call over
+	 * the location indices afterwards. Nothing is cached, the compact route is
+	 * meant for evaluating many routes cheaply.
+	 * 
+	 * @param route
+	 *            the route to calculate
+	 * @return the total costs or {@link Double#POSITIVE_INFINITY} if the
+	 *         vehicle would be overloaded
+	 */
+	public double calculateTotalCost(CompactRoute route) {
+		int nodeCount = route.getNodeCount();
+		Vehicle vehicle = route.getVehicle();
+		ICosts costs = route.getTransportationCosts();
+		double capacity = vehicle.getCapacityWeight() + LOAD_EPSILON;
+
+		long departure = route.getWindowStart(0) + route.getServiceTime(0);
+		int previousLocation = route.getLocationIndex(0);
+		double load = 0;
+		double transport = 0;
+		double penalty = 0;
+
+		for (int i = 1; i < nodeCount; i++) {
+			int location = route.getLocationIndex(i);
+
+			load += route.getLoadChange(i);
+			if (load > capacity) {
+				return Double.POSITIVE_INFINITY;
+			}
+
+			long arrival = getArrivalTime(departure, previousLocation,
+					location);
+			long startTime = arrival + route.getTimeBefore(i, arrival);
+
+			if (costs == null) {
+				transport += getLegCost(previousLocation, location, null,
+						vehicle);
+			}
+			penalty += getLatenessPenalty(route.getNodeType(i),
+					route.getTimeAfter(i, startTime));
+			departure = startTime + route.getServiceTime(i);
+			previousLocation = location;
+		}
+
+		if (costs != null) {
+			transport = route.getLegsCost(costs);
+		}
+		return transport + penalty;
+	}
+
+	/**
+	 * Evaluates the cost difference of inserting the node at the given index.
+	 * 
+	 * @param route
+	 *            the route to insert into
+	 * @param node
+	 *            the node to insert
+	 * @param index
+	 *            the index the node would get
+	 * @return the cost difference or {@link Double#POSITIVE_INFINITY} if the
+	 *         vehicle would be overloaded
+	 */
+	public double evaluateInsertion(Route route, Node node, int index) {
+		ensureMoveNodes(1);
+		moveNodes[0] = node;
+		return evaluateReplacement(route, index, index, moveNodes, 1);
+	}
+
+	/**
+	 * Evaluates the cost difference of removing the node at the given index.
+	 * 
+	 * @param route
+	 *            the route to remove from
+	 * @param index
+	 *            the index of the node to remove
+	 * @return the cost difference or {@link Double#POSITIVE_INFINITY} if the
+	 *         vehicle would be overloaded
+	 */
+	public double evaluateRemoval(Route route, int index) {
+		return evaluateReplacement(route, index, index + 1, moveNodes, 0);
+	}
+
+	/**
+	 * Evaluates the cost difference of exchanging the nodes at the given
+	 * indices.
+	 * 
+	 * @param route
+	 *            the route to change
+	 * @param index1
+	 *            index of the first node
+	 * @param index2
+	 *            index of the second node
+	 * @return the cost difference or {@link Double#POSITIVE_INFINITY} if the
+	 *         vehicle would be overloaded
+	 */
+	public double evaluateSwap(Route route, int index1, int index2) {
+		if (index1 == index2) {
+			return 0;
+		}
+
+		int low = Math.min(index1, index2);
+		int high = Math.max(index1, index2);
+		int count = high - low + 1;
+
+		ensureMoveNodes(count);
+		moveNodes[0] = route.getNode(high);
+		for (int i = low + 1; i < high; i++) {
+			moveNodes[i - low] = route.getNode(i);
+		}
+		moveNodes[count - 1] = route.getNode(low);
+
+		return evaluateReplacement(route, low, high + 1, moveNodes, count);
+	}
+
+	/**
+	 * Evaluates the cost difference of replacing the nodes from fromIndex
+	 * (including) to toIndex (excluding) by the given nodes. All other moves
+	 * are expressed by this one.
+	 * 
+	 * @param route
+	 *            the route to change
+	 * @param fromIndex
+	 *            index of the first replaced node
+	 * @param toIndex
+	 *            index after the last replaced node, equal to fromIndex for
+	 *            pure insertions
+	 * @param replacement
+	 *            the nodes to put in place of the replaced ones
+	 * @param count
+	 *            the number of valid nodes in replacement
+	 * @return the cost difference or {@link Double#POSITIVE_INFINITY} if the
+	 *         vehicle would be overloaded
+	 */
+	public double evaluateReplacement(Route route, int fromIndex,
+			int toIndex, Node[] replacement, int count) {
+		RouteEvaluation e = calculateRoute(route);
+		int nodeCount = e.nodeCount;
+
+		if (fromIndex < route.getFirstModifiableIndex() || toIndex < fromIndex
+				|| toIndex > nodeCount) {
+			throw new InvalidArgumentException("Cannot replace nodes "
+					+ fromIndex + ".." + toIndex + " of route "
+					+ route.getRouteId() + " with " + nodeCount + " nodes");
+		}
+
+		Vehicle vehicle = route.getVehicle();
+		ICosts costs = route.getTransportationCosts();
+		double capacity = vehicle.getCapacityWeight() + LOAD_EPSILON;
+
+		Node previous = route.getNode(fromIndex - 1);
+		long departure = e.departureTime[fromIndex - 1];
+		double load = e.load[fromIndex - 1];
+		double transport = e.transportCost[fromIndex - 1];
+		double penalty = e.penaltyCost[fromIndex - 1];
+
+		// the new nodes
+		for (int k = 0; k < count; k++) {
+			Node node = replacement[k];
+
+			load += node.getLoadChange();
+			if (load > capacity) {
+				return Double.POSITIVE_INFINITY;
+			}
+
+			long startTime = getStartTime(
+					getArrivalTime(departure, previous, node), node);
+			transport += getLegCost(previous, node, costs, vehicle);
+			penalty += getLatenessPenalty(node, startTime);
+			departure = startTime + node.getServiceTime();
+			previous = node;
+		}
+
+		return evaluateRest(e, route, toIndex, previous, departure, load,
+				transport, penalty);
+	}
+
+	/**
+	 * Evaluates the cost difference of inserting the pickup and delivery of
+	 * the order at their best positions in the route. For every pickup
+	 * position the state after the pickup is carried along the following
+	 * nodes, so every delivery position is evaluated in O(1) plus the part of
+	 * the rest of the route that is affected by the delay. That makes O(n^2)
+	 * for the whole route instead of O(n^3) with
+	 * {@link #evaluateReplacement(Route, int, int, Node[], int)}.
+	 * 
+	 * @param route
+	 *            the route to insert into
+	 * @param order
+	 *            the order to insert
+	 * @param positions
+	 *            receives the indices of the nodes the pickup and the delivery
+	 *            have to be inserted before, the delivery index is not less
+	 *            than the pickup index
+	 * @return the cost difference without fix costs or
+	 *         {@link Double#POSITIVE_INFINITY} if every insertion would
+	 *         overload the vehicle
+	 */
+	public double evaluateOrderInsertion(Route route, Order order,
+			int[] positions) {
+		RouteEvaluation e = calculateRoute(route);
+		int nodeCount = e.nodeCount;
+
+		Vehicle vehicle = route.getVehicle();
+		ICosts costs = route.getTransportationCosts();
+		double capacity = vehicle.getCapacityWeight() + LOAD_EPSILON;
+		Node pickup = order.getPickupNode();
+		Node delivery = order.getDeliveryNode();
+		double best = Double.POSITIVE_INFINITY;
+
+		for (int i = route.getFirstModifiableIndex(); i <= nodeCount; i++) {
+			double load = e.load[i - 1] + pickup.getLoadChange();
+			if (load > capacity) {
+				continue;
+			}
+
+			// the pickup after node i - 1
+			Node previous = route.getNode(i - 1);
+			long startTime = getStartTime(
+					getArrivalTime(e.departureTime[i - 1], previous, pickup),
+					pickup);
+			double transport = e.transportCost[i - 1]
+					+ getLegCost(previous, pickup, costs, vehicle);
+			double penalty = e.penaltyCost[i - 1]
+					+ getLatenessPenalty(pickup, startTime);
+			long departure = startTime + pickup.getServiceTime();
+			previous = pickup;
+
+			for (int j = i; j <= nodeCount; j++) {
+				// the delivery before node j
+				long deliveryStart = getStartTime(
+						getArrivalTime(departure, previous, delivery),
+						delivery);
+				double delta = evaluateRest(e, route, j, delivery,
+						deliveryStart + delivery.getServiceTime(),
+						load + delivery.getLoadChange(),
+						transport + getLegCost(previous, delivery, costs,
+								vehicle),
+						penalty + getLatenessPenalty(delivery, deliveryStart));
+
+				if (delta < best) {
+					best = delta;
+					positions[0] = i;
+					positions[1] = j;
+				}
+
+				if (j == nodeCount) {
+					break;
+				}
+
+				// node j between pickup and delivery
+				Node node = route.getNode(j);
+				load += node.getLoadChange();
+				if (load > capacity) {
+					break;
+				}
+
+				startTime = getStartTime(
+						getArrivalTime(departure, previous, node), node);
+				transport += getLegCost(previous, node, costs, vehicle);
+				penalty += getLatenessPenalty(node, startTime);
+				departure = startTime + node.getServiceTime();
+				previous = node;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Returns a lower bound of
+	 * {@link #evaluateOrderInsertion(Route, Order, int[])} in O(n). If pickup
+	 * and delivery are inserted at different legs, the transportation costs
+	 * grow by the sum of their detours, at least by the sum of their cheapest
+	 * detours. Else by the detour through both, at least by the cheapest one.
+	 * The bound holds if detours are never shorter than the direct leg, as
+	 * then an insertion can only delay the following nodes and penalties only
+	 * grow with the delay.
+	 * 
+	 * @param route
+	 *            the route to insert into
+	 * @param order
+	 *            the order to insert
+	 * @return the lower bound of the cost difference without fix costs
+	 */
+	public double getInsertionLowerBound(Route route, Order order) {
+		Vehicle vehicle = route.getVehicle();
+		ICosts costs = route.getTransportationCosts();
+		int nodeCount = route.getNodeCount();
+		int pickup = order.getPickupNode().getLocation().getDistanceMapIndex();
+		int delivery = order.getDeliveryNode().getLocation()
+				.getDistanceMapIndex();
+		double between = getLegCost(pickup, delivery, costs, vehicle);
+
+		double pickupDetour = Double.POSITIVE_INFINITY;
+		double deliveryDetour = Double.POSITIVE_INFINITY;
+		double bothDetour = Double.POSITIVE_INFINITY;
+		int first = route.getFirstModifiableIndex();
+		int previous = route.getNode(first - 1).getLocation()
+				.getDistanceMapIndex();
+
+		for (int i = first; i < nodeCount; i++) {
+			int next = route.getNode(i).getLocation().getDistanceMapIndex();
+			double direct = getLegCost(previous, next, costs, vehicle);
+			double toPickup = getLegCost(previous, pickup, costs, vehicle);
+			double fromDelivery = getLegCost(delivery, next, costs, vehicle);
+
+			pickupDetour = Math.min(pickupDetour, toPickup
+					+ getLegCost(pickup, next, costs, vehicle) - direct);
+			deliveryDetour = Math.min(deliveryDetour,
+					getLegCost(previous, delivery, costs, vehicle)
+							+ fromDelivery - direct);
+			bothDetour = Math.min(bothDetour,
+					toPickup + between + fromDelivery - direct);
+			previous = next;
+		}
+
+		// appended at the end
+		double toPickup = getLegCost(previous, pickup, costs, vehicle);
+		pickupDetour = Math.min(pickupDetour, toPickup);
+		deliveryDetour = Math.min(deliveryDetour,
+				getLegCost(previous, delivery, costs, vehicle));
+		bothDetour = Math.min(bothDetour, toPickup + between);
+
+		return Math.min(pickupDetour + deliveryDetour, bothDetour);
+	}
+
+	/**
+	 * Continues the evaluation of a changed route with the unchanged nodes
+	 * from the index on, until they are not affected anymore.
+	 * 
+	 * @param e
+	 *            the evaluation of the unchanged route
+	 * @param route
+	 *            the unchanged route
+	 * @param index
+	 *            the index of the first unchanged node after the change
+	 * @param previous
+	 *            the last node of the changed part
+	 * @param departure
+	 *            the time the vehicle leaves the previous node
+	 * @param load
+	 *            the load after the previous node
+	 * @param transport
+	 *            the transportation costs up to the previous node
+	 * @param penalty
+	 *            the penalty costs up to the previous node
+	 * @return the cost difference or {@link Double#POSITIVE_INFINITY} if the
+	 *         vehicle would be overloaded
+	 */
+	private double evaluateRest(RouteEvaluation e, Route route, int index,
+			Node previous, long departure, double load, double transport,
+			double penalty) {
+		int nodeCount = e.nodeCount;
+		Vehicle vehicle = route.getVehicle();
+		ICosts costs = route.getTransportationCosts();
+		double capacity = vehicle.getCapacityWeight() + LOAD_EPSILON;
+		double oldTotal = e.getTotalCost();
+
+		for (int j = index; j < nodeCount; j++) {
+			Node node = route.getNode(j);
+
+			long startTime = getStartTime(
+					getArrivalTime(departure, previous, node), node);
+			transport += getLegCost(previous, node, costs, vehicle);
+
+			long delay = startTime - e.startTime[j];
+			if (isPenaltyLinear(e, j, delay)) {
+				double loadDifference = load - e.load[j - 1];
+				if (e.suffixMaxLoad[j] + loadDifference > capacity) {
+					return Double.POSITIVE_INFINITY;
+				}
+
+				return transport
+						+ (e.getTransportationCost() - e.transportCost[j])
+						+ penalty + (e.getPenaltyCost() - e.penaltyCost[j - 1])
+						+ (delay == 0 ? 0 : e.penaltySlope[j] * delay)
+						- oldTotal;
+			}
+
+			load += node.getLoadChange();
+			if (load > capacity) {
+				return Double.POSITIVE_INFINITY;
+			}
+
+			penalty += getLatenessPenalty(node, startTime);
+			departure = startTime + node.getServiceTime();
+			previous = node;
+		}
+
+		return transport + penalty - oldTotal;
+	}
+
+	/**
+	 * Checks if the penalties of the node and all following nodes change
+	 * linearly by {@link RouteEvaluation#penaltySlope} if the service at the
+	 * node starts delayed by the given time, negative for an earlier start.
+	 */
+	private static boolean isPenaltyLinear(RouteEvaluation e, int index,
+			long delay) {
+		if (delay >= 0) {
+			return delay <= e.penaltyDelayLimit[index];
+		}
+		return delay >= -e.penaltyAdvanceLimit[index];
+	}
+
+	/**
+	 * Returns the time the vehicle arrives at the node to when it leaves the
+	 * node from at the given time.
+	 * 
+	 * @param departure
+	 *            the time the vehicle leaves from
+	 * @param from
+	 *            the node the vehicle leaves
+	 * @param to
+	 *            the node the vehicle drives to
+	 * @return the arrival time at to
+	 */
+	protected long getArrivalTime(long departure, Node from, Node to) {
+		return getArrivalTime(departure,
+				from.getLocation().getDistanceMapIndex(),
+				to.getLocation().getDistanceMapIndex());
+	}
+
+	/**
+	 * Returns the time the vehicle arrives at the location to when it leaves
+	 * the location from at the given time. Both {@link Route} and
+	 * {@link CompactRoute} calculations end here, so this is the one method to
+	 * override for other travel time models.
+	 * 
+	 * @param departure
+	 *            the time the vehicle leaves from
+	 * @param fromLocation
+	 *            distance map index of the location the vehicle leaves
+	 * @param toLocation
+	 *            distance map index of the location the vehicle drives to
+	 * @return the arrival time at to
+	 */
+	protected long getArrivalTime(long departure, int fromLocation,
+			int toLocation) {
+		return departure + distanceMap.getTravelTime(fromLocation, toLocation);
+	}
+
+	/**
+	 * Returns the time the service at the node to starts when the vehicle
+	 * leaves the node from at the given time, including waiting for the time
+	 * window to open. Used to evaluate node sequences outside of routes.
+	 * 
+	 * @param departure
+	 *            the time the vehicle leaves from
+	 * @param from
+	 *            the node the vehicle leaves
+	 * @param to
+	 *            the node the vehicle drives to
+	 * @return the service start time at to
+	 */
+	public long getServiceStartTime(long departure, Node from, Node to) {
+		return getStartTime(getArrivalTime(departure, from, to), to);
+	}
+
+	/**
+	 * @return the time the service starts when arriving at the node at the
+	 *         given time (waiting for the time window to open)
+	 */
+	private static long getStartTime(long arrival, Node node) {
+		return arrival + node.getTimeWindow().getTimeBefore(arrival);
+	}
+
+	/**
+	 * @return the time the service start at the node can be delayed before it
+	 *         gets late
+	 */
+	private static long getTimeUntilLate(Node node, long startTime) {
+		return node.getTimeWindow().getEndTime() - startTime;
+	}
+
+	/**
+	 * @return the variable penalty costs per millisecond the service start at
+	 *         the node moves, 0 if the node is in time
+	 */
+	private static double getLatenessSlope(Node node, long startTime) {
+		if (node.getTimeWindow().getTimeAfter(startTime) <= 0
+				|| node.getNodeType() == Node.TYPE_ZERO) {
+			return 0;
+		}
+
+		return node.getNodeType() == Node.TYPE_PICKUP
+				? ConstraintFactory.LATEST_PICKUP_TIME.getVariableCost()
+				: ConstraintFactory.LATEST_DELIVERY_TIME.getVariableCost();
+	}
+
+	/**
+	 * @return the maximum delay of the service start at the node that keeps
+	 *         its penalty linear: until it gets late if it is in time
+	 */
+	private static long getDelayLimit(Node node, long startTime) {
+		if (node.getNodeType() == Node.TYPE_ZERO) {
+			return Long.MAX_VALUE;
+		}
+		long timeUntilLate = getTimeUntilLate(node, startTime);
+		return timeUntilLate >= 0 ? timeUntilLate : Long.MAX_VALUE;
+	}
+
+	/**
+	 * @return the maximum advance of the service start at the node that keeps
+	 *         its penalty linear: until it gets in time if it is late
+	 */
+	private static long getAdvanceLimit(Node node, long startTime) {
+		if (node.getNodeType() == Node.TYPE_ZERO) {
+			return Long.MAX_VALUE;
+		}
+		long lateness = node.getTimeWindow().getTimeAfter(startTime);
+		return lateness > 0 ? lateness - 1 : Long.MAX_VALUE;
+	}
+
+	/**
+	 * @param from
+	 *            the node the vehicle leaves
+	 * @param to
+	 *            the node the vehicle drives to
+	 * @param route
+	 *            the route with the cost model and the vehicle
+	 * @return the transportation costs of the leg from - to
+	 */
+	public double getLegCost(Node from, Node to, Route route) {
+		return getLegCost(from, to, route.getTransportationCosts(),
+				route.getVehicle());
+	}
+
+	/**
+	 * @return the transportation costs of the leg between the nodes
+	 */
+	private double getLegCost(Node from, Node to, ICosts costs,
+			Vehicle vehicle) {
+		return getLegCost(from.getLocation().getDistanceMapIndex(),
+				to.getLocation().getDistanceMapIndex(), costs, vehicle);
+	}
+
+	/**
+	 * @return the transportation costs of the leg between the locations in
+	 *         the cost model, by the cost rates of the vehicle if there is no
+	 *         cost model
+	 */
+	private double getLegCost(int fromLocation, int toLocation, ICosts costs,
+			Vehicle vehicle) {
+		if (costs != null) {
+			return costs.getLegCost(fromLocation, toLocation);
+		}
+		return distanceMap.getDistance(fromLocation, toLocation)
+				* vehicle.getCostPerKilometer()
+				+ distanceMap.getTravelTime(fromLocation, toLocation)
+						* vehicle.getCostPerHour() / IConstants.HOUR;
+	}
+
+	/**
+	 * Returns the penalty costs for starting the service at the node too late.
+	 * 
+	 * @param node
+	 *            the node to check
+	 * @param startTime
+	 *            the time the service starts
+	 * @return 0 if the node is in time, else the fix and variable costs of the
+	 *         latest pickup/delivery time violation
+	 */
+	public static double getLatenessPenalty(Node node, long startTime) {
+		return getLatenessPenalty(node.getNodeType(),
+				node.getTimeWindow().getTimeAfter(startTime));
+	}
+
+	/**
+	 * Returns the penalty costs for starting the service at a node too late.
+	 * 
+	 * @param nodeType
+	 *            the type of the node, see Node.TYPE_*
+	 * @param lateness
+	 *            the time the service starts after the time window closed
+	 * @return 0 if the node is in time, else the fix and variable costs of the
+	 *         latest pickup/delivery time violation
+	 */
+	public static double getLatenessPenalty(int nodeType, long lateness) {
+		if (lateness <= 0 || nodeType == Node.TYPE_ZERO) {
+			return 0;
+		}
+
+		if (nodeType == Node.TYPE_PICKUP) {
+			return ConstraintFactory.LATEST_PICKUP_TIME
+					.getCostForViolation(lateness, null);
+		}
+
+		return ConstraintFactory.LATEST_DELIVERY_TIME
+				.getCostForViolation(lateness, null);
+	}
+
+	/**
+	 * @return the sum of both values, Long.MAX_VALUE on overflow
+	 */
+	private static long addSaturated(long a, long b) {
+		long sum = a + b;
+		if (((a ^ sum) & (b ^ sum)) < 0) {
+			return a > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+		}
+		return sum;
+	}
 
+	private void ensureMoveNodes(int size) {
+		if (moveNodes.length < size) {
+			moveNodes = new Node[Math.max(size, moveNodes.length * 2)];
+		}
+	}
 }
@@ -0,0 +1,292 @@
+package shippingCore.calculations;
+
+/**
+ * Cached per node state of a route calculated by {@link RouteCalculator}. All
+ * values of index i describe the state at node i of the route. Cumulative
+ * values include node i (and the leg leading to it).
+ * <p>
+ * The arrays are reused when the route is recalculated, so they can be
+ * longer than {@link #getNodeCount()}.
+ */
+public class RouteEvaluation {
+	/** number of valid entries */
+	int nodeCount;
+
+	/** time the vehicle arrives at the node */
+	long[] arrivalTime;
+
+	/** time the service at the node starts (after waiting) */
+	long[] startTime;
+
+	/** time the vehicle leaves the node */
+	long[] departureTime;
+
+	/** weight on the vehicle after servicing the node */
+	double[] load;
+
+	/** maximum of {@link #load} from the node to the end of the route */
+	double[] suffixMaxLoad;
+
+	/** cumulative distance in kilometers */
+	double[] distance;
+
+	/** cumulative transportation costs */
+	double[] transportCost;
+
+	/** cumulative time window penalty costs */
+	double[] penaltyCost;
+
+	/**
+	 * Forward time slack: the maximum delay of the service start at the node
+	 * that makes no node from here to the end of the route late.
+	 */
+	long[] forwardTimeSlack;
+
+	/**
+	 * Penalty slope: the change of the penalty costs from the node to the end
+	 * of the route per millisecond the service start at the node moves, while
+	 * the move stays within {@link #penaltyDelayLimit} and
+	 * {@link #penaltyAdvanceLimit}. It is the sum of the variable costs of the
+	 * late nodes the move reaches without waiting in between.
+	 */
+	double[] penaltySlope;
+
+	/**
+	 * the maximum delay of the service start at the node that changes the
+	 * penalty costs linearly by {@link #penaltySlope}
+	 */
+	long[] penaltyDelayLimit;
+
+	/**
+	 * the maximum advance of the service start at the node that changes the
+	 * penalty costs linearly by {@link #penaltySlope}
+	 */
+	long[] penaltyAdvanceLimit;
+
+	/**
+	 * Creates a new evaluation for a route of the given size.
+	 * 
+	 * @param capacity
+	 *            the number of nodes to reserve space for
+	 */
+	RouteEvaluation(int capacity) {
+		allocate(Math.max(capacity, 4));
+	}
+
+	/**
+	 * Copy constructor, only the valid entries are copied.
+	 */
+	private RouteEvaluation(RouteEvaluation other) {
+		int capacity = Math.max(other.nodeCount, 4);
+		nodeCount = other.nodeCount;
+		arrivalTime = copyOf(other.arrivalTime, capacity);
+		startTime = copyOf(other.startTime, capacity);
+		departureTime = copyOf(other.departureTime, capacity);
+		load = copyOf(other.load, capacity);
+		suffixMaxLoad = copyOf(other.suffixMaxLoad, capacity);
+		distance = copyOf(other.distance, capacity);
+		transportCost = copyOf(other.transportCost, capacity);
+		penaltyCost = copyOf(other.penaltyCost, capacity);
+		forwardTimeSlack = copyOf(other.forwardTimeSlack, capacity);
+		penaltySlope = copyOf(other.penaltySlope, capacity);
+		penaltyDelayLimit = copyOf(other.penaltyDelayLimit, capacity);
+		penaltyAdvanceLimit = copyOf(other.penaltyAdvanceLimit, capacity);
+	}
+
+	/**
+	 * @return a copy of this evaluation
+	 */
+	public RouteEvaluation copy() {
+		return new RouteEvaluation(this);
+	}
+
+	private long[] copyOf(long[] source, int capacity) {
+		long[] copy = new long[capacity];
+		System.arraycopy(source, 0, copy, 0, nodeCount);
+		return copy;
+	}
+
+	private double[] copyOf(double[] source, int capacity) {
+		double[] copy = new double[capacity];
+		System.arraycopy(source, 0, copy, 0, nodeCount);
+		return copy;
+	}
+
+	/**
+	 * Ensures the arrays can hold the given number of nodes.
+	 * 
+	 * @param capacity
+	 *            the number of nodes
+	 */
+	void ensureCapacity(int capacity) {
+		if (capacity > arrivalTime.length) {
+			int newCapacity = Math.max(capacity, arrivalTime.length * 2);
+			long[] oldArrival = arrivalTime;
+			long[] oldStart = startTime;
+			long[] oldDeparture = departureTime;
+			double[] oldLoad = load;
+			double[] oldDistance = distance;
+			double[] oldTransport = transportCost;
+			double[] oldPenalty = penaltyCost;
+
+			allocate(newCapacity);
+
+			// only the forward values are needed for incremental updates
+			System.arraycopy(oldArrival, 0, arrivalTime, 0, nodeCount);
+			System.arraycopy(oldStart, 0, startTime, 0, nodeCount);
+			System.arraycopy(oldDeparture, 0, departureTime, 0, nodeCount);
+			System.arraycopy(oldLoad, 0, load, 0, nodeCount);
+			System.arraycopy(oldDistance, 0, distance, 0, nodeCount);
+			System.arraycopy(oldTransport, 0, transportCost, 0, nodeCount);
+			System.arraycopy(oldPenalty, 0, penaltyCost, 0, nodeCount);
+		}
+	}
+
+	private void allocate(int capacity) {
+		arrivalTime = new long[capacity];
+		startTime = new long[capacity];
+		departureTime = new long[capacity];
+		load = new double[capacity];
+		suffixMaxLoad = new double[capacity];
+		distance = new double[capacity];
+		transportCost = new double[capacity];
+		penaltyCost = new double[capacity];
+		forwardTimeSlack = new long[capacity];
+		penaltySlope = new double[capacity];
+		penaltyDelayLimit = new long[capacity];
+		penaltyAdvanceLimit = new long[capacity];
+	}
+
+	/**
+	 * @return the number of nodes of the evaluated route
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the time the vehicle arrives at the node
+	 */
+	public long getArrivalTime(int index) {
+		return arrivalTime[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the time the service at the node starts
+	 */
+	public long getStartTime(int index) {
+		return startTime[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the time the vehicle leaves the node
+	 */
+	public long getDepartureTime(int index) {
+		return departureTime[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the weight on the vehicle after servicing the node
+	 */
+	public double getLoad(int index) {
+		return load[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the forward time slack of the node
+	 */
+	public long getForwardTimeSlack(int index) {
+		return forwardTimeSlack[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the change of the penalty costs from the node on per
+	 *         millisecond the service start at the node moves
+	 */
+	public double getPenaltySlope(int index) {
+		return penaltySlope[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the maximum delay of the service start at the node that changes
+	 *         the penalty costs linearly
+	 */
+	public long getPenaltyDelayLimit(int index) {
+		return penaltyDelayLimit[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the maximum advance of the service start at the node that
+	 *         changes the penalty costs linearly
+	 */
+	public long getPenaltyAdvanceLimit(int index) {
+		return penaltyAdvanceLimit[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the distance from the start of the route to the node
+	 */
+	public double getDistance(int index) {
+		return distance[index];
+	}
+
+	/**
+	 * @return the distance of the whole route in kilometers
+	 */
+	public double getTotalDistance() {
+		return distance[nodeCount - 1];
+	}
+
+	/**
+	 * @return the transportation costs of the whole route
+	 */
+	public double getTransportationCost() {
+		return transportCost[nodeCount - 1];
+	}
+
+	/**
+	 * @return the time window penalty costs of the whole route
+	 */
+	public double getPenaltyCost() {
+		return penaltyCost[nodeCount - 1];
+	}
+
+	/**
+	 * @return transportation and penalty costs of the whole route
+	 */
+	public double getTotalCost() {
+		return getTransportationCost() + getPenaltyCost();
+	}
+
+	/**
+	 * @return the maximum weight on the vehicle along the route
+	 */
+	public double getMaxLoad() {
+		return suffixMaxLoad[0];
+	}
+
+	/**
+	 * @return the time the vehicle leaves the last node
+	 */
+	public long getEndTime() {
+		return departureTime[nodeCount - 1];
+	}
+}
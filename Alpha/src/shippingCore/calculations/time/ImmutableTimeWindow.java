@@ -0,0 +1,343 @@
+package shippingCore.calculations.time;
+
+import java.io.Serializable;
+
+import service.dateAndTime.DateTimeFormat;
+import service.exceptions.InvalidArgumentException;
+import service.properties.IConstants;
+
+/**
+ * Immutable variant of {@link TimeWindow} with the same semantics: the end
+ * point is part of the interval, the start point is not, unless the flags say
+ * otherwise. As instances never change, they can be passed and shared by
+ * search threads without copying. Changing methods return new instances.
+ * <p>
+ * For arrays of windows without objects see {@link PackedTimeWindow}.
+ */
+public final class ImmutableTimeWindow implements Serializable {
+
+	private static final long serialVersionUID = -2380545829133532453L;
+
+	/** formats the times in {@link #toString()}, immutable and thread-safe */
+	private static final DateTimeFormat FORMATTER = new DateTimeFormat(
+			DateTimeFormat.PATTERN_DATE_TIME);
+
+	/** the start point of the interval */
+	private final long startTime;
+
+	/** the end point of the interval */
+	private final long endTime;
+
+	/** specifies if the start point of the interval is included */
+	private final boolean isStartTimeIncluding;
+
+	/** specifies if the end point of the interval is included */
+	private final boolean isEndTimeIncluding;
+
+	/**
+	 * Creates a time window without its start and with its end point.
+	 * 
+	 * @param startTime
+	 *            the start point of this interval
+	 * @param endTime
+	 *            the end point of this interval
+	 * @throws InvalidArgumentException
+	 *             if the startTime is after the endTime
+	 */
+	public ImmutableTimeWindow(long startTime, long endTime) {
+		this(startTime, false, endTime, true);
+	}
+
+	/**
+	 * @param startTime
+	 *            the start point of this interval
+	 * @param isStartTimeIncluding
+	 *            specifies if the start point of the interval is included
+	 * @param endTime
+	 *            the end point of this interval
+	 * @param isEndTimeIncluding
+	 *            specifies if the end point of the interval is included
+	 * @throws InvalidArgumentException
+	 *             if the startTime is after the endTime
+	 */
+	public ImmutableTimeWindow(long startTime, boolean isStartTimeIncluding,
+			long endTime, boolean isEndTimeIncluding) {
+		if (startTime > endTime) {
+			throw new InvalidArgumentException("EndTime: "
+					+ FORMATTER.format(endTime)
+					+ " is less than Starttime: "
+					+ FORMATTER.format(startTime));
+		}
+
+		this.startTime = startTime;
+		this.endTime = endTime;
+		this.isStartTimeIncluding = isStartTimeIncluding;
+		this.isEndTimeIncluding = isEndTimeIncluding;
+	}
+
+	/**
+	 * @param window
+	 *            the time window to take the times and flags of
+	 * @return an immutable window with the current values of the window
+	 */
+	public static ImmutableTimeWindow of(TimeWindow window) {
+		return new ImmutableTimeWindow(window.getStartTime(),
+				window.isStartTimeIncluding(), window.getEndTime(),
+				window.isEndTimeIncluding());
+	}
+
+	/**
+	 * @return a new mutable time window with the values of this one
+	 */
+	public TimeWindow toTimeWindow() {
+		return new TimeWindow(startTime, isStartTimeIncluding, endTime,
+				isEndTimeIncluding);
+	}
+
+	/**
+	 * @return the start time of this interval
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * @return the end time of this interval
+	 */
+	public long getEndTime() {
+		return endTime;
+	}
+
+	/**
+	 * @return Returns if the start point of the interval is included
+	 */
+	public boolean isStartTimeIncluding() {
+		return isStartTimeIncluding;
+	}
+
+	/**
+	 * @return Returns if the end point of the interval is included
+	 */
+	public boolean isEndTimeIncluding() {
+		return isEndTimeIncluding;
+	}
+
+	/**
+	 * @return the duration of this interval in ms
+	 */
+	public long getDuration() {
+		return endTime - startTime;
+	}
+
+	/**
+	 * @param shiftValue
+	 *            the value (in milliseconds) to shift start and end time
+	 * @return a window with both times shifted by the value
+	 */
+	public ImmutableTimeWindow shiftTimes(long shiftValue) {
+		return new ImmutableTimeWindow(startTime + shiftValue,
+				isStartTimeIncluding, endTime + shiftValue, isEndTimeIncluding);
+	}
+
+	/**
+	 * @param time
+	 *            the new start time
+	 * @return a window with the start time and the other values of this one
+	 * @throws InvalidArgumentException
+	 *             if time is greater than end time
+	 */
+	public ImmutableTimeWindow withStartTime(long time) {
+		return new ImmutableTimeWindow(time, isStartTimeIncluding, endTime,
+				isEndTimeIncluding);
+	}
+
+	/**
+	 * @param time
+	 *            the new end time
+	 * @return a window with the end time and the other values of this one
+	 * @throws InvalidArgumentException
+	 *             if time is less than start time
+	 */
+	public ImmutableTimeWindow withEndTime(long time) {
+		return new ImmutableTimeWindow(startTime, isStartTimeIncluding, time,
+				isEndTimeIncluding);
+	}
+
+	/**
+	 * @param time
+	 *            the time to check
+	 * @return the time from the passed time to the start time if time is
+	 *         before it, 0 in all other cases
+	 */
+	public long getTimeBefore(long time) {
+		return Math.max(0, startTime - time);
+	}
+
+	/**
+	 * @param time
+	 *            the time to check
+	 * @return the time from the end time to the passed time if time is after
+	 *         it, 0 in all other cases
+	 */
+	public long getTimeAfter(long time) {
+		return Math.max(0, time - endTime);
+	}
+
+	/**
+	 * @param time
+	 *            the time to check
+	 * @return true if the passed time is after the end point
+	 */
+	public boolean isTimeAfter(long time) {
+		return time > endTime || (time == endTime && !isEndTimeIncluding);
+	}
+
+	/**
+	 * @param time
+	 *            the time to check
+	 * @return true if the passed time is before or equal the start point
+	 */
+	public boolean isTimeBefore(long time) {
+		return time < startTime || (time == startTime && !isStartTimeIncluding);
+	}
+
+	/**
+	 * @param time
+	 *            the time to check
+	 * @return true if the passed time is within this time interval
+	 */
+	public boolean isTimeWithin(long time) {
+		return isTimeWithin(time, startTime, isStartTimeIncluding, endTime,
+				isEndTimeIncluding);
+	}
+
+	/**
+	 * @param startOther
+	 *            the start time to test against
+	 * @param endOther
+	 *            the end time to test against
+	 * @return time the passed interval and this window overlap, 0 if they do
+	 *         not
+	 */
+	public long getOverlap(long startOther, long endOther) {
+		if (startOther >= endTime || endOther <= startTime) {
+			return 0;
+		}
+		return Math.min(endTime, endOther) - Math.max(startTime, startOther);
+	}
+
+	/**
+	 * Same as {@link TimeWindow#intersects(long, long)}.
+	 * 
+	 * @param startOther
+	 *            the start time to test against (inclusive)
+	 * @param endOther
+	 *            the end time to test against (inclusive)
+	 * @return true if the passed times overlap with this interval
+	 */
+	public boolean intersects(long startOther, long endOther) {
+		if (startOther == endOther) {
+			return isTimeWithin(startOther);
+		}
+		if (startTime == endTime) {
+			return (isStartTimeIncluding || isEndTimeIncluding)
+					&& endTime >= startOther && endTime <= endOther;
+		}
+		return getOverlap(startOther, endOther) > 0;
+	}
+
+	/**
+	 * Same as {@link TimeWindow#intersects(TimeWindow)}.
+	 * 
+	 * @param other
+	 *            the time window to check against
+	 * @return true if the passed time interval overlaps with this interval
+	 */
+	public boolean intersects(ImmutableTimeWindow other) {
+		return intersects(other.startTime, other.isStartTimeIncluding,
+				other.endTime, other.isEndTimeIncluding);
+	}
+
+	/**
+	 * Same as {@link TimeWindow#intersects(TimeWindow)}.
+	 * 
+	 * @param other
+	 *            the time window to check against
+	 * @return true if the passed time interval overlaps with this interval
+	 */
+	public boolean intersects(TimeWindow other) {
+		return intersects(other.getStartTime(), other.isStartTimeIncluding(),
+				other.getEndTime(), other.isEndTimeIncluding());
+	}
+
+	private boolean intersects(long startOther, boolean startOtherIncluding,
+			long endOther, boolean endOtherIncluding) {
+		if (startOther == endOther) {
+			return (startOtherIncluding || endOtherIncluding)
+					&& isTimeWithin(startOther);
+		}
+		if (startTime == endTime) {
+			return (isStartTimeIncluding || isEndTimeIncluding)
+					&& isTimeWithin(startTime, startOther, startOtherIncluding,
+							endOther, endOtherIncluding);
+		}
+		return getOverlap(startOther, endOther) > 0;
+	}
+
+	/**
+	 * @return true if the time is within the interval, see
+	 *         {@link #isTimeWithin(long)}
+	 */
+	private static boolean isTimeWithin(long time, long start,
+			boolean startIncluding, long end, boolean endIncluding) {
+		return (time < end || (time == end && endIncluding))
+				&& (time > start || (time == start && startIncluding));
+	}
+
+	/**
+	 * @return duration in hours
+	 */
+	public long getDurationHours() {
+		return getDuration() / IConstants.HOUR;
+	}
+
+	/**
+	 * @return duration in minutes
+	 */
+	public long getDurationMinutes() {
+		return getDuration() / IConstants.MINUTE;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof ImmutableTimeWindow)) {
+			return false;
+		}
+
+		ImmutableTimeWindow window = (ImmutableTimeWindow) other;
+		return startTime == window.startTime && endTime == window.endTime
+				&& isStartTimeIncluding == window.isStartTimeIncluding
+				&& isEndTimeIncluding == window.isEndTimeIncluding;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (startTime ^ endTime
+				^ Boolean.valueOf(isStartTimeIncluding).hashCode()
+				^ Boolean.valueOf(isEndTimeIncluding).hashCode());
+	}
+
+	/**
+	 * Same format as {@link TimeWindow#toString()}, but safe to call from
+	 * several threads.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(35);
+		builder.append(isStartTimeIncluding ? '[' : ']');
+		FORMATTER.formatTo(startTime, builder);
+		builder.append('-');
+		FORMATTER.formatTo(endTime, builder);
+		return builder.append(isEndTimeIncluding ? ']' : '[').toString();
+	}
+}
@@ -0,0 +1,211 @@
+package shippingCore.calculations.time;
+
+import service.exceptions.InvalidArgumentException;
+import service.properties.IConstants;
+
+/**
+ * Encodes time windows at minute granularity in a long, so windows can be
+ * kept in long arrays and passed without any object. The upper 32 bits hold
+ * the start and the lower 32 bits the end, both as minutes since 1970-01-01
+ * UTC, which covers the years 1970 +/- 4000.
+ * <p>
+ * Packed windows have the semantics of {@link TimeWindow#TimeWindow(long,
+ * long)}: the end point is part of the interval, the start point is not.
+ */
+public final class PackedTimeWindow {
+
+	private PackedTimeWindow() {
+	}
+
+	/**
+	 * @param startTime
+	 *            the start point in milliseconds, a whole minute
+	 * @param endTime
+	 *            the end point in milliseconds, a whole minute
+	 * @return the packed window
+	 * @throws InvalidArgumentException
+	 *             if a time is no whole minute or out of range or the start is
+	 *             after the end
+	 */
+	public static long pack(long startTime, long endTime) {
+		if (startTime > endTime) {
+			throw new InvalidArgumentException("EndTime: " + endTime
+					+ " is less than Starttime: " + startTime);
+		}
+		return ((long) toMinutes(startTime) << 32)
+				| (toMinutes(endTime) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * @param window
+	 *            the window to pack, with whole minutes and the default flags
+	 * @return the packed window
+	 * @throws InvalidArgumentException
+	 *             if the window cannot be packed
+	 */
+	public static long pack(TimeWindow window) {
+		checkFlags(window.isStartTimeIncluding(), window.isEndTimeIncluding());
+		return pack(window.getStartTime(), window.getEndTime());
+	}
+
+	/**
+	 * @param window
+	 *            the window to pack, with whole minutes and the default flags
+	 * @return the packed window
+	 * @throws InvalidArgumentException
+	 *             if the window cannot be packed
+	 */
+	public static long pack(ImmutableTimeWindow window) {
+		checkFlags(window.isStartTimeIncluding(), window.isEndTimeIncluding());
+		return pack(window.getStartTime(), window.getEndTime());
+	}
+
+	private static void checkFlags(boolean startIncluding,
+			boolean endIncluding) {
+		if (startIncluding || !endIncluding) {
+			throw new InvalidArgumentException(
+					"Only windows without start and with end point can be packed");
+		}
+	}
+
+	private static int toMinutes(long time) {
+		long minutes = time / IConstants.MINUTE;
+		if (minutes * IConstants.MINUTE != time || minutes < Integer.MIN_VALUE
+				|| minutes > Integer.MAX_VALUE) {
+			throw new InvalidArgumentException(
+					"Time cannot be packed in minutes: " + time);
+		}
+		return (int) minutes;
+	}
+
+	/**
+	 * @param packed
+	 *            the packed window
+	 * @return the start time in milliseconds
+	 */
+	public static long getStartTime(long packed) {
+		return (packed >> 32) * IConstants.MINUTE;
+	}
+
+	/**
+	 * @param packed
+	 *            the packed window
+	 * @return the end time in milliseconds
+	 */
+	public static long getEndTime(long packed) {
+		return (long) (int) packed * IConstants.MINUTE;
+	}
+
+	/**
+	 * @param packed
+	 *            the packed window
+	 * @return the duration in milliseconds
+	 */
+	public static long getDuration(long packed) {
+		return getEndTime(packed) - getStartTime(packed);
+	}
+
+	/**
+	 * @param packed
+	 *            the packed window
+	 * @param time
+	 *            the time to check
+	 * @return the time from the passed time to the start time if time is
+	 *         before it, 0 in all other cases
+	 */
+	public static long getTimeBefore(long packed, long time) {
+		return Math.max(0, getStartTime(packed) - time);
+	}
+
+	/**
+	 * @param packed
+	 *            the packed window
+	 * @param time
+	 *            the time to check
+	 * @return the time from the end time to the passed time if time is after
+	 *         it, 0 in all other cases
+	 */
+	public static long getTimeAfter(long packed, long time) {
+		return Math.max(0, time - getEndTime(packed));
+	}
+
+	/**
+	 * @param packed
+	 *            the packed window
+	 * @param time
+	 *            the time to check
+	 * @return true if the time is after the start and not after the end
+	 */
+	public static boolean isTimeWithin(long packed, long time) {
+		return time > getStartTime(packed) && time <= getEndTime(packed);
+	}
+
+	/**
+	 * Same as {@link TimeWindow#intersects(long, long)}.
+	 * 
+	 * @param packed
+	 *            the packed window
+	 * @param startOther
+	 *            the start time to test against (inclusive)
+	 * @param endOther
+	 *            the end time to test against (inclusive)
+	 * @return true if the passed times overlap with the window
+	 */
+	public static boolean intersects(long packed, long startOther,
+			long endOther) {
+		if (startOther == endOther) {
+			return isTimeWithin(packed, startOther);
+		}
+
+		long startTime = getStartTime(packed);
+		long endTime = getEndTime(packed);
+		if (startTime == endTime) {
+			return endTime >= startOther && endTime <= endOther;
+		}
+		return startOther < endTime && endOther > startTime;
+	}
+
+	/**
+	 * Same as {@link TimeWindow#intersects(TimeWindow)} for two windows with
+	 * the default flags.
+	 * 
+	 * @param packed
+	 *            the packed window
+	 * @param other
+	 *            the packed window to check against
+	 * @return true if the windows overlap
+	 */
+	public static boolean intersects(long packed, long other) {
+		long startOther = getStartTime(other);
+		long endOther = getEndTime(other);
+		if (startOther == endOther) {
+			return isTimeWithin(packed, startOther);
+		}
+
+		long startTime = getStartTime(packed);
+		long endTime = getEndTime(packed);
+		if (startTime == endTime) {
+			return isTimeWithin(other, startTime);
+		}
+		return startOther < endTime && endOther > startTime;
+	}
+
+	/**
+	 * @param packed
+	 *            the packed window
+	 * @return the window as new mutable object
+	 */
+	public static TimeWindow toTimeWindow(long packed) {
+		return new TimeWindow(getStartTime(packed), getEndTime(packed));
+	}
+
+	/**
+	 * @param packed
+	 *            the packed window
+	 * @return the window as immutable object
+	 */
+	public static ImmutableTimeWindow toImmutableTimeWindow(long packed) {
+		return new ImmutableTimeWindow(getStartTime(packed),
+				getEndTime(packed));
+	}
+}
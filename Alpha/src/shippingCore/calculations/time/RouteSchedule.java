@@ -0,0 +1,143 @@
+package shippingCore.calculations.time;
+
+/**
+ * The times of a route calculated by {@link TimeCalculator}. All values of
+ * index i describe node i of the route.
+ * <p>
+ * The arrays are reused when the schedule is calculated again, so they can be
+ * longer than {@link #getNodeCount()}.
+ */
+public class RouteSchedule {
+	/** number of valid entries */
+	int nodeCount;
+
+	/** true if the service at every node starts within its time window */
+	boolean feasible;
+
+	/** time the vehicle arrives at the node */
+	long[] arrivalTime;
+
+	/** time the service at the node starts (after waiting) */
+	long[] startTime;
+
+	/** time the vehicle leaves the node */
+	long[] departureTime;
+
+	/**
+	 * the latest time the service at the node can start without any node from
+	 * here to the end of the route starting after its time window, with
+	 * driving times those of the schedule at the following nodes
+	 */
+	long[] latestStartTime;
+
+	/** the driving time since the last break when the vehicle arrives */
+	long[] continuousDriving;
+
+	/** the driving time since the last daily rest when the vehicle arrives */
+	long[] dailyDriving;
+
+	/**
+	 * Creates an empty schedule.
+	 */
+	public RouteSchedule() {
+		allocate(16);
+	}
+
+	/**
+	 * Ensures the arrays can hold the given number of nodes, the values are
+	 * not kept.
+	 */
+	void ensureCapacity(int capacity) {
+		if (capacity > arrivalTime.length) {
+			allocate(Math.max(capacity, 2 * arrivalTime.length));
+		}
+	}
+
+	private void allocate(int capacity) {
+		arrivalTime = new long[capacity];
+		startTime = new long[capacity];
+		departureTime = new long[capacity];
+		latestStartTime = new long[capacity];
+		continuousDriving = new long[capacity];
+		dailyDriving = new long[capacity];
+	}
+
+	/**
+	 * @return the number of nodes of the scheduled route
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the time the vehicle arrives at the node
+	 */
+	public long getArrivalTime(int index) {
+		return arrivalTime[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the time the service at the node starts
+	 */
+	public long getStartTime(int index) {
+		return startTime[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the time the vehicle leaves the node
+	 */
+	public long getDepartureTime(int index) {
+		return departureTime[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the latest time the service at the node can start without
+	 *         making it or a later node late, with the driving times of the
+	 *         schedule at the later nodes
+	 */
+	public long getLatestStartTime(int index) {
+		return latestStartTime[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the driving time since the last break when the vehicle arrives
+	 *         at the node
+	 */
+	public long getContinuousDriving(int index) {
+		return continuousDriving[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the driving time since the last daily rest when the vehicle
+	 *         arrives at the node
+	 */
+	public long getDailyDriving(int index) {
+		return dailyDriving[index];
+	}
+
+	/**
+	 * @return true if the service at every node starts within its time window
+	 */
+	public boolean isFeasible() {
+		return nodeCount == 0 || feasible;
+	}
+
+	/**
+	 * @return the time the vehicle leaves the last node
+	 */
+	public long getEndTime() {
+		return departureTime[nodeCount - 1];
+	}
+}
@@ -1,5 +1,558 @@
 package shippingCore.calculations.time;
 
+import java.util.Calendar;
+
+import service.properties.IConstants;
+import service.util.LongDateCalculator;
+import shippingCore.calculations.RouteCalculator;
+import shippingCore.dao.IDistanceMap;
+import shippingCore.model.Node;
+import shippingCore.model.Route;
+
+/**
+ * Calculates the times of routes with driving restrictions. A leg takes the
+ * travel time of the distance map plus the time the vehicle has to stand
+ * still on the way:
+ * <ul>
+ * <li>{@link #RESTRICTION_LUNCH_BREAK}: no driving from 12:30 to 13:00</li>
+ * <li>{@link #RESTRICTION_SUNDAY_DRIVING_BAN}: no driving on Sundays before
+ * 22:00 (german "Sonntagsfahrverbot")</li>
+ * <li>{@link #RESTRICTION_WEEKEND_DRIVING_BAN}: no driving on Saturdays and
+ * Sundays</li>
+ * <li>{@link #RESTRICTION_DRIVING_TIME}: a break of
+ * {@link #DRIVING_BREAK} after {@link #MAX_CONTINUOUS_DRIVING} of driving and
+ * a rest of {@link #DAILY_REST} after {@link #MAX_DAILY_DRIVING}. The driving
+ * times are carried along the route from leg to leg. Standing still at a
+ * node, waiting for its time window or for a ban counts as break if it lasts
+ * {@link #DRIVING_BREAK} and as rest if it lasts {@link #DAILY_REST}.</li>
+ * </ul>
+ * Times of day are local times of the default time zone. For the same
+ * driving times a later departure gives no earlier arrival, apart from a
+ * break that moves into a ban, so the latest departure for an arrival can be
+ * searched backwards.
+ * <p>
+ * {@link #calculateSchedule(Route, RouteSchedule)} calculates the times of a
+ * route in a forward pass and the latest start times in a backward pass.
+ * With them {@link #isInsertionFeasible(RouteSchedule, Route, Node, int)}
+ * checks the time windows of an insertion with two legs instead of the rest
+ * of the route. With {@link #RESTRICTION_DRIVING_TIME} the latest start times
+ * keep the driving times of the forward pass, which change with the times
+ * before, so the check carries the driving times forward instead. Instances
+ * keep no state and can be shared by threads.
+ * <p>
+ * The calculator is a standalone utility: {@link RouteCalculator} times the
+ * routes of the search without restrictions.
+ */
 public class TimeCalculator {
 
+	/** no restrictions, the travel times of the distance map */
+	public static final int RESTRICTION_NONE = 0;
+
+	/** no driving during the lunch break */
+	public static final int RESTRICTION_LUNCH_BREAK = 1;
+
+	/** no driving on Sundays before 22:00 */
+	public static final int RESTRICTION_SUNDAY_DRIVING_BAN = 2;
+
+	/** no driving on weekends */
+	public static final int RESTRICTION_WEEKEND_DRIVING_BAN = 4;
+
+	/** breaks and rests after driving for a long time */
+	public static final int RESTRICTION_DRIVING_TIME = 8;
+
+	/** all restrictions */
+	public static final int RESTRICTION_ALL = RESTRICTION_LUNCH_BREAK
+			| RESTRICTION_SUNDAY_DRIVING_BAN | RESTRICTION_WEEKEND_DRIVING_BAN
+			| RESTRICTION_DRIVING_TIME;
+
+	/** the start of the lunch break in the day */
+	public static final int LUNCH_BREAK_START = 12 * IConstants.HOUR + 30
+			* IConstants.MINUTE;
+
+	/** the end of the lunch break in the day */
+	public static final int LUNCH_BREAK_END = 13 * IConstants.HOUR;
+
+	/** the end of the Sunday driving ban in the day */
+	public static final int SUNDAY_DRIVING_BAN_END = 22 * IConstants.HOUR;
+
+	/** the driving time after which a break is due */
+	public static final long MAX_CONTINUOUS_DRIVING = 4 * IConstants.HOUR + 30
+			* IConstants.MINUTE;
+
+	/** the duration of a break */
+	public static final long DRIVING_BREAK = 45 * IConstants.MINUTE;
+
+	/** the driving time after which a daily rest is due */
+	public static final long MAX_DAILY_DRIVING = 9 * IConstants.HOUR;
+
+	/** the duration of a daily rest */
+	public static final long DAILY_REST = 11 * IConstants.HOUR;
+
+	/** steps back by the delay before bisecting for a latest departure */
+	private static final int MAX_LATEST_DEPARTURE_STEPS = 4;
+
+	/** marks latest start times no service start can keep */
+	private static final long INFEASIBLE = Long.MIN_VALUE;
+
+	/** the distance source */
+	private final IDistanceMap distanceMap;
+
+	/** the RESTRICTION_* flags */
+	private final int restrictions;
+
+	/**
+	 * @param distanceMap
+	 *            the distance source used for all legs
+	 * @param restrictions
+	 *            the RESTRICTION_* flags combined with |
+	 */
+	public TimeCalculator(IDistanceMap distanceMap, int restrictions) {
+		this.distanceMap = distanceMap;
+		this.restrictions = restrictions;
+	}
+
+	/**
+	 * @return the RESTRICTION_* flags
+	 */
+	public int getRestrictions() {
+		return restrictions;
+	}
+
+	/**
+	 * Returns the time the vehicle arrives at the location to when it leaves
+	 * the location from rested at the given time, including the stops on the
+	 * way.
+	 * 
+	 * @param departure
+	 *            the time the vehicle leaves from
+	 * @param fromLocation
+	 *            distance map index of the location the vehicle leaves
+	 * @param toLocation
+	 *            distance map index of the location the vehicle drives to
+	 * @return the arrival time at to
+	 */
+	public long getArrivalTime(long departure, int fromLocation,
+			int toLocation) {
+		return drive(departure, departure,
+				distanceMap.getTravelTime(fromLocation, toLocation), 0, 0,
+				null);
+	}
+
+	/**
+	 * Returns the latest time the vehicle can leave the location from rested
+	 * to arrive at the location to at the given time at the latest.
+	 * 
+	 * @param latestArrival
+	 *            the latest time to arrive at to
+	 * @param fromLocation
+	 *            distance map index of the location the vehicle leaves
+	 * @param toLocation
+	 *            distance map index of the location the vehicle drives to
+	 * @return the latest departure
+	 */
+	public long getLatestDepartureTime(long latestArrival, int fromLocation,
+			int toLocation) {
+		// without driving times the stop does not matter
+		return getLatestDepartureTime(latestArrival, fromLocation, toLocation,
+				latestArrival, 0, 0);
+	}
+
+	/**
+	 * Returns the latest time the vehicle can leave the location from to
+	 * arrive at the location to at the given time at the latest. The search
+	 * steps back by the time the arrival is too late, which is exact while the
+	 * stops on the way stay the same, and bisects between the last departure
+	 * too late and the first in time otherwise. The departure returned is
+	 * always in time.
+	 * 
+	 * @param latestArrival
+	 *            the latest time to arrive at to
+	 * @param fromLocation
+	 *            distance map index of the location the vehicle leaves
+	 * @param toLocation
+	 *            distance map index of the location the vehicle drives to
+	 * @param standingSince
+	 *            the time the vehicle stands at from since
+	 * @param continuousDriving
+	 *            the driving time since the last break when the vehicle
+	 *            arrived at from
+	 * @param dailyDriving
+	 *            the driving time since the last rest when the vehicle
+	 *            arrived at from
+	 * @return the latest departure
+	 */
+	public long getLatestDepartureTime(long latestArrival, int fromLocation,
+			int toLocation, long standingSince, long continuousDriving,
+			long dailyDriving) {
+		long travelTime = distanceMap.getTravelTime(fromLocation, toLocation);
+		long departure = latestArrival - travelTime;
+		if (restrictions == RESTRICTION_NONE) {
+			return departure;
+		}
+
+		// no departure after late is in time
+		long late = departure + 1;
+		long arrival = drive(departure, standingSince, travelTime,
+				continuousDriving, dailyDriving, null);
+		for (int i = 0; i < MAX_LATEST_DEPARTURE_STEPS
+				&& arrival > latestArrival; i++) {
+			late = departure;
+			departure -= arrival - latestArrival;
+			arrival = drive(departure, standingSince, travelTime,
+					continuousDriving, dailyDriving, null);
+		}
+
+		long step = IConstants.DAY;
+		while (arrival > latestArrival) {
+			late = departure;
+			departure -= step;
+			step *= 2;
+			arrival = drive(departure, standingSince, travelTime,
+					continuousDriving, dailyDriving, null);
+		}
+
+		// a stop on the way may have been stepped over
+		if (arrival == latestArrival
+				&& drive(departure + 1, standingSince, travelTime,
+						continuousDriving, dailyDriving,
+						null) > latestArrival) {
+			return departure;
+		}
+		long early = departure;
+		while (late - early > 1) {
+			long middle = early + (late - early) / 2;
+			if (drive(middle, standingSince, travelTime, continuousDriving,
+					dailyDriving, null) <= latestArrival) {
+				early = middle;
+			} else {
+				late = middle;
+			}
+		}
+		return early;
+	}
+
+	/**
+	 * Drives for the travel time, standing still while a restriction applies
+	 * and taking the breaks and rests that are due.
+	 * 
+	 * @param standingSince
+	 *            the time the vehicle stands since, a stop that lasts long
+	 *            enough before driving on counts as break or rest
+	 * @param continuousDriving
+	 *            the driving time since the last break
+	 * @param dailyDriving
+	 *            the driving time since the last rest
+	 * @param driving
+	 *            receives the driving time since the last break and since the
+	 *            last rest at the end, null if not needed
+	 * @return the time the driving ends
+	 */
+	private long drive(long departure, long standingSince, long travelTime,
+			long continuousDriving, long dailyDriving, long[] driving) {
+		long time = departure;
+		long sinceBreak = continuousDriving;
+		long today = dailyDriving;
+
+		if (restrictions == RESTRICTION_NONE) {
+			time += travelTime;
+		} else {
+			boolean drivingTime = (restrictions
+					& RESTRICTION_DRIVING_TIME) != 0;
+			long standing = Math.min(standingSince, departure);
+			long remaining = travelTime;
+
+			while (remaining > 0) {
+				time = getDrivingStart(time);
+
+				if (drivingTime) {
+					if (time - standing >= DAILY_REST) {
+						sinceBreak = 0;
+						today = 0;
+					} else if (time - standing >= DRIVING_BREAK) {
+						sinceBreak = 0;
+					}
+					// the next pass counts the stop from standing on
+					if (today >= MAX_DAILY_DRIVING) {
+						time += DAILY_REST;
+						continue;
+					}
+					if (sinceBreak >= MAX_CONTINUOUS_DRIVING) {
+						time += DRIVING_BREAK;
+						continue;
+					}
+				}
+
+				long next = getNextStop(time);
+				long drive = next == Long.MAX_VALUE ? remaining : Math.min(
+						remaining, next - time);
+				if (drivingTime) {
+					drive = Math.min(drive, Math.min(MAX_CONTINUOUS_DRIVING
+							- sinceBreak, MAX_DAILY_DRIVING - today));
+					sinceBreak += drive;
+					today += drive;
+				}
+
+				time += drive;
+				remaining -= drive;
+				standing = time;
+			}
+		}
+
+		if (driving != null) {
+			driving[0] = sinceBreak;
+			driving[1] = today;
+		}
+		return time;
+	}
+
+	/**
+	 * @return the first time from the given time on the vehicle may drive
+	 */
+	private long getDrivingStart(long time) {
+		// a restriction may end where another begins
+		while (true) {
+			long start = time;
+			int weekday = LongDateCalculator.getWeekday(start);
+			int millisInDay = LongDateCalculator.getMillisInDay(start);
+
+			if ((restrictions & RESTRICTION_WEEKEND_DRIVING_BAN) != 0
+					&& (weekday == Calendar.SATURDAY
+							|| weekday == Calendar.SUNDAY)) {
+				// the next pass moves from Saturday on to Monday
+				start = getTimeOfDay(start, millisInDay, IConstants.DAY);
+			} else if ((restrictions & RESTRICTION_SUNDAY_DRIVING_BAN) != 0
+					&& weekday == Calendar.SUNDAY
+					&& millisInDay < SUNDAY_DRIVING_BAN_END) {
+				start = getTimeOfDay(start, millisInDay,
+						SUNDAY_DRIVING_BAN_END);
+			} else if ((restrictions & RESTRICTION_LUNCH_BREAK) != 0
+					&& millisInDay >= LUNCH_BREAK_START
+					&& millisInDay < LUNCH_BREAK_END) {
+				start = getTimeOfDay(start, millisInDay, LUNCH_BREAK_END);
+			}
+
+			if (start == time) {
+				return time;
+			}
+			time = start;
+		}
+	}
+
+	/**
+	 * @return the next time after the given driving time a restriction
+	 *         begins, {@link Long#MAX_VALUE} if none
+	 */
+	private long getNextStop(long time) {
+		long next = Long.MAX_VALUE;
+		int weekday = LongDateCalculator.getWeekday(time);
+		int millisInDay = LongDateCalculator.getMillisInDay(time);
+
+		if ((restrictions & RESTRICTION_LUNCH_BREAK) != 0) {
+			next = getTimeOfDay(time, millisInDay,
+					millisInDay < LUNCH_BREAK_START ? LUNCH_BREAK_START
+							: IConstants.DAY + LUNCH_BREAK_START);
+		}
+		if ((restrictions & RESTRICTION_WEEKEND_DRIVING_BAN) != 0) {
+			int days = (Calendar.SATURDAY - weekday + 7) % 7;
+			next = Math.min(next, days == 0 ? time : getTimeOfDay(time,
+					millisInDay, (long) days * IConstants.DAY));
+		}
+		if ((restrictions & RESTRICTION_SUNDAY_DRIVING_BAN) != 0) {
+			// driving on a Sunday is after the ban, the next is a week later
+			int days = (Calendar.SUNDAY - weekday + 6) % 7 + 1;
+			next = Math.min(next, getTimeOfDay(time, millisInDay,
+					(long) days * IConstants.DAY));
+		}
+
+		return next;
+	}
+
+	/**
+	 * Returns the time the clock shows the time of day on the day of the
+	 * given time, or on a later day for a time of day of a day or more. The
+	 * change of the zone offset in between is taken into account, so the
+	 * times stay right on days with a daylight saving time switch. A time of
+	 * day skipped by a switch is taken as the time after the switch.
+	 * 
+	 * @param time
+	 *            number that represents date and time in milliseconds
+	 * @param millisInDay
+	 *            the milliseconds within the day of the time
+	 * @param timeOfDay
+	 *            the milliseconds from the start of the day of the time
+	 * @return the time in milliseconds
+	 */
+	private static long getTimeOfDay(long time, int millisInDay,
+			long timeOfDay) {
+		long target = time - millisInDay + timeOfDay;
+		long offset = LongDateCalculator.getTimeOffset(target);
+		long corrected = target + LongDateCalculator.getTimeOffset(time)
+				- offset;
+		return LongDateCalculator.getTimeOffset(corrected) == offset
+				? corrected : Math.max(target, corrected);
+	}
+
+	/**
+	 * Calculates the times of all nodes of the route: forward the arrival,
+	 * service start, departure and driving times, backward the latest service
+	 * start. The vehicle starts rested.
+	 * 
+	 * @param route
+	 *            the route to calculate
+	 * @param schedule
+	 *            receives the times, its arrays are reused
+	 * @return the schedule
+	 */
+	public RouteSchedule calculateSchedule(Route route,
+			RouteSchedule schedule) {
+		int nodeCount = route.getNodeCount();
+		schedule.ensureCapacity(nodeCount);
+		schedule.nodeCount = nodeCount;
+		if (nodeCount == 0) {
+			return schedule;
+		}
+
+		long[] arrival = schedule.arrivalTime;
+		long[] start = schedule.startTime;
+		long[] departure = schedule.departureTime;
+		long[] latest = schedule.latestStartTime;
+		long[] continuous = schedule.continuousDriving;
+		long[] daily = schedule.dailyDriving;
+		long[] driving = new long[2];
+
+		Node previous = route.getNode(0);
+		arrival[0] = previous.getTimeWindow().getStartTime();
+		start[0] = arrival[0];
+		departure[0] = start[0] + previous.getServiceTime();
+		continuous[0] = 0;
+		daily[0] = 0;
+		schedule.feasible = previous.getTimeWindow()
+				.getTimeAfter(start[0]) == 0;
+
+		for (int i = 1; i < nodeCount; i++) {
+			Node node = route.getNode(i);
+			arrival[i] = drive(departure[i - 1], arrival[i - 1],
+					getTravelTime(previous, node), continuous[i - 1],
+					daily[i - 1], driving);
+			continuous[i] = driving[0];
+			daily[i] = driving[1];
+			start[i] = arrival[i] + node.getTimeWindow().getTimeBefore(
+					arrival[i]);
+			departure[i] = start[i] + node.getServiceTime();
+			if (node.getTimeWindow().getTimeAfter(start[i]) > 0) {
+				schedule.feasible = false;
+			}
+			previous = node;
+		}
+
+		Node next = route.getNode(nodeCount - 1);
+		latest[nodeCount - 1] = getLatestStartTime(next, Long.MAX_VALUE);
+		for (int i = nodeCount - 2; i >= 0; i--) {
+			Node node = route.getNode(i);
+			long latestDeparture = latest[i + 1] == INFEASIBLE ? INFEASIBLE
+					: getLatestDepartureTime(latest[i + 1],
+							node.getLocation().getDistanceMapIndex(),
+							next.getLocation().getDistanceMapIndex(),
+							arrival[i], continuous[i], daily[i]);
+			latest[i] = getLatestStartTime(node,
+					latestDeparture == INFEASIBLE ? INFEASIBLE
+							: latestDeparture - node.getServiceTime());
+			next = node;
+		}
+
+		return schedule;
+	}
+
+	/**
+	 * Checks if the node can be inserted at the index without any node
+	 * starting after its time window, given that the route is feasible now.
+	 * Without {@link #RESTRICTION_DRIVING_TIME} the check takes O(1) with the
+	 * latest start times. With it the changed driving times are carried over
+	 * the following legs until a node is reached with the same service start
+	 * and either the same arrival and driving times or a daily rest before
+	 * leaving in both schedules.
+	 * 
+	 * @param schedule
+	 *            the schedule of the route
+	 * @param route
+	 *            the route to insert into
+	 * @param node
+	 *            the node to insert
+	 * @param index
+	 *            the index the node would get, at least 1
+	 * @return true if all time windows would be kept
+	 */
+	public boolean isInsertionFeasible(RouteSchedule schedule, Route route,
+			Node node, int index) {
+		long[] driving = new long[2];
+		long arrival = drive(schedule.departureTime[index - 1],
+				schedule.arrivalTime[index - 1],
+				getTravelTime(route.getNode(index - 1), node),
+				schedule.continuousDriving[index - 1],
+				schedule.dailyDriving[index - 1], driving);
+		TimeWindow timeWindow = node.getTimeWindow();
+		long start = arrival + timeWindow.getTimeBefore(arrival);
+		if (timeWindow.getTimeAfter(start) > 0) {
+			return false;
+		}
+
+		if (index == schedule.nodeCount) {
+			return true;
+		}
+
+		if ((restrictions & RESTRICTION_DRIVING_TIME) == 0) {
+			long nextArrival = drive(start + node.getServiceTime(), arrival,
+					getTravelTime(node, route.getNode(index)), 0, 0, null);
+			return nextArrival <= schedule.latestStartTime[index];
+		}
+
+		Node previous = node;
+		for (int i = index; i < schedule.nodeCount; i++) {
+			Node next = route.getNode(i);
+			long departure = start + previous.getServiceTime();
+			long nextArrival = drive(departure, arrival,
+					getTravelTime(previous, next), driving[0], driving[1],
+					driving);
+			timeWindow = next.getTimeWindow();
+			start = nextArrival + timeWindow.getTimeBefore(nextArrival);
+			if (timeWindow.getTimeAfter(start) > 0) {
+				return false;
+			}
+
+			if (start == schedule.startTime[i]) {
+				// the rest of the route is driven as before
+				long leave = start + next.getServiceTime();
+				if (leave - nextArrival >= DAILY_REST
+						&& schedule.departureTime[i]
+								- schedule.arrivalTime[i] >= DAILY_REST) {
+					return true;
+				}
+				if (nextArrival == schedule.arrivalTime[i]
+						&& driving[0] == schedule.continuousDriving[i]
+						&& driving[1] == schedule.dailyDriving[i]) {
+					return true;
+				}
+			}
+			arrival = nextArrival;
+			previous = next;
+		}
+		return true;
+	}
+
+	private long getTravelTime(Node from, Node to) {
+		return distanceMap.getTravelTime(
+				from.getLocation().getDistanceMapIndex(),
+				to.getLocation().getDistanceMapIndex());
+	}
+
+	/**
+	 * @return the latest start time at the node from its time window and the
+	 *         latest start time the following nodes allow,
+	 *         {@link #INFEASIBLE} if the service cannot start in time
+	 */
+	private static long getLatestStartTime(Node node, long latestStart) {
+		TimeWindow timeWindow = node.getTimeWindow();
+		long latest = Math.min(latestStart, timeWindow.getEndTime());
+		return latest < timeWindow.getStartTime() ? INFEASIBLE : latest;
+	}
 }
@@ -6,6 +6,7 @@ import java.util.Date;
 import java.util.TimeZone;
 
 import service.dateAndTime.DateFormatter;
+import service.dateAndTime.DateTimeFormat;
 import service.exceptions.InvalidArgumentException;
 import service.properties.IConstants;
 
@@ -35,6 +36,14 @@ public class TimeWindow implements Serializable, Cloneable {
 	protected static SimpleDateFormat utcFormatter = new SimpleDateFormat(
 			"yyyy.MM.dd HH:mm z");
 
+	/** thread-safe variant of formatter, used by toString() */
+	private static final DateTimeFormat dateTimeFormat = new DateTimeFormat(
+			DateTimeFormat.PATTERN_DATE_TIME);
+
+	/** thread-safe variant of utcFormatter, used by toStringUTC() */
+	private static final DateTimeFormat utcDateTimeFormat = new DateTimeFormat(
+			"yyyy.MM.dd HH:mm z", TimeZone.getTimeZone("UTC"));
+
 	/**
 	 * specifies if the end point of the interval is included (default
 	 * including)
@@ -184,7 +193,7 @@ public class TimeWindow implements Serializable, Cloneable {
 	 * @return the start time of this interval
 	 */
 	public final String getStartTimeString() {
-		return formatter.format(startTime);
+		return dateTimeFormat.format(startTime);
 	}
 
 	/**
@@ -193,7 +202,7 @@ public class TimeWindow implements Serializable, Cloneable {
 	 * @return the end time of this interval
 	 */
 	public final String getEndTimeString() {
-		return formatter.format(endTime);
+		return dateTimeFormat.format(endTime);
 	}
 
 	/**
@@ -662,14 +671,35 @@ public class TimeWindow implements Serializable, Cloneable {
 	 */
 	@Override
 	public String toString() {
-		return toString(formatter);
+		return appendTo(new StringBuilder(35), dateTimeFormat).toString();
 	}
 
 	/**
 	 * @return String representation with utc formater for date/times
 	 */
 	public String toStringUTC() {
-		return toString(utcFormatter);
+		return appendTo(new StringBuilder(43), utcDateTimeFormat).toString();
+	}
+
+	/**
+	 * Appends the string representation of {@link #toString()} to the
+	 * builder, so log and CSV output can reuse one builder.
+	 * 
+	 * @param builder
+	 *            the builder to append to
+	 * @return the builder
+	 */
+	public StringBuilder appendTo(StringBuilder builder) {
+		return appendTo(builder, dateTimeFormat);
+	}
+
+	private StringBuilder appendTo(StringBuilder builder,
+			DateTimeFormat format) {
+		builder.append(isStartTimeIncluding ? '[' : ']');
+		format.formatTo(startTime, builder);
+		builder.append('-');
+		format.formatTo(endTime, builder);
+		return builder.append(isEndTimeIncluding ? ']' : '[');
 	}
 
 	/**
@@ -0,0 +1,370 @@
+package shippingCore.calculations.time;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import service.exceptions.InvalidArgumentException;
+
+/**
+ * Index of values by time window, answering which windows intersect a given
+ * interval without testing all windows pairwise, e.g. the routes overlapping
+ * a route for {@link shippingCore.constraint.IConstraint#ROUTES_OVERLAP_VIOLATION}
+ * or the tour pickups overlapping a pickup.
+ * <p>
+ * The windows are kept in an AVL tree ordered by start time, every node knows
+ * the latest end time in its subtree. A query descends only into subtrees
+ * whose latest end is not before the interval and whose start times are not
+ * after it, so it costs O(log n + k) for k results as long as the windows do
+ * not nest deeply. Windows are added and removed in O(log n) as the values
+ * change.
+ * <p>
+ * The index keeps immutable copies of the windows, so changing a window after
+ * adding it has no effect until {@link #update(Object, TimeWindow)} is called. The
+ * intersection tests are the ones of {@link TimeWindow}, including the flags
+ * for included start and end points. Instances are not thread-safe.
+ * 
+ * @param <T>
+ *            the type of the indexed values
+ */
+public class TimeWindowIndex<T> {
+
+	/** the root of the tree, null if empty */
+	private Entry<T> root;
+
+	/** the entries by value */
+	private final Map<T, Entry<T>> entries = new HashMap<T, Entry<T>>();
+
+	/** numbers the entries to order equal start times */
+	private long nextSequence;
+
+	/**
+	 * Adds the value with its time window.
+	 * 
+	 * @param value
+	 *            the value to index, not null
+	 * @param window
+	 *            the time window of the value
+	 * @throws InvalidArgumentException
+	 *             if the value is indexed already
+	 */
+	public void add(T value, TimeWindow window) {
+		if (entries.containsKey(value)) {
+			throw new InvalidArgumentException("Value already indexed: "
+					+ value);
+		}
+
+		Entry<T> entry = new Entry<T>(value, ImmutableTimeWindow.of(window),
+				nextSequence++);
+		entries.put(value, entry);
+		root = insert(root, entry);
+	}
+
+	/**
+	 * Removes the value.
+	 * 
+	 * @param value
+	 *            the value to remove
+	 * @return true if the value was indexed
+	 */
+	public boolean remove(T value) {
+		Entry<T> entry = entries.remove(value);
+		if (entry == null) {
+			return false;
+		}
+
+		root = delete(root, entry);
+		return true;
+	}
+
+	/**
+	 * Replaces the time window of the value, adds the value if it is not
+	 * indexed yet.
+	 * 
+	 * @param value
+	 *            the value to update
+	 * @param window
+	 *            the new time window of the value
+	 */
+	public void update(T value, TimeWindow window) {
+		remove(value);
+		add(value, window);
+	}
+
+	/**
+	 * @param value
+	 *            the indexed value
+	 * @return the time window the value is indexed with, null if it is not
+	 *         indexed
+	 */
+	public ImmutableTimeWindow getTimeWindow(T value) {
+		Entry<T> entry = entries.get(value);
+		return entry != null ? entry.window : null;
+	}
+
+	/**
+	 * @param value
+	 *            the value to check
+	 * @return true if the value is indexed
+	 */
+	public boolean contains(T value) {
+		return entries.containsKey(value);
+	}
+
+	/**
+	 * @return the number of indexed values
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return true if no value is indexed
+	 */
+	public boolean isEmpty() {
+		return entries.isEmpty();
+	}
+
+	/**
+	 * Removes all values.
+	 */
+	public void clear() {
+		entries.clear();
+		root = null;
+	}
+
+	/**
+	 * Adds the values whose windows intersect the interval to the result, see
+	 * {@link TimeWindow#intersects(long, long)}.
+	 * 
+	 * @param start
+	 *            the start time of the interval
+	 * @param end
+	 *            the end time of the interval
+	 * @param result
+	 *            receives the values, in the order of their start times
+	 * @return the number of values added
+	 */
+	public int findIntersecting(long start, long end,
+			Collection<? super T> result) {
+		return find(root, start, end, null, result);
+	}
+
+	/**
+	 * Adds the values whose windows intersect the window to the result, see
+	 * {@link TimeWindow#intersects(TimeWindow)}.
+	 * 
+	 * @param window
+	 *            the window to intersect
+	 * @param result
+	 *            receives the values, in the order of their start times
+	 * @return the number of values added
+	 */
+	public int findIntersecting(TimeWindow window,
+			Collection<? super T> result) {
+		return find(root, window.getStartTime(), window.getEndTime(), window,
+				result);
+	}
+
+	/**
+	 * Checks if any window other than the one of the given value intersects
+	 * the window, stopping at the first one found.
+	 * 
+	 * @param window
+	 *            the window to intersect
+	 * @param ignore
+	 *            value not to test, e.g. the one the window belongs to, may be
+	 *            null
+	 * @return true if a window of another value intersects
+	 */
+	public boolean isIntersecting(TimeWindow window, T ignore) {
+		return findFirst(root, window, ignore) != null;
+	}
+
+	/**
+	 * Collects the intersecting entries of the subtree in order.
+	 */
+	private static <T> int find(Entry<T> node, long start, long end,
+			TimeWindow window, Collection<? super T> result) {
+		// closed bounds, the exact test follows for the candidates
+		if (node == null || node.maxEnd < start) {
+			return 0;
+		}
+
+		int count = find(node.left, start, end, window, result);
+		if (node.window.getStartTime() > end) {
+			return count;
+		}
+
+		if (window != null ? node.window.intersects(window)
+				: node.window.intersects(start, end)) {
+			result.add(node.value);
+			count++;
+		}
+		return count + find(node.right, start, end, window, result);
+	}
+
+	/**
+	 * @return the first intersecting entry of the subtree with another value
+	 *         than ignore, null if none
+	 */
+	private static <T> Entry<T> findFirst(Entry<T> node, TimeWindow window,
+			T ignore) {
+		if (node == null || node.maxEnd < window.getStartTime()) {
+			return null;
+		}
+
+		Entry<T> found = findFirst(node.left, window, ignore);
+		if (found != null || node.window.getStartTime() > window.getEndTime()) {
+			return found;
+		}
+
+		if (!node.value.equals(ignore) && node.window.intersects(window)) {
+			return node;
+		}
+		return findFirst(node.right, window, ignore);
+	}
+
+	private static <T> Entry<T> insert(Entry<T> node, Entry<T> entry) {
+		if (node == null) {
+			entry.left = null;
+			entry.right = null;
+			entry.update();
+			return entry;
+		}
+
+		if (entry.compareTo(node) < 0) {
+			node.left = insert(node.left, entry);
+		} else {
+			node.right = insert(node.right, entry);
+		}
+		return balance(node);
+	}
+
+	private static <T> Entry<T> delete(Entry<T> node, Entry<T> entry) {
+		if (node == entry) {
+			if (node.left == null) {
+				return node.right;
+			}
+			if (node.right == null) {
+				return node.left;
+			}
+
+			// the successor takes the place of the node
+			Entry<T> successor = node.right;
+			while (successor.left != null) {
+				successor = successor.left;
+			}
+			successor.right = deleteMin(node.right);
+			successor.left = node.left;
+			return balance(successor);
+		}
+
+		if (entry.compareTo(node) < 0) {
+			node.left = delete(node.left, entry);
+		} else {
+			node.right = delete(node.right, entry);
+		}
+		return balance(node);
+	}
+
+	private static <T> Entry<T> deleteMin(Entry<T> node) {
+		if (node.left == null) {
+			return node.right;
+		}
+		node.left = deleteMin(node.left);
+		return balance(node);
+	}
+
+	private static <T> Entry<T> balance(Entry<T> node) {
+		int difference = height(node.left) - height(node.right);
+		if (difference > 1) {
+			if (height(node.left.left) < height(node.left.right)) {
+				node.left = rotateLeft(node.left);
+			}
+			return rotateRight(node);
+		}
+		if (difference < -1) {
+			if (height(node.right.right) < height(node.right.left)) {
+				node.right = rotateRight(node.right);
+			}
+			return rotateLeft(node);
+		}
+
+		node.update();
+		return node;
+	}
+
+	private static <T> Entry<T> rotateLeft(Entry<T> node) {
+		Entry<T> right = node.right;
+		node.right = right.left;
+		right.left = node;
+		node.update();
+		right.update();
+		return right;
+	}
+
+	private static <T> Entry<T> rotateRight(Entry<T> node) {
+		Entry<T> left = node.left;
+		node.left = left.right;
+		left.right = node;
+		node.update();
+		left.update();
+		return left;
+	}
+
+	private static int height(Entry<?> node) {
+		return node != null ? node.height : 0;
+	}
+
+	/**
+	 * A node of the tree.
+	 */
+	private static class Entry<T> {
+
+		final T value;
+
+		final ImmutableTimeWindow window;
+
+		/** orders entries with equal start times */
+		final long sequence;
+
+		Entry<T> left;
+
+		Entry<T> right;
+
+		int height;
+
+		/** the latest end time in the subtree */
+		long maxEnd;
+
+		Entry(T value, ImmutableTimeWindow window, long sequence) {
+			this.value = value;
+			this.window = window;
+			this.sequence = sequence;
+		}
+
+		int compareTo(Entry<T> other) {
+			if (window.getStartTime() != other.window.getStartTime()) {
+				return window.getStartTime() < other.window.getStartTime() ? -1
+						: 1;
+			}
+			return sequence < other.sequence ? -1
+					: sequence == other.sequence ? 0 : 1;
+		}
+
+		/**
+		 * Recalculates height and latest end from the children.
+		 */
+		void update() {
+			height = Math.max(height(left), height(right)) + 1;
+			maxEnd = window.getEndTime();
+			if (left != null && left.maxEnd > maxEnd) {
+				maxEnd = left.maxEnd;
+			}
+			if (right != null && right.maxEnd > maxEnd) {
+				maxEnd = right.maxEnd;
+			}
+		}
+	}
+}
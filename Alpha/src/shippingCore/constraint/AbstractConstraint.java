@@ -0,0 +1,120 @@
+package shippingCore.constraint;
+
+import shippingCore.model.Route;
+
+/**
+ * Base class for constraints. Subclasses only compute the violation amount,
+ * {@link #check(int, double, Object, Route)} is derived from it: soft
+ * violations return their costs, hard violations throw a
+ * {@link HardConstraintException}.
+ * 
+ */
+public abstract class AbstractConstraint implements IConstraint {
+	/** the error code of this constraint */
+	private final int errorCode;
+
+	/** description used for the violations of this constraint */
+	private final String description;
+
+	/** fix costs added as soon as the constraint is violated */
+	private final double baseCost;
+
+	/** costs per unit of the violation amount */
+	private final double variableCost;
+
+	/** flag that specifies if violations are soft */
+	private final boolean softViolationAllowed;
+
+	/**
+	 * @param errorCode
+	 *            the error code of this constraint (see {@link IConstraint})
+	 * @param description
+	 *            description used for the violations of this constraint
+	 * @param baseCost
+	 *            fix costs added as soon as the constraint is violated
+	 * @param variableCost
+	 *            costs per unit of the violation amount
+	 * @param softViolationAllowed
+	 *            true if violations are soft, false if they are hard
+	 */
+	protected AbstractConstraint(int errorCode, String description,
+			double baseCost, double variableCost,
+			boolean softViolationAllowed) {
+		this.errorCode = errorCode;
+		this.description = description;
+		this.baseCost = baseCost;
+		this.variableCost = variableCost;
+		this.softViolationAllowed = softViolationAllowed;
+	}
+
+	@Override
+	public double check(int nodeIndex, double value, Object parent,
+			Route route) throws HardConstraintException {
+		double amount = getViolationAmount(nodeIndex, value, parent, route);
+
+		if (amount <= 0) {
+			return 0.0;
+		}
+
+		if (!isSoftViolationAllowed(parent)) {
+			throw new HardConstraintException(
+					createViolation(amount, parent, route, true));
+		}
+
+		return getCostForViolation(amount, parent);
+	}
+
+	/**
+	 * Creates the violation object describing a violation of this constraint.
+	 * 
+	 * @param amount
+	 *            the amount by which the constraint is violated
+	 * @param parent
+	 *            the object which caused the violation
+	 * @param route
+	 *            the route on which the violation occurred
+	 * @param isHardViolation
+	 *            true for hard violations
+	 * @return the violation
+	 */
+	public ConstraintViolation createViolation(double amount, Object parent,
+			Route route, boolean isHardViolation) {
+		return new ConstraintViolation(description, errorCode,
+				getViolationStart(parent), amount, parent,
+				route != null ? route.getRouteId() : -1, isHardViolation);
+	}
+
+	@Override
+	public double getCostForViolation(double violationAmount, Object parent) {
+		return baseCost + variableCost * violationAmount;
+	}
+
+	@Override
+	public double getBaseCostForViolation() {
+		return baseCost;
+	}
+
+	/**
+	 * @return the costs per unit of the violation amount
+	 */
+	public double getVariableCost() {
+		return variableCost;
+	}
+
+	@Override
+	public boolean isSoftViolationAllowed(Object parent) {
+		return softViolationAllowed;
+	}
+
+	@Override
+	public int getErrorCode() {
+		return errorCode;
+	}
+
+	/**
+	 * @return description used for the violations of this constraint
+	 */
+	public String getDescription() {
+		return description;
+	}
+}
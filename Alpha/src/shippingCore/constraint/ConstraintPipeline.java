@@ -0,0 +1,329 @@
+package shippingCore.constraint;
+
+import java.util.List;
+
+import service.exceptions.InvalidArgumentException;
+import shippingCore.calculations.RouteEvaluation;
+import shippingCore.model.Node;
+import shippingCore.model.Route;
+
+/**
+ * All configured constraints compiled into one list of stages that is checked
+ * in a single pass over the nodes of a route. Each stage knows which value of
+ * the {@link RouteEvaluation} its constraint checks and at which nodes.
+ * <p>
+ * The pipeline uses
+ * {@link IConstraint#getViolationAmount(int, double, Object, Route)} instead
+ * of {@link IConstraint#check(int, double, Object, Route)}, so no
+ * {@link HardConstraintException} is thrown and no object is created. The
+ * violations are written into a {@link ConstraintResultBuffer};
+ * {@link ConstraintViolation} objects are only created by
+ * {@link #createViolations(Route, ConstraintResultBuffer, List)} when a
+ * solution is reported.
+ * <p>
+ * The parent passed to the constraints is the node for node stages and the
+ * route for {@link #SCOPE_ROUTE_START} and {@link #SCOPE_ROUTE_END} stages.
+ */
+public class ConstraintPipeline {
+	/** the constraint decides itself what to check, the value is 0 */
+	public static final int VALUE_NONE = 0;
+
+	/** the arrival time at the node */
+	public static final int VALUE_ARRIVAL_TIME = 1;
+
+	/** the time the service at the node starts */
+	public static final int VALUE_START_TIME = 2;
+
+	/** the time the vehicle leaves the node */
+	public static final int VALUE_DEPARTURE_TIME = 3;
+
+	/** the time waited at the node */
+	public static final int VALUE_WAITING_TIME = 4;
+
+	/** the weight on the vehicle after servicing the node */
+	public static final int VALUE_LOAD = 5;
+
+	/** the distance of the leg to the node */
+	public static final int VALUE_LEG_DISTANCE = 6;
+
+	/** the distance from the start of the route to the node */
+	public static final int VALUE_DISTANCE = 7;
+
+	/** the maximum weight on the vehicle along the route */
+	public static final int VALUE_MAX_LOAD = 8;
+
+	/** checked at all nodes except the zero node */
+	public static final int SCOPE_ALL_NODES = 1;
+
+	/** checked at pickup nodes */
+	public static final int SCOPE_PICKUPS = 2;
+
+	/** checked at delivery nodes */
+	public static final int SCOPE_DELIVERIES = 4;
+
+	/** checked once at the zero node with the route as parent */
+	public static final int SCOPE_ROUTE_START = 8;
+
+	/** checked once at the last node with the route as parent */
+	public static final int SCOPE_ROUTE_END = 16;
+
+	/** the constraints of the stages */
+	private IConstraint[] constraints = new IConstraint[16];
+
+	/** the value checked by the stages */
+	private int[] valueSources = new int[16];
+
+	/** the nodes checked by the stages */
+	private int[] scopes = new int[16];
+
+	/** number of stages */
+	private int stageCount;
+
+	/**
+	 * Compiles all constraints of the factory. Constraints the factory returns
+	 * null for are not configured and skipped.
+	 * 
+	 * @param factory
+	 *            the factory providing the configured constraints
+	 * @return the compiled pipeline
+	 */
+	public static ConstraintPipeline compile(IConstraintFactory factory) {
+		ConstraintPipeline pipeline = new ConstraintPipeline();
+
+		pipeline.addStage(factory.getRouteTooEarlyConstraint(),
+				VALUE_DEPARTURE_TIME, SCOPE_ROUTE_START);
+		pipeline.addStage(factory.getCapacityTypeConstraint(), VALUE_NONE,
+				SCOPE_PICKUPS);
+		pipeline.addStage(factory.getMaxEmptyKilometersConstraint(),
+				VALUE_LEG_DISTANCE, SCOPE_ALL_NODES);
+		pipeline.addStage(factory.getEarliestPickupTimeConstraint(),
+				VALUE_ARRIVAL_TIME, SCOPE_PICKUPS);
+		pipeline.addStage(factory.getLatestPickupTimeConstraint(),
+				VALUE_START_TIME, SCOPE_PICKUPS);
+		pipeline.addStage(factory.getEarliestDeliveryTimeConstraint(),
+				VALUE_ARRIVAL_TIME, SCOPE_DELIVERIES);
+		pipeline.addStage(factory.getLatestDeliveryTimeConstraint(),
+				VALUE_START_TIME, SCOPE_DELIVERIES);
+		pipeline.addStage(factory.getWaitTimeConstraint(), VALUE_WAITING_TIME,
+				SCOPE_ALL_NODES);
+		pipeline.addStage(factory.getLoadUnloadSequenceConstraint(),
+				VALUE_NONE, SCOPE_DELIVERIES);
+		pipeline.addStage(factory.getLifoConstraint(), VALUE_NONE,
+				SCOPE_DELIVERIES);
+		pipeline.addStage(factory.getRouteTooLateConstraint(),
+				VALUE_DEPARTURE_TIME, SCOPE_ROUTE_END);
+		pipeline.addStage(factory.getWeightConstraint(), VALUE_MAX_LOAD,
+				SCOPE_ROUTE_END);
+		pipeline.addStage(factory.getUtilizationConstraint(), VALUE_MAX_LOAD,
+				SCOPE_ROUTE_END);
+		pipeline.addStage(factory.getTourPickupOverlapConstraint(),
+				VALUE_NONE, SCOPE_ROUTE_END);
+
+		return pipeline;
+	}
+
+	/**
+	 * Adds a stage to the end of this pipeline.
+	 * 
+	 * @param constraint
+	 *            the constraint to check, ignored if null
+	 * @param valueSource
+	 *            one of the VALUE_ constants
+	 * @param scope
+	 *            combination of the SCOPE_ constants
+	 */
+	public void addStage(IConstraint constraint, int valueSource, int scope) {
+		if (constraint == null) {
+			return;
+		}
+		if (valueSource < VALUE_NONE || valueSource > VALUE_MAX_LOAD) {
+			throw new InvalidArgumentException(
+					"Unknown value source: " + valueSource);
+		}
+
+		if (stageCount == constraints.length) {
+			int capacity = stageCount * 2;
+			IConstraint[] newConstraints = new IConstraint[capacity];
+			int[] newValueSources = new int[capacity];
+			int[] newScopes = new int[capacity];
+			System.arraycopy(constraints, 0, newConstraints, 0, stageCount);
+			System.arraycopy(valueSources, 0, newValueSources, 0, stageCount);
+			System.arraycopy(scopes, 0, newScopes, 0, stageCount);
+			constraints = newConstraints;
+			valueSources = newValueSources;
+			scopes = newScopes;
+		}
+
+		constraints[stageCount] = constraint;
+		valueSources[stageCount] = valueSource;
+		scopes[stageCount] = scope;
+		stageCount++;
+	}
+
+	/**
+	 * @return the number of stages
+	 */
+	public int getStageCount() {
+		return stageCount;
+	}
+
+	/**
+	 * @param stage
+	 *            index of the stage
+	 * @return the constraint of the stage
+	 */
+	public IConstraint getConstraint(int stage) {
+		return constraints[stage];
+	}
+
+	/**
+	 * Checks all stages at all nodes of the route.
+	 * 
+	 * @param route
+	 *            the route to check
+	 * @param evaluation
+	 *            the up to date evaluation of the route
+	 * @param buffer
+	 *            receives the violations, cleared before
+	 * @return the costs of all violations of the route
+	 */
+	public double evaluate(Route route, RouteEvaluation evaluation,
+			ConstraintResultBuffer buffer) {
+		return evaluate(route, evaluation, 0, buffer);
+	}
+
+	/**
+	 * Checks all stages from the given node index to the end of the route. The
+	 * buffer must contain the violations of the previous check of this route;
+	 * the violations before fromIndex are kept.
+	 * 
+	 * @param route
+	 *            the route to check
+	 * @param evaluation
+	 *            the up to date evaluation of the route
+	 * @param fromIndex
+	 *            the first changed node index
+	 * @param buffer
+	 *            the violations of the previous check of this route
+	 * @return the costs of all violations of the route
+	 */
+	public double evaluate(Route route, RouteEvaluation evaluation,
+			int fromIndex, ConstraintResultBuffer buffer) {
+		buffer.clearFrom(fromIndex);
+
+		int last = evaluation.getNodeCount() - 1;
+		for (int i = fromIndex; i <= last; i++) {
+			Node node = route.getNode(i);
+			int nodeScope = getNodeScope(node);
+			int routeScope = (i == 0 ? SCOPE_ROUTE_START : 0)
+					| (i == last ? SCOPE_ROUTE_END : 0);
+
+			for (int stage = 0; stage < stageCount; stage++) {
+				int scope = scopes[stage];
+				Object parent;
+
+				if ((scope & nodeScope) != 0) {
+					parent = node;
+				} else if ((scope & routeScope) != 0) {
+					parent = route;
+				} else {
+					continue;
+				}
+
+				IConstraint constraint = constraints[stage];
+				double amount = constraint.getViolationAmount(i,
+						getValue(valueSources[stage], evaluation, i), parent,
+						route);
+
+				if (amount > 0) {
+					buffer.add(stage, i, amount,
+							constraint.getCostForViolation(amount, parent),
+							!constraint.isSoftViolationAllowed(parent));
+				}
+			}
+		}
+
+		return buffer.getTotalCost();
+	}
+
+	/**
+	 * @return the scope bits matching the node
+	 */
+	private static int getNodeScope(Node node) {
+		if (node.isPickup()) {
+			return SCOPE_ALL_NODES | SCOPE_PICKUPS;
+		}
+		if (node.isDelivery()) {
+			return SCOPE_ALL_NODES | SCOPE_DELIVERIES;
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the value of the given source at the node
+	 */
+	private static double getValue(int valueSource, RouteEvaluation e,
+			int index) {
+		switch (valueSource) {
+		case VALUE_ARRIVAL_TIME:
+			return e.getArrivalTime(index);
+		case VALUE_START_TIME:
+			return e.getStartTime(index);
+		case VALUE_DEPARTURE_TIME:
+			return e.getDepartureTime(index);
+		case VALUE_WAITING_TIME:
+			return e.getStartTime(index) - e.getArrivalTime(index);
+		case VALUE_LOAD:
+			return e.getLoad(index);
+		case VALUE_LEG_DISTANCE:
+			return index > 0 ? e.getDistance(index) - e.getDistance(index - 1)
+					: 0.0;
+		case VALUE_DISTANCE:
+			return e.getDistance(index);
+		case VALUE_MAX_LOAD:
+			return e.getMaxLoad();
+		default:
+			return 0.0;
+		}
+	}
+
+	/**
+	 * Creates the violation objects for the violations in the buffer. Only
+	 * meant for reporting a final solution.
+	 * 
+	 * @param route
+	 *            the route the buffer was filled for
+	 * @param buffer
+	 *            the violations of the route
+	 * @param result
+	 *            receives the created violations
+	 */
+	public void createViolations(Route route, ConstraintResultBuffer buffer,
+			List<ConstraintViolation> result) {
+		int last = route.getNodeCount() - 1;
+
+		for (int i = 0; i < buffer.getCount(); i++) {
+			int stage = buffer.getStage(i);
+			int nodeIndex = buffer.getNodeIndex(i);
+			IConstraint constraint = constraints[stage];
+
+			Node node = route.getNode(nodeIndex);
+			Object parent = (scopes[stage] & getNodeScope(node)) != 0 ? node
+					: route;
+
+			if (constraint instanceof AbstractConstraint) {
+				result.add(((AbstractConstraint) constraint).createViolation(
+						buffer.getAmount(i), parent, route, buffer.isHard(i)));
+			} else {
+				result.add(new ConstraintViolation(
+						"Constraint " + constraint.getErrorCode()
+								+ " violated at node " + nodeIndex + " of "
+								+ last,
+						constraint.getErrorCode(),
+						constraint.getViolationStart(parent),
+						buffer.getAmount(i), parent, route.getRouteId(),
+						buffer.isHard(i)));
+			}
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package shippingCore.constraint;
+
+/**
+ * Reusable buffer for the results of a {@link ConstraintPipeline} run. Every
+ * violation is stored as a row of primitive values, so checking constraints
+ * does not create objects. {@link ConstraintViolation} objects are only
+ * created on request by
+ * {@link ConstraintPipeline#createViolations(shippingCore.model.Route, ConstraintResultBuffer, java.util.List)}
+ * .
+ * <p>
+ * Violations are stored in ascending node order.
+ */
+public class ConstraintResultBuffer {
+	/** number of stored violations */
+	private int count;
+
+	/** pipeline stage of the violated constraint */
+	private int[] stages;
+
+	/** index of the node the violation occurred at */
+	private int[] nodeIndices;
+
+	/** amount by which the constraint was violated */
+	private double[] amounts;
+
+	/** costs of the violation */
+	private double[] costs;
+
+	/** flag that specifies if the violation is hard */
+	private boolean[] hard;
+
+	/** sum of all costs */
+	private double totalCost;
+
+	/** number of hard violations */
+	private int hardCount;
+
+	public ConstraintResultBuffer() {
+		this(16);
+	}
+
+	/**
+	 * @param capacity
+	 *            initial number of violations that can be stored
+	 */
+	public ConstraintResultBuffer(int capacity) {
+		stages = new int[capacity];
+		nodeIndices = new int[capacity];
+		amounts = new double[capacity];
+		costs = new double[capacity];
+		hard = new boolean[capacity];
+	}
+
+	/**
+	 * Removes all violations.
+	 */
+	public void clear() {
+		count = 0;
+		totalCost = 0;
+		hardCount = 0;
+	}
+
+	/**
+	 * Removes all violations at or after the given node index.
+	 * 
+	 * @param nodeIndex
+	 *            the first node index to remove the violations of
+	 */
+	public void clearFrom(int nodeIndex) {
+		while (count > 0 && nodeIndices[count - 1] >= nodeIndex) {
+			count--;
+			if (hard[count]) {
+				hardCount--;
+			}
+		}
+
+		// summed up again to avoid accumulating rounding errors
+		totalCost = 0;
+		for (int i = 0; i < count; i++) {
+			totalCost += costs[i];
+		}
+	}
+
+	/**
+	 * Stores a violation.
+	 * 
+	 * @param stage
+	 *            pipeline stage of the violated constraint
+	 * @param nodeIndex
+	 *            index of the node the violation occurred at
+	 * @param amount
+	 *            amount by which the constraint was violated
+	 * @param cost
+	 *            costs of the violation
+	 * @param isHard
+	 *            true for hard violations
+	 */
+	public void add(int stage, int nodeIndex, double amount, double cost,
+			boolean isHard) {
+		if (count == stages.length) {
+			grow();
+		}
+
+		stages[count] = stage;
+		nodeIndices[count] = nodeIndex;
+		amounts[count] = amount;
+		costs[count] = cost;
+		hard[count] = isHard;
+		count++;
+
+		totalCost += cost;
+		if (isHard) {
+			hardCount++;
+		}
+	}
+
+	private void grow() {
+		int capacity = stages.length * 2;
+		int[] newStages = new int[capacity];
+		int[] newNodeIndices = new int[capacity];
+		double[] newAmounts = new double[capacity];
+		double[] newCosts = new double[capacity];
+		boolean[] newHard = new boolean[capacity];
+
+		System.arraycopy(stages, 0, newStages, 0, count);
+		System.arraycopy(nodeIndices, 0, newNodeIndices, 0, count);
+		System.arraycopy(amounts, 0, newAmounts, 0, count);
+		System.arraycopy(costs, 0, newCosts, 0, count);
+		System.arraycopy(hard, 0, newHard, 0, count);
+
+		stages = newStages;
+		nodeIndices = newNodeIndices;
+		amounts = newAmounts;
+		costs = newCosts;
+		hard = newHard;
+	}
+
+	/**
+	 * @return the number of stored violations
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the sum of the costs of all violations
+	 */
+	public double getTotalCost() {
+		return totalCost;
+	}
+
+	/**
+	 * @return the number of hard violations
+	 */
+	public int getHardCount() {
+		return hardCount;
+	}
+
+	/**
+	 * @return true if at least one hard violation is stored
+	 */
+	public boolean hasHardViolation() {
+		return hardCount > 0;
+	}
+
+	/**
+	 * @param index
+	 *            index of the violation
+	 * @return pipeline stage of the violated constraint
+	 */
+	public int getStage(int index) {
+		return stages[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the violation
+	 * @return index of the node the violation occurred at
+	 */
+	public int getNodeIndex(int index) {
+		return nodeIndices[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the violation
+	 * @return amount by which the constraint was violated
+	 */
+	public double getAmount(int index) {
+		return amounts[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the violation
+	 * @return costs of the violation
+	 */
+	public double getCost(int index) {
+		return costs[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the violation
+	 * @return true if the violation is hard
+	 */
+	public boolean isHard(int index) {
+		return hard[index];
+	}
+}
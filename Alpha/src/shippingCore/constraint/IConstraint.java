@@ -151,6 +151,9 @@ public interface IConstraint {
 	/** fix cost for an overloaded truck (weight) */
 	public final static double TRUCK_OVERLOAD_WEIGHT_FIXCOST = 1e15;
 
+	/** variable cost for an overloaded truck (weight) per unit of weight */
+	public final static double TRUCK_OVERLOAD_WEIGHT_VARIABLECOST = 1e6;
+
 	/** fix cost for an overloaded truck (weight) */
 	public final static double TRUCK_FULL_VIOLATION_FIXCOST = 1.5e15;
 
@@ -280,4 +283,38 @@ public interface IConstraint {
 	public double getBaseCostForViolation();
 
 	public boolean isSoftViolationAllowed(Object parent);
+
+	/**
+	 * @return the error code reported when this constraint is violated
+	 */
+	public int getErrorCode();
+
+	/**
+	 * Checks the passed value against this constraint without throwing an
+	 * exception or creating objects. Used by {@link ConstraintPipeline} in the
+	 * inner loops of the optimization.
+	 * 
+	 * @param nodeIndex
+	 *            - index of the node on which to check the constraint (see
+	 *            {@link #check(int, double, Object, Route)})
+	 * @param value
+	 *            - the value that is checked if it satisfies this constraint.
+	 * @param parent
+	 *            - the route/order to which this constraint belongs
+	 * @param route
+	 *            - the route to which this constraint belongs
+	 * @return 0.0 if the constraint is not violated, else the amount by which
+	 *         it is violated (a positive value)
+	 */
+	public double getViolationAmount(int nodeIndex, final double value,
+			final Object parent, final Route route);
+
+	/**
+	 * @param violationAmount
+	 *            the amount by which the constraint is violated
+	 * @param parent
+	 *            the parent Object on whom the constraints are checked
+	 * @return the fix and variable costs for the violation
+	 */
+	public double getCostForViolation(double violationAmount, Object parent);
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package shippingCore.constraint;
+
+import shippingCore.model.Node;
+import shippingCore.model.Route;
+
+/**
+ * Soft constraint on the latest pickup or delivery time. The parent is the
+ * node, the checked value is the time the service at the node starts.
+ * 
+ */
+public class LatestTimeConstraint extends AbstractConstraint {
+
+	/**
+	 * @param errorCode
+	 *            {@link IConstraint#LATEST_PICKUP_TIME_VIOLATION} or
+	 *            {@link IConstraint#LATEST_DELIVERY_TIME_VIOLATION}
+	 * @param description
+	 *            description used for the violations
+	 * @param baseCost
+	 *            fix costs of a violation
+	 * @param variableCost
+	 *            costs per millisecond too late
+	 */
+	private LatestTimeConstraint(int errorCode, String description,
+			double baseCost, double variableCost) {
+		super(errorCode, description, baseCost, variableCost, true);
+	}
+
+	/**
+	 * @return the constraint for the latest pickup time
+	 */
+	public static LatestTimeConstraint createPickupConstraint() {
+		return new LatestTimeConstraint(LATEST_PICKUP_TIME_VIOLATION,
+				"Latest pickup time violated",
+				LATEST_PICKUP_TIME_VIOLATION_FIXCOST,
+				LATEST_PICKUP_TIME_VIOLATION_VARIABLECOST);
+	}
+
+	/**
+	 * @return the constraint for the latest delivery time
+	 */
+	public static LatestTimeConstraint createDeliveryConstraint() {
+		return new LatestTimeConstraint(LATEST_DELIVERY_TIME_VIOLATION,
+				"Latest delivery time violated",
+				LATEST_DELIVERY_TIME_VIOLATION_FIXCOST,
+				LATEST_DELIVERY_TIME_VIOLATION_VARIABLECOST);
+	}
+
+	@Override
+	public double getViolationAmount(int nodeIndex, double value,
+			Object parent, Route route) {
+		return ((Node) parent).getTimeWindow().getTimeAfter((long) value);
+	}
+
+	@Override
+	public double getViolationStart(Object parent) {
+		return ((Node) parent).getTimeWindow().getEndTime();
+	}
+}
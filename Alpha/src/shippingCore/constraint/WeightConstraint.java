@@ -0,0 +1,33 @@
+package shippingCore.constraint;
+
+import shippingCore.model.Route;
+
+/**
+ * Hard constraint on the capacity of the vehicle. The parent is the route,
+ * the checked value is the maximum weight on the vehicle along the route.
+ * The costs are the overload costs of the objective, without fix costs.
+ * 
+ */
+public class WeightConstraint extends AbstractConstraint {
+
+	/**
+	 * Creates the constraint with the costs of
+	 * {@link IConstraint#TRUCK_OVERLOAD_WEIGHT_VARIABLECOST} per unit of
+	 * weight.
+	 */
+	public WeightConstraint() {
+		super(TRUCK_OVERLOAD_WEIGHT, "Vehicle overloaded (weight)", 0,
+				TRUCK_OVERLOAD_WEIGHT_VARIABLECOST, false);
+	}
+
+	@Override
+	public double getViolationAmount(int nodeIndex, double value,
+			Object parent, Route route) {
+		return value - route.getVehicle().getCapacityWeight();
+	}
+
+	@Override
+	public double getViolationStart(Object parent) {
+		return ((Route) parent).getVehicle().getCapacityWeight();
+	}
+}
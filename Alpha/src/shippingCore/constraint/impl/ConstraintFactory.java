@@ -0,0 +1,139 @@
+package shippingCore.constraint.impl;
+
+import shippingCore.constraint.IConstraint;
+import shippingCore.constraint.IConstraintFactory;
+import shippingCore.constraint.LatestTimeConstraint;
+import shippingCore.constraint.WeightConstraint;
+
+/**
+ * The constraints the objective of the shipping problem prices: the latest
+ * pickup and delivery times and the capacity of the vehicles. The
+ * constraints are immutable and shared by all factories. The route
+ * calculation and the objective price lateness and overload with these
+ * instances, so a pipeline compiled from this factory reports the same
+ * costs as the search. The constraints the objective does not price are not
+ * configured and null.
+ */
+public class ConstraintFactory implements IConstraintFactory {
+
+	/** the latest pickup time, soft */
+	public static final LatestTimeConstraint LATEST_PICKUP_TIME =
+			LatestTimeConstraint.createPickupConstraint();
+
+	/** the latest delivery time, soft */
+	public static final LatestTimeConstraint LATEST_DELIVERY_TIME =
+			LatestTimeConstraint.createDeliveryConstraint();
+
+	/**
+	 * the capacity of the vehicle, hard for the pipeline, the search prices
+	 * an overload with its costs to get back to feasible routes
+	 */
+	public static final WeightConstraint WEIGHT = new WeightConstraint();
+
+	/**
+	 * @return null, not configured: the vehicles have no capacity types
+	 */
+	@Override
+	public IConstraint getCapacityTypeConstraint() {
+		return null;
+	}
+
+	/**
+	 * @return null, not configured: empty kilometers are only priced as leg
+	 *         costs
+	 */
+	@Override
+	public IConstraint getMaxEmptyKilometersConstraint() {
+		return null;
+	}
+
+	/**
+	 * @return null, not configured: the operators keep the LIFO order
+	 *         themselves if it is required
+	 */
+	@Override
+	public IConstraint getLifoConstraint() {
+		return null;
+	}
+
+	/**
+	 * @return null, not configured: the operators keep the pickups before
+	 *         their deliveries
+	 */
+	@Override
+	public IConstraint getLoadUnloadSequenceConstraint() {
+		return null;
+	}
+
+	/**
+	 * @return null, not configured: arriving early means waiting
+	 */
+	@Override
+	public IConstraint getEarliestDeliveryTimeConstraint() {
+		return null;
+	}
+
+	/**
+	 * @return null, not configured: arriving early means waiting
+	 */
+	@Override
+	public IConstraint getEarliestPickupTimeConstraint() {
+		return null;
+	}
+
+	@Override
+	public IConstraint getLatestDeliveryTimeConstraint() {
+		return LATEST_DELIVERY_TIME;
+	}
+
+	@Override
+	public IConstraint getLatestPickupTimeConstraint() {
+		return LATEST_PICKUP_TIME;
+	}
+
+	/**
+	 * @return null, not configured: the routes start at the availability of
+	 *         their vehicles
+	 */
+	@Override
+	public IConstraint getRouteTooEarlyConstraint() {
+		return null;
+	}
+
+	/**
+	 * @return null, not configured: the routes have no latest end
+	 */
+	@Override
+	public IConstraint getRouteTooLateConstraint() {
+		return null;
+	}
+
+	/**
+	 * @return null, not configured: the utilization is not priced
+	 */
+	@Override
+	public IConstraint getUtilizationConstraint() {
+		return null;
+	}
+
+	@Override
+	public IConstraint getWeightConstraint() {
+		return WEIGHT;
+	}
+
+	/**
+	 * @return null, not configured: waiting is not priced
+	 */
+	@Override
+	public IConstraint getWaitTimeConstraint() {
+		return null;
+	}
+
+	/**
+	 * @return null, not configured: the routes have no tours
+	 */
+	@Override
+	public IConstraint getTourPickupOverlapConstraint() {
+		return null;
+	}
+}
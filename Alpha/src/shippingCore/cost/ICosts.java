@@ -1,5 +1,42 @@
 package shippingCore.cost;
 
+/**
+ * The cost model of the legs of a route. Implementations are immutable, so
+ * one model is shared by all routes of a vehicle and their copies and may be
+ * used by several threads at once. Pricing a leg or a whole route creates no
+ * objects.
+ */
 public interface ICosts {
 
+	/**
+	 * @return a copy of these costs that can be changed independently, the
+	 *         costs themselves as they cannot be changed
+	 */
+	public ICosts copy();
+
+	/**
+	 * Returns the costs of one leg.
+	 * 
+	 * @param fromLocation
+	 *            distance map index of the location the leg starts at
+	 * @param toLocation
+	 *            distance map index of the location the leg ends at
+	 * @return the costs of the leg without fix costs
+	 */
+	public double getLegCost(int fromLocation, int toLocation);
+
+	/**
+	 * Returns the costs of the legs between consecutive locations, e.g. of a
+	 * whole route in one call. The legs are summed up in their order, so the
+	 * result equals the sum of their {@link #getLegCost(int, int)}.
+	 * 
+	 * @param locations
+	 *            distance map indices of the visited locations
+	 * @param offset
+	 *            index of the first location
+	 * @param count
+	 *            number of locations, the costs of count - 1 legs are summed
+	 * @return the costs of the legs without fix costs
+	 */
+	public double getLegsCost(int[] locations, int offset, int count);
 }
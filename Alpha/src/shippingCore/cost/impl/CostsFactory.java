@@ -0,0 +1,76 @@
+package shippingCore.cost.impl;
+
+import java.util.List;
+
+import service.exceptions.InvalidArgumentException;
+import service.properties.IPropertiesConstants;
+import shippingCore.cost.ICosts;
+import shippingCore.dao.IDistanceMap;
+import shippingCore.model.Vehicle;
+
+/**
+ * Creates the cost models for the ALLOCATION_ROUTEALLOCATOR_COSTMODEL_*
+ * values of {@link IPropertiesConstants}.
+ */
+public class CostsFactory {
+
+	private CostsFactory() {
+	}
+
+	/**
+	 * @param costModel
+	 *            one of the ALLOCATION_ROUTEALLOCATOR_COSTMODEL_* values
+	 * @param distanceMap
+	 *            the distances between the locations
+	 * @param vehicle
+	 *            the vehicle with the cost rates
+	 * @return new costs of the model for the vehicle, to be shared by the
+	 *         routes of the vehicle
+	 * @throws InvalidArgumentException
+	 *             if the cost model is unknown
+	 */
+	public static ICosts createCosts(String costModel,
+			IDistanceMap distanceMap, Vehicle vehicle) {
+		if (IPropertiesConstants.ALLOCATION_ROUTEALLOCATOR_COSTMODEL_FIXVARIABLE
+				.equals(costModel)) {
+			return new FixVariableCosts(distanceMap, vehicle);
+		}
+
+		if (IPropertiesConstants.ALLOCATION_ROUTEALLOCATOR_COSTMODEL_MATRIX
+				.equals(costModel)) {
+			return MatrixCosts.create(distanceMap, vehicle);
+		}
+
+		throw new InvalidArgumentException("Cost model not supported: "
+				+ costModel);
+	}
+
+	/**
+	 * Creates the costs of all vehicles at once, so vehicles with equal cost
+	 * rates share the costs of the matrix model.
+	 * 
+	 * @param costModel
+	 *            one of the ALLOCATION_ROUTEALLOCATOR_COSTMODEL_* values
+	 * @param distanceMap
+	 *            the distances between the locations
+	 * @param vehicles
+	 *            the vehicles with the cost rates
+	 * @return new costs of the model by index of the vehicle, to be shared by
+	 *         the routes of the vehicle
+	 * @throws InvalidArgumentException
+	 *             if the cost model is unknown
+	 */
+	public static ICosts[] createCosts(String costModel,
+			IDistanceMap distanceMap, List<Vehicle> vehicles) {
+		if (IPropertiesConstants.ALLOCATION_ROUTEALLOCATOR_COSTMODEL_MATRIX
+				.equals(costModel)) {
+			return MatrixCosts.create(distanceMap, vehicles);
+		}
+
+		ICosts[] costs = new ICosts[vehicles.size()];
+		for (int i = 0; i < costs.length; i++) {
+			costs[i] = createCosts(costModel, distanceMap, vehicles.get(i));
+		}
+		return costs;
+	}
+}
@@ -0,0 +1,86 @@
+package shippingCore.cost.impl;
+
+import service.properties.IConstants;
+import shippingCore.cost.ICosts;
+import shippingCore.dao.IDistanceMap;
+import shippingCore.model.Vehicle;
+
+/**
+ * Variable costs per kilometer and per hour driving. A leg costs a distance
+ * and a travel time lookup. The fix costs of using the vehicle are not part
+ * of the model, they are the ones of the vehicle.
+ */
+public class FixVariableCosts implements ICosts {
+
+	/** the distances between the locations */
+	private final IDistanceMap distanceMap;
+
+	/** costs per driven kilometer */
+	private final double costPerKilometer;
+
+	/** costs per hour driving */
+	private final double costPerHour;
+
+	/**
+	 * @param distanceMap
+	 *            the distances between the locations
+	 * @param vehicle
+	 *            the vehicle with the cost rates
+	 */
+	public FixVariableCosts(IDistanceMap distanceMap, Vehicle vehicle) {
+		this(distanceMap, vehicle.getCostPerKilometer(),
+				vehicle.getCostPerHour());
+	}
+
+	/**
+	 * @param distanceMap
+	 *            the distances between the locations
+	 * @param costPerKilometer
+	 *            costs per driven kilometer
+	 * @param costPerHour
+	 *            costs per hour driving
+	 */
+	public FixVariableCosts(IDistanceMap distanceMap,
+			double costPerKilometer, double costPerHour) {
+		this.distanceMap = distanceMap;
+		this.costPerKilometer = costPerKilometer;
+		this.costPerHour = costPerHour;
+	}
+
+	@Override
+	public ICosts copy() {
+		return this;
+	}
+
+	@Override
+	public double getLegCost(int fromLocation, int toLocation) {
+		return distanceMap.getDistance(fromLocation, toLocation)
+				* costPerKilometer
+				+ distanceMap.getTravelTime(fromLocation, toLocation)
+						* costPerHour / IConstants.HOUR;
+	}
+
+	@Override
+	public double getLegsCost(int[] locations, int offset, int count) {
+		double sum = 0;
+		int end = offset + count - 1;
+		for (int i = offset; i < end; i++) {
+			sum += getLegCost(locations[i], locations[i + 1]);
+		}
+		return sum;
+	}
+
+	/**
+	 * @return costs per driven kilometer
+	 */
+	public double getCostPerKilometer() {
+		return costPerKilometer;
+	}
+
+	/**
+	 * @return costs per hour driving
+	 */
+	public double getCostPerHour() {
+		return costPerHour;
+	}
+}
@@ -0,0 +1,141 @@
+package shippingCore.cost.impl;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import service.exceptions.InvalidArgumentException;
+import service.properties.IConstants;
+import shippingCore.cost.ICosts;
+import shippingCore.dao.IDistanceMap;
+import shippingCore.model.Vehicle;
+
+/**
+ * The costs of every leg read from a cost matrix. The matrix is stored row by
+ * row in one array, so a leg costs one array access instead of a distance and
+ * a travel time lookup. It takes size^2 doubles, so it pays off for vehicles
+ * with costs that are not proportional to distance and time or for few
+ * locations. Vehicles with the same cost rates share one instance, see
+ * {@link #create(IDistanceMap, List)}.
+ */
+public class MatrixCosts implements ICosts {
+
+	/** the most entries of a matrix, the largest array the VMs allocate */
+	public static final int MAX_ENTRIES = Integer.MAX_VALUE - 8;
+
+	/** the costs of the leg from i to j at i * size + j */
+	private final double[] matrix;
+
+	/** number of locations */
+	private final int size;
+
+	/**
+	 * @param matrix
+	 *            the costs of the leg from i to j at i * size + j, not copied
+	 *            and not to be changed afterwards
+	 * @param size
+	 *            number of locations
+	 * @throws InvalidArgumentException
+	 *             if the matrix is not size * size long
+	 */
+	public MatrixCosts(double[] matrix, int size) {
+		if (matrix.length != (long) size * size) {
+			throw new InvalidArgumentException("Cost matrix of "
+					+ matrix.length + " entries for " + size + " locations");
+		}
+		this.matrix = matrix;
+		this.size = size;
+	}
+
+	/**
+	 * Creates the costs with a matrix of the cost rates of the vehicle
+	 * applied to the distances and travel times of the distance map.
+	 * 
+	 * @param distanceMap
+	 *            the distances between the locations
+	 * @param vehicle
+	 *            the vehicle with the cost rates
+	 * @return the new costs
+	 * @throws InvalidArgumentException
+	 *             if the matrix of the distance map would have more than
+	 *             {@link #MAX_ENTRIES} entries
+	 */
+	public static MatrixCosts create(IDistanceMap distanceMap,
+			Vehicle vehicle) {
+		int size = distanceMap.getSize();
+		long entries = (long) size * size;
+		if (entries > MAX_ENTRIES) {
+			throw new InvalidArgumentException("Cost matrix of " + entries
+					+ " entries for " + size + " locations is too large");
+		}
+
+		double costPerKilometer = vehicle.getCostPerKilometer();
+		double costPerMillisecond = vehicle.getCostPerHour() / IConstants.HOUR;
+		double[] matrix = new double[(int) entries];
+
+		for (int i = 0; i < size; i++) {
+			int row = i * size;
+			for (int j = 0; j < size; j++) {
+				matrix[row + j] = distanceMap.getDistance(i, j)
+						* costPerKilometer
+						+ distanceMap.getTravelTime(i, j) * costPerMillisecond;
+			}
+		}
+
+		return new MatrixCosts(matrix, size);
+	}
+
+	/**
+	 * Creates the costs of all vehicles. The costs are created once for every
+	 * combination of costs per kilometer and per hour and shared by the
+	 * vehicles with these rates.
+	 * 
+	 * @param distanceMap
+	 *            the distances between the locations
+	 * @param vehicles
+	 *            the vehicles with the cost rates
+	 * @return the costs by index of the vehicle
+	 * @throws InvalidArgumentException
+	 *             if the matrix of the distance map would have more than
+	 *             {@link #MAX_ENTRIES} entries
+	 */
+	public static MatrixCosts[] create(IDistanceMap distanceMap,
+			List<Vehicle> vehicles) {
+		MatrixCosts[] costs = new MatrixCosts[vehicles.size()];
+		Map<List<Double>, MatrixCosts> byRates = new HashMap<List<Double>, MatrixCosts>();
+
+		for (int i = 0; i < costs.length; i++) {
+			Vehicle vehicle = vehicles.get(i);
+			List<Double> rates = Arrays.asList(vehicle.getCostPerKilometer(),
+					vehicle.getCostPerHour());
+			costs[i] = byRates.get(rates);
+			if (costs[i] == null) {
+				costs[i] = create(distanceMap, vehicle);
+				byRates.put(rates, costs[i]);
+			}
+		}
+
+		return costs;
+	}
+
+	@Override
+	public ICosts copy() {
+		return this;
+	}
+
+	@Override
+	public double getLegCost(int fromLocation, int toLocation) {
+		return matrix[fromLocation * size + toLocation];
+	}
+
+	@Override
+	public double getLegsCost(int[] locations, int offset, int count) {
+		double sum = 0;
+		int end = offset + count - 1;
+		for (int i = offset; i < end; i++) {
+			sum += matrix[locations[i] * size + locations[i + 1]];
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,62 @@
+package shippingCore.dao;
+
+/**
+ * Interface for all distance sources (see
+ * {@link service.properties.IPropertiesConstants#DATA_DISTANCESOURCE_EWS},
+ * {@link service.properties.IPropertiesConstants#DATA_DISTANCESOURCE_DIMABIGENDIAN}
+ * and
+ * {@link service.properties.IPropertiesConstants#DATA_DISTANCESOURCE_BENCHMARK}
+ * ). Lookups are done very often during route calculation, so implementations
+ * must not allocate objects per lookup.
+ * 
+ */
+public interface IDistanceMap {
+	/**
+	 * @return the number of locations (rows/columns) of this distance map
+	 */
+	public int getSize();
+
+	/**
+	 * Returns the distance in kilometers between two locations.
+	 * 
+	 * @param fromIndex
+	 *            distance map index of the start location
+	 * @param toIndex
+	 *            distance map index of the destination location
+	 * @return the distance in kilometers
+	 */
+	public double getDistance(int fromIndex, int toIndex);
+
+	/**
+	 * Returns the travel time in milliseconds between two locations.
+	 * 
+	 * @param fromIndex
+	 *            distance map index of the start location
+	 * @param toIndex
+	 *            distance map index of the destination location
+	 * @return the travel time in milliseconds
+	 */
+	public long getTravelTime(int fromIndex, int toIndex);
+
+	/**
+	 * Returns the distance in kilometers between two locations.
+	 * 
+	 * @param from
+	 *            the start location
+	 * @param to
+	 *            the destination location
+	 * @return the distance in kilometers
+	 */
+	public double getDistance(ILocation from, ILocation to);
+
+	/**
+	 * Returns the travel time in milliseconds between two locations.
+	 * 
+	 * @param from
+	 *            the start location
+	 * @param to
+	 *            the destination location
+	 * @return the travel time in milliseconds
+	 */
+	public long getTravelTime(ILocation from, ILocation to);
+}
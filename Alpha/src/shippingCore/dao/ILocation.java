@@ -1,5 +1,26 @@
 package shippingCore.dao;
 
+/**
+ * Interface defining the basic behavior of a geographical location (depot,
+ * customer, hub) used by nodes and vehicles.
+ * 
+ */
 public interface ILocation {
+	/**
+	 * @return the unique identifier of this location
+	 */
+	public long getLocationId();
 
+	/**
+	 * Returns the row/column of this location within the distance map. All
+	 * distance and travel time lookups are done with this index.
+	 * 
+	 * @return the index of this location in the distance map
+	 */
+	public int getDistanceMapIndex();
+
+	/**
+	 * @return the name of this location
+	 */
+	public String getName();
 }
@@ -0,0 +1,64 @@
+package shippingCore.dao.impl;
+
+import service.exceptions.InvalidArgumentException;
+import shippingCore.dao.IDistanceMap;
+import shippingCore.dao.ILocation;
+
+/**
+ * Distance map keeping both matrices on the heap. Used for the benchmark
+ * distance source and for small problems where the matrices are computed
+ * instead of read from a distance file.
+ * 
+ */
+public class ArrayDistanceMap implements IDistanceMap {
+	/** distances in kilometers */
+	private final double[][] distances;
+
+	/** travel times in milliseconds */
+	private final long[][] travelTimes;
+
+	/**
+	 * Creates a new distance map. The arrays are not copied.
+	 * 
+	 * @param distances
+	 *            quadratic distance matrix in kilometers
+	 * @param travelTimes
+	 *            quadratic travel time matrix in milliseconds
+	 */
+	public ArrayDistanceMap(double[][] distances, long[][] travelTimes) {
+		if (distances.length != travelTimes.length) {
+			throw new InvalidArgumentException(
+					"Distance and travel time matrix differ in size");
+		}
+
+		this.distances = distances;
+		this.travelTimes = travelTimes;
+	}
+
+	@Override
+	public int getSize() {
+		return distances.length;
+	}
+
+	@Override
+	public double getDistance(int fromIndex, int toIndex) {
+		return distances[fromIndex][toIndex];
+	}
+
+	@Override
+	public long getTravelTime(int fromIndex, int toIndex) {
+		return travelTimes[fromIndex][toIndex];
+	}
+
+	@Override
+	public double getDistance(ILocation from, ILocation to) {
+		return distances[from.getDistanceMapIndex()][to
+				.getDistanceMapIndex()];
+	}
+
+	@Override
+	public long getTravelTime(ILocation from, ILocation to) {
+		return travelTimes[from.getDistanceMapIndex()][to
+				.getDistanceMapIndex()];
+	}
+}
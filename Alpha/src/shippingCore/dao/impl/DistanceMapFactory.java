@@ -0,0 +1,56 @@
+package shippingCore.dao.impl;
+
+import java.io.IOException;
+
+import service.exceptions.InvalidArgumentException;
+import service.properties.IConstants;
+import service.properties.IPropertiesConstants;
+import shippingCore.dao.IDistanceMap;
+
+/**
+ * Creates the distance map for the configured distance source.
+ */
+public class DistanceMapFactory {
+	private DistanceMapFactory() {
+	}
+
+	/**
+	 * Creates the distance map for the given distance source. The file based
+	 * sources are memory-mapped from their default locations
+	 * {@link IConstants#DISTANCEMAP_EWS_FILE_PATH} and
+	 * {@link IConstants#DISTANCEMAP_DIMABIGENDIAN_FILE_PATH}.
+	 * 
+	 * @param distanceSource
+	 *            one of {@link IPropertiesConstants#DATA_DISTANCESOURCE_EWS}
+	 *            or
+	 *            {@link IPropertiesConstants#DATA_DISTANCESOURCE_DIMABIGENDIAN}
+	 * @return the distance map of the source
+	 * @throws IOException
+	 *             if the distance file cannot be mapped
+	 * @throws InvalidArgumentException
+	 *             if the source is unknown or is not file based
+	 */
+	public static IDistanceMap createDistanceMap(String distanceSource)
+			throws IOException {
+		if (IPropertiesConstants.DATA_DISTANCESOURCE_EWS
+				.equals(distanceSource)) {
+			return MappedDistanceMap
+					.createEws(IConstants.DISTANCEMAP_EWS_FILE_PATH);
+		}
+
+		if (IPropertiesConstants.DATA_DISTANCESOURCE_DIMABIGENDIAN
+				.equals(distanceSource)) {
+			return MappedDistanceMap.createDimaBigEndian(
+					IConstants.DISTANCEMAP_DIMABIGENDIAN_FILE_PATH);
+		}
+
+		if (IPropertiesConstants.DATA_DISTANCESOURCE_BENCHMARK
+				.equals(distanceSource)) {
+			throw new InvalidArgumentException(
+					"Benchmark distances are computed by the benchmark loader, use ArrayDistanceMap");
+		}
+
+		throw new InvalidArgumentException(
+				"Unknown distance source: " + distanceSource);
+	}
+}
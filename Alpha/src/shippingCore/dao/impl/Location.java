@@ -1,7 +1,78 @@
 package shippingCore.dao.impl;
 
+import java.io.Serializable;
+
 import shippingCore.dao.ILocation;
 
-public class Location implements ILocation {
+/**
+ * Immutable location. Locations are shared between all nodes, vehicles and
+ * solutions referring to them and are never copied.
+ * 
+ */
+public class Location implements ILocation, Serializable {
+	private static final long serialVersionUID = -2619870364451254530L;
+
+	/** unique identifier of this location */
+	private final long locationId;
+
+	/** row/column of this location in the distance map */
+	private final int distanceMapIndex;
+
+	/** name of this location */
+	private final String name;
+
+	/**
+	 * Creates a new location.
+	 * 
+	 * @param locationId
+	 *            unique identifier of this location
+	 * @param distanceMapIndex
+	 *            row/column of this location in the distance map
+	 * @param name
+	 *            name of this location
+	 */
+	public Location(long locationId, int distanceMapIndex, String name) {
+		this.locationId = locationId;
+		this.distanceMapIndex = distanceMapIndex;
+		this.name = name;
+	}
+
+	@Override
+	public long getLocationId() {
+		return locationId;
+	}
+
+	@Override
+	public int getDistanceMapIndex() {
+		return distanceMapIndex;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == null) {
+			return false;
+		}
+		if (obj.getClass() != getClass()) {
+			return false;
+		}
+
+		Location castObj = (Location) obj;
+		return locationId == castObj.locationId
+				&& distanceMapIndex == castObj.distanceMapIndex;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (locationId ^ (locationId >>> 32));
+	}
 
-}
\ No newline at end of file
+	@Override
+	public String toString() {
+		return "Location " + locationId + " (" + name + ")";
+	}
+}
@@ -0,0 +1,279 @@
+package shippingCore.dao.impl;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import service.exceptions.InvalidArgumentException;
+import shippingCore.dao.IDistanceMap;
+import shippingCore.dao.ILocation;
+
+/**
+ * Distance map that memory-maps a binary distance file (see
+ * {@link service.properties.IConstants#DISTANCEMAP_DIMABIGENDIAN_FILE} and
+ * {@link service.properties.IConstants#DISTANCEMAP_EWS_FILE}) and answers all
+ * lookups directly from the mapped pages. The matrices are never loaded onto
+ * the heap and a lookup does not allocate.
+ * <p>
+ * File layout (all values are 4 byte integers in the byte order of the file):
+ * 
+ * <pre>
+ * int   n                 number of locations
+ * int   distance[n * n]   row major, in meters
+ * int   travelTime[n * n] row major, in seconds
+ * </pre>
+ * 
+ * Files bigger than 2 GB are mapped in segments of {@link #SEGMENT_SIZE}
+ * bytes. As the header and all entries are 4 bytes long, an entry never spans
+ * two segments.
+ */
+public class MappedDistanceMap implements IDistanceMap {
+	/** size of the header in bytes */
+	private static final int HEADER_SIZE = 4;
+
+	/** size of one matrix entry in bytes */
+	private static final int ENTRY_SIZE = 4;
+
+	/** 2^SEGMENT_SHIFT is the size of one mapped segment */
+	private static final int SEGMENT_SHIFT = 30;
+
+	/** size of one mapped segment in bytes (1 GB) */
+	public static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+	/** mask to get the position within a segment */
+	private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+	/** conversion factor from the stored meters to kilometers */
+	private static final double METERS_TO_KILOMETERS = 0.001;
+
+	/** conversion factor from the stored seconds to milliseconds */
+	private static final long SECONDS_TO_MILLIS = 1000L;
+
+	/** the mapped segments of the distance file */
+	private final MappedByteBuffer[] segments;
+
+	/** number of locations */
+	private final int size;
+
+	/** file offset of the travel time matrix */
+	private final long travelTimeOffset;
+
+	/**
+	 * Maps the given distance file.
+	 * 
+	 * @param fileName
+	 *            the qualified name of the distance file
+	 * @param byteOrder
+	 *            the byte order the file was written with
+	 * @throws IOException
+	 *             if the file cannot be read or does not have the expected
+	 *             length
+	 */
+	public MappedDistanceMap(String fileName, ByteOrder byteOrder)
+			throws IOException {
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+
+		try {
+			FileChannel channel = file.getChannel();
+			long fileSize = channel.size();
+
+			if (fileSize < HEADER_SIZE) {
+				throw new IOException(
+						"Distance file " + fileName + " has no header");
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+					.order(byteOrder);
+			channel.read(header, 0);
+			size = header.getInt(0);
+
+			long matrixSize = (long) size * size * ENTRY_SIZE;
+			if (size < 0 || fileSize != HEADER_SIZE + 2 * matrixSize) {
+				throw new IOException("Distance file " + fileName + " with "
+						+ size + " locations should have "
+						+ (HEADER_SIZE + 2 * matrixSize) + " bytes but has "
+						+ fileSize + " (wrong byte order?)");
+			}
+			travelTimeOffset = HEADER_SIZE + matrixSize;
+
+			// the mapping stays valid after the channel is closed
+			int segmentCount = (int) ((fileSize + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+			segments = new MappedByteBuffer[segmentCount];
+			for (int i = 0; i < segmentCount; i++) {
+				long position = (long) i << SEGMENT_SHIFT;
+				long length = Math.min(SEGMENT_SIZE, fileSize - position);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						position, length);
+				segments[i].order(byteOrder);
+			}
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Maps the distance file in Dima format (big endian).
+	 * 
+	 * @param fileName
+	 *            the qualified name of the distance file
+	 * @return the mapped distance map
+	 * @throws IOException
+	 *             if the file cannot be mapped
+	 */
+	public static MappedDistanceMap createDimaBigEndian(String fileName)
+			throws IOException {
+		return new MappedDistanceMap(fileName, ByteOrder.BIG_ENDIAN);
+	}
+
+	/**
+	 * Maps the distance file in EWS format (little endian).
+	 * 
+	 * @param fileName
+	 *            the qualified name of the distance file
+	 * @return the mapped distance map
+	 * @throws IOException
+	 *             if the file cannot be mapped
+	 */
+	public static MappedDistanceMap createEws(String fileName)
+			throws IOException {
+		return new MappedDistanceMap(fileName, ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Reads the int at the given file position.
+	 * 
+	 * @param position
+	 *            position within the file, must be a multiple of
+	 *            {@link #ENTRY_SIZE}
+	 * @return the int value at the position
+	 */
+	private int getInt(long position) {
+		return segments[(int) (position >>> SEGMENT_SHIFT)]
+				.getInt((int) (position & SEGMENT_MASK));
+	}
+
+	/**
+	 * Returns the file position of the entry of the given matrix.
+	 * 
+	 * @param matrixOffset
+	 *            the offset of the matrix within the file
+	 * @param fromIndex
+	 *            row of the entry
+	 * @param toIndex
+	 *            column of the entry
+	 * @return the file position of the entry
+	 */
+	private long getPosition(long matrixOffset, int fromIndex, int toIndex) {
+		if (fromIndex < 0 || fromIndex >= size || toIndex < 0
+				|| toIndex >= size) {
+			throw new InvalidArgumentException("Index (" + fromIndex + ", "
+					+ toIndex + ") is outside of distance map of size " + size);
+		}
+
+		return matrixOffset + ((long) fromIndex * size + toIndex) * ENTRY_SIZE;
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public double getDistance(int fromIndex, int toIndex) {
+		return getInt(getPosition(HEADER_SIZE, fromIndex, toIndex))
+				* METERS_TO_KILOMETERS;
+	}
+
+	@Override
+	public long getTravelTime(int fromIndex, int toIndex) {
+		return getInt(getPosition(travelTimeOffset, fromIndex, toIndex))
+				* SECONDS_TO_MILLIS;
+	}
+
+	@Override
+	public double getDistance(ILocation from, ILocation to) {
+		return getDistance(from.getDistanceMapIndex(),
+				to.getDistanceMapIndex());
+	}
+
+	@Override
+	public long getTravelTime(ILocation from, ILocation to) {
+		return getTravelTime(from.getDistanceMapIndex(),
+				to.getDistanceMapIndex());
+	}
+
+	/**
+	 * Writes a distance file in the layout read by this class. Used to convert
+	 * other distance sources and to create test data.
+	 * 
+	 * @param fileName
+	 *            the qualified name of the file to write
+	 * @param byteOrder
+	 *            the byte order to write the file with
+	 * @param meters
+	 *            the quadratic distance matrix in meters
+	 * @param seconds
+	 *            the quadratic travel time matrix in seconds
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public static void writeDistanceFile(String fileName, ByteOrder byteOrder,
+			int[][] meters, int[][] seconds) throws IOException {
+		int size = meters.length;
+		if (seconds.length != size) {
+			throw new InvalidArgumentException(
+					"Distance and travel time matrix differ in size");
+		}
+
+		RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+
+		try {
+			FileChannel channel = file.getChannel();
+			channel.truncate(0);
+
+			ByteBuffer buffer = ByteBuffer
+					.allocateDirect(Math.max(HEADER_SIZE, size * ENTRY_SIZE))
+					.order(byteOrder);
+			buffer.putInt(size);
+			buffer.flip();
+			writeFully(channel, buffer);
+
+			writeMatrix(channel, buffer, meters);
+			writeMatrix(channel, buffer, seconds);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Writes the matrix row by row to the channel.
+	 */
+	private static void writeMatrix(FileChannel channel, ByteBuffer buffer,
+			int[][] matrix) throws IOException {
+		for (int[] row : matrix) {
+			if (row.length != matrix.length) {
+				throw new InvalidArgumentException("Matrix is not quadratic");
+			}
+
+			buffer.clear();
+			for (int value : row) {
+				buffer.putInt(value);
+			}
+			buffer.flip();
+			writeFully(channel, buffer);
+		}
+	}
+
+	/**
+	 * Writes the remaining bytes of the buffer to the channel.
+	 */
+	private static void writeFully(FileChannel channel, ByteBuffer buffer)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
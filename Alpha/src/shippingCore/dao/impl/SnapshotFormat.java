@@ -0,0 +1,111 @@
+package shippingCore.dao.impl;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The layout of the snapshot files of {@link SnapshotWriter} and
+ * {@link SnapshotReader}. A file starts with a header and a table of
+ * sections, each with its id, number of items, offset and length, so a
+ * reader finds every section without reading the ones before and skips
+ * sections it does not know:
+ * 
+ * <pre>
+ * int   magic
+ * short version
+ * short number of sections
+ * per section: int id, int items, long offset, long length
+ * </pre>
+ * 
+ * All numbers are big endian. Within the sections ids and times are stored
+ * as differences to the value before in the same column, encoded as variable
+ * length integers; doubles are stored as they are. Vehicles and orders refer
+ * to the locations by index, routes to the vehicles and their nodes to the
+ * orders.
+ */
+final class SnapshotFormat {
+
+	/** the first bytes of every snapshot, "SNAP" */
+	static final int MAGIC = 0x534E4150;
+
+	/** the version written, readers accept this and older versions */
+	static final int VERSION = 1;
+
+	/** the bytes of the header without the section table */
+	static final int HEADER_SIZE = 8;
+
+	/** the bytes of one entry of the section table */
+	static final int SECTION_ENTRY_SIZE = 24;
+
+	/** locations: id, distance map index, name */
+	static final int SECTION_LOCATIONS = 1;
+
+	/** vehicles: id, home location, availability, capacity and costs */
+	static final int SECTION_VEHICLES = 2;
+
+	/** orders: id, weight, pickup and delivery node */
+	static final int SECTION_ORDERS = 3;
+
+	/**
+	 * routes, column by column: ids, vehicles, time limits, fixed nodes and
+	 * number of nodes
+	 */
+	static final int SECTION_ROUTES = 4;
+
+	/** the nodes of all routes after the zero node, route by route */
+	static final int SECTION_ROUTE_NODES = 5;
+
+	/** the offset of the nodes of every route in SECTION_ROUTE_NODES */
+	static final int SECTION_ROUTE_INDEX = 6;
+
+	/** the flag of a time window that includes its start */
+	static final int START_INCLUDING = 1;
+
+	/** the flag of a time window that includes its end */
+	static final int END_INCLUDING = 2;
+
+	private SnapshotFormat() {
+	}
+
+	/**
+	 * Puts the value in 7 bit groups, the lowest first, with the high bit set
+	 * in all bytes but the last. Negative values take 10 bytes.
+	 */
+	static void putVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * @return the value of {@link #putVarLong(ByteBuffer, long)}
+	 */
+	static long getVarLong(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalStateException("Variable length integer too long");
+	}
+
+	/**
+	 * Puts the value zigzag encoded, so small negative values are short as
+	 * well.
+	 */
+	static void putSignedVarLong(ByteBuffer buffer, long value) {
+		putVarLong(buffer, (value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * @return the value of {@link #putSignedVarLong(ByteBuffer, long)}
+	 */
+	static long getSignedVarLong(ByteBuffer buffer) {
+		long value = getVarLong(buffer);
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
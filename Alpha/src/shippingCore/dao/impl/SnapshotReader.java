@@ -0,0 +1,474 @@
+package shippingCore.dao.impl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import representations.ShippingProblem;
+import representations.ShippingSolution;
+import service.exceptions.InvalidArgumentException;
+import shippingCore.calculations.time.TimeWindow;
+import shippingCore.dao.IDistanceMap;
+import shippingCore.dao.ILocation;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+import shippingCore.model.Vehicle;
+
+/**
+ * Restores the problems and solutions written by {@link SnapshotWriter}. The
+ * file is mapped into memory and only the header is read when it is opened;
+ * every section is decoded when it is asked for, and the nodes of a single
+ * route can be read by {@link #readRouteNodes(int)} without decoding the
+ * others.
+ * <p>
+ * Instances are not thread-safe and have to be closed.
+ */
+public class SnapshotReader implements Closeable {
+
+	/** the file read */
+	private final File file;
+
+	/** the channel of the file */
+	private final FileChannel channel;
+
+	/** the mapped file */
+	private final ByteBuffer data;
+
+	/** the version of the file */
+	private final int version;
+
+	/** the entries of the section table */
+	private final int[] sectionIds;
+
+	private final int[] itemCounts;
+
+	private final int[] offsets;
+
+	private final int[] lengths;
+
+	/** the locations by index, decoded on first use */
+	private ILocation[] locations;
+
+	/**
+	 * @param filename
+	 *            name of the file to read
+	 * @throws IOException
+	 *             if the file cannot be read or is no snapshot of a known
+	 *             version
+	 */
+	public SnapshotReader(String filename) throws IOException {
+		this(new File(filename));
+	}
+
+	/**
+	 * @param file
+	 *            the file to read
+	 * @throws IOException
+	 *             if the file cannot be read or is no snapshot of a known
+	 *             version
+	 */
+	public SnapshotReader(File file) throws IOException {
+		this.file = file;
+		channel = new FileInputStream(file).getChannel();
+		try {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException(file + " is too large to be mapped");
+			}
+			if (size < SnapshotFormat.HEADER_SIZE) {
+				throw new IOException(file + " is no snapshot");
+			}
+			data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+			if (data.getInt(0) != SnapshotFormat.MAGIC) {
+				throw new IOException(file + " is no snapshot");
+			}
+			version = data.getShort(4);
+			if (version < 1 || version > SnapshotFormat.VERSION) {
+				throw new IOException(file + " has the unknown version "
+						+ version);
+			}
+
+			int count = data.getShort(6);
+			if (count < 0
+					|| SnapshotFormat.HEADER_SIZE + (long) count
+							* SnapshotFormat.SECTION_ENTRY_SIZE > size) {
+				throw corrupt(null);
+			}
+			sectionIds = new int[count];
+			itemCounts = new int[count];
+			offsets = new int[count];
+			lengths = new int[count];
+			for (int i = 0; i < count; i++) {
+				int entry = SnapshotFormat.HEADER_SIZE + i
+						* SnapshotFormat.SECTION_ENTRY_SIZE;
+				long offset = data.getLong(entry + 8);
+				long length = data.getLong(entry + 16);
+				if (offset < 0 || length < 0 || offset + length > size) {
+					throw corrupt(null);
+				}
+				sectionIds[i] = data.getInt(entry);
+				itemCounts[i] = data.getInt(entry + 4);
+				offsets[i] = (int) offset;
+				lengths[i] = (int) length;
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the version of the format of the file
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return the number of vehicles
+	 * @throws IOException
+	 *             if the file has no vehicles
+	 */
+	public int getVehicleCount() throws IOException {
+		return itemCounts[findSection(SnapshotFormat.SECTION_VEHICLES)];
+	}
+
+	/**
+	 * @return the number of orders
+	 * @throws IOException
+	 *             if the file has no orders
+	 */
+	public int getOrderCount() throws IOException {
+		return itemCounts[findSection(SnapshotFormat.SECTION_ORDERS)];
+	}
+
+	/**
+	 * @return true if the file contains the routes of a solution
+	 */
+	public boolean hasSolution() {
+		return indexOf(SnapshotFormat.SECTION_ROUTES) >= 0;
+	}
+
+	/**
+	 * @return the number of routes
+	 * @throws IOException
+	 *             if the file has no solution
+	 */
+	public int getRouteCount() throws IOException {
+		return itemCounts[findSection(SnapshotFormat.SECTION_ROUTES)];
+	}
+
+	/**
+	 * Reads the problem and creates it with the default operators.
+	 * 
+	 * @param distanceMap
+	 *            the distances between the locations of the problem
+	 * @return the problem of the file
+	 * @throws IOException
+	 *             if the file is corrupt
+	 */
+	public ShippingProblem readProblem(IDistanceMap distanceMap)
+			throws IOException {
+		return new ShippingProblem(readOrders(), readVehicles(), distanceMap);
+	}
+
+	/**
+	 * @return the vehicles in the order they were written
+	 * @throws IOException
+	 *             if the file is corrupt
+	 */
+	public List<Vehicle> readVehicles() throws IOException {
+		ILocation[] locations = getLocations();
+		int index = findSection(SnapshotFormat.SECTION_VEHICLES);
+		ByteBuffer section = getSection(index);
+		List<Vehicle> vehicles = new ArrayList<Vehicle>(itemCounts[index]);
+
+		try {
+			long id = 0;
+			TimeWindowReader timeWindows = new TimeWindowReader();
+			for (int i = 0; i < itemCounts[index]; i++) {
+				id += SnapshotFormat.getSignedVarLong(section);
+				ILocation home = locations[(int) SnapshotFormat
+						.getVarLong(section)];
+				TimeWindow availability = timeWindows.read(section);
+				vehicles.add(new Vehicle(id, home, availability, section
+						.getDouble(), section.getDouble(), section.getDouble(),
+						section.getDouble()));
+			}
+		} catch (RuntimeException e) {
+			throw corrupt(e);
+		}
+		return vehicles;
+	}
+
+	/**
+	 * @return the orders in the order they were written
+	 * @throws IOException
+	 *             if the file is corrupt
+	 */
+	public List<Order> readOrders() throws IOException {
+		ILocation[] locations = getLocations();
+		int index = findSection(SnapshotFormat.SECTION_ORDERS);
+		ByteBuffer section = getSection(index);
+		List<Order> orders = new ArrayList<Order>(itemCounts[index]);
+
+		try {
+			long id = 0;
+			long nodeId = 0;
+			TimeWindowReader timeWindows = new TimeWindowReader();
+			for (int i = 0; i < itemCounts[index]; i++) {
+				id += SnapshotFormat.getSignedVarLong(section);
+				double weight = section.getDouble();
+
+				nodeId += SnapshotFormat.getSignedVarLong(section);
+				long pickupNodeId = nodeId;
+				ILocation pickupLocation = locations[(int) SnapshotFormat
+						.getVarLong(section)];
+				TimeWindow pickupTimeWindow = timeWindows.read(section);
+				long pickupServiceTime = SnapshotFormat.getVarLong(section);
+
+				nodeId += SnapshotFormat.getSignedVarLong(section);
+				ILocation deliveryLocation = locations[(int) SnapshotFormat
+						.getVarLong(section)];
+				TimeWindow deliveryTimeWindow = timeWindows.read(section);
+				long deliveryServiceTime = SnapshotFormat.getVarLong(section);
+
+				orders.add(new Order(id, weight, pickupNodeId, pickupLocation,
+						pickupTimeWindow, pickupServiceTime, nodeId,
+						deliveryLocation, deliveryTimeWindow,
+						deliveryServiceTime));
+			}
+		} catch (RuntimeException e) {
+			throw corrupt(e);
+		}
+		return orders;
+	}
+
+	/**
+	 * Restores the solution for the problem. The problem has to have the
+	 * vehicles and orders of the file in the same order, like the one of
+	 * {@link #readProblem(IDistanceMap)}. The routes get the transportation
+	 * costs of the problem and are calculated on their first use.
+	 * 
+	 * @param problem
+	 *            the problem of the solution
+	 * @return the solution of the file
+	 * @throws IOException
+	 *             if the file has no solution or is corrupt
+	 * @throws InvalidArgumentException
+	 *             if the problem has other numbers of vehicles or orders
+	 */
+	public ShippingSolution readSolution(ShippingProblem problem)
+			throws IOException {
+		List<Vehicle> vehicles = problem.getVehicles();
+		List<Order> orders = problem.getOrders();
+		if (vehicles.size() != getVehicleCount()
+				|| orders.size() != getOrderCount()) {
+			throw new InvalidArgumentException("The problem has "
+					+ vehicles.size() + " vehicles and " + orders.size()
+					+ " orders, the snapshot " + getVehicleCount()
+					+ " vehicles and " + getOrderCount() + " orders");
+		}
+
+		int index = findSection(SnapshotFormat.SECTION_ROUTES);
+		int routeCount = itemCounts[index];
+		ByteBuffer section = getSection(index);
+		ByteBuffer nodes = getSection(
+				findSection(SnapshotFormat.SECTION_ROUTE_NODES));
+		ShippingSolution solution = new ShippingSolution(problem);
+
+		try {
+			long[] routeIds = new long[routeCount];
+			long id = 0;
+			for (int i = 0; i < routeCount; i++) {
+				id += SnapshotFormat.getSignedVarLong(section);
+				routeIds[i] = id;
+			}
+			int[] vehicleIndices = new int[routeCount];
+			for (int i = 0; i < routeCount; i++) {
+				vehicleIndices[i] = (int) SnapshotFormat.getVarLong(section);
+			}
+			TimeWindow[] timeLimits = new TimeWindow[routeCount];
+			TimeWindowReader timeWindows = new TimeWindowReader();
+			for (int i = 0; i < routeCount; i++) {
+				timeLimits[i] = timeWindows.read(section);
+			}
+			int[] fixedIndices = new int[routeCount];
+			for (int i = 0; i < routeCount; i++) {
+				fixedIndices[i] = (int) SnapshotFormat.getVarLong(section);
+			}
+
+			for (int i = 0; i < routeCount; i++) {
+				int nodeCount = (int) SnapshotFormat.getVarLong(section);
+				Route route = new Route(routeIds[i],
+						vehicles.get(vehicleIndices[i]), timeLimits[i]);
+				route.setTransportationCosts(problem
+						.getTransportationCosts(vehicleIndices[i]));
+				for (int j = 0; j < nodeCount; j++) {
+					int reference = (int) SnapshotFormat.getVarLong(nodes);
+					Order order = orders.get(reference >> 1);
+					route.addNode((reference & 1) == 0 ? order.getPickupNode()
+							: order.getDeliveryNode());
+				}
+				route.setNodeHeadingToOrAtIndex(fixedIndices[i]);
+				solution.addRoute(route);
+			}
+		} catch (RuntimeException e) {
+			throw corrupt(e);
+		}
+		return solution;
+	}
+
+	/**
+	 * Reads the nodes of one route without decoding the other routes.
+	 * 
+	 * @param route
+	 *            the index of the route
+	 * @return the nodes after the zero node, each as the index of its order
+	 *         times two, plus one for the delivery
+	 * @throws IOException
+	 *             if the file has no solution or is corrupt
+	 */
+	public int[] readRouteNodes(int route) throws IOException {
+		int index = findSection(SnapshotFormat.SECTION_ROUTE_INDEX);
+		if (route < 0 || route >= itemCounts[index]) {
+			throw new InvalidArgumentException("No route " + route + ", only "
+					+ itemCounts[index] + " routes");
+		}
+		ByteBuffer routeIndex = getSection(index);
+		ByteBuffer nodes = getSection(
+				findSection(SnapshotFormat.SECTION_ROUTE_NODES));
+
+		try {
+			int start = routeIndex.getInt(4 * route);
+			int end = route + 1 < itemCounts[index] ? routeIndex
+					.getInt(4 * (route + 1)) : nodes.limit();
+			nodes.position(start);
+			nodes.limit(end);
+
+			int[] references = new int[end - start];
+			int count = 0;
+			while (nodes.hasRemaining()) {
+				references[count++] = (int) SnapshotFormat.getVarLong(nodes);
+			}
+			int[] result = new int[count];
+			System.arraycopy(references, 0, result, 0, count);
+			return result;
+		} catch (RuntimeException e) {
+			throw corrupt(e);
+		}
+	}
+
+	/**
+	 * Closes the file. The mapping is released by the garbage collector.
+	 * 
+	 * @throws IOException
+	 *             if closing failed
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * @return the locations by index, decoded on the first call
+	 */
+	private ILocation[] getLocations() throws IOException {
+		if (locations == null) {
+			int index = findSection(SnapshotFormat.SECTION_LOCATIONS);
+			ByteBuffer section = getSection(index);
+			ILocation[] result = new ILocation[itemCounts[index]];
+
+			try {
+				long id = 0;
+				for (int i = 0; i < result.length; i++) {
+					id += SnapshotFormat.getSignedVarLong(section);
+					int distanceMapIndex = (int) SnapshotFormat
+							.getVarLong(section);
+					result[i] = new Location(id, distanceMapIndex,
+							getString(section));
+				}
+			} catch (RuntimeException e) {
+				throw corrupt(e);
+			}
+			locations = result;
+		}
+		return locations;
+	}
+
+	/**
+	 * @return the string of {@link SnapshotWriter}, null if it was null
+	 */
+	private static String getString(ByteBuffer section) {
+		int length = (int) SnapshotFormat.getVarLong(section) - 1;
+		if (length < 0) {
+			return null;
+		}
+
+		byte[] bytes = new byte[length];
+		section.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return a buffer of the section from its start to its end
+	 */
+	private ByteBuffer getSection(int index) {
+		ByteBuffer section = data.duplicate();
+		section.position(offsets[index]);
+		section.limit(offsets[index] + lengths[index]);
+		return section.slice();
+	}
+
+	/**
+	 * @return the index of the section in the table
+	 * @throws IOException
+	 *             if the file has no such section
+	 */
+	private int findSection(int id) throws IOException {
+		int index = indexOf(id);
+		if (index < 0) {
+			throw new IOException(file + " has no section " + id);
+		}
+		return index;
+	}
+
+	private int indexOf(int id) {
+		for (int i = 0; i < sectionIds.length; i++) {
+			if (sectionIds[i] == id) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private IOException corrupt(RuntimeException cause) {
+		return new IOException(file + " is corrupt", cause);
+	}
+
+	/**
+	 * Decodes the time windows of a column, each start relative to the one
+	 * before.
+	 */
+	private static class TimeWindowReader {
+		long previousStart;
+
+		TimeWindow read(ByteBuffer section) {
+			long start = previousStart
+					+ SnapshotFormat.getSignedVarLong(section);
+			long end = start + SnapshotFormat.getSignedVarLong(section);
+			int flags = section.get();
+			previousStart = start;
+			return new TimeWindow(start,
+					(flags & SnapshotFormat.START_INCLUDING) != 0, end,
+					(flags & SnapshotFormat.END_INCLUDING) != 0);
+		}
+	}
+}
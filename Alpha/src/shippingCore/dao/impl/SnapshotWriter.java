@@ -0,0 +1,420 @@
+package shippingCore.dao.impl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import representations.ShippingProblem;
+import representations.ShippingSolution;
+import service.exceptions.InvalidArgumentException;
+import shippingCore.calculations.time.TimeWindow;
+import shippingCore.dao.ILocation;
+import shippingCore.model.Node;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+import shippingCore.model.Vehicle;
+
+/**
+ * Writes the locations, vehicles and orders of a problem and the routes of a
+ * solution to a compact binary snapshot that {@link SnapshotReader} restores,
+ * replacing the Java serialization of
+ * {@link service.util.ObjectSerializer}. Ids and times are stored as small
+ * differences and references as indexes, see {@link SnapshotFormat}, and the
+ * file is written through a {@link FileChannel} with a buffer of fixed size.
+ * <p>
+ * The nodes of the routes have to be the nodes of the orders of the problem.
+ * Distance maps and costs are not stored, they are created again from their
+ * sources.
+ */
+public class SnapshotWriter {
+
+	/** the default size of the buffer, 1 MB */
+	public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+	/** the smallest buffer, holds the header and every number */
+	private static final int MIN_BUFFER_SIZE = 256;
+
+	/** the number of sections without and with a solution */
+	private static final int PROBLEM_SECTIONS = 3;
+
+	private static final int SOLUTION_SECTIONS = 6;
+
+	/** the file written */
+	private final File file;
+
+	/** holds the bytes until they are written */
+	private final ByteBuffer buffer;
+
+	/** the channel of the file while writing */
+	private FileChannel channel;
+
+	/** the bytes of the file before the buffer */
+	private long written;
+
+	/** the sections written so far */
+	private int sectionCount;
+
+	private final int[] sectionIds = new int[SOLUTION_SECTIONS];
+
+	private final int[] itemCounts = new int[SOLUTION_SECTIONS];
+
+	private final long[] offsets = new long[SOLUTION_SECTIONS];
+
+	private final long[] lengths = new long[SOLUTION_SECTIONS];
+
+	/** the start of the time window before in the current column */
+	private long previousStart;
+
+	/**
+	 * Creates a writer with the default buffer size.
+	 * 
+	 * @param filename
+	 *            name of the file to write
+	 */
+	public SnapshotWriter(String filename) {
+		this(new File(filename), DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param file
+	 *            the file to write
+	 * @param bufferSize
+	 *            the size of the buffer in bytes
+	 */
+	public SnapshotWriter(File file, int bufferSize) {
+		this.file = file;
+		buffer = ByteBuffer.allocate(Math.max(bufferSize, MIN_BUFFER_SIZE));
+	}
+
+	/**
+	 * Writes the snapshot, replacing the file.
+	 * 
+	 * @param problem
+	 *            the problem to write
+	 * @param solution
+	 *            the solution to write, null for the problem only
+	 * @throws IOException
+	 *             if the file cannot be written
+	 * @throws InvalidArgumentException
+	 *             if a route has a vehicle or node that is not part of the
+	 *             problem
+	 */
+	public void write(ShippingProblem problem, ShippingSolution solution)
+			throws IOException {
+		List<Vehicle> vehicles = problem.getVehicles();
+		List<Order> orders = problem.getOrders();
+		int sections = solution != null ? SOLUTION_SECTIONS
+				: PROBLEM_SECTIONS;
+		long headerSize = SnapshotFormat.HEADER_SIZE + sections
+				* SnapshotFormat.SECTION_ENTRY_SIZE;
+
+		channel = new FileOutputStream(file).getChannel();
+		try {
+			buffer.clear();
+			sectionCount = 0;
+			written = headerSize;
+			channel.position(headerSize);
+
+			Map<Long, Integer> locations = writeLocations(vehicles, orders);
+			writeVehicles(vehicles, locations);
+			writeOrders(orders, locations);
+			if (solution != null) {
+				writeRoutes(solution.getRoutes(), vehicles, orders);
+			}
+			flush();
+
+			writeHeader();
+		} finally {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	/**
+	 * Writes the locations of the vehicles and orders in the order they are
+	 * first used.
+	 * 
+	 * @return the index of every location by id
+	 */
+	private Map<Long, Integer> writeLocations(List<Vehicle> vehicles,
+			List<Order> orders) throws IOException {
+		Map<Long, Integer> indices = new HashMap<Long, Integer>();
+		List<ILocation> locations = new ArrayList<ILocation>();
+		for (Vehicle vehicle : vehicles) {
+			addLocation(vehicle.getHomeLocation(), indices, locations);
+		}
+		for (Order order : orders) {
+			addLocation(order.getPickupNode().getLocation(), indices,
+					locations);
+			addLocation(order.getDeliveryNode().getLocation(), indices,
+					locations);
+		}
+
+		startSection(SnapshotFormat.SECTION_LOCATIONS);
+		long previousId = 0;
+		for (ILocation location : locations) {
+			ensure(20);
+			SnapshotFormat.putSignedVarLong(buffer, location.getLocationId()
+					- previousId);
+			SnapshotFormat.putVarLong(buffer, location.getDistanceMapIndex());
+			putString(location.getName());
+			previousId = location.getLocationId();
+		}
+		endSection(locations.size());
+
+		return indices;
+	}
+
+	private static void addLocation(ILocation location,
+			Map<Long, Integer> indices, List<ILocation> locations) {
+		Long id = Long.valueOf(location.getLocationId());
+		if (!indices.containsKey(id)) {
+			indices.put(id, Integer.valueOf(locations.size()));
+			locations.add(location);
+		}
+	}
+
+	private void writeVehicles(List<Vehicle> vehicles,
+			Map<Long, Integer> locations) throws IOException {
+		startSection(SnapshotFormat.SECTION_VEHICLES);
+		long previousId = 0;
+		previousStart = 0;
+		for (Vehicle vehicle : vehicles) {
+			ensure(73);
+			SnapshotFormat.putSignedVarLong(buffer, vehicle.getVehicleId()
+					- previousId);
+			SnapshotFormat.putVarLong(buffer,
+					locations.get(vehicle.getHomeLocation().getLocationId()));
+			putTimeWindow(vehicle.getAvailability());
+			buffer.putDouble(vehicle.getCapacityWeight());
+			buffer.putDouble(vehicle.getCostPerKilometer());
+			buffer.putDouble(vehicle.getCostPerHour());
+			buffer.putDouble(vehicle.getFixCost());
+			previousId = vehicle.getVehicleId();
+		}
+		endSection(vehicles.size());
+	}
+
+	private void writeOrders(List<Order> orders, Map<Long, Integer> locations)
+			throws IOException {
+		startSection(SnapshotFormat.SECTION_ORDERS);
+		long previousId = 0;
+		long previousNodeId = 0;
+		previousStart = 0;
+		for (Order order : orders) {
+			ensure(20);
+			SnapshotFormat.putSignedVarLong(buffer, order.getOrderId()
+					- previousId);
+			buffer.putDouble(order.getWeight());
+			previousId = order.getOrderId();
+
+			Node[] nodes = { order.getPickupNode(), order.getDeliveryNode() };
+			for (Node node : nodes) {
+				ensure(51);
+				SnapshotFormat.putSignedVarLong(buffer, node.getNodeId()
+						- previousNodeId);
+				SnapshotFormat.putVarLong(buffer,
+						locations.get(node.getLocation().getLocationId()));
+				putTimeWindow(node.getTimeWindow());
+				SnapshotFormat.putVarLong(buffer, node.getServiceTime());
+				previousNodeId = node.getNodeId();
+			}
+		}
+		endSection(orders.size());
+	}
+
+	/**
+	 * Writes the columns of the routes, then the nodes of every route and
+	 * the offsets of the nodes of every route.
+	 */
+	private void writeRoutes(List<Route> routes, List<Vehicle> vehicles,
+			List<Order> orders) throws IOException {
+		Map<Long, Integer> vehicleIndices = new HashMap<Long, Integer>();
+		for (int i = 0; i < vehicles.size(); i++) {
+			vehicleIndices.put(vehicles.get(i).getVehicleId(), i);
+		}
+		Map<Node, Integer> nodeReferences = new IdentityHashMap<Node, Integer>(
+				2 * orders.size());
+		for (int i = 0; i < orders.size(); i++) {
+			nodeReferences.put(orders.get(i).getPickupNode(), 2 * i);
+			nodeReferences.put(orders.get(i).getDeliveryNode(), 2 * i + 1);
+		}
+
+		startSection(SnapshotFormat.SECTION_ROUTES);
+		long previousId = 0;
+		for (Route route : routes) {
+			ensure(10);
+			SnapshotFormat.putSignedVarLong(buffer, route.getRouteId()
+					- previousId);
+			previousId = route.getRouteId();
+		}
+		for (Route route : routes) {
+			Integer index = vehicleIndices.get(route.getVehicle()
+					.getVehicleId());
+			if (index == null) {
+				throw new InvalidArgumentException("Vehicle "
+						+ route.getVehicle().getVehicleId() + " of route "
+						+ route.getRouteId() + " is not part of the problem");
+			}
+			ensure(5);
+			SnapshotFormat.putVarLong(buffer, index);
+		}
+		previousStart = 0;
+		for (Route route : routes) {
+			ensure(21);
+			putTimeWindow(route.getTimeLimit());
+		}
+		for (Route route : routes) {
+			ensure(10);
+			SnapshotFormat.putVarLong(buffer,
+					route.getNodeHeadingToOrAtIndex());
+		}
+		for (Route route : routes) {
+			ensure(5);
+			SnapshotFormat.putVarLong(buffer, route.getNodeCount() - 1);
+		}
+		endSection(routes.size());
+
+		startSection(SnapshotFormat.SECTION_ROUTE_NODES);
+		long start = position();
+		int[] routeOffsets = new int[routes.size()];
+		long nodeCount = 0;
+		for (int i = 0; i < routes.size(); i++) {
+			Route route = routes.get(i);
+			long offset = position() - start;
+			if (offset > Integer.MAX_VALUE) {
+				throw new InvalidArgumentException(
+						"Too many nodes for a snapshot");
+			}
+			routeOffsets[i] = (int) offset;
+
+			for (int j = 1; j < route.getNodeCount(); j++) {
+				Integer reference = nodeReferences.get(route.getNode(j));
+				if (reference == null) {
+					throw new InvalidArgumentException("Node "
+							+ route.getNode(j).getNodeId() + " of route "
+							+ route.getRouteId()
+							+ " is no node of the orders of the problem");
+				}
+				ensure(5);
+				SnapshotFormat.putVarLong(buffer, reference);
+			}
+			nodeCount += route.getNodeCount() - 1;
+		}
+		endSection((int) Math.min(nodeCount, Integer.MAX_VALUE));
+
+		startSection(SnapshotFormat.SECTION_ROUTE_INDEX);
+		for (int offset : routeOffsets) {
+			ensure(4);
+			buffer.putInt(offset);
+		}
+		endSection(routes.size());
+	}
+
+	/**
+	 * Puts the start as difference to the start before, the end as
+	 * difference to the start and the including flags.
+	 */
+	private void putTimeWindow(TimeWindow timeWindow) {
+		long start = timeWindow.getStartTime();
+		SnapshotFormat.putSignedVarLong(buffer, start - previousStart);
+		SnapshotFormat.putSignedVarLong(buffer, timeWindow.getEndTime()
+				- start);
+		int flags = 0;
+		if (timeWindow.isStartTimeIncluding()) {
+			flags |= SnapshotFormat.START_INCLUDING;
+		}
+		if (timeWindow.isEndTimeIncluding()) {
+			flags |= SnapshotFormat.END_INCLUDING;
+		}
+		buffer.put((byte) flags);
+		previousStart = start;
+	}
+
+	/**
+	 * Puts the length plus one, 0 for null, and the UTF-8 bytes.
+	 */
+	private void putString(String value) throws IOException {
+		if (value == null) {
+			ensure(1);
+			SnapshotFormat.putVarLong(buffer, 0);
+			return;
+		}
+
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		ensure(5);
+		SnapshotFormat.putVarLong(buffer, bytes.length + 1);
+		int offset = 0;
+		while (offset < bytes.length) {
+			if (!buffer.hasRemaining()) {
+				flush();
+			}
+			int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+	private void writeHeader() throws IOException {
+		buffer.clear();
+		buffer.putInt(SnapshotFormat.MAGIC);
+		buffer.putShort((short) SnapshotFormat.VERSION);
+		buffer.putShort((short) sectionCount);
+		for (int i = 0; i < sectionCount; i++) {
+			buffer.putInt(sectionIds[i]);
+			buffer.putInt(itemCounts[i]);
+			buffer.putLong(offsets[i]);
+			buffer.putLong(lengths[i]);
+		}
+		buffer.flip();
+
+		long position = 0;
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+		buffer.clear();
+	}
+
+	private void startSection(int id) {
+		sectionIds[sectionCount] = id;
+		offsets[sectionCount] = position();
+	}
+
+	private void endSection(int items) {
+		itemCounts[sectionCount] = items;
+		lengths[sectionCount] = position() - offsets[sectionCount];
+		sectionCount++;
+	}
+
+	/**
+	 * @return the position in the file the next byte is written to
+	 */
+	private long position() {
+		return written + buffer.position();
+	}
+
+	/**
+	 * Makes sure the buffer has room for the bytes, at most its capacity.
+	 */
+	private void ensure(int length) throws IOException {
+		if (buffer.remaining() < length) {
+			flush();
+		}
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			written += channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,273 @@
+package shippingCore.dao.impl;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import service.exceptions.InvalidArgumentException;
+import service.properties.IPropertiesConstants;
+import shippingCore.calculations.time.TimeWindow;
+import shippingCore.dao.ILocation;
+import shippingCore.model.Order;
+import shippingCore.model.Vehicle;
+
+/**
+ * Reads the locations, vehicles and orders of the
+ * {@link IPropertiesConstants#DATA_DAO_XML} source with a StAX pull parser.
+ * Every element is mapped into the model when it is read, so besides the
+ * model only the locations by id are kept, no document tree. Times are
+ * milliseconds since 1970-01-01 UTC:
+ * 
+ * <pre>
+ * &lt;problem&gt;
+ *   &lt;location id="1" distanceMapIndex="0" name="Depot"/&gt;
+ *   &lt;vehicle id="1" location="1" start="..." end="..." capacity="24000"
+ *       costPerKilometer="1.2" costPerHour="30" fixCost="100"/&gt;
+ *   &lt;order id="1" weight="500"&gt;
+ *     &lt;pickup node="1" location="1" start="..." end="..."
+ *         serviceTime="..."/&gt;
+ *     &lt;delivery node="2" location="1" start="..." end="..."
+ *         serviceTime="..."/&gt;
+ *   &lt;/order&gt;
+ * &lt;/problem&gt;
+ * </pre>
+ * 
+ * Locations have to be defined before they are referred to, other elements
+ * like containers around them are skipped. Name, costs and service times are
+ * optional.
+ */
+public class XMLProblemReader {
+
+	/** the locations by id */
+	private final Map<Long, ILocation> locations = new HashMap<Long, ILocation>();
+
+	/** the vehicles in the order of the file */
+	private final List<Vehicle> vehicles = new ArrayList<Vehicle>();
+
+	/** the orders in the order of the file */
+	private final List<Order> orders = new ArrayList<Order>();
+
+	/**
+	 * Reads the file and adds its locations, vehicles and orders to the ones
+	 * read before.
+	 * 
+	 * @param filename
+	 *            name of the file to read
+	 * @throws IOException
+	 *             if the file cannot be read or is no well-formed XML
+	 * @throws InvalidArgumentException
+	 *             if an element misses attributes, has invalid values or
+	 *             refers to an unknown location
+	 */
+	public void read(String filename) throws IOException {
+		InputStream input = new FileInputStream(filename);
+		try {
+			read(input);
+		} catch (XMLStreamException e) {
+			throw new IOException("Cannot read " + filename, e);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Reads the stream and adds its locations, vehicles and orders to the
+	 * ones read before. The stream is not closed.
+	 * 
+	 * @param input
+	 *            the XML to read
+	 * @throws XMLStreamException
+	 *             if the stream is no well-formed XML
+	 * @throws InvalidArgumentException
+	 *             if an element misses attributes, has invalid values or
+	 *             refers to an unknown location
+	 */
+	public void read(InputStream input) throws XMLStreamException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+				Boolean.FALSE);
+
+		XMLStreamReader reader = factory.createXMLStreamReader(input);
+		try {
+			long orderId = 0;
+			double weight = 0;
+			Stop pickup = null;
+			Stop delivery = null;
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String name = reader.getLocalName();
+					if ("location".equals(name)) {
+						readLocation(reader);
+					} else if ("vehicle".equals(name)) {
+						vehicles.add(readVehicle(reader));
+					} else if ("order".equals(name)) {
+						orderId = getLong(reader, "id");
+						weight = getDouble(reader, "weight", null);
+						pickup = null;
+						delivery = null;
+					} else if ("pickup".equals(name)) {
+						pickup = readStop(reader);
+					} else if ("delivery".equals(name)) {
+						delivery = readStop(reader);
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT
+						&& "order".equals(reader.getLocalName())) {
+					if (pickup == null || delivery == null) {
+						throw invalid(reader, "Order " + orderId
+								+ " needs a pickup and a delivery");
+					}
+					orders.add(new Order(orderId, weight, pickup.nodeId,
+							pickup.location, pickup.timeWindow,
+							pickup.serviceTime, delivery.nodeId,
+							delivery.location, delivery.timeWindow,
+							delivery.serviceTime));
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	private void readLocation(XMLStreamReader reader) {
+		long id = getLong(reader, "id");
+		if (locations.containsKey(id)) {
+			throw invalid(reader, "Location " + id + " defined twice");
+		}
+		locations.put(id, new Location(id,
+				(int) getLong(reader, "distanceMapIndex"),
+				reader.getAttributeValue(null, "name")));
+	}
+
+	private Vehicle readVehicle(XMLStreamReader reader) {
+		return new Vehicle(getLong(reader, "id"), getLocation(reader),
+				getTimeWindow(reader), getDouble(reader, "capacity", null),
+				getDouble(reader, "costPerKilometer", Double.valueOf(0)),
+				getDouble(reader, "costPerHour", Double.valueOf(0)),
+				getDouble(reader, "fixCost", Double.valueOf(0)));
+	}
+
+	private Stop readStop(XMLStreamReader reader) {
+		Stop stop = new Stop();
+		stop.nodeId = getLong(reader, "node");
+		stop.location = getLocation(reader);
+		stop.timeWindow = getTimeWindow(reader);
+		String serviceTime = reader.getAttributeValue(null, "serviceTime");
+		stop.serviceTime = serviceTime != null ? parseLong(reader,
+				"serviceTime", serviceTime) : 0;
+		return stop;
+	}
+
+	private ILocation getLocation(XMLStreamReader reader) {
+		long id = getLong(reader, "location");
+		ILocation location = locations.get(id);
+		if (location == null) {
+			throw invalid(reader, "Unknown location " + id);
+		}
+		return location;
+	}
+
+	private static TimeWindow getTimeWindow(XMLStreamReader reader) {
+		long start = getLong(reader, "start");
+		long end = getLong(reader, "end");
+		if (start > end) {
+			throw invalid(reader, "End " + end + " is before start " + start);
+		}
+		return new TimeWindow(start, end);
+	}
+
+	private static long getLong(XMLStreamReader reader, String attribute) {
+		return parseLong(reader, attribute, getAttribute(reader, attribute));
+	}
+
+	private static long parseLong(XMLStreamReader reader, String attribute,
+			String value) {
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			throw invalid(reader, attribute + " is no number: " + value);
+		}
+	}
+
+	/**
+	 * @param defaultValue
+	 *            the value if the attribute is missing, null if it is
+	 *            required
+	 */
+	private static double getDouble(XMLStreamReader reader, String attribute,
+			Double defaultValue) {
+		String value = reader.getAttributeValue(null, attribute);
+		if (value == null && defaultValue != null) {
+			return defaultValue.doubleValue();
+		}
+		if (value == null) {
+			value = getAttribute(reader, attribute);
+		}
+
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw invalid(reader, attribute + " is no number: " + value);
+		}
+	}
+
+	private static String getAttribute(XMLStreamReader reader,
+			String attribute) {
+		String value = reader.getAttributeValue(null, attribute);
+		if (value == null) {
+			throw invalid(reader, "Element " + reader.getLocalName()
+					+ " misses attribute " + attribute);
+		}
+		return value;
+	}
+
+	private static InvalidArgumentException invalid(XMLStreamReader reader,
+			String description) {
+		return new InvalidArgumentException("Line "
+				+ reader.getLocation().getLineNumber() + ": " + description);
+	}
+
+	/**
+	 * @return the locations read so far, by id
+	 */
+	public Map<Long, ILocation> getLocations() {
+		return locations;
+	}
+
+	/**
+	 * @return the vehicles read so far, in the order of the files
+	 */
+	public List<Vehicle> getVehicles() {
+		return vehicles;
+	}
+
+	/**
+	 * @return the orders read so far, in the order of the files
+	 */
+	public List<Order> getOrders() {
+		return orders;
+	}
+
+	/**
+	 * The attributes of a pickup or delivery until the order is complete.
+	 */
+	private static class Stop {
+		long nodeId;
+
+		ILocation location;
+
+		TimeWindow timeWindow;
+
+		long serviceTime;
+	}
+}
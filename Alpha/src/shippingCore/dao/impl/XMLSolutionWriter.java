@@ -0,0 +1,295 @@
+package shippingCore.dao.impl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import representations.ShippingProblem;
+import representations.ShippingSolution;
+import service.dateAndTime.DateTimeFormat;
+import service.util.XMLFileWriter;
+import shippingCore.calculations.RouteCalculator;
+import shippingCore.calculations.RouteEvaluation;
+import shippingCore.constraint.ConstraintPipeline;
+import shippingCore.constraint.ConstraintResultBuffer;
+import shippingCore.model.Node;
+import shippingCore.model.Order;
+import shippingCore.model.Route;
+
+/**
+ * Writes the routes of a solution with their schedules, costs and violations
+ * to an XML file, the counterpart of {@link XMLProblemReader}. Every route is
+ * written when it is passed, so the routes of a large solution can be
+ * written one by one as they are finalised, and the file is written through
+ * an {@link XMLFileWriter} with a buffer of fixed size. The total costs of a
+ * route are its costs in the objective,
+ * {@link ShippingProblem#getRouteCost(Route, RouteEvaluation)}, so the total
+ * costs of the summary equal {@link ShippingProblem#getCost(ShippingSolution)}
+ * of the solution written. Times are milliseconds since 1970-01-01 UTC unless
+ * a time format is set:
+ * 
+ * <pre>
+ * &lt;solution&gt;
+ *   &lt;route id="1" vehicle="1" nodes="3" distance="..." fixCost="100"
+ *       transportationCost="..." penaltyCost="..." totalCost="..."
+ *       maxLoad="..." end="..."&gt;
+ *     &lt;node index="0" id="0" type="zero" location="1" arrival="..."
+ *         start="..." departure="..." load="0" distance="0"/&gt;
+ *     &lt;node index="1" id="1" type="pickup" order="1" location="2" .../&gt;
+ *     &lt;violation code="..." node="1" amount="..." cost="..."
+ *         hard="false"/&gt;
+ *   &lt;/route&gt;
+ *   &lt;summary routes="1" nodes="3" distance="..." totalCost="..."/&gt;
+ * &lt;/solution&gt;
+ * </pre>
+ * 
+ * The violations are the ones of the pipeline passed, an overloaded vehicle
+ * is a hard violation of the weight constraint of
+ * {@link ShippingProblem#getConstraintPipeline()}. The summary sums up the
+ * routes written and is written by {@link #close()}.
+ * Instances are not thread-safe and have to be closed.
+ */
+public class XMLSolutionWriter implements Closeable {
+
+	/** the names of the node types by type */
+	private static final String[] NODE_TYPES = { "zero", "pickup",
+			"delivery" };
+
+	/** writes the file */
+	private final XMLFileWriter writer;
+
+	/** formats the times, null for milliseconds */
+	private DateTimeFormat timeFormat;
+
+	/** the number of routes written */
+	private int routeCount;
+
+	/** the number of nodes of the routes written */
+	private long nodeCount;
+
+	/** the distance of the routes written */
+	private double totalDistance;
+
+	/** the costs of the routes written in the objective */
+	private double totalCost;
+
+	/**
+	 * Creates a writer with the default buffer size.
+	 * 
+	 * @param filename
+	 *            name of the file to write
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	public XMLSolutionWriter(String filename) throws IOException {
+		this(new File(filename), XMLFileWriter.DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param file
+	 *            the file to write
+	 * @param bufferSize
+	 *            the size of the buffer in chars
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	public XMLSolutionWriter(File file, int bufferSize) throws IOException {
+		writer = new XMLFileWriter(file, "solution", bufferSize);
+		writer.newLine();
+	}
+
+	/**
+	 * @param timeFormat
+	 *            formats the times, null for milliseconds (the default)
+	 */
+	public void setTimeFormat(DateTimeFormat timeFormat) {
+		this.timeFormat = timeFormat;
+	}
+
+	/**
+	 * Writes all routes of the solution that have nodes besides the start
+	 * node without violations.
+	 * 
+	 * @param solution
+	 *            the solution to write
+	 * @param calculator
+	 *            calculates the schedules of the routes
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public void writeSolution(ShippingSolution solution,
+			RouteCalculator calculator) throws IOException {
+		writeSolution(solution, calculator, null);
+	}
+
+	/**
+	 * Writes all routes of the solution that have nodes besides the start
+	 * node with the violations found by the pipeline, e.g.
+	 * {@link ShippingProblem#getConstraintPipeline()}.
+	 * 
+	 * @param solution
+	 *            the solution to write
+	 * @param calculator
+	 *            calculates the schedules of the routes
+	 * @param pipeline
+	 *            checks the routes, null for no violations
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public void writeSolution(ShippingSolution solution,
+			RouteCalculator calculator, ConstraintPipeline pipeline)
+			throws IOException {
+		ConstraintResultBuffer violations = pipeline != null
+				? new ConstraintResultBuffer() : null;
+		for (int i = 0; i < solution.getRouteCount(); i++) {
+			Route route = solution.getRoute(i);
+			if (route.getNodeCount() > 1) {
+				RouteEvaluation evaluation = calculator.calculateRoute(route);
+				if (pipeline != null) {
+					pipeline.evaluate(route, evaluation, violations);
+				}
+				writeRoute(route, evaluation, pipeline, violations);
+			}
+		}
+	}
+
+	/**
+	 * Writes the route without violations.
+	 * 
+	 * @param route
+	 *            the route to write
+	 * @param evaluation
+	 *            the up to date evaluation of the route
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public void writeRoute(Route route, RouteEvaluation evaluation)
+			throws IOException {
+		writeRoute(route, evaluation, null, null);
+	}
+
+	/**
+	 * Writes the route with the violations found by the pipeline.
+	 * 
+	 * @param route
+	 *            the route to write
+	 * @param evaluation
+	 *            the up to date evaluation of the route
+	 * @param pipeline
+	 *            the pipeline that filled the buffer, null for no violations
+	 * @param violations
+	 *            the violations of the route, null for none
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	public void writeRoute(Route route, RouteEvaluation evaluation,
+			ConstraintPipeline pipeline, ConstraintResultBuffer violations)
+			throws IOException {
+		double fixCost = route.getVehicle().getFixCost();
+		double routeCost = ShippingProblem.getRouteCost(route, evaluation);
+
+		writer.startElement("route");
+		writer.attribute("id", route.getRouteId());
+		writer.attribute("vehicle", route.getVehicle().getVehicleId());
+		writer.attribute("nodes", evaluation.getNodeCount());
+		writer.attribute("distance", evaluation.getTotalDistance());
+		writer.attribute("fixCost", fixCost);
+		writer.attribute("transportationCost",
+				evaluation.getTransportationCost());
+		writer.attribute("penaltyCost", evaluation.getPenaltyCost());
+		writer.attribute("totalCost", routeCost);
+		writer.attribute("maxLoad", evaluation.getMaxLoad());
+		writeTime("end", evaluation.getEndTime());
+		writer.newLine();
+
+		for (int i = 0; i < evaluation.getNodeCount(); i++) {
+			writeNode(route.getNode(i), i, evaluation);
+		}
+		if (pipeline != null && violations != null) {
+			for (int i = 0; i < violations.getCount(); i++) {
+				writeViolation(pipeline, violations, i);
+			}
+		}
+		writer.endElement();
+		writer.newLine();
+
+		routeCount++;
+		nodeCount += evaluation.getNodeCount();
+		totalDistance += evaluation.getTotalDistance();
+		totalCost += routeCost;
+	}
+
+	private void writeNode(Node node, int index, RouteEvaluation evaluation)
+			throws IOException {
+		writer.emptyElement("node");
+		writer.attribute("index", index);
+		writer.attribute("id", node.getNodeId());
+		writer.attribute("type", NODE_TYPES[node.getNodeType()]);
+		Order order = node.getOrder();
+		if (order != null) {
+			writer.attribute("order", order.getOrderId());
+		}
+		writer.attribute("location", node.getLocation().getLocationId());
+		writeTime("arrival", evaluation.getArrivalTime(index));
+		writeTime("start", evaluation.getStartTime(index));
+		writeTime("departure", evaluation.getDepartureTime(index));
+		writer.attribute("load", evaluation.getLoad(index));
+		writer.attribute("distance", evaluation.getDistance(index));
+		writer.newLine();
+	}
+
+	private void writeViolation(ConstraintPipeline pipeline,
+			ConstraintResultBuffer violations, int index) throws IOException {
+		writer.emptyElement("violation");
+		writer.attribute("code",
+				pipeline.getConstraint(violations.getStage(index))
+						.getErrorCode());
+		writer.attribute("node", violations.getNodeIndex(index));
+		writer.attribute("amount", violations.getAmount(index));
+		writer.attribute("cost", violations.getCost(index));
+		writer.attribute("hard", violations.isHard(index));
+		writer.newLine();
+	}
+
+	private void writeTime(String name, long time) throws IOException {
+		if (timeFormat != null) {
+			writer.attributeTime(name, time, timeFormat);
+		} else {
+			writer.attribute(name, time);
+		}
+	}
+
+	/**
+	 * @return the number of routes written
+	 */
+	public int getRouteCount() {
+		return routeCount;
+	}
+
+	/**
+	 * @return the costs of the routes written in the objective, including
+	 *         fix and overload costs
+	 */
+	public double getTotalCost() {
+		return totalCost;
+	}
+
+	/**
+	 * Writes the summary of the routes written and closes the file.
+	 * 
+	 * @throws IOException
+	 *             if writing failed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (writer.getDepth() == 1) {
+			writer.emptyElement("summary");
+			writer.attribute("routes", routeCount);
+			writer.attribute("nodes", nodeCount);
+			writer.attribute("distance", totalDistance);
+			writer.attribute("totalCost", totalCost);
+			writer.newLine();
+		}
+		writer.close();
+	}
+}
@@ -0,0 +1,618 @@
+package shippingCore.model;
+
+import java.io.Serializable;
+
+import service.exceptions.InvalidArgumentException;
+import service.properties.IConstants;
+import shippingCore.calculations.time.TimeWindow;
+import shippingCore.cost.ICosts;
+
+/**
+ * Struct-of-arrays representation of a {@link Route}. Instead of a list of
+ * node objects each holding a location and a time window object, the values
+ * the route calculation needs are kept in parallel primitive arrays, so that
+ * evaluation loops run through contiguous memory and a route of n nodes
+ * costs a few arrays instead of 3n objects. The nodes themselves are
+ * referenced by their index in the {@link NodeTable} shared by all routes of
+ * a problem.
+ * <p>
+ * The inclusion flags of the time windows are packed two bits per node. The
+ * time window queries mirror the ones of {@link TimeWindow}, and
+ * {@link #getTimeWindow(int, TimeWindow)} fills a reusable time window where
+ * an object is needed.
+ * <p>
+ * In contrast to {@link Route} no nodes are fixed, the whole route can be
+ * changed. Not thread-safe.
+ */
+public class CompactRoute implements Serializable {
+	private static final long serialVersionUID = 8203415625370936631L;
+
+	/** flag of the packed inclusion bits: start time included */
+	private static final int START_INCLUDING = 1;
+
+	/** flag of the packed inclusion bits: end time included */
+	private static final int END_INCLUDING = 2;
+
+	/** Unique identifier for this route */
+	private long routeId;
+
+	/** the vehicle which services this route */
+	private transient Vehicle vehicle;
+
+	/** the transportation costs of the route, null for the vehicle rates */
+	private transient ICosts transportationCosts;
+
+	/** the time window within which this route is valid */
+	private TimeWindow timeLimit;
+
+	/** table resolving the node indices */
+	private NodeTable nodeTable;
+
+	/** number of nodes including the zero node */
+	private int nodeCount;
+
+	/** index of the nodes in the node table */
+	private int[] nodeIndices;
+
+	/** distance map index of the locations of the nodes */
+	private int[] locationIndices;
+
+	/** the types of the nodes, see Node.TYPE_* */
+	private byte[] nodeTypes;
+
+	/** service times of the nodes in ms */
+	private long[] serviceTimes;
+
+	/** load changes of the nodes */
+	private double[] loadChanges;
+
+	/** start times of the time windows of the nodes */
+	private long[] windowStarts;
+
+	/** end times of the time windows of the nodes */
+	private long[] windowEnds;
+
+	/** inclusion flags of the time windows, two bits per node */
+	private long[] windowFlags;
+
+	/**
+	 * Creates a new route containing only the zero node at the home location
+	 * of the vehicle.
+	 * 
+	 * @param routeId
+	 *            unique identifier for this route
+	 * @param vehicle
+	 *            the vehicle which services this route
+	 * @param timeLimit
+	 *            the time window within which this route is valid
+	 * @param nodeTable
+	 *            the table the nodes of this route are registered in
+	 */
+	public CompactRoute(long routeId, Vehicle vehicle, TimeWindow timeLimit,
+			NodeTable nodeTable) {
+		this(routeId, vehicle, timeLimit, nodeTable, 16);
+		addNode(0, Node.createZeroNode(IConstants.INVALID_ID,
+				vehicle.getHomeLocation(), timeLimit));
+	}
+
+	/**
+	 * Creates an empty route.
+	 */
+	private CompactRoute(long routeId, Vehicle vehicle, TimeWindow timeLimit,
+			NodeTable nodeTable, int capacity) {
+		this.routeId = routeId;
+		this.vehicle = vehicle;
+		this.timeLimit = timeLimit;
+		this.nodeTable = nodeTable;
+		allocate(Math.max(capacity, 1));
+	}
+
+	/**
+	 * Copy constructor, copies the arrays and shares vehicle, costs and node
+	 * table.
+	 * 
+	 * @param other
+	 *            the route to copy
+	 */
+	public CompactRoute(CompactRoute other) {
+		this.routeId = other.routeId;
+		this.vehicle = other.vehicle;
+		this.transportationCosts = other.transportationCosts;
+		this.timeLimit = new TimeWindow(other.timeLimit);
+		this.nodeTable = other.nodeTable;
+		this.nodeCount = other.nodeCount;
+		this.nodeIndices = other.nodeIndices.clone();
+		this.locationIndices = other.locationIndices.clone();
+		this.nodeTypes = other.nodeTypes.clone();
+		this.serviceTimes = other.serviceTimes.clone();
+		this.loadChanges = other.loadChanges.clone();
+		this.windowStarts = other.windowStarts.clone();
+		this.windowEnds = other.windowEnds.clone();
+		this.windowFlags = other.windowFlags.clone();
+	}
+
+	/**
+	 * Creates the compact representation of the route including its zero
+	 * node.
+	 * 
+	 * @param route
+	 *            the route to convert
+	 * @param nodeTable
+	 *            the table to register the nodes in
+	 * @return the compact route
+	 */
+	public static CompactRoute fromRoute(Route route, NodeTable nodeTable) {
+		CompactRoute result = new CompactRoute(route.getRouteId(),
+				route.getVehicle(), route.getTimeLimit(), nodeTable,
+				route.getNodeCount());
+		result.transportationCosts = route.getTransportationCosts();
+
+		for (int i = 0; i < route.getNodeCount(); i++) {
+			result.addNode(route.getNode(i));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Creates a {@link Route} with the nodes of this route. The zero node is
+	 * created by the route itself.
+	 * 
+	 * @return the route
+	 */
+	public Route toRoute() {
+		Route route = new Route(routeId, vehicle, timeLimit);
+		route.setTransportationCosts(transportationCosts);
+
+		for (int i = 1; i < nodeCount; i++) {
+			route.addNode(getNode(i));
+		}
+
+		return route;
+	}
+
+	/**
+	 * @return the unique identifier of this route
+	 */
+	public long getRouteId() {
+		return routeId;
+	}
+
+	/**
+	 * @return the vehicle which services this route
+	 */
+	public Vehicle getVehicle() {
+		return vehicle;
+	}
+
+	/**
+	 * @return the transportation costs of the route, null if the legs are
+	 *         priced by the cost rates of the vehicle
+	 */
+	public ICosts getTransportationCosts() {
+		return transportationCosts;
+	}
+
+	/**
+	 * @param transportationCosts
+	 *            the transportation costs of the route, null to price the legs
+	 *            by the cost rates of the vehicle
+	 */
+	public void setTransportationCosts(ICosts transportationCosts) {
+		this.transportationCosts = transportationCosts;
+	}
+
+	/**
+	 * @return the time window within which this route is valid
+	 */
+	public TimeWindow getTimeLimit() {
+		return timeLimit;
+	}
+
+	/**
+	 * @return the table resolving the node indices
+	 */
+	public NodeTable getNodeTable() {
+		return nodeTable;
+	}
+
+	/**
+	 * @return the number of nodes including the zero node
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @param index
+	 *            index of the node in this route
+	 * @return the node at the index
+	 */
+	public Node getNode(int index) {
+		return nodeTable.getNode(getNodeIndex(index));
+	}
+
+	/**
+	 * @param index
+	 *            index of the node in this route
+	 * @return the index of the node in the node table
+	 */
+	public int getNodeIndex(int index) {
+		checkIndex(index, nodeCount - 1);
+		return nodeIndices[index];
+	}
+
+	/**
+	 * @param node
+	 *            the node to look for
+	 * @return the index of the node in this route, -1 if not contained
+	 */
+	public int indexOf(Node node) {
+		int nodeIndex = nodeTable.indexOf(node);
+
+		for (int i = 0; i < nodeCount && nodeIndex >= 0; i++) {
+			if (nodeIndices[i] == nodeIndex) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Inserts the node at the given index.
+	 * 
+	 * @param index
+	 *            the index the node gets
+	 * @param node
+	 *            the node to insert
+	 */
+	public void addNode(int index, Node node) {
+		checkIndex(index, nodeCount);
+
+		if (nodeCount == nodeIndices.length) {
+			grow();
+		}
+
+		int moved = nodeCount - index;
+		System.arraycopy(nodeIndices, index, nodeIndices, index + 1, moved);
+		System.arraycopy(locationIndices, index, locationIndices, index + 1,
+				moved);
+		System.arraycopy(nodeTypes, index, nodeTypes, index + 1, moved);
+		System.arraycopy(serviceTimes, index, serviceTimes, index + 1, moved);
+		System.arraycopy(loadChanges, index, loadChanges, index + 1, moved);
+		System.arraycopy(windowStarts, index, windowStarts, index + 1, moved);
+		System.arraycopy(windowEnds, index, windowEnds, index + 1, moved);
+		for (int i = nodeCount - 1; i >= index; i--) {
+			setFlags(i + 1, getFlags(i));
+		}
+		nodeCount++;
+
+		setNode(index, node);
+	}
+
+	/**
+	 * Appends the node at the end of this route.
+	 * 
+	 * @param node
+	 *            the node to append
+	 */
+	public void addNode(Node node) {
+		addNode(nodeCount, node);
+	}
+
+	/**
+	 * Removes the node at the given index.
+	 * 
+	 * @param index
+	 *            the index of the node to remove
+	 * @return the removed node
+	 */
+	public Node removeNode(int index) {
+		Node node = getNode(index);
+
+		int moved = nodeCount - index - 1;
+		System.arraycopy(nodeIndices, index + 1, nodeIndices, index, moved);
+		System.arraycopy(locationIndices, index + 1, locationIndices, index,
+				moved);
+		System.arraycopy(nodeTypes, index + 1, nodeTypes, index, moved);
+		System.arraycopy(serviceTimes, index + 1, serviceTimes, index, moved);
+		System.arraycopy(loadChanges, index + 1, loadChanges, index, moved);
+		System.arraycopy(windowStarts, index + 1, windowStarts, index, moved);
+		System.arraycopy(windowEnds, index + 1, windowEnds, index, moved);
+		for (int i = index + 1; i < nodeCount; i++) {
+			setFlags(i - 1, getFlags(i));
+		}
+		nodeCount--;
+
+		return node;
+	}
+
+	/**
+	 * Exchanges the nodes at the given indices.
+	 * 
+	 * @param index1
+	 *            index of the first node
+	 * @param index2
+	 *            index of the second node
+	 */
+	public void swapNodes(int index1, int index2) {
+		Node node1 = getNode(index1);
+		Node node2 = getNode(index2);
+		setNode(index1, node2);
+		setNode(index2, node1);
+	}
+
+	/**
+	 * @param index
+	 *            index of the node in this route
+	 * @return the distance map index of the location of the node
+	 */
+	public int getLocationIndex(int index) {
+		checkIndex(index, nodeCount - 1);
+		return locationIndices[index];
+	}
+
+	/**
+	 * Returns the costs of all legs of the route in one bulk call over the
+	 * location indices.
+	 * 
+	 * @param costs
+	 *            the cost model
+	 * @return the costs of the legs without fix costs
+	 */
+	public double getLegsCost(ICosts costs) {
+		return costs.getLegsCost(locationIndices, 0, nodeCount);
+	}
+
+	/**
+	 * @param index
+	 *            index of the node in this route
+	 * @return the type of the node, see Node.TYPE_*
+	 */
+	public int getNodeType(int index) {
+		checkIndex(index, nodeCount - 1);
+		return nodeTypes[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node in this route
+	 * @return the service time of the node in ms
+	 */
+	public long getServiceTime(int index) {
+		checkIndex(index, nodeCount - 1);
+		return serviceTimes[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node in this route
+	 * @return the load change of the node
+	 */
+	public double getLoadChange(int index) {
+		checkIndex(index, nodeCount - 1);
+		return loadChanges[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node in this route
+	 * @return the start time of the time window of the node
+	 */
+	public long getWindowStart(int index) {
+		checkIndex(index, nodeCount - 1);
+		return windowStarts[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node in this route
+	 * @return the end time of the time window of the node
+	 */
+	public long getWindowEnd(int index) {
+		checkIndex(index, nodeCount - 1);
+		return windowEnds[index];
+	}
+
+	/**
+	 * @param index
+	 *            index of the node in this route
+	 * @return if the start point of the time window of the node is included
+	 */
+	public boolean isWindowStartIncluding(int index) {
+		checkIndex(index, nodeCount - 1);
+		return (getFlags(index) & START_INCLUDING) != 0;
+	}
+
+	/**
+	 * @param index
+	 *            index of the node in this route
+	 * @return if the end point of the time window of the node is included
+	 */
+	public boolean isWindowEndIncluding(int index) {
+		checkIndex(index, nodeCount - 1);
+		return (getFlags(index) & END_INCLUDING) != 0;
+	}
+
+	/**
+	 * Same as {@link TimeWindow#getTimeBefore(long)} for the time window of
+	 * the node.
+	 * 
+	 * @param index
+	 *            index of the node in this route
+	 * @param time
+	 *            the time to check
+	 * @return the time until the time window opens, 0 if it is already open
+	 */
+	public long getTimeBefore(int index, long time) {
+		return Math.max(getWindowStart(index) - time, 0);
+	}
+
+	/**
+	 * Same as {@link TimeWindow#getTimeAfter(long)} for the time window of the
+	 * node.
+	 * 
+	 * @param index
+	 *            index of the node in this route
+	 * @param time
+	 *            the time to check
+	 * @return the time since the time window closed, 0 if it is not closed
+	 */
+	public long getTimeAfter(int index, long time) {
+		return Math.max(time - getWindowEnd(index), 0);
+	}
+
+	/**
+	 * Same as {@link TimeWindow#isTimeBefore(long)} for the time window of the
+	 * node.
+	 * 
+	 * @param index
+	 *            index of the node in this route
+	 * @param time
+	 *            the time to check
+	 * @return true if the passed time is before the time window
+	 */
+	public boolean isTimeBefore(int index, long time) {
+		long start = getWindowStart(index);
+		return time < start
+				|| (time == start && !isWindowStartIncluding(index));
+	}
+
+	/**
+	 * Same as {@link TimeWindow#isTimeAfter(long)} for the time window of the
+	 * node.
+	 * 
+	 * @param index
+	 *            index of the node in this route
+	 * @param time
+	 *            the time to check
+	 * @return true if the passed time is after the time window
+	 */
+	public boolean isTimeAfter(int index, long time) {
+		long end = getWindowEnd(index);
+		return time > end || (time == end && !isWindowEndIncluding(index));
+	}
+
+	/**
+	 * Same as {@link TimeWindow#isTimeWithin(long)} for the time window of the
+	 * node.
+	 * 
+	 * @param index
+	 *            index of the node in this route
+	 * @param time
+	 *            the time to check
+	 * @return true if the passed time is within the time window
+	 */
+	public boolean isTimeWithin(int index, long time) {
+		return !isTimeAfter(index, time) && !isTimeBefore(index, time);
+	}
+
+	/**
+	 * Sets the time window of the node into the passed one, so that loops
+	 * needing a {@link TimeWindow} can reuse one object.
+	 * 
+	 * @param index
+	 *            index of the node in this route
+	 * @param result
+	 *            the time window to set
+	 * @return the passed time window
+	 */
+	public TimeWindow getTimeWindow(int index, TimeWindow result) {
+		result.setTimes(getWindowStart(index), isWindowStartIncluding(index),
+				getWindowEnd(index), isWindowEndIncluding(index));
+		return result;
+	}
+
+	/**
+	 * Writes all columns of the node at the given index.
+	 */
+	private void setNode(int index, Node node) {
+		TimeWindow timeWindow = node.getTimeWindow();
+
+		nodeIndices[index] = nodeTable.add(node);
+		locationIndices[index] = node.getLocation().getDistanceMapIndex();
+		nodeTypes[index] = (byte) node.getNodeType();
+		serviceTimes[index] = node.getServiceTime();
+		loadChanges[index] = node.getLoadChange();
+		windowStarts[index] = timeWindow.getStartTime();
+		windowEnds[index] = timeWindow.getEndTime();
+		setFlags(index,
+				(timeWindow.isStartTimeIncluding() ? START_INCLUDING : 0)
+						| (timeWindow.isEndTimeIncluding() ? END_INCLUDING
+								: 0));
+	}
+
+	/**
+	 * @return the two inclusion bits of the node
+	 */
+	private int getFlags(int index) {
+		int bit = index << 1;
+		return (int) (windowFlags[bit >>> 6] >>> (bit & 63)) & 3;
+	}
+
+	/**
+	 * Sets the two inclusion bits of the node.
+	 */
+	private void setFlags(int index, int flags) {
+		int bit = index << 1;
+		int word = bit >>> 6;
+		windowFlags[word] = (windowFlags[word] & ~(3L << (bit & 63)))
+				| ((long) flags << (bit & 63));
+	}
+
+	private void allocate(int capacity) {
+		nodeIndices = new int[capacity];
+		locationIndices = new int[capacity];
+		nodeTypes = new byte[capacity];
+		serviceTimes = new long[capacity];
+		loadChanges = new double[capacity];
+		windowStarts = new long[capacity];
+		windowEnds = new long[capacity];
+		windowFlags = new long[(capacity + 31) >>> 5];
+	}
+
+	private void grow() {
+		int capacity = nodeIndices.length * 2;
+		int[] oldNodeIndices = nodeIndices;
+		int[] oldLocationIndices = locationIndices;
+		byte[] oldNodeTypes = nodeTypes;
+		long[] oldServiceTimes = serviceTimes;
+		double[] oldLoadChanges = loadChanges;
+		long[] oldWindowStarts = windowStarts;
+		long[] oldWindowEnds = windowEnds;
+		long[] oldWindowFlags = windowFlags;
+
+		allocate(capacity);
+		System.arraycopy(oldNodeIndices, 0, nodeIndices, 0, nodeCount);
+		System.arraycopy(oldLocationIndices, 0, locationIndices, 0,
+				nodeCount);
+		System.arraycopy(oldNodeTypes, 0, nodeTypes, 0, nodeCount);
+		System.arraycopy(oldServiceTimes, 0, serviceTimes, 0, nodeCount);
+		System.arraycopy(oldLoadChanges, 0, loadChanges, 0, nodeCount);
+		System.arraycopy(oldWindowStarts, 0, windowStarts, 0, nodeCount);
+		System.arraycopy(oldWindowEnds, 0, windowEnds, 0, nodeCount);
+		System.arraycopy(oldWindowFlags, 0, windowFlags, 0,
+				oldWindowFlags.length);
+	}
+
+	private void checkIndex(int index, int maxIndex) {
+		if (index < 0 || index > maxIndex) {
+			throw new InvalidArgumentException(
+					"Invalid node index " + index + ", node count " + nodeCount);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("CompactRoute ");
+		result.append(routeId).append(" [");
+		for (int i = 0; i < nodeCount; i++) {
+			if (i > 0) {
+				result.append(", ");
+			}
+			result.append(getNode(i));
+		}
+		return result.append(']').toString();
+	}
+}
@@ -1,5 +1,181 @@
 package shippingCore.model;
 
-public class Node {
+import java.io.Serializable;
 
+import shippingCore.calculations.time.TimeWindow;
+import shippingCore.dao.ILocation;
+
+/**
+ * A stop of a route: the pickup or delivery of an order or the zero node
+ * (start of the vehicle). Nodes are problem data and are not changed during
+ * optimization, only their position within the routes changes.
+ * 
+ */
+public class Node implements Serializable {
+	private static final long serialVersionUID = 2316549170223359087L;
+
+	/** node type of the zero node (start of a route) */
+	public static final int TYPE_ZERO = 0;
+
+	/** node type of a pickup */
+	public static final int TYPE_PICKUP = 1;
+
+	/** node type of a delivery */
+	public static final int TYPE_DELIVERY = 2;
+
+	/** unique identifier of this node */
+	private final long nodeId;
+
+	/** one of {@link #TYPE_ZERO}, {@link #TYPE_PICKUP}, {@link #TYPE_DELIVERY} */
+	private final int nodeType;
+
+	/** the location of this node */
+	private final ILocation location;
+
+	/** the time window within which the service should start */
+	private final TimeWindow timeWindow;
+
+	/** the time in milliseconds needed to service this node */
+	private final long serviceTime;
+
+	/**
+	 * the weight loaded (positive) or unloaded (negative) at this node
+	 */
+	private final double loadChange;
+
+	/** the order this node belongs to, null for the zero node */
+	private final Order order;
+
+	/**
+	 * Creates a new node.
+	 * 
+	 * @param nodeId
+	 *            unique identifier of this node
+	 * @param nodeType
+	 *            one of {@link #TYPE_ZERO}, {@link #TYPE_PICKUP},
+	 *            {@link #TYPE_DELIVERY}
+	 * @param location
+	 *            the location of this node
+	 * @param timeWindow
+	 *            the time window within which the service should start
+	 * @param serviceTime
+	 *            the time in milliseconds needed to service this node
+	 * @param loadChange
+	 *            the weight loaded (positive) or unloaded (negative)
+	 * @param order
+	 *            the order this node belongs to, null for the zero node
+	 */
+	public Node(long nodeId, int nodeType, ILocation location,
+			TimeWindow timeWindow, long serviceTime, double loadChange,
+			Order order) {
+		this.nodeId = nodeId;
+		this.nodeType = nodeType;
+		this.location = location;
+		this.timeWindow = timeWindow;
+		this.serviceTime = serviceTime;
+		this.loadChange = loadChange;
+		this.order = order;
+	}
+
+	/**
+	 * Copy constructor. The time window is copied, location and order are
+	 * shared.
+	 * 
+	 * @param other
+	 *            the node to copy
+	 */
+	public Node(Node other) {
+		this.nodeId = other.nodeId;
+		this.nodeType = other.nodeType;
+		this.location = other.location;
+		this.timeWindow = new TimeWindow(other.timeWindow);
+		this.serviceTime = other.serviceTime;
+		this.loadChange = other.loadChange;
+		this.order = other.order;
+	}
+
+	/**
+	 * Creates the zero node of a route.
+	 * 
+	 * @param nodeId
+	 *            unique identifier of this node
+	 * @param location
+	 *            the start location of the vehicle
+	 * @param timeWindow
+	 *            the time window within which the route can start
+	 * @return the zero node
+	 */
+	public static Node createZeroNode(long nodeId, ILocation location,
+			TimeWindow timeWindow) {
+		return new Node(nodeId, TYPE_ZERO, location, timeWindow, 0, 0, null);
+	}
+
+	/**
+	 * @return the unique identifier of this node
+	 */
+	public long getNodeId() {
+		return nodeId;
+	}
+
+	/**
+	 * @return one of {@link #TYPE_ZERO}, {@link #TYPE_PICKUP},
+	 *         {@link #TYPE_DELIVERY}
+	 */
+	public int getNodeType() {
+		return nodeType;
+	}
+
+	/**
+	 * @return true if this is a pickup node
+	 */
+	public boolean isPickup() {
+		return nodeType == TYPE_PICKUP;
+	}
+
+	/**
+	 * @return true if this is a delivery node
+	 */
+	public boolean isDelivery() {
+		return nodeType == TYPE_DELIVERY;
+	}
+
+	/**
+	 * @return the location of this node
+	 */
+	public ILocation getLocation() {
+		return location;
+	}
+
+	/**
+	 * @return the time window within which the service should start
+	 */
+	public TimeWindow getTimeWindow() {
+		return timeWindow;
+	}
+
+	/**
+	 * @return the time in milliseconds needed to service this node
+	 */
+	public long getServiceTime() {
+		return serviceTime;
+	}
+
+	/**
+	 * @return the weight loaded (positive) or unloaded (negative) at this node
+	 */
+	public double getLoadChange() {
+		return loadChange;
+	}
+
+	/**
+	 * @return the order this node belongs to, null for the zero node
+	 */
+	public Order getOrder() {
+		return order;
+	}
+
+	@Override
+	public String toString() {
+		return "Node " + nodeId + " (" + location + ", " + timeWindow + ")";
+	}
 }
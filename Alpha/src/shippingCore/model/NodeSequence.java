@@ -0,0 +1,312 @@
+package shippingCore.model;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Copy-on-write list of the nodes of a route. The nodes are stored in chunks
+ * of at most {@link #CHUNK_SIZE} nodes. {@link #fork()} creates a copy in
+ * O(1) that shares all chunks with this sequence. The first change of either
+ * sequence copies the chunk table, and every change copies only the chunk it
+ * touches if that chunk is still shared. So thousands of solution snapshots
+ * differing in a few moves share most of their node arrays.
+ * <p>
+ * Not thread-safe: a sequence and its forks must be changed by one thread
+ * only, or each by the thread owning it after the fork.
+ */
+public class NodeSequence extends AbstractList<Node>
+		implements RandomAccess, Serializable {
+	private static final long serialVersionUID = 5560624001537154237L;
+
+	/** maximum number of nodes per chunk */
+	static final int CHUNK_SIZE = 32;
+
+	/** the chunks holding the nodes */
+	private Node[][] chunks;
+
+	/** number of nodes in each chunk */
+	private int[] chunkSizes;
+
+	/** index of the first node of each chunk */
+	private int[] chunkOffsets;
+
+	/** flags which chunks are owned by this sequence and may be written */
+	private boolean[] chunkOwned;
+
+	/** number of used chunks */
+	private int chunkCount;
+
+	/** number of nodes */
+	private int size;
+
+	/** true if the chunk table is shared with a fork */
+	private boolean tableShared;
+
+	public NodeSequence() {
+		chunks = new Node[4][];
+		chunkSizes = new int[4];
+		chunkOffsets = new int[4];
+		chunkOwned = new boolean[4];
+	}
+
+	/**
+	 * Constructor for {@link #fork()}, shares all arrays.
+	 */
+	private NodeSequence(NodeSequence other) {
+		chunks = other.chunks;
+		chunkSizes = other.chunkSizes;
+		chunkOffsets = other.chunkOffsets;
+		chunkOwned = other.chunkOwned;
+		chunkCount = other.chunkCount;
+		size = other.size;
+		tableShared = true;
+	}
+
+	/**
+	 * Creates a copy of this sequence in O(1). Both sequences can be changed
+	 * independently afterwards.
+	 * 
+	 * @return the copy
+	 */
+	public NodeSequence fork() {
+		tableShared = true;
+		return new NodeSequence(this);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Node get(int index) {
+		checkIndex(index, size - 1);
+		int chunk = findChunk(index);
+		return chunks[chunk][index - chunkOffsets[chunk]];
+	}
+
+	@Override
+	public Node set(int index, Node node) {
+		checkIndex(index, size - 1);
+		int chunk = findChunk(index);
+		Node[] nodes = getWritableChunk(chunk);
+		int position = index - chunkOffsets[chunk];
+		Node old = nodes[position];
+		nodes[position] = node;
+		return old;
+	}
+
+	@Override
+	public void add(int index, Node node) {
+		checkIndex(index, size);
+		prepareTableWrite();
+
+		int chunk;
+		if (chunkCount == 0) {
+			insertChunk(0, new Node[CHUNK_SIZE], 0);
+			chunk = 0;
+		} else if (index == size) {
+			chunk = chunkCount - 1;
+		} else {
+			chunk = findChunk(index);
+		}
+
+		if (chunkSizes[chunk] == CHUNK_SIZE) {
+			splitChunk(chunk);
+			if (index - chunkOffsets[chunk] > chunkSizes[chunk]) {
+				chunk++;
+			}
+		}
+
+		Node[] nodes = getWritableChunk(chunk);
+		int position = index - chunkOffsets[chunk];
+		System.arraycopy(nodes, position, nodes, position + 1,
+				chunkSizes[chunk] - position);
+		nodes[position] = node;
+		chunkSizes[chunk]++;
+		size++;
+		updateOffsets(chunk + 1);
+		modCount++;
+	}
+
+	@Override
+	public Node remove(int index) {
+		checkIndex(index, size - 1);
+		prepareTableWrite();
+
+		int chunk = findChunk(index);
+		Node[] nodes = getWritableChunk(chunk);
+		int position = index - chunkOffsets[chunk];
+		Node old = nodes[position];
+		int moved = chunkSizes[chunk] - position - 1;
+		System.arraycopy(nodes, position + 1, nodes, position, moved);
+		nodes[chunkSizes[chunk] - 1] = null;
+		chunkSizes[chunk]--;
+		size--;
+
+		if (chunkSizes[chunk] == 0) {
+			removeChunk(chunk);
+			updateOffsets(chunk);
+		} else {
+			updateOffsets(chunk + 1);
+		}
+		modCount++;
+
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		chunks = new Node[4][];
+		chunkSizes = new int[4];
+		chunkOffsets = new int[4];
+		chunkOwned = new boolean[4];
+		chunkCount = 0;
+		size = 0;
+		tableShared = false;
+		modCount++;
+	}
+
+	/**
+	 * @return the index of the chunk containing the node index
+	 */
+	private int findChunk(int index) {
+		int low = 0;
+		int high = chunkCount - 1;
+
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (chunkOffsets[middle] <= index) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * Copies the chunk table if it is shared with a fork. Afterwards no chunk
+	 * is owned by this sequence.
+	 */
+	private void prepareTableWrite() {
+		if (tableShared) {
+			int capacity = Math.max(chunkCount + 1, chunks.length);
+			Node[][] newChunks = new Node[capacity][];
+			int[] newSizes = new int[capacity];
+			int[] newOffsets = new int[capacity];
+
+			System.arraycopy(chunks, 0, newChunks, 0, chunkCount);
+			System.arraycopy(chunkSizes, 0, newSizes, 0, chunkCount);
+			System.arraycopy(chunkOffsets, 0, newOffsets, 0, chunkCount);
+
+			chunks = newChunks;
+			chunkSizes = newSizes;
+			chunkOffsets = newOffsets;
+			chunkOwned = new boolean[capacity];
+			tableShared = false;
+		}
+	}
+
+	/**
+	 * @return the chunk, copied before if it is not owned by this sequence
+	 */
+	private Node[] getWritableChunk(int chunk) {
+		prepareTableWrite();
+
+		if (!chunkOwned[chunk]) {
+			chunks[chunk] = chunks[chunk].clone();
+			chunkOwned[chunk] = true;
+		}
+
+		return chunks[chunk];
+	}
+
+	/**
+	 * Splits a full chunk into two halves.
+	 */
+	private void splitChunk(int chunk) {
+		Node[] nodes = chunks[chunk];
+		int half = CHUNK_SIZE / 2;
+
+		Node[] first = new Node[CHUNK_SIZE];
+		Node[] second = new Node[CHUNK_SIZE];
+		System.arraycopy(nodes, 0, first, 0, half);
+		System.arraycopy(nodes, half, second, 0, CHUNK_SIZE - half);
+
+		chunks[chunk] = first;
+		chunkSizes[chunk] = half;
+		chunkOwned[chunk] = true;
+		insertChunk(chunk + 1, second, CHUNK_SIZE - half);
+		updateOffsets(chunk + 1);
+	}
+
+	/**
+	 * Inserts an owned chunk into the table (which must not be shared).
+	 */
+	private void insertChunk(int chunk, Node[] nodes, int nodeCount) {
+		if (chunkCount == chunks.length) {
+			int capacity = chunkCount * 2;
+			Node[][] newChunks = new Node[capacity][];
+			int[] newSizes = new int[capacity];
+			int[] newOffsets = new int[capacity];
+			boolean[] newOwned = new boolean[capacity];
+
+			System.arraycopy(chunks, 0, newChunks, 0, chunkCount);
+			System.arraycopy(chunkSizes, 0, newSizes, 0, chunkCount);
+			System.arraycopy(chunkOffsets, 0, newOffsets, 0, chunkCount);
+			System.arraycopy(chunkOwned, 0, newOwned, 0, chunkCount);
+
+			chunks = newChunks;
+			chunkSizes = newSizes;
+			chunkOffsets = newOffsets;
+			chunkOwned = newOwned;
+		}
+
+		int moved = chunkCount - chunk;
+		System.arraycopy(chunks, chunk, chunks, chunk + 1, moved);
+		System.arraycopy(chunkSizes, chunk, chunkSizes, chunk + 1, moved);
+		System.arraycopy(chunkOffsets, chunk, chunkOffsets, chunk + 1, moved);
+		System.arraycopy(chunkOwned, chunk, chunkOwned, chunk + 1, moved);
+
+		chunks[chunk] = nodes;
+		chunkSizes[chunk] = nodeCount;
+		chunkOwned[chunk] = true;
+		chunkCount++;
+	}
+
+	/**
+	 * Removes an empty chunk from the table (which must not be shared).
+	 */
+	private void removeChunk(int chunk) {
+		int moved = chunkCount - chunk - 1;
+		System.arraycopy(chunks, chunk + 1, chunks, chunk, moved);
+		System.arraycopy(chunkSizes, chunk + 1, chunkSizes, chunk, moved);
+		System.arraycopy(chunkOffsets, chunk + 1, chunkOffsets, chunk, moved);
+		System.arraycopy(chunkOwned, chunk + 1, chunkOwned, chunk, moved);
+		chunkCount--;
+		chunks[chunkCount] = null;
+	}
+
+	/**
+	 * Recalculates the offsets of the chunks from the given one onwards.
+	 */
+	private void updateOffsets(int fromChunk) {
+		int offset = fromChunk > 0
+				? chunkOffsets[fromChunk - 1] + chunkSizes[fromChunk - 1] : 0;
+
+		for (int i = fromChunk; i < chunkCount; i++) {
+			chunkOffsets[i] = offset;
+			offset += chunkSizes[i];
+		}
+	}
+
+	private void checkIndex(int index, int maxIndex) {
+		if (index < 0 || index > maxIndex) {
+			throw new IndexOutOfBoundsException(
+					"Index: " + index + ", Size: " + size);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package shippingCore.model;
+
+import java.io.Serializable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import service.exceptions.InvalidArgumentException;
+
+/**
+ * Numbers the nodes of a problem densely from 0, so that compact
+ * representations like {@link CompactRoute} can reference nodes by int index
+ * instead of by object. One table is shared by all compact routes of a
+ * problem.
+ */
+public class NodeTable implements Serializable {
+	private static final long serialVersionUID = -2296133941040695617L;
+
+	/** the nodes by index */
+	private Node[] nodes;
+
+	/** number of nodes in the table */
+	private int size;
+
+	/**
+	 * index of the nodes, by identity because the zero nodes of all routes
+	 * share the invalid id
+	 */
+	private Map<Node, Integer> indexByNode;
+
+	public NodeTable() {
+		this(64);
+	}
+
+	/**
+	 * @param capacity
+	 *            the expected number of nodes
+	 */
+	public NodeTable(int capacity) {
+		nodes = new Node[Math.max(capacity, 1)];
+		indexByNode = new IdentityHashMap<Node, Integer>(capacity);
+	}
+
+	/**
+	 * Adds the node to the table if it is not contained yet.
+	 * 
+	 * @param node
+	 *            the node to add
+	 * @return the index of the node
+	 */
+	public int add(Node node) {
+		Integer index = indexByNode.get(node);
+		if (index != null) {
+			return index;
+		}
+
+		if (size == nodes.length) {
+			Node[] newNodes = new Node[size * 2];
+			System.arraycopy(nodes, 0, newNodes, 0, size);
+			nodes = newNodes;
+		}
+
+		nodes[size] = node;
+		indexByNode.put(node, size);
+		return size++;
+	}
+
+	/**
+	 * @param node
+	 *            the node to look up
+	 * @return the index of the node, -1 if it is not contained
+	 */
+	public int indexOf(Node node) {
+		Integer index = indexByNode.get(node);
+		return index != null ? index : -1;
+	}
+
+	/**
+	 * @param index
+	 *            index of the node
+	 * @return the node at the index
+	 */
+	public Node getNode(int index) {
+		if (index < 0 || index >= size) {
+			throw new InvalidArgumentException("Invalid node index " + index);
+		}
+		return nodes[index];
+	}
+
+	/**
+	 * @return the number of nodes in the table
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -1,5 +1,122 @@
 package shippingCore.model;
 
-public class Order {
+import java.io.Serializable;
 
+import shippingCore.calculations.time.TimeWindow;
+import shippingCore.dao.ILocation;
+
+/**
+ * A transport order: a weight that has to be picked up at one location and
+ * delivered at another. The pickup and delivery nodes are created with the
+ * order.
+ * 
+ */
+public class Order implements Serializable {
+	private static final long serialVersionUID = -4187062307514962513L;
+
+	/** unique identifier of this order */
+	private final long orderId;
+
+	/** the weight to transport */
+	private final double weight;
+
+	/** the node where the weight is loaded */
+	private final Node pickupNode;
+
+	/** the node where the weight is unloaded */
+	private final Node deliveryNode;
+
+	/** the index of the order in the orders of its problem, -1 if none */
+	private int index = -1;
+
+	/**
+	 * Creates a new order and its pickup and delivery nodes.
+	 * 
+	 * @param orderId
+	 *            unique identifier of this order
+	 * @param weight
+	 *            the weight to transport
+	 * @param pickupNodeId
+	 *            unique identifier of the pickup node
+	 * @param pickupLocation
+	 *            the location where the weight is loaded
+	 * @param pickupTimeWindow
+	 *            the time window for the pickup
+	 * @param pickupServiceTime
+	 *            the time in milliseconds needed for loading
+	 * @param deliveryNodeId
+	 *            unique identifier of the delivery node
+	 * @param deliveryLocation
+	 *            the location where the weight is unloaded
+	 * @param deliveryTimeWindow
+	 *            the time window for the delivery
+	 * @param deliveryServiceTime
+	 *            the time in milliseconds needed for unloading
+	 */
+	public Order(long orderId, double weight, long pickupNodeId,
+			ILocation pickupLocation, TimeWindow pickupTimeWindow,
+			long pickupServiceTime, long deliveryNodeId,
+			ILocation deliveryLocation, TimeWindow deliveryTimeWindow,
+			long deliveryServiceTime) {
+		this.orderId = orderId;
+		this.weight = weight;
+		this.pickupNode = new Node(pickupNodeId, Node.TYPE_PICKUP,
+				pickupLocation, pickupTimeWindow, pickupServiceTime, weight,
+				this);
+		this.deliveryNode = new Node(deliveryNodeId, Node.TYPE_DELIVERY,
+				deliveryLocation, deliveryTimeWindow, deliveryServiceTime,
+				-weight, this);
+	}
+
+	/**
+	 * @return the unique identifier of this order
+	 */
+	public long getOrderId() {
+		return orderId;
+	}
+
+	/**
+	 * @return the weight to transport
+	 */
+	public double getWeight() {
+		return weight;
+	}
+
+	/**
+	 * @return the node where the weight is loaded
+	 */
+	public Node getPickupNode() {
+		return pickupNode;
+	}
+
+	/**
+	 * @return the node where the weight is unloaded
+	 */
+	public Node getDeliveryNode() {
+		return deliveryNode;
+	}
+
+	/**
+	 * @return the index of the order in the orders of its problem, numbers
+	 *         the orders densely from 0, -1 if the order is not part of a
+	 *         problem
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Set by the problem the order is part of.
+	 * 
+	 * @param index
+	 *            the index of the order in the orders of its problem
+	 */
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	@Override
+	public String toString() {
+		return "Order " + orderId + " (" + weight + ")";
+	}
 }
@@ -1,15 +1,25 @@
 package shippingCore.model;
 
+import java.io.Serializable;
+import java.util.Collections;
 import java.util.List;
 
+import service.exceptions.InvalidArgumentException;
+import service.properties.IConstants;
+import shippingCore.calculations.RouteEvaluation;
 import shippingCore.calculations.time.TimeWindow;
 import shippingCore.cost.ICosts;
 
-public class Route {
+public class Route implements Serializable {
+	private static final long serialVersionUID = -3427917735282107012L;
 
 	/** Unique identifier for this Route */
 	private long routeId;
 
+	/**
+	 * Index of the node the vehicle is heading to or is at. This node and all
+	 * nodes before are fixed and must not be changed by the optimization.
+	 */
 	private int nodeHeadingToOrAtIndex;
 
 	/** The Time Window within which this route is valid */
@@ -19,7 +29,7 @@ public class Route {
 	 * The list of nodes which this route is made of. The first node is always
 	 * the zero node
 	 */
-	private List<Node> nodes;
+	private NodeSequence nodes;
 
 	/** The vehcile which services this Route */
 	private transient Vehicle vehicle;
@@ -37,4 +47,313 @@ public class Route {
 
 	private boolean routeChanged;
 
+	/**
+	 * The lowest node index changed since the last route calculation. Only
+	 * valid if {@link #routeChanged} is set.
+	 */
+	private transient int firstChangedIndex;
+
+	/** cached per node state of the last route calculation */
+	private transient RouteEvaluation evaluation;
+
+	/** true if the evaluation is shared with a copy of this route */
+	private transient boolean evaluationShared;
+
+	/** incremented by every change of the node sequence */
+	private transient int version;
+
+	/**
+	 * Creates a new route containing only the zero node at the home location
+	 * of the vehicle.
+	 * 
+	 * @param routeId
+	 *            unique identifier for this route
+	 * @param vehicle
+	 *            the vehicle which services this route
+	 * @param timeLimit
+	 *            the time window within which this route is valid
+	 */
+	public Route(long routeId, Vehicle vehicle, TimeWindow timeLimit) {
+		this.routeId = routeId;
+		this.vehicle = vehicle;
+		this.timeLimit = timeLimit;
+		this.nodes = new NodeSequence();
+		this.nodes.add(Node.createZeroNode(IConstants.INVALID_ID,
+				vehicle.getHomeLocation(), timeLimit));
+		markChanged(0);
+	}
+
+	/**
+	 * Copy constructor for solution snapshots. Nodes, vehicle and costs are
+	 * problem data and are shared, the time limit is copied. The node sequence
+	 * and the cached evaluation are shared copy-on-write, so the copy takes
+	 * O(1) regardless of the route length. Much faster than
+	 * {@link service.util.Copy#deepCopy(Object)}.
+	 * 
+	 * @param other
+	 *            the route to copy
+	 */
+	public Route(Route other) {
+		this.routeId = other.routeId;
+		this.nodeHeadingToOrAtIndex = other.nodeHeadingToOrAtIndex;
+		this.timeLimit = new TimeWindow(other.timeLimit);
+		this.nodes = other.nodes.fork();
+		this.vehicle = other.vehicle;
+		this.transportationCosts = other.transportationCosts;
+		this.constraintCosts = other.constraintCosts;
+		this.routeChanged = other.routeChanged;
+		this.firstChangedIndex = other.firstChangedIndex;
+		this.evaluation = other.evaluation;
+		if (evaluation != null) {
+			this.evaluationShared = true;
+			other.evaluationShared = true;
+		}
+	}
+
+	/**
+	 * @return the unique identifier of this route
+	 */
+	public long getRouteId() {
+		return routeId;
+	}
+
+	/**
+	 * @return the index of the node the vehicle is heading to or is at
+	 */
+	public int getNodeHeadingToOrAtIndex() {
+		return nodeHeadingToOrAtIndex;
+	}
+
+	/**
+	 * Sets the index of the node the vehicle is heading to or is at. This node
+	 * and all nodes before are fixed from now on.
+	 * 
+	 * @param nodeHeadingToOrAtIndex
+	 *            the index of the node the vehicle is heading to or is at
+	 */
+	public void setNodeHeadingToOrAtIndex(int nodeHeadingToOrAtIndex) {
+		this.nodeHeadingToOrAtIndex = nodeHeadingToOrAtIndex;
+	}
+
+	/**
+	 * @return the first index at which nodes may be inserted, removed or
+	 *         exchanged
+	 */
+	public int getFirstModifiableIndex() {
+		return nodeHeadingToOrAtIndex + 1;
+	}
+
+	/**
+	 * @return the time window within which this route is valid
+	 */
+	public TimeWindow getTimeLimit() {
+		return timeLimit;
+	}
+
+	/**
+	 * @return the vehicle which services this route
+	 */
+	public Vehicle getVehicle() {
+		return vehicle;
+	}
+
+	/**
+	 * @return the number of nodes including the zero node
+	 */
+	public int getNodeCount() {
+		return nodes.size();
+	}
+
+	/**
+	 * @param index
+	 *            the index of the node
+	 * @return the node at the given index
+	 */
+	public Node getNode(int index) {
+		return nodes.get(index);
+	}
+
+	/**
+	 * @return unmodifiable view of the nodes of this route
+	 */
+	public List<Node> getNodes() {
+		return Collections.unmodifiableList(nodes);
+	}
+
+	/**
+	 * @param node
+	 *            the node to search
+	 * @return the index of the node or -1 if it is not part of this route
+	 */
+	public int indexOf(Node node) {
+		return nodes.indexOf(node);
+	}
+
+	/**
+	 * Inserts the node at the given index, shifting the node at this index and
+	 * all following nodes.
+	 * 
+	 * @param index
+	 *            index at which the node is inserted
+	 * @param node
+	 *            the node to insert
+	 */
+	public void addNode(int index, Node node) {
+		checkModifiable(index, nodes.size());
+		nodes.add(index, node);
+		markChanged(index);
+	}
+
+	/**
+	 * Appends the node at the end of this route.
+	 * 
+	 * @param node
+	 *            the node to append
+	 */
+	public void addNode(Node node) {
+		addNode(nodes.size(), node);
+	}
+
+	/**
+	 * Removes the node at the given index.
+	 * 
+	 * @param index
+	 *            index of the node to remove
+	 * @return the removed node
+	 */
+	public Node removeNode(int index) {
+		checkModifiable(index, nodes.size() - 1);
+		Node node = nodes.remove(index);
+		markChanged(index);
+		return node;
+	}
+
+	/**
+	 * Exchanges the nodes at the given indices.
+	 * 
+	 * @param index1
+	 *            index of the first node
+	 * @param index2
+	 *            index of the second node
+	 */
+	public void swapNodes(int index1, int index2) {
+		checkModifiable(index1, nodes.size() - 1);
+		checkModifiable(index2, nodes.size() - 1);
+		nodes.set(index1, nodes.set(index2, nodes.get(index1)));
+		markChanged(Math.min(index1, index2));
+	}
+
+	/**
+	 * Checks if the index may be changed.
+	 * 
+	 * @throws InvalidArgumentException
+	 *             if the index is fixed or greater than maxIndex
+	 */
+	private void checkModifiable(int index, int maxIndex) {
+		if (index < getFirstModifiableIndex() || index > maxIndex) {
+			throw new InvalidArgumentException("Index " + index
+					+ " cannot be modified in route " + routeId + " (range "
+					+ getFirstModifiableIndex() + ".." + maxIndex + ")");
+		}
+	}
+
+	/**
+	 * Marks this route as changed from the given index onwards.
+	 * 
+	 * @param index
+	 *            the lowest index that changed
+	 */
+	private void markChanged(int index) {
+		if (!routeChanged || index < firstChangedIndex) {
+			firstChangedIndex = index;
+		}
+		routeChanged = true;
+		version++;
+	}
+
+	/**
+	 * @return a number that changes with every change of the node sequence, so
+	 *         that data derived from it can be invalidated
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return true if the route changed since the last route calculation
+	 */
+	public boolean isRouteChanged() {
+		return routeChanged;
+	}
+
+	/**
+	 * @return the lowest node index changed since the last route calculation,
+	 *         only valid if {@link #isRouteChanged()}
+	 */
+	public int getFirstChangedIndex() {
+		return firstChangedIndex;
+	}
+
+	/**
+	 * Called by the route calculation when the evaluation is up to date.
+	 * 
+	 * @param evaluation
+	 *            the evaluation of the current node sequence
+	 */
+	public void setEvaluation(RouteEvaluation evaluation) {
+		this.evaluation = evaluation;
+		this.evaluationShared = false;
+		this.routeChanged = false;
+	}
+
+	/**
+	 * @return true if the cached evaluation is shared with a copy of this
+	 *         route and must be copied before it is updated
+	 */
+	public boolean isEvaluationShared() {
+		return evaluationShared;
+	}
+
+	/**
+	 * @return the cached evaluation of the last route calculation, may be
+	 *         outdated if {@link #isRouteChanged()}
+	 */
+	public RouteEvaluation getEvaluation() {
+		return evaluation;
+	}
+
+	/**
+	 * @return the real transportation costs
+	 */
+	public ICosts getTransportationCosts() {
+		return transportationCosts;
+	}
+
+	/**
+	 * @param transportationCosts
+	 *            the real transportation costs
+	 */
+	public void setTransportationCosts(ICosts transportationCosts) {
+		this.transportationCosts = transportationCosts;
+	}
+
+	/**
+	 * @return the costs caused by constraint violations
+	 */
+	public ICosts getConstraintCosts() {
+		return constraintCosts;
+	}
+
+	/**
+	 * @param constraintCosts
+	 *            the costs caused by constraint violations
+	 */
+	public void setConstraintCosts(ICosts constraintCosts) {
+		this.constraintCosts = constraintCosts;
+	}
+
+	@Override
+	public String toString() {
+		return "Route " + routeId + " " + nodes;
+	}
 }
@@ -1,5 +1,136 @@
 package shippingCore.model;
 
-public class Vehicle {
+import java.io.Serializable;
 
+import shippingCore.calculations.time.TimeWindow;
+import shippingCore.dao.ILocation;
+
+/**
+ * A truck servicing one route.
+ * 
+ */
+public class Vehicle implements Serializable {
+	private static final long serialVersionUID = 6035519254113425180L;
+
+	/** unique identifier of this vehicle */
+	private final long vehicleId;
+
+	/** the location where the vehicle starts */
+	private final ILocation homeLocation;
+
+	/** the time window within which the vehicle is available */
+	private final TimeWindow availability;
+
+	/** the maximum weight the vehicle can carry */
+	private final double capacityWeight;
+
+	/** costs per driven kilometer */
+	private final double costPerKilometer;
+
+	/** costs per hour driving */
+	private final double costPerHour;
+
+	/** costs for using the vehicle at all */
+	private final double fixCost;
+
+	/**
+	 * Creates a new vehicle.
+	 * 
+	 * @param vehicleId
+	 *            unique identifier of this vehicle
+	 * @param homeLocation
+	 *            the location where the vehicle starts
+	 * @param availability
+	 *            the time window within which the vehicle is available
+	 * @param capacityWeight
+	 *            the maximum weight the vehicle can carry
+	 * @param costPerKilometer
+	 *            costs per driven kilometer
+	 * @param costPerHour
+	 *            costs per hour driving
+	 * @param fixCost
+	 *            costs for using the vehicle at all
+	 */
+	public Vehicle(long vehicleId, ILocation homeLocation,
+			TimeWindow availability, double capacityWeight,
+			double costPerKilometer, double costPerHour, double fixCost) {
+		this.vehicleId = vehicleId;
+		this.homeLocation = homeLocation;
+		this.availability = availability;
+		this.capacityWeight = capacityWeight;
+		this.costPerKilometer = costPerKilometer;
+		this.costPerHour = costPerHour;
+		this.fixCost = fixCost;
+	}
+
+	/**
+	 * Copy constructor. The availability is copied, the home location is
+	 * shared.
+	 * 
+	 * @param other
+	 *            the vehicle to copy
+	 */
+	public Vehicle(Vehicle other) {
+		this.vehicleId = other.vehicleId;
+		this.homeLocation = other.homeLocation;
+		this.availability = new TimeWindow(other.availability);
+		this.capacityWeight = other.capacityWeight;
+		this.costPerKilometer = other.costPerKilometer;
+		this.costPerHour = other.costPerHour;
+		this.fixCost = other.fixCost;
+	}
+
+	/**
+	 * @return the unique identifier of this vehicle
+	 */
+	public long getVehicleId() {
+		return vehicleId;
+	}
+
+	/**
+	 * @return the location where the vehicle starts
+	 */
+	public ILocation getHomeLocation() {
+		return homeLocation;
+	}
+
+	/**
+	 * @return the time window within which the vehicle is available
+	 */
+	public TimeWindow getAvailability() {
+		return availability;
+	}
+
+	/**
+	 * @return the maximum weight the vehicle can carry
+	 */
+	public double getCapacityWeight() {
+		return capacityWeight;
+	}
+
+	/**
+	 * @return costs per driven kilometer
+	 */
+	public double getCostPerKilometer() {
+		return costPerKilometer;
+	}
+
+	/**
+	 * @return costs per hour driving
+	 */
+	public double getCostPerHour() {
+		return costPerHour;
+	}
+
+	/**
+	 * @return costs for using the vehicle at all
+	 */
+	public double getFixCost() {
+		return fixCost;
+	}
+
+	@Override
+	public String toString() {
+		return "Vehicle " + vehicleId;
+	}
 }